@@ -32,6 +32,47 @@ class DefaultContent implements StyledTextContent {
 	int lineCount = 0;	// the number of lines of text	
 	int expandExp = 1; 	// the expansion exponent, used to increase the lines array exponentially
 	int replaceExpandExp = 1; 	// the expansion exponent, used to increase the lines array exponentially
+	boolean textShared;	// whether a snapshot references textStore, which must then be copied before it is written
+
+	/**
+	 * A read only view of the text at the time it was created. The
+	 * view shares the text store, which the content copies before
+	 * writing into it again.
+	 */
+	static final class Snapshot implements CharSequence {
+		final char[] text;
+		final int start, length, gapStart, gapLength;
+
+		Snapshot(char[] text, int start, int length, int gapStart, int gapLength) {
+			this.text = text;
+			this.start = start;
+			this.length = length;
+			this.gapStart = gapStart;
+			this.gapLength = gapLength;
+		}
+		public char charAt(int index) {
+			if (index < 0 || index >= length) throw new IndexOutOfBoundsException();
+			index += start;
+			return text[index < gapStart ? index : index + gapLength];
+		}
+		public int length() {
+			return length;
+		}
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || end > length || start > end) throw new IndexOutOfBoundsException();
+			return new Snapshot(text, this.start + start, end - start, gapStart, gapLength);
+		}
+		public String toString() {
+			int end = start + length;
+			if (end <= gapStart || start >= gapStart) {
+				return new String(text, start < gapStart ? start : start + gapLength, length);
+			}
+			StringBuffer buffer = new StringBuffer(length);
+			buffer.append(text, start, gapStart - start);
+			buffer.append(text, gapStart + gapLength, end - gapStart);
+			return buffer.toString();
+		}
+	}
 
 /** 
  * Creates a new DefaultContent and initializes it.  A <code>StyledTextContent</> will always have
@@ -280,6 +321,10 @@ void insert(int position, String text) {
 	if (change > 0) {
 		// shrink gap 
 		gapStart += (change);
+		if (textShared) {
+			textStore = textStore.clone();
+			textShared = false;
+		}
 		for (int i = 0; i < text.length(); i++) {
 			textStore[position + i]= text.charAt(i);
 		}
@@ -357,6 +402,7 @@ void moveAndResizeGap(int position, int size, int newGapLine) {
 			System.arraycopy(textStore, 0, content, 0, gapStart);
 			System.arraycopy(textStore, gapEnd, content, gapStart, content.length - gapStart);
 			textStore = content;
+			textShared = false;
 		}
 		gapStart = gapEnd = position;
 		return;
@@ -379,6 +425,7 @@ void moveAndResizeGap(int position, int size, int newGapLine) {
 		System.arraycopy(textStore, gapEnd + delta, content, newGapEnd, content.length - newGapEnd);
 	}
 	textStore = content;
+	textShared = false;
 	gapStart = newGapStart;
 	gapEnd = newGapEnd;
 	
@@ -718,6 +765,18 @@ public String getTextRange(int start, int length) {
 	buf.append(textStore, gapEnd, end - gapStart);
 	return buf.toString();
 }
+/**
+ * Returns a view of the current text that is not affected by later
+ * changes. The text is not copied; the text store is copied instead
+ * when it is next written to.
+ *
+ * @return the text
+ */
+CharSequence snapshot() {
+	textShared = true;
+	int gapLength = gapExists() ? gapEnd - gapStart : 0;
+	return new Snapshot(textStore, 0, getCharCount(), gapExists() ? gapStart : textStore.length, gapLength);
+}
 /**
  * Removes the specified <code>TextChangeListener</code>.
  * <p>
@@ -806,6 +865,7 @@ void sendTextEvent(StyledTextEvent event) {
  */
 public void setText (String text){
 	textStore = text.toCharArray();
+	textShared = false;
 	gapStart = -1;
 	gapEnd = -1;
 	expandExp = 1;
@@ -0,0 +1,749 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.custom;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.Vector;
+
+import org.eclipse.swt.*;
+import org.eclipse.swt.widgets.*;
+
+/**
+ * A read-only <code>StyledTextContent</code> that shows the contents of a
+ * file without loading it into memory.
+ * <p>
+ * The file is memory mapped and lines are only decoded when the widget asks
+ * for them. The line index is built by a background thread and the indexed
+ * text is appended to the content in the user-interface thread as indexing
+ * progresses, so that very large files can be shown immediately. Only the
+ * start of every 64th line is kept in memory.
+ * </p><p>
+ * Files that grow, like logs, can be followed by calling <code>refresh()</code>,
+ * which appends the new text to the content. When the file has been truncated,
+ * <code>refresh()</code> removes the lines that may reach past the new end of
+ * the file and indexes the rest of the file again. The content must be refreshed before it is
+ * read once the file has been truncated. A trailing \r or an incomplete
+ * character at the end of the file is not shown until the file grows or is
+ * refreshed past it. The content is limited to <code>Integer.MAX_VALUE</code>
+ * characters, the rest of the file is ignored.
+ * </p><p>
+ * The file must be encoded in UTF-8 or ISO-8859-1. Malformed UTF-8 sequences,
+ * including overlong forms and encoded surrogates, are shown as U+FFFD.
+ * </p><p>
+ * The content cannot be modified, <code>setText</code> and
+ * <code>replaceTextRange</code> throw an exception. Widgets using it should
+ * not be editable. The content must be disposed when it is no longer needed.
+ * </p>
+ *
+ * @see StyledText#setContent(StyledTextContent)
+ * @see <a href="http://www.eclipse.org/swt/">Sample code and further information</a>
+ *
+ * @since 3.103
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class MappedFileContent implements StyledTextContent {
+	private final static String LineDelimiter = System.getProperty("line.separator");
+	static final int BLOCK_SHIFT = 6;	// the start of every 64th line is indexed
+	static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	static final int REGION_SHIFT = 30;	// the file is mapped in regions of 1GB
+	static final int CACHE_SIZE = 16;	// the number of decoded blocks kept
+	static final int BATCH_SIZE = 8 << 20;	// the number of bytes indexed before publishing
+
+	Display display;
+	RandomAccessFile file;
+	FileChannel channel;
+	boolean utf8;
+	Vector textListeners = new Vector(); // stores text listeners for event sending
+	volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+	volatile boolean disposed;
+
+	/* The published content, only accessed in the user-interface thread */
+	int charCount, lineCount = 1;
+	long byteCount;
+	long[] blockBytes = new long[] {0};	// the byte offset of every 64th line
+	int[] blockChars = new int[] {0};	// the char offset of every 64th line
+	int[] cacheBlock = new int[CACHE_SIZE];
+	long[][] cacheBytes = new long[CACHE_SIZE][BLOCK_SIZE + 1];
+	int[][] cacheChars = new int[CACHE_SIZE][BLOCK_SIZE + 1];
+	int cacheNext;
+
+	/* The state of the indexer, only accessed in the indexer thread */
+	long scanPosition, scanLineByte;
+	int scanLineChar, scanLines;
+	long[] scanBlockBytes = new long[] {0};
+	int[] scanBlockChars = new int[] {0};
+	boolean truncated;
+	int scanGeneration;
+
+	/* Shared between the threads, guarded by this */
+	long limit, indexedLimit;
+	boolean indexing, publishing;
+	volatile int generation;	// incremented when the file is truncated
+	long resumeByte;	// the line the indexer restarts from after a truncation
+	int resumeChar, resumeLine;
+
+/**
+ * Creates a new content showing the given file and starts indexing it.
+ * Text is added to the content in the user-interface thread of the given
+ * display as the file is indexed.
+ *
+ * @param display the display used to publish the indexed text
+ * @param fileName the name of the file
+ * @param charset the encoding of the file, either "UTF-8" or "ISO-8859-1"
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if any argument is null</li>
+ *    <li>ERROR_INVALID_ARGUMENT - if the charset is not supported</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_IO - if an IO error occurs while opening or mapping the file</li>
+ * </ul>
+ */
+public MappedFileContent(Display display, String fileName, String charset) {
+	if (display == null || fileName == null || charset == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	if (charset.equalsIgnoreCase("UTF-8")) {
+		utf8 = true;
+	} else if (!charset.equalsIgnoreCase("ISO-8859-1")) {
+		SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	}
+	this.display = display;
+	for (int i = 0; i < CACHE_SIZE; i++) cacheBlock[i] = -1;
+	try {
+		file = new RandomAccessFile(fileName, "r");
+		channel = file.getChannel();
+	} catch (IOException e) {
+		SWT.error(SWT.ERROR_IO, e);
+	}
+	refresh();
+}
+/**
+ * Adds a <code>TextChangeListener</code> listening for
+ * <code>TextChangingEvent</code> and <code>TextChangedEvent</code>.
+ * The events are sent when indexed text is appended to the content.
+ *
+ * @param listener the listener
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT when listener is null</li>
+ * </ul>
+ */
+public void addTextChangeListener(TextChangeListener listener) {
+	if (listener == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	StyledTextListener typedListener = new StyledTextListener(listener);
+	textListeners.addElement(typedListener);
+}
+/**
+ * Decodes a range of the file. The range must start at a character
+ * boundary.
+ *
+ * @param start the byte offset of the range
+ * @param end the end of the range, exclusive
+ * @param dest the destination array or null to only count characters
+ * @param destPos the position in the destination to decode to
+ * @return the number of characters of the range
+ */
+int decode(MappedByteBuffer[] buffers, long start, long end, char[] dest, int destPos) {
+	int count = 0;
+	if (!utf8) {
+		if (dest != null) {
+			for (long i = start; i < end; i++) {
+				dest[destPos + count++] = (char)(get(buffers, i) & 0xFF);
+			}
+		}
+		return (int)(end - start);
+	}
+	long i = start;
+	while (i < end) {
+		int b = get(buffers, i) & 0xFF;
+		if (b < 0x80) {
+			if (dest != null) dest[destPos + count] = (char)b;
+			count++;
+			i++;
+			continue;
+		}
+		int n = b >= 0xF5 ? -1 : b >= 0xF0 ? 3 : b >= 0xE0 ? 2 : b >= 0xC2 ? 1 : -1;
+		int codePoint = 0xFFFD;
+		int j = 1;
+		if (n > 0) {
+			int value = b & (0x3F >> n);
+			/* reject overlong forms, encoded surrogates and values above U+10FFFF at the second byte */
+			int low = b == 0xE0 ? 0xA0 : b == 0xF0 ? 0x90 : 0x80;
+			int high = b == 0xED ? 0x9F : b == 0xF4 ? 0x8F : 0xBF;
+			while (j <= n && i + j < end) {
+				int next = get(buffers, i + j) & 0xFF;
+				if (next < low || next > high) break;
+				value = (value << 6) | (next & 0x3F);
+				low = 0x80;
+				high = 0xBF;
+				j++;
+			}
+			if (j > n) codePoint = value;
+		}
+		i += j;
+		if (codePoint >= 0x10000) {
+			if (dest != null) {
+				codePoint -= 0x10000;
+				dest[destPos + count] = (char)(0xD800 + (codePoint >> 10));
+				dest[destPos + count + 1] = (char)(0xDC00 + (codePoint & 0x3FF));
+			}
+			count += 2;
+		} else {
+			if (dest != null) dest[destPos + count] = (char)codePoint;
+			count++;
+		}
+	}
+	return count;
+}
+/**
+ * Stops indexing and closes the file. The content keeps answering the
+ * text indexed so far.
+ */
+public void dispose() {
+	synchronized (this) {
+		if (disposed) return;
+		disposed = true;
+		notifyAll();
+	}
+	try {
+		file.close();
+	} catch (IOException e) {
+		// Ignore error
+	}
+}
+byte get(MappedByteBuffer[] buffers, long position) {
+	return buffers[(int)(position >>> REGION_SHIFT)].get((int)(position & ((1 << REGION_SHIFT) - 1)));
+}
+/**
+ * Returns the cache slot holding the line offsets of the given block,
+ * decoding them if necessary.
+ *
+ * @param block the index of the block
+ * @return the cache slot
+ */
+int getBlock(int block) {
+	for (int i = 0; i < CACHE_SIZE; i++) {
+		if (cacheBlock[i] == block) return i;
+	}
+	int slot = cacheNext;
+	cacheNext = (cacheNext + 1) % CACHE_SIZE;
+	MappedByteBuffer[] buffers = regions;
+	long[] bytes = cacheBytes[slot];
+	int[] chars = cacheChars[slot];
+	int first = block << BLOCK_SHIFT;
+	int count = Math.min(BLOCK_SIZE, lineCount - first);
+	long position = blockBytes[block];
+	int offset = blockChars[block];
+	bytes[0] = position;
+	chars[0] = offset;
+	for (int i = 1; i <= count; i++) {
+		if (first + i == lineCount) {
+			bytes[i] = byteCount;
+			chars[i] = charCount;
+			break;
+		}
+		long lineStart = position;
+		byte b = get(buffers, position);
+		while (b != SWT.CR && b != SWT.LF) {
+			b = get(buffers, ++position);
+		}
+		long delimiterStart = position++;
+		if (b == SWT.CR && position < byteCount && get(buffers, position) == SWT.LF) position++;
+		offset += decode(buffers, lineStart, delimiterStart, null, 0) + (int)(position - delimiterStart);
+		bytes[i] = position;
+		chars[i] = offset;
+	}
+	cacheBlock[slot] = block;
+	return slot;
+}
+/**
+ * @return the number of characters indexed so far
+ */
+public int getCharCount() {
+	return charCount;
+}
+/**
+ * Returns the line at <code>index</code> without delimiters.
+ *
+ * @param index	the index of the line to return
+ * @return the line text without delimiters
+ * @exception IllegalArgumentException <ul>
+ *   <li>ERROR_INVALID_ARGUMENT when index is out of range</li>
+ * </ul>
+ */
+public String getLine(int index) {
+	if ((index >= lineCount) || (index < 0)) SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	int slot = getBlock(index >> BLOCK_SHIFT);
+	int i = index & (BLOCK_SIZE - 1);
+	MappedByteBuffer[] buffers = regions;
+	long start = cacheBytes[slot][i], end = cacheBytes[slot][i + 1];
+	while (end > start) {
+		byte b = get(buffers, end - 1);
+		if (b != SWT.CR && b != SWT.LF) break;
+		end--;
+	}
+	char[] text = new char[cacheChars[slot][i + 1] - cacheChars[slot][i]];
+	int length = decode(buffers, start, end, text, 0);
+	return new String(text, 0, length);
+}
+/**
+ * Returns the line index at the given offset.
+ *
+ * @param offset character offset
+ * @return the line index
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_INVALID_ARGUMENT when offset is out of range</li>
+ * </ul>
+ */
+public int getLineAtOffset(int offset) {
+	if ((offset > charCount) || (offset < 0)) SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	int low = 0, high = ((lineCount - 1) >> BLOCK_SHIFT) + 1;
+	while (high - low > 1) {
+		int mid = (low + high) >>> 1;
+		if (blockChars[mid] <= offset) {
+			low = mid;
+		} else {
+			high = mid;
+		}
+	}
+	int block = low;
+	if (blockChars[block] == offset) return block << BLOCK_SHIFT;
+	int slot = getBlock(block);
+	int[] chars = cacheChars[slot];
+	low = 0;
+	high = Math.min(BLOCK_SIZE, lineCount - (block << BLOCK_SHIFT));
+	while (high - low > 1) {
+		int mid = (low + high) >>> 1;
+		if (chars[mid] <= offset) {
+			low = mid;
+		} else {
+			high = mid;
+		}
+	}
+	return (block << BLOCK_SHIFT) + low;
+}
+/**
+ * @return the number of lines indexed so far
+ */
+public int getLineCount() {
+	return lineCount;
+}
+/**
+ * Returns the line delimiter that should be used by the StyledText
+ * widget when inserting new lines.
+ *
+ * @return the platform line delimiter as specified in the line.separator
+ * 	system property.
+ */
+public String getLineDelimiter() {
+	return LineDelimiter;
+}
+/**
+ * Returns the offset of the given line.
+ *
+ * @param lineIndex index of line
+ * @return the starting offset of the line.
+ * @exception IllegalArgumentException <ul>
+ *   <li>ERROR_INVALID_ARGUMENT when lineIndex is out of range</li>
+ * </ul>
+ */
+public int getOffsetAtLine(int lineIndex) {
+	if (lineIndex == 0) return 0;
+	if ((lineIndex >= lineCount) || (lineIndex < 0)) SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	int slot = getBlock(lineIndex >> BLOCK_SHIFT);
+	return cacheChars[slot][lineIndex & (BLOCK_SIZE - 1)];
+}
+/**
+ * Returns a string representing the content at the given range.
+ *
+ * @param start the start offset of the text to return
+ * @param length the length of the text to return
+ * @return the text at the given range
+ */
+public String getTextRange(int start, int length) {
+	if (length == 0) return "";
+	MappedByteBuffer[] buffers = regions;
+	char[] text = new char[length];
+	int count = 0;
+	int line = getLineAtOffset(start);
+	int skip = start - getOffsetAtLine(line);
+	while (count < length) {
+		int slot = getBlock(line >> BLOCK_SHIFT);
+		int i = line & (BLOCK_SIZE - 1);
+		long lineStart = cacheBytes[slot][i], lineEnd = cacheBytes[slot][i + 1];
+		int lineLength = cacheChars[slot][i + 1] - cacheChars[slot][i];
+		if (skip == 0 && lineLength <= length - count) {
+			decode(buffers, lineStart, lineEnd, text, count);
+			count += lineLength;
+		} else {
+			char[] lineText = new char[lineLength];
+			decode(buffers, lineStart, lineEnd, lineText, 0);
+			int n = Math.min(lineLength - skip, length - count);
+			System.arraycopy(lineText, skip, text, count, n);
+			count += n;
+		}
+		skip = 0;
+		line++;
+	}
+	return new String(text);
+}
+/**
+ * Indexes the file up to the current limit, then until the limit no
+ * longer changes. Runs in the indexer thread.
+ */
+void index() {
+	while (true) {
+		long end;
+		MappedByteBuffer[] buffers;
+		synchronized (this) {
+			if (disposed || indexedLimit == limit) {
+				indexing = false;
+				return;
+			}
+			end = limit;
+			buffers = regions;
+			if (scanGeneration != generation) {
+				scanGeneration = generation;
+				resume(resumeByte, resumeChar, resumeLine);
+			}
+		}
+		try {
+			if (!truncated) {
+				scan(buffers, end);
+				post(buffers, end, true);
+			}
+		} catch (InternalError e) {
+			/*
+			* Feature in Java.  Reading a mapped region past the end of a
+			* file that has been truncated raises SIGBUS, which is reported
+			* as an InternalError.  The fix is to stop indexing until the
+			* content is refreshed.
+			*/
+			synchronized (this) {
+				indexedLimit = limit;
+				indexing = false;
+				return;
+			}
+		}
+		synchronized (this) {
+			if (scanGeneration == generation) indexedLimit = end;
+		}
+	}
+}
+/**
+ * Maps the file up to the given size, reusing the complete regions
+ * that are already mapped and lie within the given size.
+ */
+void map(long size) throws IOException {
+	MappedByteBuffer[] buffers = regions;
+	int count = size == 0 ? 0 : (int)((size - 1) >>> REGION_SHIFT) + 1;
+	MappedByteBuffer[] newBuffers = new MappedByteBuffer[count];
+	int reuse = 0;
+	while (reuse < Math.min(buffers.length, count) && buffers[reuse].capacity() == 1 << REGION_SHIFT && ((long)(reuse + 1) << REGION_SHIFT) <= size) reuse++;
+	System.arraycopy(buffers, 0, newBuffers, 0, reuse);
+	for (int i = reuse; i < count; i++) {
+		long start = (long)i << REGION_SHIFT;
+		long length = Math.min(1 << REGION_SHIFT, size - start);
+		newBuffers[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+	}
+	regions = newBuffers;
+}
+/**
+ * Posts the text indexed so far to the user-interface thread, waiting
+ * until the text posted before has been published.
+ *
+ * @param buffers the regions mapped up to the end
+ * @param end the end of the mapped bytes
+ * @param all whether to include the incomplete line at the end
+ */
+void post(MappedByteBuffer[] buffers, long end, boolean all) {
+	long bytes = scanLineByte;
+	int chars = scanLineChar;
+	if (all) {
+		long safeEnd = end;
+		if (scanPosition < end) safeEnd = scanPosition;	// a trailing \r
+		if (utf8) {
+			for (long i = safeEnd - 1; i >= Math.max(bytes, safeEnd - 4); i--) {
+				int b = get(buffers, i) & 0xFF;
+				if ((b & 0xC0) == 0x80) continue;
+				int n = b >= 0xF5 ? 0 : b >= 0xF0 ? 3 : b >= 0xE0 ? 2 : b >= 0xC2 ? 1 : 0;
+				if (i + n >= safeEnd) safeEnd = i;
+				break;
+			}
+		}
+		long total = (long)chars + decode(buffers, bytes, safeEnd, null, 0);
+		if (total <= Integer.MAX_VALUE) {
+			bytes = safeEnd;
+			chars = (int)total;
+		}
+	}
+	final long newByteCount = bytes;
+	final int newCharCount = chars;
+	final int newLineCount = scanLines + 1;
+	final long[] newBlockBytes = scanBlockBytes;
+	final int[] newBlockChars = scanBlockChars;
+	final int postGeneration = scanGeneration;
+	synchronized (this) {
+		while (publishing && !disposed) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				// Ignore error
+			}
+		}
+		if (disposed || postGeneration != generation) return;
+		publishing = true;
+	}
+	try {
+		display.asyncExec(new Runnable() {
+			public void run() {
+				publish(postGeneration, newByteCount, newCharCount, newLineCount, newBlockBytes, newBlockChars);
+			}
+		});
+	} catch (SWTException e) {
+		// the display has been disposed
+		dispose();
+	}
+}
+/**
+ * Appends the posted text to the content. Runs in the user-interface
+ * thread.
+ */
+void publish(int postGeneration, long newByteCount, int newCharCount, int newLineCount, long[] newBlockBytes, int[] newBlockChars) {
+	try {
+		if (disposed || postGeneration != generation) return;
+		int newChars = newCharCount - charCount;
+		if (newChars == 0) {
+			byteCount = newByteCount;
+			return;
+		}
+		StyledTextEvent event = new StyledTextEvent(this);
+		event.type = ST.TextChanging;
+		event.start = charCount;
+		event.text = "";
+		event.newCharCount = newChars;
+		event.newLineCount = newLineCount - lineCount;
+		sendTextEvent(event);
+		int lastBlock = (lineCount - 1) >> BLOCK_SHIFT;
+		for (int i = 0; i < CACHE_SIZE; i++) {
+			if (cacheBlock[i] >= lastBlock) cacheBlock[i] = -1;
+		}
+		byteCount = newByteCount;
+		charCount = newCharCount;
+		lineCount = newLineCount;
+		blockBytes = newBlockBytes;
+		blockChars = newBlockChars;
+		event = new StyledTextEvent(this);
+		event.type = ST.TextChanged;
+		sendTextEvent(event);
+	} finally {
+		synchronized (this) {
+			publishing = false;
+			notifyAll();
+		}
+	}
+}
+/**
+ * Checks whether the file has grown and indexes the new text in the
+ * background. The new text is appended to the content in the
+ * user-interface thread. When the file has been truncated, the lines
+ * that reach past the new end of the file are removed from the content
+ * and the rest of the file is indexed again.
+ *
+ * @exception SWTException <ul>
+ *    <li>ERROR_IO - if an IO error occurs while mapping the file</li>
+ * </ul>
+ */
+public void refresh() {
+	if (disposed) return;
+	long size = 0;
+	boolean shrunk;
+	synchronized (this) {
+		try {
+			size = channel.size();
+			if (size == limit) return;
+			map(size);
+		} catch (IOException e) {
+			SWT.error(SWT.ERROR_IO, e);
+		}
+		shrunk = size < limit;
+		if (shrunk) truncate(size);
+		limit = size;
+	}
+	if (shrunk) removeLines();
+	synchronized (this) {
+		if (indexing) return;
+		indexing = true;
+	}
+	Thread thread = new Thread(new Runnable() {
+		public void run() {
+			index();
+		}
+	}, "MappedFileContent indexer");
+	thread.setDaemon(true);
+	thread.start();
+}
+/**
+ * Removes the specified <code>TextChangeListener</code>.
+ *
+ * @param listener the listener which should no longer be notified
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT when listener is null</li>
+ * </ul>
+ */
+public void removeTextChangeListener(TextChangeListener listener) {
+	if (listener == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	for (int i = 0; i < textListeners.size(); i++) {
+		TypedListener typedListener = (TypedListener) textListeners.elementAt(i);
+		if (typedListener.getEventListener () == listener) {
+			textListeners.removeElementAt(i);
+			break;
+		}
+	}
+}
+/**
+ * Removes the lines after the line the indexer restarts from when the
+ * file has been truncated. Runs in the user-interface thread.
+ */
+void removeLines() {
+	if (charCount == resumeChar && lineCount == resumeLine + 1) {
+		byteCount = resumeByte;
+		return;
+	}
+	StyledTextEvent event = new StyledTextEvent(this);
+	event.type = ST.TextChanging;
+	event.start = resumeChar;
+	event.text = "";
+	event.replaceCharCount = charCount - resumeChar;
+	event.replaceLineCount = lineCount - 1 - resumeLine;
+	sendTextEvent(event);
+	byteCount = resumeByte;
+	charCount = resumeChar;
+	lineCount = resumeLine + 1;
+	event = new StyledTextEvent(this);
+	event.type = ST.TextChanged;
+	sendTextEvent(event);
+}
+/**
+ * The content is read-only, this method always throws an exception.
+ *
+ * @exception IllegalArgumentException <ul>
+ *   <li>ERROR_INVALID_ARGUMENT - always, the content cannot be modified</li>
+ * </ul>
+ */
+public void replaceTextRange(int start, int replaceLength, String text) {
+	SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+}
+/**
+ * Restarts the indexer at the given line, keeping the index of the
+ * lines before it. Runs in the indexer thread.
+ */
+void resume(long lineByte, int lineChar, int line) {
+	scanPosition = scanLineByte = lineByte;
+	scanLineChar = lineChar;
+	scanLines = line;
+	truncated = false;
+	int blocks = (line >> BLOCK_SHIFT) + 1;
+	long[] newBytes = new long[blocks * 2];
+	System.arraycopy(scanBlockBytes, 0, newBytes, 0, blocks);
+	scanBlockBytes = newBytes;
+	int[] newChars = new int[blocks * 2];
+	System.arraycopy(scanBlockChars, 0, newChars, 0, blocks);
+	scanBlockChars = newChars;
+}
+/**
+ * Scans the file for complete lines up to the given end, posting the
+ * lines found after every batch.
+ *
+ * @param buffers the regions mapped up to the end
+ * @param end the end of the mapped bytes
+ */
+void scan(MappedByteBuffer[] buffers, long end) {
+	long position = scanPosition;
+	long lastPost = position;
+	while (position < end && !disposed && scanGeneration == generation) {
+		byte b = get(buffers, position);
+		if (b != SWT.CR && b != SWT.LF) {
+			position++;
+			continue;
+		}
+		long delimiterEnd = position + 1;
+		if (b == SWT.CR) {
+			// cannot tell \r from \r\n yet
+			if (delimiterEnd == end) break;
+			if (get(buffers, delimiterEnd) == SWT.LF) delimiterEnd++;
+		}
+		long chars = (long)scanLineChar + decode(buffers, scanLineByte, position, null, 0) + (delimiterEnd - position);
+		if (chars > Integer.MAX_VALUE) {
+			truncated = true;
+			break;
+		}
+		scanLines++;
+		scanLineByte = position = delimiterEnd;
+		scanLineChar = (int)chars;
+		if ((scanLines & (BLOCK_SIZE - 1)) == 0) {
+			int block = scanLines >> BLOCK_SHIFT;
+			if (block == scanBlockBytes.length) {
+				long[] newBytes = new long[block * 2];
+				System.arraycopy(scanBlockBytes, 0, newBytes, 0, block);
+				scanBlockBytes = newBytes;
+				int[] newChars = new int[block * 2];
+				System.arraycopy(scanBlockChars, 0, newChars, 0, block);
+				scanBlockChars = newChars;
+			}
+			scanBlockBytes[block] = scanLineByte;
+			scanBlockChars[block] = scanLineChar;
+		}
+		if (position - lastPost >= BATCH_SIZE) {
+			scanPosition = position;
+			post(buffers, end, false);
+			lastPost = position;
+		}
+	}
+	scanPosition = position;
+}
+/**
+ * Sends the text listeners the given event.
+ */
+void sendTextEvent(StyledTextEvent event) {
+	for (int i = 0; i < textListeners.size(); i++) {
+		((StyledTextListener)textListeners.elementAt(i)).handleEvent(event);
+	}
+}
+/**
+ * The content is read-only, this method always throws an exception.
+ *
+ * @exception IllegalArgumentException <ul>
+ *   <li>ERROR_INVALID_ARGUMENT - always, the content cannot be modified</li>
+ * </ul>
+ */
+public void setText(String text) {
+	SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+}
+/**
+ * Makes the indexer restart at the last indexed block of lines that
+ * starts within the given size of the file, after the file has been
+ * truncated. Runs in the user-interface thread with the lock held.
+ */
+void truncate(long size) {
+	int block = (lineCount - 1) >> BLOCK_SHIFT;
+	while (blockBytes[block] > size) block--;
+	generation++;
+	indexedLimit = -1;
+	resumeByte = blockBytes[block];
+	resumeChar = blockChars[block];
+	resumeLine = block << BLOCK_SHIFT;
+	for (int i = 0; i < CACHE_SIZE; i++) {
+		if (cacheBlock[i] >= block) cacheBlock[i] = -1;
+	}
+}
+}
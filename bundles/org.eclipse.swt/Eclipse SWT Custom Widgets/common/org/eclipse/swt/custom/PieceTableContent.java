@@ -0,0 +1,805 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.custom;
+
+import org.eclipse.swt.*;
+import org.eclipse.swt.widgets.*;
+
+import java.util.Vector;
+
+/**
+ * A <code>StyledTextContent</code> implementation suited for very large
+ * documents.
+ * <p>
+ * The text passed to <code>setText</code> is kept as is and never copied.
+ * Edits are appended to a separate buffer and the document is described by
+ * a balanced tree of pieces referring to either buffer. Every node of the
+ * tree knows the number of characters and line delimiters in its subtree,
+ * so that mapping offsets to lines, lines to offsets and replacing text
+ * take logarithmic time in the number of pieces, no matter where in the
+ * document the change occurs.
+ * </p><p>
+ * The content handles the <code>\r</code>, <code>\n</code> and
+ * <code>\r\n</code> line delimiters. Like the default content of
+ * <code>StyledText</code>, it does not allow a <code>\r\n</code> line
+ * delimiter to be split or partially deleted.
+ * </p>
+ * <p>
+ * To use it, set an instance on the widget with
+ * <code>StyledText.setContent(StyledTextContent)</code>.
+ * </p>
+ *
+ * @see StyledText#setContent(StyledTextContent)
+ * @see <a href="http://www.eclipse.org/swt/">Sample code and further information</a>
+ *
+ * @since 3.103
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class PieceTableContent implements StyledTextContent {
+	private final static String LineDelimiter = System.getProperty("line.separator");
+
+	Vector textListeners = new Vector(); // stores text listeners for event sending
+	String original = "";	// the text set with setText, never modified
+	int[] originalBreaks = new int[0];	// the positions of the line delimiters in original
+	int originalBreakCount;
+	char[] added = new char[256];	// append only store for inserted text
+	int addedLength;
+	int[] addedBreaks = new int[32];	// the positions of the line delimiters in added
+	int addedBreakCount;
+	Piece root;	// the root of the piece tree, null when the content is empty
+	int seed = 0x2F6B3D51;	// state of the priority generator
+	Piece splitLeft, splitRight;	// results of the last split
+
+	/*
+	 * A piece refers to a range of either the original or the added
+	 * store. Pieces form a treap ordered by document position, each node
+	 * caching the character and delimiter counts of its subtree.
+	 *
+	 * The position of a line delimiter is the position of its last
+	 * character, i.e. the \n of a \r\n. Pieces never split a \r\n that is
+	 * contiguous in their store, and no two adjacent pieces ever form a
+	 * \r\n, so the number of delimiters of a piece is simply the number
+	 * of delimiter positions in its range.
+	 */
+	static class Piece {
+		boolean added;	// the store the piece refers to
+		int start;	// the start of the piece in its store
+		int length;	// the number of characters of the piece
+		int breaks;	// the number of line delimiters in the piece
+		int priority;
+		Piece left, right;
+		int size;	// the number of characters in the subtree
+		int lineBreaks;	// the number of line delimiters in the subtree
+	}
+
+	/*
+	 * A read only view of the text at the time it was created. Both
+	 * stores are never written below their current length, so the
+	 * view only copies the list of pieces. Characters are usually read
+	 * in order, so the piece of the last read is tried first.
+	 */
+	static final class Snapshot implements CharSequence {
+		final String original;
+		final char[] added;
+		final int[] offsets;	// the document offset of every piece, followed by the length
+		final int[] starts;	// the start of every piece in its store
+		final boolean[] inAdded;
+		int current;
+
+		Snapshot(String original, char[] added, int[] offsets, int[] starts, boolean[] inAdded) {
+			this.original = original;
+			this.added = added;
+			this.offsets = offsets;
+			this.starts = starts;
+			this.inAdded = inAdded;
+		}
+		public char charAt(int index) {
+			int[] offsets = this.offsets;
+			int count = starts.length;
+			if (index < 0 || index >= offsets[count]) throw new IndexOutOfBoundsException();
+			int i = current;
+			if (index < offsets[i] || index >= offsets[i + 1]) {
+				int low = 0, high = count - 1;
+				while (low < high) {
+					int mid = (low + high + 1) >>> 1;
+					if (offsets[mid] <= index) {
+						low = mid;
+					} else {
+						high = mid - 1;
+					}
+				}
+				current = i = low;
+			}
+			index += starts[i] - offsets[i];
+			return inAdded[i] ? added[index] : original.charAt(index);
+		}
+		public int length() {
+			return offsets[starts.length];
+		}
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || end > length() || start > end) throw new IndexOutOfBoundsException();
+			StringBuffer buffer = new StringBuffer(end - start);
+			for (int i = start; i < end; i++) {
+				buffer.append(charAt(i));
+			}
+			return buffer.toString();
+		}
+		public String toString() {
+			return subSequence(0, length()).toString();
+		}
+	}
+
+/**
+ * Creates a new <code>PieceTableContent</code> and initializes it. A
+ * <code>StyledTextContent</code> will always have at least one empty line.
+ */
+public PieceTableContent() {
+	super();
+	setText("");
+}
+/**
+ * Adds a line delimiter position to the end of the given array.
+ * Increases the size of the array if necessary.
+ *
+ * @param breaks the delimiter positions
+ * @param count the number of positions in the array
+ * @param position the position to add
+ * @return the array holding the positions
+ */
+int[] addBreak(int[] breaks, int count, int position) {
+	if (count == breaks.length) {
+		int[] newBreaks = new int[Math.max(16, count * 2)];
+		System.arraycopy(breaks, 0, newBreaks, 0, count);
+		breaks = newBreaks;
+	}
+	breaks[count] = position;
+	return breaks;
+}
+/**
+ * Adds a <code>TextChangeListener</code> listening for
+ * <code>TextChangingEvent</code> and <code>TextChangedEvent</code>. A
+ * <code>TextChangingEvent</code> is sent before changes to the text occur.
+ * A <code>TextChangedEvent</code> is sent after changes to the text
+ * occurred.
+ *
+ * @param listener the listener
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT when listener is null</li>
+ * </ul>
+ */
+public void addTextChangeListener(TextChangeListener listener) {
+	if (listener == null) error(SWT.ERROR_NULL_ARGUMENT);
+	StyledTextListener typedListener = new StyledTextListener(listener);
+	textListeners.addElement(typedListener);
+}
+/**
+ * Appends text to the added store and indexes its line delimiters.
+ *
+ * @param text the text to append, not empty
+ * @return the position of the text in the added store
+ */
+int append(String text) {
+	int length = text.length();
+	int required = addedLength + length + 1;
+	if (required > added.length) {
+		char[] newAdded = new char[Math.max(required, added.length * 2)];
+		System.arraycopy(added, 0, newAdded, 0, addedLength);
+		added = newAdded;
+	}
+	if (addedLength > 0 && added[addedLength - 1] == SWT.CR && text.charAt(0) == SWT.LF) {
+		// keep unrelated texts from forming a \r\n in the store
+		added[addedLength++] = 0;
+	}
+	int start = addedLength;
+	text.getChars(0, length, added, start);
+	addedLength += length;
+	for (int i = start; i < addedLength; i++) {
+		char ch = added[i];
+		if (ch == SWT.CR) {
+			if (i + 1 < addedLength && added[i + 1] == SWT.LF) continue;
+			addedBreaks = addBreak(addedBreaks, addedBreakCount++, i);
+		} else if (ch == SWT.LF) {
+			addedBreaks = addBreak(addedBreaks, addedBreakCount++, i);
+		}
+	}
+	return start;
+}
+/**
+ * Returns the character at the given offset.
+ *
+ * @param offset the offset, between 0 and the char count - 1
+ * @return the character
+ */
+char charAt(int offset) {
+	Piece piece = root;
+	while (piece != null) {
+		int leftSize = size(piece.left);
+		if (offset < leftSize) {
+			piece = piece.left;
+			continue;
+		}
+		offset -= leftSize;
+		if (offset < piece.length) {
+			int index = piece.start + offset;
+			return piece.added ? added[index] : original.charAt(index);
+		}
+		offset -= piece.length;
+		piece = piece.right;
+	}
+	return 0;
+}
+/**
+ * Returns the number of line delimiters in the given range of a store.
+ *
+ * @param inAdded whether the range is in the added or the original store
+ * @param start the start of the range
+ * @param end the end of the range, exclusive
+ * @return the number of line delimiters
+ */
+int countBreaks(boolean inAdded, int start, int end) {
+	if (start == end) return 0;
+	int[] breaks = inAdded ? addedBreaks : originalBreaks;
+	int count = inAdded ? addedBreakCount : originalBreakCount;
+	return indexOfBreak(breaks, count, end) - indexOfBreak(breaks, count, start);
+}
+/**
+ * Reports an SWT error.
+ *
+ * @param code the error code
+ */
+void error (int code) {
+	SWT.error(code);
+}
+/**
+ * Returns the number of line delimiters located before the given offset.
+ *
+ * @param offset the offset
+ * @return the number of line delimiters
+ */
+int getBreaksBefore(int offset) {
+	Piece piece = root;
+	int count = 0;
+	while (piece != null) {
+		int leftSize = size(piece.left);
+		if (offset <= leftSize) {
+			piece = piece.left;
+			continue;
+		}
+		count += lineBreaks(piece.left);
+		offset -= leftSize;
+		if (offset <= piece.length) {
+			return count + countBreaks(piece.added, piece.start, piece.start + offset);
+		}
+		count += piece.breaks;
+		offset -= piece.length;
+		piece = piece.right;
+	}
+	return count;
+}
+/**
+ * @return the number of characters in the content
+ */
+public int getCharCount() {
+	return size(root);
+}
+/**
+ * Copies the characters of a range of the given subtree into an array.
+ *
+ * @param piece the root of the subtree
+ * @param start the start of the range, relative to the subtree
+ * @param end the end of the range, relative to the subtree
+ * @param dest the destination array
+ * @param destPos the position in the destination to copy to
+ */
+void getChars(Piece piece, int start, int end, char[] dest, int destPos) {
+	while (piece != null && start < end) {
+		int leftSize = size(piece.left);
+		if (start < leftSize) {
+			int leftEnd = Math.min(end, leftSize);
+			getChars(piece.left, start, leftEnd, dest, destPos);
+			destPos += leftEnd - start;
+			start = leftEnd;
+			if (start == end) return;
+		}
+		int pieceEnd = leftSize + piece.length;
+		if (start < pieceEnd) {
+			int from = piece.start + start - leftSize;
+			int length = Math.min(end, pieceEnd) - start;
+			if (piece.added) {
+				System.arraycopy(added, from, dest, destPos, length);
+			} else {
+				original.getChars(from, from + length, dest, destPos);
+			}
+			destPos += length;
+			start += length;
+			if (start == end) return;
+		}
+		start -= pieceEnd;
+		end -= pieceEnd;
+		piece = piece.right;
+	}
+}
+/**
+ * Returns the line at <code>index</code> without delimiters.
+ *
+ * @param index	the index of the line to return
+ * @return the line text without delimiters
+ * @exception IllegalArgumentException <ul>
+ *   <li>ERROR_INVALID_ARGUMENT when index is out of range</li>
+ * </ul>
+ */
+public String getLine(int index) {
+	int lineCount = getLineCount();
+	if ((index >= lineCount) || (index < 0)) error(SWT.ERROR_INVALID_ARGUMENT);
+	int start = getOffsetAtLine(index);
+	int end = index + 1 < lineCount ? getOffsetAtLine(index + 1) : getCharCount();
+	while (end > start && isDelimiter(charAt(end - 1))) {
+		end--;
+	}
+	return getTextRange(start, end - start);
+}
+/**
+ * Returns the line index at the given offset.
+ *
+ * @param offset character offset
+ * @return the line index
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_INVALID_ARGUMENT when offset is out of range</li>
+ * </ul>
+ */
+public int getLineAtOffset(int offset) {
+	if ((offset > getCharCount()) || (offset < 0)) error(SWT.ERROR_INVALID_ARGUMENT);
+	return getBreaksBefore(offset);
+}
+/**
+ * @return the number of lines in the content
+ */
+public int getLineCount() {
+	return lineBreaks(root) + 1;
+}
+/**
+ * Returns the line delimiter that should be used by the StyledText
+ * widget when inserting new lines.  This delimiter may be different than the
+ * delimiter that is used by the <code>StyledTextContent</code> interface.
+ *
+ * @return the platform line delimiter as specified in the line.separator
+ * 	system property.
+ */
+public String getLineDelimiter() {
+	return LineDelimiter;
+}
+/**
+ * Returns the offset of the given line.
+ *
+ * @param lineIndex index of line
+ * @return the starting offset of the line.  When there are not any lines,
+ * 	getOffsetAtLine(0) is a valid call that should answer 0.
+ * @exception IllegalArgumentException <ul>
+ *   <li>ERROR_INVALID_ARGUMENT when lineIndex is out of range</li>
+ * </ul>
+ */
+public int getOffsetAtLine(int lineIndex) {
+	if (lineIndex == 0) return 0;
+	if ((lineIndex >= getLineCount()) || (lineIndex < 0)) error(SWT.ERROR_INVALID_ARGUMENT);
+	Piece piece = root;
+	int offset = 0;
+	int remaining = lineIndex;
+	while (piece != null) {
+		int leftBreaks = lineBreaks(piece.left);
+		if (remaining <= leftBreaks) {
+			piece = piece.left;
+			continue;
+		}
+		remaining -= leftBreaks;
+		offset += size(piece.left);
+		if (remaining <= piece.breaks) {
+			int[] breaks = piece.added ? addedBreaks : originalBreaks;
+			int count = piece.added ? addedBreakCount : originalBreakCount;
+			int position = breaks[indexOfBreak(breaks, count, piece.start) + remaining - 1];
+			return offset + position - piece.start + 1;
+		}
+		remaining -= piece.breaks;
+		offset += piece.length;
+		piece = piece.right;
+	}
+	return getCharCount();
+}
+/**
+ * Returns a string representing the content at the given range.
+ *
+ * @param start the start offset of the text to return
+ * @param length the length of the text to return
+ * @return the text at the given range
+ */
+public String getTextRange(int start, int length) {
+	if (length == 0) return "";
+	char[] text = new char[length];
+	getChars(root, start, start + length, text, 0);
+	return new String(text);
+}
+/**
+ * Returns the index of the first delimiter position that is greater
+ * than or equal to the given position.
+ *
+ * @param breaks the sorted delimiter positions
+ * @param count the number of positions in the array
+ * @param position the position to look for
+ * @return the index of the position
+ */
+int indexOfBreak(int[] breaks, int count, int position) {
+	int low = 0, high = count;
+	while (low < high) {
+		int mid = (low + high) >>> 1;
+		if (breaks[mid] < position) {
+			low = mid + 1;
+		} else {
+			high = mid;
+		}
+	}
+	return low;
+}
+/**
+ * Returns whether or not the given character is a line delimiter.  Both CR and LF
+ * are valid line delimiters.
+ *
+ * @param ch the character to test
+ * @return true if ch is a delimiter, false otherwise
+ */
+boolean isDelimiter(char ch) {
+	if (ch == SWT.CR) return true;
+	if (ch == SWT.LF) return true;
+	return false;
+}
+/**
+ * Determine whether or not the replace operation is valid. The \r\n line
+ * delimiter is not allowed to be split or partially deleted.
+ *
+ * @param start	start offset of text to replace
+ * @param replaceLength length of text to replace
+ * @return a boolean specifying whether or not the replace operation is valid
+ */
+boolean isValidReplace(int start, int replaceLength) {
+	int charCount = getCharCount();
+	if (replaceLength == 0) {
+		// inserting text, see if the \r\n line delimiter is being split
+		if (start == 0) return true;
+		if (start == charCount) return true;
+		return !(charAt(start - 1) == SWT.CR && charAt(start) == SWT.LF);
+	}
+	// deleting text, see if part of a \r\n line delimiter is being deleted
+	if (start != 0 && charAt(start) == SWT.LF && charAt(start - 1) == SWT.CR) return false;
+	int end = start + replaceLength;
+	if (end != charCount && charAt(end - 1) == SWT.CR && charAt(end) == SWT.LF) return false;
+	return true;
+}
+/**
+ * Returns the number of line delimiters in the given subtree.
+ */
+int lineBreaks(Piece piece) {
+	return piece == null ? 0 : piece.lineBreaks;
+}
+/**
+ * Returns the number of lines that are in the specified text.
+ *
+ * @param text the text to lineate
+ * @return number of lines in the text
+ */
+int lineCount(String text){
+	int lineCount = 0;
+	int length = text.length();
+	for (int i = 0; i < length; i++) {
+		char ch = text.charAt(i);
+		if (ch == SWT.CR) {
+			if (i + 1 < length && text.charAt(i + 1) == SWT.LF) {
+				i++;
+			}
+			lineCount++;
+		} else if (ch == SWT.LF) {
+			lineCount++;
+		}
+	}
+	return lineCount;
+}
+/**
+ * Merges two subtrees, all the pieces of <code>left</code> preceding
+ * the pieces of <code>right</code>.
+ *
+ * @return the root of the merged tree
+ */
+Piece merge(Piece left, Piece right) {
+	if (left == null) return right;
+	if (right == null) return left;
+	if (left.priority > right.priority) {
+		left.right = merge(left.right, right);
+		update(left);
+		return left;
+	}
+	right.left = merge(left, right.left);
+	update(right);
+	return right;
+}
+/**
+ * Creates a piece for the given range of a store.
+ */
+Piece newPiece(boolean inAdded, int start, int length) {
+	Piece piece = new Piece();
+	piece.added = inAdded;
+	piece.start = start;
+	piece.length = length;
+	piece.breaks = countBreaks(inAdded, start, start + length);
+	seed ^= seed << 13;
+	seed ^= seed >>> 17;
+	seed ^= seed << 5;
+	piece.priority = seed;
+	update(piece);
+	return piece;
+}
+/**
+ * Replaces a \r\n formed by two adjacent pieces at the given offset with
+ * a single piece, so that the delimiter is no longer counted twice.
+ *
+ * @param offset the offset between the \r and the \n
+ */
+void normalize(int offset) {
+	if (offset <= 0 || offset >= getCharCount()) return;
+	if (getBreaksBefore(offset + 1) - getBreaksBefore(offset - 1) != 2) return;
+	if (charAt(offset - 1) != SWT.CR || charAt(offset) != SWT.LF) return;
+	split(root, offset - 1);
+	Piece left = splitLeft;
+	split(splitRight, 2);
+	Piece right = splitRight;
+	Piece piece = newPiece(true, append("\r\n"), 2);
+	root = merge(merge(left, piece), right);
+}
+/**
+ * Removes the specified <code>TextChangeListener</code>.
+ *
+ * @param listener the listener which should no longer be notified
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT when listener is null</li>
+ * </ul>
+ */
+public void removeTextChangeListener(TextChangeListener listener) {
+	if (listener == null) error(SWT.ERROR_NULL_ARGUMENT);
+	for (int i = 0; i < textListeners.size(); i++) {
+		TypedListener typedListener = (TypedListener) textListeners.elementAt(i);
+		if (typedListener.getEventListener () == listener) {
+			textListeners.removeElementAt(i);
+			break;
+		}
+	}
+}
+/**
+ * Replaces the text with <code>newText</code> starting at position <code>start</code>
+ * for a length of <code>replaceLength</code>.  Notifies the appropriate listeners.
+ * <p>
+ * When sending the TextChangingEvent, <code>newLineCount</code> is the number of
+ * lines that are going to be inserted and <code>replaceLineCount</code> is
+ * the number of lines that are going to be deleted, based on the change
+ * that occurs visually.  For example:
+ * <ul>
+ * <li>(replaceText,newText) ==> (replaceLineCount,newLineCount)
+ * <li>("","\n") ==> (0,1)
+ * <li>("\n\n","a") ==> (2,0)
+ * </ul>
+ * A \r and a \n that the change makes adjacent form a single line
+ * delimiter. When one of them is inserted, it is not counted in
+ * <code>newLineCount</code>, and when the change only deletes the text
+ * between them, the delimiter they no longer form is counted in
+ * <code>replaceLineCount</code>.
+ * </p>
+ *
+ * @param start	start offset of text to replace
+ * @param replaceLength length of text to replace
+ * @param newText text to replace with
+ *
+ * @exception IllegalArgumentException <ul>
+ *   <li>ERROR_INVALID_ARGUMENT when the text change results in a multi byte
+ *      line delimiter being split or partially deleted.  Splitting a line
+ *      delimiter by inserting text between the CR and LF characters of the
+ *      \r\n delimiter or deleting part of this line delimiter is not supported</li>
+ *   <li>ERROR_INVALID_ARGUMENT when the range to replace is outside of the text</li>
+ * </ul>
+ */
+public void replaceTextRange(int start, int replaceLength, String newText) {
+	// check for invalid replace operations
+	int charCount = getCharCount();
+	if (start < 0 || replaceLength < 0 || replaceLength > charCount - start) error(SWT.ERROR_INVALID_ARGUMENT);
+	if (!isValidReplace(start, replaceLength)) error(SWT.ERROR_INVALID_ARGUMENT);
+
+	// inform listeners
+	StyledTextEvent event = new StyledTextEvent(this);
+	event.type = ST.TextChanging;
+	event.start = start;
+	event.replaceLineCount = getBreaksBefore(start + replaceLength) - getBreaksBefore(start);
+	event.text = newText;
+	event.newLineCount = lineCount(newText);
+	event.replaceCharCount = replaceLength;
+	event.newCharCount = newText.length();
+	// a \r and a \n made adjacent by the change are merged into one delimiter
+	char before = start > 0 ? charAt(start - 1) : 0;
+	char after = start + replaceLength < charCount ? charAt(start + replaceLength) : 0;
+	int length = newText.length();
+	if (length == 0) {
+		if (before == SWT.CR && after == SWT.LF) event.replaceLineCount++;
+	} else {
+		if (before == SWT.CR && newText.charAt(0) == SWT.LF) event.newLineCount--;
+		if (newText.charAt(length - 1) == SWT.CR && after == SWT.LF) event.newLineCount--;
+	}
+	sendTextEvent(event);
+
+	// cut out the replaced text
+	split(root, start);
+	Piece left = splitLeft;
+	split(splitRight, replaceLength);
+	Piece right = splitRight;
+	if (length > 0) {
+		int lastAdded = addedLength;
+		int position = append(newText);
+		Piece last = left;
+		while (last != null && last.right != null) last = last.right;
+		if (last != null && last.added && last.start + last.length == lastAdded && position == lastAdded) {
+			// typing at the end of the last insert, grow the last piece
+			int breaks = countBreaks(true, position, position + length);
+			for (Piece piece = left; piece != null; piece = piece.right) {
+				piece.size += length;
+				piece.lineBreaks += breaks;
+			}
+			last.length += length;
+			last.breaks += breaks;
+		} else {
+			left = merge(left, newPiece(true, position, length));
+		}
+	}
+	root = merge(left, right);
+	normalize(start);
+	normalize(start + length);
+
+	// inform listeners
+	event = new StyledTextEvent(this);
+	event.type = ST.TextChanged;
+	sendTextEvent(event);
+}
+/**
+ * Sends the text listeners the TextChanged event.
+ */
+void sendTextEvent(StyledTextEvent event) {
+	for (int i = 0; i < textListeners.size(); i++) {
+		((StyledTextListener)textListeners.elementAt(i)).handleEvent(event);
+	}
+}
+/**
+ * Sets the content to text. The text is referenced, not copied, and all
+ * previous edits are discarded.
+ *
+ * @param text the text
+ */
+public void setText(String text) {
+	original = text;
+	int length = text.length();
+	int[] breaks = new int[Math.max(16, length >> 6)];
+	int count = 0;
+	for (int i = 0; i < length; i++) {
+		char ch = text.charAt(i);
+		if (ch == SWT.CR) {
+			if (i + 1 < length && text.charAt(i + 1) == SWT.LF) continue;
+			breaks = addBreak(breaks, count++, i);
+		} else if (ch == SWT.LF) {
+			breaks = addBreak(breaks, count++, i);
+		}
+	}
+	originalBreaks = breaks;
+	originalBreakCount = count;
+	added = new char[256];
+	addedLength = 0;
+	addedBreaks = new int[32];
+	addedBreakCount = 0;
+	root = length > 0 ? newPiece(false, 0, length) : null;
+	StyledTextEvent event = new StyledTextEvent(this);
+	event.type = ST.TextSet;
+	event.text = "";
+	sendTextEvent(event);
+}
+/**
+ * Returns the number of characters in the given subtree.
+ */
+int size(Piece piece) {
+	return piece == null ? 0 : piece.size;
+}
+/**
+ * Returns a view of the current text that is not affected by later
+ * changes. Only the list of pieces is copied.
+ *
+ * @return the text
+ */
+CharSequence snapshot() {
+	int count = 0;
+	Piece[] stack = new Piece[64];
+	Piece[] pieces = new Piece[16];
+	int depth = 0;
+	Piece piece = root;
+	while (piece != null || depth > 0) {
+		while (piece != null) {
+			if (depth == stack.length) {
+				Piece[] newStack = new Piece[depth * 2];
+				System.arraycopy(stack, 0, newStack, 0, depth);
+				stack = newStack;
+			}
+			stack[depth++] = piece;
+			piece = piece.left;
+		}
+		piece = stack[--depth];
+		if (count == pieces.length) {
+			Piece[] newPieces = new Piece[count * 2];
+			System.arraycopy(pieces, 0, newPieces, 0, count);
+			pieces = newPieces;
+		}
+		pieces[count++] = piece;
+		piece = piece.right;
+	}
+	int[] offsets = new int[count + 1];
+	int[] starts = new int[count];
+	boolean[] inAdded = new boolean[count];
+	for (int i = 0; i < count; i++) {
+		offsets[i + 1] = offsets[i] + pieces[i].length;
+		starts[i] = pieces[i].start;
+		inAdded[i] = pieces[i].added;
+	}
+	return new Snapshot(original, added, offsets, starts, inAdded);
+}
+/**
+ * Splits a subtree at the given offset. The pieces before the offset
+ * are stored in <code>splitLeft</code>, the others in <code>splitRight</code>.
+ * A piece spanning the offset is cut in two.
+ *
+ * @param piece the root of the subtree
+ * @param offset the offset, relative to the subtree
+ */
+void split(Piece piece, int offset) {
+	if (piece == null) {
+		splitLeft = splitRight = null;
+		return;
+	}
+	int leftSize = size(piece.left);
+	if (offset <= leftSize) {
+		split(piece.left, offset);
+		piece.left = splitRight;
+		update(piece);
+		splitRight = piece;
+		return;
+	}
+	int pieceEnd = leftSize + piece.length;
+	if (offset >= pieceEnd) {
+		split(piece.right, offset - pieceEnd);
+		piece.right = splitLeft;
+		update(piece);
+		splitLeft = piece;
+		return;
+	}
+	int headLength = offset - leftSize;
+	Piece tail = newPiece(piece.added, piece.start + headLength, piece.length - headLength);
+	Piece right = piece.right;
+	piece.right = null;
+	piece.length = headLength;
+	piece.breaks -= tail.breaks;
+	update(piece);
+	splitLeft = piece;
+	splitRight = merge(tail, right);
+}
+/**
+ * Recomputes the cached counts of a piece from its children.
+ */
+void update(Piece piece) {
+	piece.size = size(piece.left) + piece.length + size(piece.right);
+	piece.lineBreaks = lineBreaks(piece.left) + piece.breaks + lineBreaks(piece.right);
+}
+}
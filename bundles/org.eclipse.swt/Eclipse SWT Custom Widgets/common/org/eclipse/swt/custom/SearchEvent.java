@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.custom;
+
+import org.eclipse.swt.events.*;
+
+/**
+ * This event is sent by a <code>StyledTextSearch</code> when a batch
+ * of matches has been found, and once more when the search ends.
+ *
+ * @see SearchListener
+ * @see <a href="http://www.eclipse.org/swt/">Sample code and further information</a>
+ *
+ * @since 3.103
+ */
+public class SearchEvent extends TypedEvent {
+
+	/**
+	 * the start offset and length of each match found since the
+	 * previous event, in ascending order (input)
+	 */
+	public int[] ranges;
+
+	/**
+	 * whether the search has ended, either because the whole text
+	 * has been searched or because it was cancelled (input)
+	 */
+	public boolean done;
+
+	static final long serialVersionUID = 4051322432457310008L;
+
+/**
+ * Constructs a new instance of this class.
+ *
+ * @param search the search that found the matches
+ */
+SearchEvent(StyledTextSearch search) {
+	super(search);
+	widget = search.text;
+	display = search.display;
+}
+}
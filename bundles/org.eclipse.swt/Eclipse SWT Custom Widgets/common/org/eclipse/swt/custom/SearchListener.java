@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.custom;
+
+import org.eclipse.swt.internal.SWTEventListener;
+
+/**
+ * Classes which implement this interface provide a method
+ * that deals with the matches found by a <code>StyledTextSearch</code>.
+ * <p>
+ * After creating an instance of a class that implements
+ * this interface it can be added to a search using the
+ * <code>addSearchListener</code> method and removed using
+ * the <code>removeSearchListener</code> method.
+ * </p>
+ *
+ * @see SearchEvent
+ * @see StyledTextSearch#addSearchListener(SearchListener)
+ *
+ * @since 3.103
+ */
+public interface SearchListener extends SWTEventListener {
+/**
+ * This method is called on the user interface thread when a batch of
+ * matches has been found, and once more when the search ends.
+ *
+ * <p>
+ * The following event fields are used:<ul>
+ * <li>event.ranges the start offset and length of each new match (input)</li>
+ * <li>event.done whether the search has ended (input)</li>
+ * </ul>
+ *
+ * @param event the event
+ *
+ * @see SearchEvent
+ */
+public void matchesFound(SearchEvent event);
+}
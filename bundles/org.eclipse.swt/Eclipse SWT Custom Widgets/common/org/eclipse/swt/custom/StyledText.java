@@ -148,6 +148,7 @@ public class StyledText extends Canvas {
 	boolean fixedLineHeight;
 	boolean dragDetect = true;
 	IME ime;
+	StyledTextSearch search;	// the search whose matches are highlighted
 	Cursor cursor;
 	int alignment;
 	boolean justify;
@@ -1591,9 +1592,9 @@ void calculateTopIndex(int delta) {
 			delta -= topIndexY;
 			int lineIndex = topIndex;
 			int lineCount = content.getLineCount();
-			while (lineIndex < lineCount) {
-				if (delta <= 0) break;
-				delta -= renderer.getLineHeight(lineIndex++);
+			if (delta > 0) {
+				lineIndex = Math.min(lineCount, renderer.getLineIndex(topIndex, delta - 1) + 1);
+				delta -= renderer.getLinesHeight(topIndex, lineIndex);
 			}
 			if (lineIndex < lineCount && -delta + renderer.getLineHeight(lineIndex) <= clientAreaHeight - topMargin - bottomMargin) {
 				topIndex = lineIndex;
@@ -1605,11 +1606,9 @@ void calculateTopIndex(int delta) {
 		} else {
 			delta -= topIndexY;
 			int lineIndex = topIndex;
-			while (lineIndex > 0) {
-				int lineHeight = renderer.getLineHeight(lineIndex - 1);
-				if (delta + lineHeight > 0) break;
-				delta += lineHeight;
-				lineIndex--;
+			if (delta < 0) {
+				lineIndex = renderer.getLineIndex(topIndex, delta - 1) + 1;
+				delta += renderer.getLinesHeight(lineIndex, topIndex);
 			}
 			if (lineIndex == 0 || -delta + renderer.getLineHeight(lineIndex) <= clientAreaHeight - topMargin - bottomMargin) {
 				topIndex = lineIndex;
@@ -1861,8 +1860,9 @@ int getAvailableHeightAbove(int height) {
 		if (topIndexY > 0) {
 			maxHeight += renderer.getLineHeight(lineIndex--);
 		}
-		while (height > maxHeight && lineIndex >= 0) {
-			maxHeight += renderer.getLineHeight(lineIndex--);
+		if (height > maxHeight && lineIndex >= 0) {
+			int startLine = Math.max(0, renderer.getLineIndex(lineIndex + 1, maxHeight - height));
+			maxHeight += renderer.getLinesHeight(startLine, lineIndex + 1);
 		}
 	}
 	return Math.min(height, maxHeight);
@@ -1878,8 +1878,9 @@ int getAvailableHeightBellow(int height) {
 	}
 	int lineIndex = partialBottomIndex + 1;
 	int lineCount = content.getLineCount();
-	while (height > availableHeight && lineIndex < lineCount) {
-		availableHeight += renderer.getLineHeight(lineIndex++);
+	if (height > availableHeight && lineIndex < lineCount) {
+		int endLine = Math.min(lineCount, renderer.getLineIndex(lineIndex, height - availableHeight - 1) + 1);
+		availableHeight += renderer.getLinesHeight(lineIndex, endLine);
 	}
 	return Math.min(height, availableHeight);
 }
@@ -2987,12 +2988,8 @@ void doPageDown(boolean select, int height) {
 			caretHeight += layout.getLineBounds(lineIndex).y;
 			renderer.disposeTextLayout(layout);
 		}
-		lineIndex = caretLine;
-		lineHeight = renderer.getLineHeight(lineIndex);
-		while (caretHeight - lineHeight >= 0 && lineIndex < lineCount - 1) {
-			caretHeight -= lineHeight;
-			lineHeight = renderer.getLineHeight(++lineIndex);
-		}
+		lineIndex = Math.max(caretLine, Math.min(lineCount - 1, renderer.getLineIndex(caretLine, caretHeight)));
+		caretHeight -= renderer.getLinesHeight(caretLine, lineIndex);
 		int[] alignment = new int[1];
 		int offset = getOffsetAtPoint(columnX, caretHeight, lineIndex, alignment);
 		setCaretOffset(offset, alignment[0]);
@@ -3164,12 +3161,8 @@ void doPageUp(boolean select, int height) {
 			caretHeight += layout.getBounds().height - layout.getLineBounds(lineIndex).y;
 			renderer.disposeTextLayout(layout);
 		}
-		lineIndex = caretLine;
-		lineHeight = renderer.getLineHeight(lineIndex);
-		while (caretHeight - lineHeight >= 0 && lineIndex > 0) {
-			caretHeight -= lineHeight;
-			lineHeight = renderer.getLineHeight(--lineIndex);
-		}
+		lineIndex = Math.min(caretLine, Math.max(0, renderer.getLineIndex(caretLine + 1, -caretHeight - 1)));
+		caretHeight -= renderer.getLinesHeight(lineIndex + 1, caretLine + 1);
 		lineHeight = renderer.getLineHeight(lineIndex);
 		int[] alignment = new int[1];
 		int offset = getOffsetAtPoint(columnX, lineHeight - caretHeight, lineIndex, alignment);
@@ -4204,13 +4197,9 @@ public int getLinePixel(int lineIndex) {
 	if (lineIndex == topIndex) return topIndexY + topMargin;
 	int height = topIndexY;
 	if (lineIndex > topIndex) {
-		for (int i = topIndex; i < lineIndex; i++) {
-			height += renderer.getLineHeight(i);
-		}
+		height += renderer.getLinesHeight(topIndex, lineIndex);
 	} else {
-		for (int i = topIndex - 1; i >= lineIndex; i--) {
-			height -= renderer.getLineHeight(i);
-		}
+		height -= renderer.getLinesHeight(lineIndex, topIndex);
 	}
 	return height + topMargin;
 }
@@ -4235,20 +4224,9 @@ public int getLineIndex(int y) {
 		return lineIndex;
 	}
 	if (y == topIndexY) return topIndex;
-	int line = topIndex;
-	if (y < topIndexY) {
-		while (y < topIndexY && line > 0) {
-			y += renderer.getLineHeight(--line);
-		}
-	} else {
-		int lineCount = content.getLineCount();
-		int lineHeight = renderer.getLineHeight(line);
-		while (y - lineHeight >= topIndexY && line < lineCount - 1) {
-			y -= lineHeight;
-			lineHeight = renderer.getLineHeight(++line);
-		}
-	}
-	return line;
+	int lineCount = content.getLineCount();
+	int line = renderer.getLineIndex(topIndex, y - topIndexY);
+	return Math.max(0, Math.min(lineCount - 1, line));
 }
 /**
  * Returns the tab stops of the line at the given <code>index</code>.
@@ -5267,11 +5245,7 @@ int getVerticalIncrement() {
 }
 int getVerticalScrollOffset() {
 	if (verticalScrollOffset == -1) {
-		renderer.calculate(0, topIndex);
-		int height = 0;
-		for (int i = 0; i < topIndex; i++) {
-			height += renderer.getLineHeight(i);
-		}
+		int height = renderer.getLinesHeight(0, topIndex);
 		height -= topIndexY;
 		verticalScrollOffset = height;
 	}
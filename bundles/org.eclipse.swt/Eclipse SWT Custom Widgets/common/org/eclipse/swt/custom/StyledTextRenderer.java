@@ -33,13 +33,16 @@ class StyledTextRenderer {
 	/* Line data */
 	int topIndex = -1;
 	TextLayout[] layouts;
+	TextLayout spareLayout;
 	int lineCount;
 	int[] lineWidth;
 	int[] lineHeight;
+	int[] heightTree, unmeasuredTree;
 	LineInfo[] lines;
 	int maxWidth;
 	int maxWidthLineIndex;
 	boolean idleRunning;
+	int idleLine = -1;
 	
 	/* Bullet */
 	Bullet[] bullets;
@@ -49,6 +52,7 @@ class StyledTextRenderer {
 	/* Style data */
 	int[] ranges;
 	int styleCount;	
+	int shiftStart, shiftOffset;
 	StyleRange[] styles;
 	StyleRange[] stylesSet;
 	int stylesSetCount = 0;
@@ -60,6 +64,7 @@ class StyledTextRenderer {
 	
 	final static int GROW = 32;
 	final static int IDLE_TIME = 50;
+	final static int IDLE_PROGRESS_TIME = 500;
 	final static int CACHE_SIZE = 128;
 	
 	final static int BACKGROUND = 1 << 0;
@@ -156,6 +161,7 @@ int addMerge(int[] mergeRanges, StyleRange[] mergeStyles, int mergeCount, int mo
 		System.arraycopy(mergeStyles, 0, styles, modifyStart >> 1, mergeCount >> 1);
 	}
 	styleCount += grow >> 1;
+	if (shiftOffset != 0) shiftStart += grow;
 	return grow;
 }
 int addMerge(StyleRange[] mergeStyles, int mergeCount, int modifyStart, int modifyEnd) {
@@ -200,6 +206,30 @@ int addMerge(StyleRange[] mergeStyles, int mergeCount, int modifyStart, int modi
 	styleCount += grow;
 	return grow;
 }
+/**
+ * Rebuilds the Fenwick trees that index lineHeight: heightTree sums
+ * the measured line heights and unmeasuredTree counts the lines that
+ * have not been measured yet. Both are one-based.
+ */
+void buildHeightTrees() {
+	int length = lineHeight.length;
+	if (heightTree == null || heightTree.length != length + 1) {
+		heightTree = new int[length + 1];
+		unmeasuredTree = new int[length + 1];
+	}
+	for (int i = 1; i <= length; i++) {
+		int height = lineHeight[i - 1];
+		heightTree[i] = height == -1 ? 0 : height;
+		unmeasuredTree[i] = height == -1 ? 1 : 0;
+	}
+	for (int i = 1; i <= length; i++) {
+		int parent = i + (i & -i);
+		if (parent <= length) {
+			heightTree[parent] += heightTree[i];
+			unmeasuredTree[parent] += unmeasuredTree[i];
+		}
+	}
+}
 void calculate(int startLine, int lineCount) {
 	int endLine = startLine + lineCount;
 	if (startLine < 0 || endLine > lineWidth.length) {
@@ -211,7 +241,7 @@ void calculate(int startLine, int lineCount) {
 			TextLayout layout = getTextLayout(i);
 			Rectangle rect = layout.getBounds();
 			lineWidth[i] = rect.width + hTrim;
-			lineHeight[i] = rect.height;
+			setLineHeight(i, rect.height);
 			disposeTextLayout(layout);
 		}
 		if (lineWidth[i] > maxWidth) {
@@ -232,27 +262,38 @@ void calculateClientArea () {
 }
 void calculateIdle () {
 	if (idleRunning) return;
+	/*
+	* Measure the lines from the top index down first, or from the
+	* first changed line after a text change, and then wrap around to
+	* the lines above it. The next unmeasured line is found from the
+	* cursor with unmeasuredTree, so the lines that are already
+	* measured are not checked again on every run.
+	*/
+	if (idleLine == -1) idleLine = Math.max(0, styledText.topIndex);
 	Runnable runnable = new Runnable() {
+		long progressTime = System.currentTimeMillis();
 		public void run() {
 			if (styledText == null) return;
-			int i;
+			/* The content was reset while the pass was running */
+			if (idleLine == -1) idleLine = Math.max(0, styledText.topIndex);
 			long start = System.currentTimeMillis();
-			for (i = 0; i < lineCount; i++) {
-				if (lineHeight[i] == -1 || lineWidth[i] == -1) {
-					calculate(i, 1);
-					if (System.currentTimeMillis() - start > IDLE_TIME) break;
-				}
+			int i;
+			while ((i = getUnmeasuredLine(idleLine, lineCount, true)) != -1 || (i = getUnmeasuredLine(0, Math.min(idleLine, lineCount), true)) != -1) {
+				calculate(i, 1);
+				idleLine = i + 1;
+				if (System.currentTimeMillis() - start > IDLE_TIME) break;
 			}
-			if (i < lineCount) {
+			if (i != -1) {
+				if (start - progressTime > IDLE_PROGRESS_TIME) {
+					progressTime = start;
+					updateScrollBars();
+				}
 				Display display = styledText.getDisplay();				
 				display.asyncExec(this);
 			} else {
 				idleRunning = false;
-				styledText.setScrollBars(true);
-				ScrollBar bar = styledText.getVerticalBar();
-				if (bar != null) {
-					bar.setSelection(styledText.getVerticalScrollOffset());
-				}					
+				idleLine = -1;
+				updateScrollBars();
 			}
 		}
 	};		
@@ -283,6 +324,7 @@ void clearLineStyle(int startLine, int count) {
 }
 void copyInto(StyledTextRenderer renderer) {
 	if (ranges != null) {
+		flushShift(styleCount << 1);
 		int[] newRanges = renderer.ranges = new int[styleCount << 1];
 		System.arraycopy(ranges, 0, newRanges, 0, newRanges.length);
 	}
@@ -317,6 +359,10 @@ void disposeTextLayout (TextLayout layout) {
 			if (layouts[i] == layout) return;
 		}
 	}
+	if (spareLayout == null) {
+		spareLayout = layout;
+		return;
+	}
 	layout.dispose();
 }
 void drawBullet(Bullet bullet, GC gc, int paintX, int paintY, int index, int lineAscent, int lineDescent) {
@@ -450,6 +496,20 @@ int drawLine(int lineIndex, int paintX, int paintY, GC gc, Color widgetBackgroun
 	disposeTextLayout(layout);
 	return height;
 }
+/**
+ * Applies the pending shift to the starts of the ranges before
+ * the given index.
+ */
+void flushShift(int index) {
+	if (shiftOffset == 0 || index <= shiftStart) return;
+	int rangeCount = styleCount << 1;
+	int end = Math.min(index, rangeCount);
+	for (int i = shiftStart; i < end; i += 2) {
+		ranges[i] += shiftOffset;
+	}
+	shiftStart = end;
+	if (end == rangeCount) shiftOffset = 0;
+}
 int getBaseline() {
 	return ascent;
 }
@@ -480,19 +540,19 @@ int getHeight () {
 	if (styledText.isFixedLineHeight()) {
 		return lineCount * defaultLineHeight + styledText.topMargin + styledText.bottomMargin;
 	}
-	int totalHeight = 0;
+	int totalHeight = sum(heightTree, lineCount);
+	int unmeasuredCount = sum(unmeasuredTree, lineCount);
 	int width = styledText.getWrapWidth();
-	for (int i = 0; i < lineCount; i++) {
-		int height = lineHeight[i];
-		if (height == -1) {
-			if (width > 0) {
+	if (width > 0) {
+		for (int i = 0; i < lineCount && unmeasuredCount > 0; i++) {
+			if (lineHeight[i] == -1) {
 				int length = content.getLine(i).length();
-				height = ((length * averageCharWidth / width) + 1) * defaultLineHeight;
-			} else {
-				height = defaultLineHeight;
+				totalHeight += ((length * averageCharWidth / width) + 1) * defaultLineHeight;
+				unmeasuredCount--;
 			}
 		}
-		totalHeight += height;
+	} else {
+		totalHeight += unmeasuredCount * defaultLineHeight;
 	}
 	return totalHeight + styledText.topMargin + styledText.bottomMargin;
 }
@@ -526,6 +586,7 @@ boolean hasLink(int offset) {
 			int rangeCount = styleCount << 1;
 			int index = getRangeIndex(offset, -1, rangeCount);
 			if (index >= rangeCount) return false;
+			flushShift(index + 2);
 			int rangeStart = ranges[index]; 
 			int rangeLength = ranges[index + 1];
 			StyleRange rangeStyle = styles[index >> 1];
@@ -570,6 +631,50 @@ int getLineHeight(int lineIndex) {
 	}
 	return lineHeight[lineIndex];
 }
+/**
+ * Returns the index of the line at the given vertical pixel offset
+ * from the top of the start line, measuring the lines in between
+ * as needed. Returns -1 when the offset is above the first line
+ * and the line count when it is below the last line.
+ */
+int getLineIndex(int startLine, int y) {
+	while (true) {
+		int target = sum(heightTree, startLine) + y;
+		if (y >= 0) {
+			int lineIndex = Math.min(search(heightTree, target), lineCount);
+			int unmeasured = getUnmeasuredLine(startLine, Math.min(lineIndex + 1, lineCount), true);
+			if (unmeasured == -1) return lineIndex;
+			calculate(unmeasured, 1);
+		} else {
+			int lineIndex = target < 0 ? -1 : search(heightTree, target);
+			int unmeasured = getUnmeasuredLine(Math.max(0, lineIndex), startLine, false);
+			if (unmeasured == -1) return lineIndex;
+			calculate(unmeasured, 1);
+		}
+	}
+}
+/**
+ * Returns the total height of the lines from startLine (inclusive)
+ * to endLine (exclusive), measuring the lines that need it.
+ */
+int getLinesHeight(int startLine, int endLine) {
+	int unmeasured;
+	while ((unmeasured = getUnmeasuredLine(startLine, endLine, true)) != -1) {
+		calculate(unmeasured, 1);
+	}
+	return sum(heightTree, endLine) - sum(heightTree, startLine);
+}
+/**
+ * Returns the first (or last) line in the given range whose height
+ * has not been measured, or -1 if all of them have been.
+ */
+int getUnmeasuredLine(int startLine, int endLine, boolean first) {
+	if (startLine >= endLine) return -1;
+	int startCount = sum(unmeasuredTree, startLine);
+	int endCount = sum(unmeasuredTree, endLine);
+	if (startCount == endCount) return -1;
+	return search(unmeasuredTree, first ? startCount : endCount - 1);
+}
 int getLineIndent(int index, int defaultIndent) {
 	if (lines == null) return defaultIndent;
 	LineInfo info = lines[index];
@@ -608,6 +713,7 @@ int getRangeIndex(int offset, int low, int high) {
 		while (high - low > 2) {
 			int index = ((high + low) / 2) / 2 * 2;
 			int end = ranges[index] + ranges[index + 1];
+			if (index >= shiftStart) end += shiftOffset;
 			if (end > offset) {
 				high = index;
 			} else {
@@ -635,6 +741,7 @@ int[] getRanges(int start, int length) {
 		int rangeCount = styleCount << 1;
 		int rangeStart = getRangeIndex(start, -1, rangeCount);
 		if (rangeStart >= rangeCount) return null;
+		flushShift(getRangeIndex(end, rangeStart - 1, rangeCount) + 2);
 		if (ranges[rangeStart] > end) return null;
 		int rangeEnd = Math.min(rangeCount - 2, getRangeIndex(end, rangeStart - 1, rangeCount));
 		if (ranges[rangeEnd] > end) rangeEnd = Math.max(rangeStart, rangeEnd - 2);
@@ -670,6 +777,7 @@ StyleRange[] getStyleRanges(int start, int length, boolean includeRanges) {
 		int rangeCount = styleCount << 1;
 		int rangeStart = getRangeIndex(start, -1, rangeCount);
 		if (rangeStart >= rangeCount) return null;
+		flushShift(getRangeIndex(end, rangeStart - 1, rangeCount) + 2);
 		if (ranges[rangeStart] > end) return null;
 		int rangeEnd = Math.min(rangeCount - 2, getRangeIndex(end, rangeStart - 1, rangeCount));
 		if (ranges[rangeEnd] > end) rangeEnd = Math.max(rangeStart, rangeEnd - 2);
@@ -770,7 +878,11 @@ TextLayout getTextLayout(int lineIndex, int orientation, int width, int lineSpac
 			}
 		}
 	}
-	if (layout == null) layout = new TextLayout(device);
+	if (layout == null) {
+		layout = spareLayout;
+		spareLayout = null;
+		if (layout == null) layout = new TextLayout(device);
+	}
 	String line = content.getLine(lineIndex);
 	int lineOffset = content.getOffsetAtLine(lineIndex);
 	int[] segments = null;
@@ -858,7 +970,9 @@ TextLayout getTextLayout(int lineIndex, int orientation, int width, int lineSpac
 		styles = this.styles;
 		styleCount = this.styleCount;
 		if (ranges != null) {
-			rangeStart = getRangeIndex(lineOffset, -1, styleCount << 1);
+			int rangeCount = styleCount << 1;
+			rangeStart = getRangeIndex(lineOffset, -1, rangeCount);
+			flushShift(getRangeIndex(lineOffset + line.length(), rangeStart - 1, rangeCount) + 4);
 		} else {
 			rangeStart = getRangeIndex(lineOffset, -1, styleCount);
 		}
@@ -976,6 +1090,9 @@ TextLayout getTextLayout(int lineIndex, int orientation, int width, int lineSpac
 			}
 		}
 	}
+	if (styledText != null && styledText.search != null) {
+		styledText.search.highlight(layout, lineOffset, length);
+	}
 	
 	if (styledText != null && styledText.isFixedLineHeight()) {
 		int index = -1;
@@ -1030,14 +1147,21 @@ void reset() {
 		}
 		layouts = null;
 	}
+	if (spareLayout != null) {
+		spareLayout.dispose();
+		spareLayout = null;
+	}
 	topIndex = -1;
+	idleLine = -1;
 	stylesSetCount = styleCount = lineCount = 0;
+	shiftOffset = 0;
 	ranges = null;
 	styles = null;
 	stylesSet = null;
 	lines = null;
 	lineWidth = null;
 	lineHeight = null;
+	heightTree = unmeasuredTree = null;
 	bullets = null;
 	bulletsIndices = null;
 	redrawLines = null;
@@ -1046,10 +1170,16 @@ void reset() {
 void reset(int startLine, int lineCount) {
 	int endLine = startLine + lineCount;
 	if (startLine < 0 || endLine > lineWidth.length) return;
+	boolean rebuild = heightTree == null || heightTree.length != lineHeight.length + 1 || lineCount * 8 > lineHeight.length;
 	for (int i = startLine; i < endLine; i++) {
 		lineWidth[i] = -1;
-		lineHeight[i] = -1;
+		if (rebuild) {
+			lineHeight[i] = -1;
+		} else {
+			setLineHeight(i, -1);
+		}
 	}
+	if (rebuild) buildHeightTrees();
 	if (startLine <= maxWidthLineIndex && maxWidthLineIndex < endLine) {
 		maxWidth = 0;
 		maxWidthLineIndex = -1;
@@ -1063,6 +1193,21 @@ void reset(int startLine, int lineCount) {
 		}
 	}
 }
+/**
+ * Returns the largest count such that the sum of the first count
+ * entries of the tree does not exceed the given value.
+ */
+static int search(int[] tree, int value) {
+	int index = 0;
+	for (int bit = Integer.highestOneBit(tree.length - 1); bit != 0; bit >>= 1) {
+		int next = index + bit;
+		if (next < tree.length && tree[next] <= value) {
+			index = next;
+			value -= tree[next];
+		}
+	}
+	return index;
+}
 void setContent(StyledTextContent content) {
 	reset();
 	this.content = content;
@@ -1162,6 +1307,17 @@ void setLineBullet(int startLine, int count, Bullet bullet) {
 		redrawLines = null;
 	}
 }
+void setLineHeight(int lineIndex, int height) {
+	int oldHeight = lineHeight[lineIndex];
+	if (oldHeight == height) return;
+	lineHeight[lineIndex] = height;
+	int heightDelta = (height == -1 ? 0 : height) - (oldHeight == -1 ? 0 : oldHeight);
+	int countDelta = (height == -1 ? 1 : 0) - (oldHeight == -1 ? 1 : 0);
+	for (int i = lineIndex + 1; i < heightTree.length; i += i & -i) {
+		heightTree[i] += heightDelta;
+		unmeasuredTree[i] += countDelta;
+	}
+}
 void setLineIndent(int startLine, int count, int indent) {
 	if (lines == null) lines = new LineInfo[lineCount];
 	for (int i = startLine; i < startLine + count; i++) {
@@ -1225,6 +1381,7 @@ void setLineTabStops(int startLine, int count, int[] tabStops) {
 void setStyleRanges (int[] newRanges, StyleRange[] newStyles) {
 	if (newStyles == null) {
 		stylesSetCount = styleCount = 0;
+		shiftOffset = 0;
 		ranges = null;
 		styles = null;
 		stylesSet = null;
@@ -1258,6 +1415,7 @@ void setStyleRanges (int[] newRanges, StyleRange[] newStyles) {
 	}
 	
 	if (styleCount == 0) {
+		shiftOffset = 0;
 		if (newRanges != null) {
 			ranges = new int[newRanges.length];
 			System.arraycopy(newRanges, 0, ranges, 0, ranges.length);
@@ -1289,9 +1447,11 @@ void setStyleRanges (int[] newRanges, StyleRange[] newStyles) {
 		if (!insert) {
 			int end = newRanges[newRanges.length - 2] + newRanges[newRanges.length - 1];
 			modifyEnd = getRangeIndex(end, modifyStart - 1, rangeCount);
+			flushShift(modifyEnd + 4);
 			insert = modifyStart == modifyEnd && ranges[modifyStart] >= end;
 		}
 		if (insert) {
+			flushShift(modifyStart + 2);
 			addMerge(newRanges, newStyles, newRanges.length, modifyStart, modifyStart);
 			return;
 		}
@@ -1375,6 +1535,37 @@ void setStyleRanges (int[] newRanges, StyleRange[] newStyles) {
 		}
 	}
 }
+/**
+ * Returns the sum of the first count entries of the tree.
+ */
+static int sum(int[] tree, int count) {
+	int sum = 0;
+	for (int i = count; i > 0; i -= i & -i) {
+		sum += tree[i];
+	}
+	return sum;
+}
+/**
+ * Shifts the starts of the ranges from the given index on by the
+ * given offset. Only the ranges between the index and the start of
+ * the pending shift are updated; the ranges after them keep their
+ * stored starts and the offset is added to the pending shift.
+ */
+void shiftRanges(int index, int offset) {
+	if (shiftOffset == 0) {
+		shiftStart = index;
+	} else if (index < shiftStart) {
+		for (int i = index; i < shiftStart; i += 2) {
+			ranges[i] -= shiftOffset;
+		}
+	} else {
+		for (int i = shiftStart; i < index; i += 2) {
+			ranges[i] += shiftOffset;
+		}
+	}
+	shiftStart = index;
+	shiftOffset += offset;
+}
 void textChanging(TextChangingEvent event) {
 	int start = event.start;
 	int newCharCount = event.newCharCount, replaceCharCount = event.replaceCharCount;
@@ -1383,6 +1574,7 @@ void textChanging(TextChangingEvent event) {
 	updateRanges(start, replaceCharCount, newCharCount);	
 	
 	int startLine = content.getLineAtOffset(start);
+	idleLine = startLine;
 	if (replaceCharCount == content.getCharCount()) lines = null;
 	if (replaceLineCount == lineCount) {
 		lineCount = newLineCount;
@@ -1416,6 +1608,7 @@ void textChanging(TextChangingEvent event) {
 		for (int i = lineCount + delta; i < lineCount; i++) {
 			lineWidth[i] = lineHeight[i] = -1;
 		}
+		buildHeightTrees();
 		if (layouts != null) {
 			int layoutStartLine = startLine - topIndex;
 			int layoutEndLine = layoutStartLine + replaceLineCount + 1;
@@ -1538,6 +1731,7 @@ void updateRanges(int start, int replaceCharCount, int newCharCount) {
 		int end = start + replaceCharCount;
 		int modifyEnd = getRangeIndex(end, modifyStart - 1, rangeCount);
 		int offset = newCharCount - replaceCharCount;
+		flushShift(modifyEnd + 2);
 		if (modifyStart == modifyEnd && ranges[modifyStart] < start && end < ranges[modifyEnd] + ranges[modifyEnd + 1]) {
 			if (newCharCount == 0) {
 				ranges[modifyStart + 1] -= replaceCharCount;
@@ -1553,6 +1747,7 @@ void updateRanges(int start, int replaceCharCount, int newCharCount) {
 				}
 				System.arraycopy(ranges, modifyStart + 2, ranges, modifyStart + 4, rangeCount - (modifyStart + 2));
 				System.arraycopy(styles, (modifyStart + 2) >> 1, styles, (modifyStart + 4) >> 1, styleCount - ((modifyStart + 2) >> 1));
+				if (shiftOffset != 0) shiftStart += 2;
 				ranges[modifyStart + 3] = ranges[modifyStart] + ranges[modifyStart + 1] - end;
 				ranges[modifyStart + 2] = start + newCharCount;
 				ranges[modifyStart + 1] = start - ranges[modifyStart];
@@ -1561,11 +1756,7 @@ void updateRanges(int start, int replaceCharCount, int newCharCount) {
 				styleCount++;
 				modifyEnd += 4;
 			}
-			if (offset != 0) {
-				for (int i = modifyEnd; i < rangeCount; i += 2) {
-					ranges[i] += offset;
-				}
-			}
+			if (offset != 0) shiftRanges(modifyEnd, offset);
 		} else {
 			if (ranges[modifyStart] < start && start < ranges[modifyStart] + ranges[modifyStart + 1]) {
 				ranges[modifyStart + 1] = start - ranges[modifyStart];
@@ -1575,14 +1766,13 @@ void updateRanges(int start, int replaceCharCount, int newCharCount) {
 				ranges[modifyEnd + 1] = ranges[modifyEnd] + ranges[modifyEnd + 1] - end;
 				ranges[modifyEnd] = end;
 			}
-			if (offset != 0) {
-				for (int i = modifyEnd; i < rangeCount; i += 2) {
-					ranges[i] += offset;
-				}
+			if (modifyEnd != modifyStart) {
+				System.arraycopy(ranges, modifyEnd, ranges, modifyStart, rangeCount - modifyEnd);
+				System.arraycopy(styles, modifyEnd >> 1, styles, modifyStart >> 1, styleCount - (modifyEnd >> 1));
+				styleCount -= (modifyEnd - modifyStart) >> 1;
+				if (shiftOffset != 0) shiftStart -= modifyEnd - modifyStart;
 			}
-			System.arraycopy(ranges, modifyEnd, ranges, modifyStart, rangeCount - modifyEnd);
-			System.arraycopy(styles, modifyEnd >> 1, styles, modifyStart >> 1, styleCount - (modifyEnd >> 1));
-			styleCount -= (modifyEnd - modifyStart) >> 1;
+			if (offset != 0) shiftRanges(modifyStart, offset);
 		}
 	} else {
 		int modifyStart = getRangeIndex(start, -1, styleCount);
@@ -1632,4 +1822,11 @@ void updateRanges(int start, int replaceCharCount, int newCharCount) {
 		}
 	}
 }
+void updateScrollBars() {
+	styledText.setScrollBars(true);
+	ScrollBar bar = styledText.getVerticalBar();
+	if (bar != null) {
+		bar.setSelection(styledText.getVerticalScrollOffset());
+	}
+}
 }
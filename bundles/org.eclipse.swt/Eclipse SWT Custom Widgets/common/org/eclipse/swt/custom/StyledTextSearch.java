@@ -0,0 +1,558 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.custom;
+
+import java.util.concurrent.CancellationException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.eclipse.swt.*;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.TextLayout;
+import org.eclipse.swt.graphics.TextStyle;
+import org.eclipse.swt.widgets.*;
+
+/**
+ * Finds the occurrences of a string or a regular expression in the
+ * text of a <code>StyledText</code> without blocking the user
+ * interface.
+ * <p>
+ * The text is searched in a background thread. The default content
+ * of <code>StyledText</code> and <code>PieceTableContent</code> are
+ * searched through a view of their text at the time the search
+ * started, so the text is not copied and can be edited while the
+ * search runs. Other contents are copied when the search starts.
+ * </p><p>
+ * Matches are reported in batches to the search listeners, on the
+ * user interface thread. When the text changes, the matches are
+ * discarded and a running search is stopped. When a highlight
+ * background is set, the matches are drawn with it; only the lines
+ * on screen are styled, so the highlight costs nothing for the rest
+ * of the document.
+ * </p>
+ *
+ * @see SearchListener
+ * @see <a href="http://www.eclipse.org/swt/">Sample code and further information</a>
+ *
+ * @since 3.103
+ */
+public class StyledTextSearch {
+	StyledText text;
+	Display display;
+	StyledTextContent content;	// the content the matches refer to
+	SearchListener[] searchListeners = new SearchListener[0];
+	Color highlightBackground;
+	int[] matches = new int[0];	// the start offset and length of every match
+	int matchCount;
+	boolean searching, disposed;
+	volatile int generation;	// changes whenever the current search is abandoned
+	Listener listener;
+	TextChangeListener textChangeListener;
+
+	/**
+	 * Search for a regular expression instead of a literal string.
+	 */
+	public static final int REGEX = 1 << 0;
+
+	/**
+	 * Ignore case differences when matching.
+	 */
+	public static final int IGNORE_CASE = 1 << 1;
+
+	static final int BATCH_SIZE = 1024;
+	static final int BATCH_TIME = 100;
+	static final int CANCEL_CHECK = 4096;
+
+	/*
+	 * Stops the matcher when the search it belongs to is abandoned.
+	 */
+	final class CancelableText implements CharSequence {
+		final CharSequence text;
+		final int generation;
+		int reads;
+
+		CancelableText(CharSequence text, int generation) {
+			this.text = text;
+			this.generation = generation;
+		}
+		public char charAt(int index) {
+			if (++reads == CANCEL_CHECK) {
+				reads = 0;
+				if (generation != StyledTextSearch.this.generation) throw new CancellationException();
+			}
+			return text.charAt(index);
+		}
+		public int length() {
+			return text.length();
+		}
+		public CharSequence subSequence(int start, int end) {
+			return text.subSequence(start, end);
+		}
+		public String toString() {
+			return text.toString();
+		}
+	}
+
+/**
+ * Constructs a new search over the text of the given widget.
+ *
+ * @param text the widget to search
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the text is null</li>
+ *    <li>ERROR_INVALID_ARGUMENT - if the text has been disposed</li>
+ * </ul>
+ */
+public StyledTextSearch(StyledText text) {
+	if (text == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	if (text.isDisposed()) SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	this.text = text;
+	display = text.getDisplay();
+	listener = new Listener() {
+		public void handleEvent(Event event) {
+			dispose();
+		}
+	};
+	text.addListener(SWT.Dispose, listener);
+	textChangeListener = new TextChangeListener() {
+		public void textChanging(TextChangingEvent event) {
+		}
+		public void textChanged(TextChangedEvent event) {
+			discard();
+		}
+		public void textSet(TextChangedEvent event) {
+			discard();
+		}
+	};
+}
+/**
+ * Adds the listener to the collection of listeners who will
+ * be notified when matches are found.
+ *
+ * @param listener the listener which should be notified
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the listener is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_WIDGET_DISPOSED - if the search or its widget has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the widget</li>
+ * </ul>
+ *
+ * @see SearchListener
+ * @see #removeSearchListener
+ */
+public void addSearchListener(SearchListener listener) {
+	checkSearch();
+	if (listener == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	SearchListener[] newListeners = new SearchListener[searchListeners.length + 1];
+	System.arraycopy(searchListeners, 0, newListeners, 0, searchListeners.length);
+	searchListeners = newListeners;
+	searchListeners[searchListeners.length - 1] = listener;
+}
+/**
+ * Adds a batch of matches found by the current search and notifies
+ * the listeners.
+ */
+void addMatches(int[] batch, int count, boolean done) {
+	if (matchCount * 2 + count > matches.length) {
+		int[] newMatches = new int[Math.max(matchCount * 2 + count, matches.length * 2)];
+		System.arraycopy(matches, 0, newMatches, 0, matchCount * 2);
+		matches = newMatches;
+	}
+	System.arraycopy(batch, 0, matches, matchCount * 2, count);
+	matchCount += count / 2;
+	if (done) searching = false;
+	if (count > 0) redraw(batch[0], batch[count - 2] + batch[count - 1]);
+	int[] ranges = batch;
+	if (count != batch.length) {
+		ranges = new int[count];
+		System.arraycopy(batch, 0, ranges, 0, count);
+	}
+	notifyListeners(ranges, done);
+}
+/**
+ * Stops the current search. The matches found so far are kept.
+ *
+ * @exception SWTException <ul>
+ *    <li>ERROR_WIDGET_DISPOSED - if the search or its widget has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the widget</li>
+ * </ul>
+ */
+public void cancel() {
+	checkSearch();
+	generation++;
+	if (searching) {
+		searching = false;
+		notifyListeners(new int[0], true);
+	}
+}
+void checkSearch() {
+	if (disposed || text.isDisposed()) SWT.error(SWT.ERROR_WIDGET_DISPOSED);
+	if (display.getThread() != Thread.currentThread()) SWT.error(SWT.ERROR_THREAD_INVALID_ACCESS);
+}
+/**
+ * Stops the current search and discards its matches.
+ */
+void discard() {
+	generation++;
+	boolean wasSearching = searching;
+	searching = false;
+	if (matchCount > 0) {
+		matchCount = 0;
+		matches = new int[0];
+		redraw(0, text.getCharCount());
+	}
+	if (wasSearching) notifyListeners(new int[0], true);
+}
+/**
+ * Stops the current search, removes the highlight of its matches and
+ * releases the resources of the receiver.
+ * <p>
+ * The search is disposed when its widget is disposed.
+ * </p>
+ *
+ * @exception SWTException <ul>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the widget</li>
+ * </ul>
+ */
+public void dispose() {
+	if (disposed) return;
+	if (display.getThread() != Thread.currentThread()) SWT.error(SWT.ERROR_THREAD_INVALID_ACCESS);
+	generation++;
+	searching = false;
+	if (content != null) content.removeTextChangeListener(textChangeListener);
+	if (!text.isDisposed()) {
+		text.removeListener(SWT.Dispose, listener);
+		if (text.search == this) {
+			if (matchCount > 0) redraw(0, text.getCharCount());
+			text.search = null;
+		}
+	}
+	disposed = true;
+	content = null;
+	matches = null;
+	matchCount = 0;
+	searchListeners = new SearchListener[0];
+}
+/**
+ * Finds the matches of the pattern in the text and posts them in
+ * batches. Runs in the background thread of the search.
+ */
+void find(Pattern pattern, CharSequence text, int generation) {
+	Matcher matcher = pattern.matcher(new CancelableText(text, generation));
+	int[] batch = new int[BATCH_SIZE * 2];
+	int count = 0;
+	long time = System.currentTimeMillis();
+	try {
+		while (matcher.find()) {
+			int start = matcher.start(), end = matcher.end();
+			if (start == end) continue;
+			batch[count++] = start;
+			batch[count++] = end - start;
+			if (count == batch.length || System.currentTimeMillis() - time > BATCH_TIME) {
+				if (!post(batch, count, false, generation)) return;
+				batch = new int[BATCH_SIZE * 2];
+				count = 0;
+				time = System.currentTimeMillis();
+			}
+		}
+	} catch (CancellationException e) {
+		return;
+	}
+	post(batch, count, true, generation);
+}
+/**
+ * Returns the background color of the matches, or null if the
+ * matches are not highlighted.
+ *
+ * @return the highlight background
+ *
+ * @exception SWTException <ul>
+ *    <li>ERROR_WIDGET_DISPOSED - if the search or its widget has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the widget</li>
+ * </ul>
+ */
+public Color getHighlightBackground() {
+	checkSearch();
+	return highlightBackground;
+}
+/**
+ * Returns the number of matches found so far.
+ *
+ * @return the number of matches
+ *
+ * @exception SWTException <ul>
+ *    <li>ERROR_WIDGET_DISPOSED - if the search or its widget has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the widget</li>
+ * </ul>
+ */
+public int getMatchCount() {
+	checkSearch();
+	return matchCount;
+}
+/**
+ * Returns the matches found so far, as the start offset and length
+ * of each match in ascending order.
+ *
+ * @return the matches
+ *
+ * @exception SWTException <ul>
+ *    <li>ERROR_WIDGET_DISPOSED - if the search or its widget has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the widget</li>
+ * </ul>
+ */
+public int[] getMatches() {
+	checkSearch();
+	int[] result = new int[matchCount * 2];
+	System.arraycopy(matches, 0, result, 0, result.length);
+	return result;
+}
+/**
+ * Sets the highlight background on the matches that intersect the
+ * given line of the layout.
+ *
+ * @param layout the layout of the line
+ * @param lineOffset the offset of the line
+ * @param length the length of the line
+ */
+void highlight(TextLayout layout, int lineOffset, int length) {
+	if (matchCount == 0 || highlightBackground == null || text.getContent() != content) return;
+	int[] matches = this.matches;
+	int low = 0, high = matchCount;
+	while (low < high) {
+		int mid = (low + high) >>> 1;
+		if (matches[mid * 2] + matches[mid * 2 + 1] <= lineOffset) {
+			low = mid + 1;
+		} else {
+			high = mid;
+		}
+	}
+	for (int i = low; i < matchCount; i++) {
+		int start = matches[i * 2] - lineOffset;
+		if (start >= length) break;
+		int end = Math.min(length, start + matches[i * 2 + 1]) - 1;
+		start = Math.max(0, start);
+		while (start <= end) {
+			TextStyle style = layout.getStyle(start);
+			int runEnd = start;
+			while (runEnd < end && layout.getStyle(runEnd + 1) == style) runEnd++;
+			TextStyle newStyle;
+			if (style instanceof StyleRange) {
+				newStyle = (StyleRange)((StyleRange)style).clone();
+			} else {
+				newStyle = style != null ? new TextStyle(style) : new TextStyle();
+			}
+			newStyle.background = highlightBackground;
+			layout.setStyle(newStyle, start, runEnd);
+			start = runEnd + 1;
+		}
+	}
+}
+/**
+ * Returns <code>true</code> if the search has been disposed,
+ * and <code>false</code> otherwise.
+ *
+ * @return <code>true</code> when the search is disposed and <code>false</code> otherwise
+ */
+public boolean isDisposed() {
+	return disposed;
+}
+/**
+ * Returns whether a search is running.
+ *
+ * @return <code>true</code> if the text is being searched and <code>false</code> otherwise
+ *
+ * @exception SWTException <ul>
+ *    <li>ERROR_WIDGET_DISPOSED - if the search or its widget has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the widget</li>
+ * </ul>
+ */
+public boolean isSearching() {
+	checkSearch();
+	return searching;
+}
+void notifyListeners(int[] ranges, boolean done) {
+	SearchListener[] listeners = searchListeners;
+	if (listeners.length == 0) return;
+	SearchEvent event = new SearchEvent(this);
+	event.ranges = ranges;
+	event.done = done;
+	for (int i = 0; i < listeners.length; i++) {
+		listeners[i].matchesFound(event);
+	}
+}
+/**
+ * Hands a batch of matches to the user interface thread. Returns
+ * false when the search has been abandoned.
+ */
+boolean post(final int[] batch, final int count, final boolean done, final int generation) {
+	if (generation != this.generation) return false;
+	try {
+		display.asyncExec(new Runnable() {
+			public void run() {
+				if (generation != StyledTextSearch.this.generation || disposed || text.isDisposed()) return;
+				addMatches(batch, count, done);
+			}
+		});
+	} catch (SWTException e) {
+		return false;
+	}
+	return true;
+}
+/**
+ * Redraws the visible part of the given range, if the matches of the
+ * receiver are highlighted.
+ */
+void redraw(int start, int end) {
+	if (text.search != this || highlightBackground == null) return;
+	StyledTextContent content = text.getContent();
+	int topLine = text.getLineIndex(0);
+	int bottomLine = text.getLineIndex(text.getClientArea().height);
+	int visibleStart = content.getOffsetAtLine(topLine);
+	int visibleEnd = bottomLine + 1 < content.getLineCount() ? content.getOffsetAtLine(bottomLine + 1) : content.getCharCount();
+	start = Math.max(start, visibleStart);
+	end = Math.min(end, Math.min(visibleEnd, content.getCharCount()));
+	if (start < end) text.redrawRange(start, end - start, true);
+}
+/**
+ * Removes the listener from the collection of listeners who will
+ * be notified when matches are found.
+ *
+ * @param listener the listener which should no longer be notified
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the listener is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_WIDGET_DISPOSED - if the search or its widget has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the widget</li>
+ * </ul>
+ *
+ * @see SearchListener
+ * @see #addSearchListener
+ */
+public void removeSearchListener(SearchListener listener) {
+	checkSearch();
+	if (listener == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	int index = -1;
+	for (int i = 0; i < searchListeners.length; i++) {
+		if (listener == searchListeners[i]) {
+			index = i;
+			break;
+		}
+	}
+	if (index == -1) return;
+	SearchListener[] newListeners = new SearchListener[searchListeners.length - 1];
+	System.arraycopy(searchListeners, 0, newListeners, 0, index);
+	System.arraycopy(searchListeners, index + 1, newListeners, index, searchListeners.length - index - 1);
+	searchListeners = newListeners;
+}
+/**
+ * Starts searching the text for the given pattern. The matches of
+ * the previous search are discarded and a running search is stopped.
+ * <p>
+ * The pattern is a literal string, unless the <code>REGEX</code> flag
+ * is given. Matches never overlap and empty matches are ignored.
+ * </p>
+ *
+ * @param pattern the string or regular expression to find
+ * @param flags the search flags, a combination of <code>REGEX</code> and <code>IGNORE_CASE</code>
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the pattern is null</li>
+ *    <li>ERROR_INVALID_ARGUMENT - if the pattern is not a valid regular expression</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_WIDGET_DISPOSED - if the search or its widget has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the widget</li>
+ * </ul>
+ *
+ * @see #REGEX
+ * @see #IGNORE_CASE
+ */
+public void search(String pattern, int flags) {
+	checkSearch();
+	if (pattern == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	int patternFlags = Pattern.MULTILINE;
+	if ((flags & REGEX) == 0) patternFlags |= Pattern.LITERAL;
+	if ((flags & IGNORE_CASE) != 0) patternFlags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+	Pattern compiled = null;
+	try {
+		compiled = Pattern.compile(pattern, patternFlags);
+	} catch (PatternSyntaxException e) {
+		SWT.error(SWT.ERROR_INVALID_ARGUMENT, e);
+	}
+	discard();
+	StyledTextContent newContent = text.getContent();
+	if (content != newContent) {
+		if (content != null) content.removeTextChangeListener(textChangeListener);
+		content = newContent;
+		content.addTextChangeListener(textChangeListener);
+	}
+	final Pattern finalPattern = compiled;
+	final CharSequence snapshot = snapshot(content);
+	final int generation = this.generation;
+	searching = true;
+	Thread thread = new Thread(new Runnable() {
+		public void run() {
+			find(finalPattern, snapshot, generation);
+		}
+	}, "StyledText Search");
+	thread.setDaemon(true);
+	thread.start();
+}
+/**
+ * Sets the background color of the matches. The matches are not
+ * highlighted when the color is null, which is the default.
+ * <p>
+ * The matches of only one search are highlighted in a widget; setting
+ * a color replaces the highlight of any other search.
+ * </p>
+ *
+ * @param color the highlight background, or null
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_INVALID_ARGUMENT - if the color has been disposed</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_WIDGET_DISPOSED - if the search or its widget has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the widget</li>
+ * </ul>
+ */
+public void setHighlightBackground(Color color) {
+	checkSearch();
+	if (color != null && color.isDisposed()) SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	StyledTextSearch previous = text.search;
+	if (color == null) {
+		if (previous == this && matchCount > 0) redraw(0, text.getCharCount());
+		if (previous == this) text.search = null;
+		highlightBackground = null;
+		return;
+	}
+	if (previous != null && previous != this && previous.matchCount > 0) {
+		previous.redraw(0, text.getCharCount());
+	}
+	highlightBackground = color;
+	text.search = this;
+	if (matchCount > 0) redraw(0, text.getCharCount());
+}
+/**
+ * Returns a view of the current text of the given content that is
+ * not affected by later changes.
+ */
+static CharSequence snapshot(StyledTextContent content) {
+	if (content instanceof DefaultContent) return ((DefaultContent)content).snapshot();
+	if (content instanceof PieceTableContent) return ((PieceTableContent)content).snapshot();
+	return content.getTextRange(0, content.getCharCount());
+}
+}
@@ -861,6 +861,18 @@ JNIEXPORT jint JNICALL OS_NATIVE(GtkTreeIter_1sizeof)
 }
 #endif
 
+#ifndef NO_GtkTreeModelIface_1sizeof
+JNIEXPORT jint JNICALL OS_NATIVE(GtkTreeModelIface_1sizeof)
+	(JNIEnv *env, jclass that)
+{
+	jint rc = 0;
+	OS_NATIVE_ENTER(env, that, GtkTreeModelIface_1sizeof_FUNC);
+	rc = (jint)GtkTreeModelIface_sizeof();
+	OS_NATIVE_EXIT(env, that, GtkTreeModelIface_1sizeof_FUNC);
+	return rc;
+}
+#endif
+
 #ifndef NO_PangoAttrColor_1sizeof
 JNIEXPORT jint JNICALL OS_NATIVE(PangoAttrColor_1sizeof)
 	(JNIEnv *env, jclass that)
@@ -16601,6 +16613,46 @@ JNIEXPORT jboolean JNICALL OS_NATIVE(_1gtk_1tree_1model_1iter_1nth_1child)
 }
 #endif
 
+#ifndef NO__1gtk_1tree_1model_1row_1changed
+JNIEXPORT void JNICALL OS_NATIVE(_1gtk_1tree_1model_1row_1changed)
+	(JNIEnv *env, jclass that, jintLong arg0, jintLong arg1, jintLong arg2)
+{
+	OS_NATIVE_ENTER(env, that, _1gtk_1tree_1model_1row_1changed_FUNC);
+	gtk_tree_model_row_changed((GtkTreeModel *)arg0, (GtkTreePath *)arg1, (GtkTreeIter *)arg2);
+	OS_NATIVE_EXIT(env, that, _1gtk_1tree_1model_1row_1changed_FUNC);
+}
+#endif
+
+#ifndef NO__1gtk_1tree_1model_1row_1deleted
+JNIEXPORT void JNICALL OS_NATIVE(_1gtk_1tree_1model_1row_1deleted)
+	(JNIEnv *env, jclass that, jintLong arg0, jintLong arg1)
+{
+	OS_NATIVE_ENTER(env, that, _1gtk_1tree_1model_1row_1deleted_FUNC);
+	gtk_tree_model_row_deleted((GtkTreeModel *)arg0, (GtkTreePath *)arg1);
+	OS_NATIVE_EXIT(env, that, _1gtk_1tree_1model_1row_1deleted_FUNC);
+}
+#endif
+
+#ifndef NO__1gtk_1tree_1model_1row_1has_1child_1toggled
+JNIEXPORT void JNICALL OS_NATIVE(_1gtk_1tree_1model_1row_1has_1child_1toggled)
+	(JNIEnv *env, jclass that, jintLong arg0, jintLong arg1, jintLong arg2)
+{
+	OS_NATIVE_ENTER(env, that, _1gtk_1tree_1model_1row_1has_1child_1toggled_FUNC);
+	gtk_tree_model_row_has_child_toggled((GtkTreeModel *)arg0, (GtkTreePath *)arg1, (GtkTreeIter *)arg2);
+	OS_NATIVE_EXIT(env, that, _1gtk_1tree_1model_1row_1has_1child_1toggled_FUNC);
+}
+#endif
+
+#ifndef NO__1gtk_1tree_1model_1row_1inserted
+JNIEXPORT void JNICALL OS_NATIVE(_1gtk_1tree_1model_1row_1inserted)
+	(JNIEnv *env, jclass that, jintLong arg0, jintLong arg1, jintLong arg2)
+{
+	OS_NATIVE_ENTER(env, that, _1gtk_1tree_1model_1row_1inserted_FUNC);
+	gtk_tree_model_row_inserted((GtkTreeModel *)arg0, (GtkTreePath *)arg1, (GtkTreeIter *)arg2);
+	OS_NATIVE_EXIT(env, that, _1gtk_1tree_1model_1row_1inserted_FUNC);
+}
+#endif
+
 #ifndef NO__1gtk_1tree_1path_1append_1index
 JNIEXPORT void JNICALL OS_NATIVE(_1gtk_1tree_1path_1append_1index)
 	(JNIEnv *env, jclass that, jintLong arg0, jint arg1)
@@ -21228,6 +21280,26 @@ JNIEXPORT jintLong JNICALL OS_NATIVE(g_1value_1init)
 }
 #endif
 
+#ifndef NO_g_1value_1set_1boolean
+JNIEXPORT void JNICALL OS_NATIVE(g_1value_1set_1boolean)
+	(JNIEnv *env, jclass that, jintLong arg0, jboolean arg1)
+{
+	OS_NATIVE_ENTER(env, that, g_1value_1set_1boolean_FUNC);
+	g_value_set_boolean((GValue *)arg0, arg1);
+	OS_NATIVE_EXIT(env, that, g_1value_1set_1boolean_FUNC);
+}
+#endif
+
+#ifndef NO_g_1value_1set_1boxed
+JNIEXPORT void JNICALL OS_NATIVE(g_1value_1set_1boxed)
+	(JNIEnv *env, jclass that, jintLong arg0, jintLong arg1)
+{
+	OS_NATIVE_ENTER(env, that, g_1value_1set_1boxed_FUNC);
+	g_value_set_boxed((GValue *)arg0, (gconstpointer)arg1);
+	OS_NATIVE_EXIT(env, that, g_1value_1set_1boxed_FUNC);
+}
+#endif
+
 #ifndef NO_g_1value_1set_1double
 JNIEXPORT void JNICALL OS_NATIVE(g_1value_1set_1double)
 	(JNIEnv *env, jclass that, jintLong arg0, jdouble arg1)
@@ -21268,6 +21340,44 @@ JNIEXPORT void JNICALL OS_NATIVE(g_1value_1set_1int64)
 }
 #endif
 
+#ifndef NO_g_1value_1set_1object
+JNIEXPORT void JNICALL OS_NATIVE(g_1value_1set_1object)
+	(JNIEnv *env, jclass that, jintLong arg0, jintLong arg1)
+{
+	OS_NATIVE_ENTER(env, that, g_1value_1set_1object_FUNC);
+	g_value_set_object((GValue *)arg0, (gpointer)arg1);
+	OS_NATIVE_EXIT(env, that, g_1value_1set_1object_FUNC);
+}
+#endif
+
+#ifndef NO_g_1value_1set_1string
+JNIEXPORT void JNICALL OS_NATIVE(g_1value_1set_1string)
+	(JNIEnv *env, jclass that, jintLong arg0, jbyteArray arg1)
+{
+	jbyte *lparg1=NULL;
+	OS_NATIVE_ENTER(env, that, g_1value_1set_1string_FUNC);
+#ifdef JNI_VERSION_1_2
+	if (IS_JNI_1_2) {
+		if (arg1) if ((lparg1 = (*env)->GetPrimitiveArrayCritical(env, arg1, NULL)) == NULL) goto fail;
+	} else
+#endif
+	{
+		if (arg1) if ((lparg1 = (*env)->GetByteArrayElements(env, arg1, NULL)) == NULL) goto fail;
+	}
+	g_value_set_string((GValue *)arg0, (const gchar *)lparg1);
+fail:
+#ifdef JNI_VERSION_1_2
+	if (IS_JNI_1_2) {
+		if (arg1 && lparg1) (*env)->ReleasePrimitiveArrayCritical(env, arg1, lparg1, JNI_ABORT);
+	} else
+#endif
+	{
+		if (arg1 && lparg1) (*env)->ReleaseByteArrayElements(env, arg1, lparg1, JNI_ABORT);
+	}
+	OS_NATIVE_EXIT(env, that, g_1value_1set_1string_FUNC);
+}
+#endif
+
 #ifndef NO_g_1value_1unset
 JNIEXPORT void JNICALL OS_NATIVE(g_1value_1unset)
 	(JNIEnv *env, jclass that, jintLong arg0)
@@ -21570,6 +21680,27 @@ fail:
 }
 #endif
 
+#if (!defined(NO_memmove__ILorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2) && !defined(JNI64)) || (!defined(NO_memmove__JLorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2) && defined(JNI64))
+#ifndef JNI64
+JNIEXPORT void JNICALL OS_NATIVE(memmove__ILorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2)(JNIEnv *env, jclass that, jintLong arg0, jobject arg1)
+#else
+JNIEXPORT void JNICALL OS_NATIVE(memmove__JLorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2)(JNIEnv *env, jclass that, jintLong arg0, jobject arg1)
+#endif
+{
+#ifndef JNI64
+	OS_NATIVE_ENTER(env, that, memmove__ILorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2_FUNC);
+#else
+	OS_NATIVE_ENTER(env, that, memmove__JLorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2_FUNC);
+#endif
+	if (arg1) getGtkTreeModelIfaceFields(env, arg1, (GtkTreeModelIface *)arg0);
+#ifndef JNI64
+	OS_NATIVE_EXIT(env, that, memmove__ILorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2_FUNC);
+#else
+	OS_NATIVE_EXIT(env, that, memmove__JLorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2_FUNC);
+#endif
+}
+#endif
+
 #if (!defined(NO_memmove__ILorg_eclipse_swt_internal_gtk_GtkWidgetClass_2) && !defined(JNI64)) || (!defined(NO_memmove__JLorg_eclipse_swt_internal_gtk_GtkWidgetClass_2) && defined(JNI64))
 #ifndef JNI64
 JNIEXPORT void JNICALL OS_NATIVE(memmove__ILorg_eclipse_swt_internal_gtk_GtkWidgetClass_2)(JNIEnv *env, jclass that, jintLong arg0, jobject arg1)
@@ -22232,6 +22363,27 @@ fail:
 }
 #endif
 
+#if (!defined(NO_memmove__Lorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2I) && !defined(JNI64)) || (!defined(NO_memmove__Lorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2J) && defined(JNI64))
+#ifndef JNI64
+JNIEXPORT void JNICALL OS_NATIVE(memmove__Lorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2I)(JNIEnv *env, jclass that, jobject arg0, jintLong arg1)
+#else
+JNIEXPORT void JNICALL OS_NATIVE(memmove__Lorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2J)(JNIEnv *env, jclass that, jobject arg0, jintLong arg1)
+#endif
+{
+#ifndef JNI64
+	OS_NATIVE_ENTER(env, that, memmove__Lorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2I_FUNC);
+#else
+	OS_NATIVE_ENTER(env, that, memmove__Lorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2J_FUNC);
+#endif
+	if (arg0) setGtkTreeModelIfaceFields(env, arg0, (GtkTreeModelIface *)arg1);
+#ifndef JNI64
+	OS_NATIVE_EXIT(env, that, memmove__Lorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2I_FUNC);
+#else
+	OS_NATIVE_EXIT(env, that, memmove__Lorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2J_FUNC);
+#endif
+}
+#endif
+
 #if (!defined(NO_memmove__Lorg_eclipse_swt_internal_gtk_GtkWidgetClass_2I) && !defined(JNI64)) || (!defined(NO_memmove__Lorg_eclipse_swt_internal_gtk_GtkWidgetClass_2J) && defined(JNI64))
 #ifndef JNI64
 JNIEXPORT void JNICALL OS_NATIVE(memmove__Lorg_eclipse_swt_internal_gtk_GtkWidgetClass_2I)(JNIEnv *env, jclass that, jobject arg0, jintLong arg1)
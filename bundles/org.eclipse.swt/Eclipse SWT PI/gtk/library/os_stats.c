@@ -97,6 +97,7 @@ char * OS_nativeFunctionNames[] = {
 	"GtkTargetEntry_1sizeof",
 	"GtkTextIter_1sizeof",
 	"GtkTreeIter_1sizeof",
+	"GtkTreeModelIface_1sizeof",
 	"PangoAttrColor_1sizeof",
 	"PangoAttrInt_1sizeof",
 	"PangoAttribute_1sizeof",
@@ -1189,6 +1190,10 @@ char * OS_nativeFunctionNames[] = {
 	"_1gtk_1tree_1model_1iter_1n_1children",
 	"_1gtk_1tree_1model_1iter_1next",
 	"_1gtk_1tree_1model_1iter_1nth_1child",
+	"_1gtk_1tree_1model_1row_1changed",
+	"_1gtk_1tree_1model_1row_1deleted",
+	"_1gtk_1tree_1model_1row_1has_1child_1toggled",
+	"_1gtk_1tree_1model_1row_1inserted",
 	"_1gtk_1tree_1path_1append_1index",
 	"_1gtk_1tree_1path_1compare",
 	"_1gtk_1tree_1path_1free",
@@ -1557,10 +1562,14 @@ char * OS_nativeFunctionNames[] = {
 	"g_1value_1get_1int",
 	"g_1value_1get_1int64",
 	"g_1value_1init",
+	"g_1value_1set_1boolean",
+	"g_1value_1set_1boxed",
 	"g_1value_1set_1double",
 	"g_1value_1set_1float",
 	"g_1value_1set_1int",
 	"g_1value_1set_1int64",
+	"g_1value_1set_1object",
+	"g_1value_1set_1string",
 	"g_1value_1unset",
 	"gdk_1threads_1leave",
 	"gdk_1threads_1set_1lock_1functions",
@@ -1622,6 +1631,11 @@ char * OS_nativeFunctionNames[] = {
 #else
 	"memmove__JLorg_eclipse_swt_internal_gtk_GtkTargetEntry_2J",
 #endif
+#ifndef JNI64
+	"memmove__ILorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2",
+#else
+	"memmove__JLorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2",
+#endif
 #ifndef JNI64
 	"memmove__ILorg_eclipse_swt_internal_gtk_GtkWidgetClass_2",
 #else
@@ -1762,6 +1776,11 @@ char * OS_nativeFunctionNames[] = {
 #else
 	"memmove__Lorg_eclipse_swt_internal_gtk_GtkSelectionData_2JJ",
 #endif
+#ifndef JNI64
+	"memmove__Lorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2I",
+#else
+	"memmove__Lorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2J",
+#endif
 #ifndef JNI64
 	"memmove__Lorg_eclipse_swt_internal_gtk_GtkWidgetClass_2I",
 #else
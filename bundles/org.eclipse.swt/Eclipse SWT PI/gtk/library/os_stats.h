@@ -107,6 +107,7 @@ typedef enum {
 	GtkTargetEntry_1sizeof_FUNC,
 	GtkTextIter_1sizeof_FUNC,
 	GtkTreeIter_1sizeof_FUNC,
+	GtkTreeModelIface_1sizeof_FUNC,
 	PangoAttrColor_1sizeof_FUNC,
 	PangoAttrInt_1sizeof_FUNC,
 	PangoAttribute_1sizeof_FUNC,
@@ -1199,6 +1200,10 @@ typedef enum {
 	_1gtk_1tree_1model_1iter_1n_1children_FUNC,
 	_1gtk_1tree_1model_1iter_1next_FUNC,
 	_1gtk_1tree_1model_1iter_1nth_1child_FUNC,
+	_1gtk_1tree_1model_1row_1changed_FUNC,
+	_1gtk_1tree_1model_1row_1deleted_FUNC,
+	_1gtk_1tree_1model_1row_1has_1child_1toggled_FUNC,
+	_1gtk_1tree_1model_1row_1inserted_FUNC,
 	_1gtk_1tree_1path_1append_1index_FUNC,
 	_1gtk_1tree_1path_1compare_FUNC,
 	_1gtk_1tree_1path_1free_FUNC,
@@ -1567,10 +1572,14 @@ typedef enum {
 	g_1value_1get_1int_FUNC,
 	g_1value_1get_1int64_FUNC,
 	g_1value_1init_FUNC,
+	g_1value_1set_1boolean_FUNC,
+	g_1value_1set_1boxed_FUNC,
 	g_1value_1set_1double_FUNC,
 	g_1value_1set_1float_FUNC,
 	g_1value_1set_1int_FUNC,
 	g_1value_1set_1int64_FUNC,
+	g_1value_1set_1object_FUNC,
+	g_1value_1set_1string_FUNC,
 	g_1value_1unset_FUNC,
 	gdk_1threads_1leave_FUNC,
 	gdk_1threads_1set_1lock_1functions_FUNC,
@@ -1632,6 +1641,11 @@ typedef enum {
 #else
 	memmove__JLorg_eclipse_swt_internal_gtk_GtkTargetEntry_2J_FUNC,
 #endif
+#ifndef JNI64
+	memmove__ILorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2_FUNC,
+#else
+	memmove__JLorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2_FUNC,
+#endif
 #ifndef JNI64
 	memmove__ILorg_eclipse_swt_internal_gtk_GtkWidgetClass_2_FUNC,
 #else
@@ -1772,6 +1786,11 @@ typedef enum {
 #else
 	memmove__Lorg_eclipse_swt_internal_gtk_GtkSelectionData_2JJ_FUNC,
 #endif
+#ifndef JNI64
+	memmove__Lorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2I_FUNC,
+#else
+	memmove__Lorg_eclipse_swt_internal_gtk_GtkTreeModelIface_2J_FUNC,
+#endif
 #ifndef JNI64
 	memmove__Lorg_eclipse_swt_internal_gtk_GtkWidgetClass_2I_FUNC,
 #else
@@ -1709,6 +1709,70 @@ void setGtkTargetEntryFields(JNIEnv *env, jobject lpObject, GtkTargetEntry *lpSt
 }
 #endif
 
+#ifndef NO_GtkTreeModelIface
+typedef struct GtkTreeModelIface_FID_CACHE {
+	int cached;
+	jclass clazz;
+	jfieldID get_flags, get_n_columns, get_column_type, get_iter, get_path, get_value, iter_next, iter_children, iter_has_child, iter_n_children, iter_nth_child, iter_parent;
+} GtkTreeModelIface_FID_CACHE;
+
+GtkTreeModelIface_FID_CACHE GtkTreeModelIfaceFc;
+
+void cacheGtkTreeModelIfaceFields(JNIEnv *env, jobject lpObject)
+{
+	if (GtkTreeModelIfaceFc.cached) return;
+	GtkTreeModelIfaceFc.clazz = (*env)->GetObjectClass(env, lpObject);
+	GtkTreeModelIfaceFc.get_flags = (*env)->GetFieldID(env, GtkTreeModelIfaceFc.clazz, "get_flags", I_J);
+	GtkTreeModelIfaceFc.get_n_columns = (*env)->GetFieldID(env, GtkTreeModelIfaceFc.clazz, "get_n_columns", I_J);
+	GtkTreeModelIfaceFc.get_column_type = (*env)->GetFieldID(env, GtkTreeModelIfaceFc.clazz, "get_column_type", I_J);
+	GtkTreeModelIfaceFc.get_iter = (*env)->GetFieldID(env, GtkTreeModelIfaceFc.clazz, "get_iter", I_J);
+	GtkTreeModelIfaceFc.get_path = (*env)->GetFieldID(env, GtkTreeModelIfaceFc.clazz, "get_path", I_J);
+	GtkTreeModelIfaceFc.get_value = (*env)->GetFieldID(env, GtkTreeModelIfaceFc.clazz, "get_value", I_J);
+	GtkTreeModelIfaceFc.iter_next = (*env)->GetFieldID(env, GtkTreeModelIfaceFc.clazz, "iter_next", I_J);
+	GtkTreeModelIfaceFc.iter_children = (*env)->GetFieldID(env, GtkTreeModelIfaceFc.clazz, "iter_children", I_J);
+	GtkTreeModelIfaceFc.iter_has_child = (*env)->GetFieldID(env, GtkTreeModelIfaceFc.clazz, "iter_has_child", I_J);
+	GtkTreeModelIfaceFc.iter_n_children = (*env)->GetFieldID(env, GtkTreeModelIfaceFc.clazz, "iter_n_children", I_J);
+	GtkTreeModelIfaceFc.iter_nth_child = (*env)->GetFieldID(env, GtkTreeModelIfaceFc.clazz, "iter_nth_child", I_J);
+	GtkTreeModelIfaceFc.iter_parent = (*env)->GetFieldID(env, GtkTreeModelIfaceFc.clazz, "iter_parent", I_J);
+	GtkTreeModelIfaceFc.cached = 1;
+}
+
+GtkTreeModelIface *getGtkTreeModelIfaceFields(JNIEnv *env, jobject lpObject, GtkTreeModelIface *lpStruct)
+{
+	if (!GtkTreeModelIfaceFc.cached) cacheGtkTreeModelIfaceFields(env, lpObject);
+	lpStruct->get_flags = (GtkTreeModelFlags(*)())(*env)->GetIntLongField(env, lpObject, GtkTreeModelIfaceFc.get_flags);
+	lpStruct->get_n_columns = (gint(*)())(*env)->GetIntLongField(env, lpObject, GtkTreeModelIfaceFc.get_n_columns);
+	lpStruct->get_column_type = (GType(*)())(*env)->GetIntLongField(env, lpObject, GtkTreeModelIfaceFc.get_column_type);
+	lpStruct->get_iter = (gboolean(*)())(*env)->GetIntLongField(env, lpObject, GtkTreeModelIfaceFc.get_iter);
+	lpStruct->get_path = (GtkTreePath*(*)())(*env)->GetIntLongField(env, lpObject, GtkTreeModelIfaceFc.get_path);
+	lpStruct->get_value = (void(*)())(*env)->GetIntLongField(env, lpObject, GtkTreeModelIfaceFc.get_value);
+	lpStruct->iter_next = (gboolean(*)())(*env)->GetIntLongField(env, lpObject, GtkTreeModelIfaceFc.iter_next);
+	lpStruct->iter_children = (gboolean(*)())(*env)->GetIntLongField(env, lpObject, GtkTreeModelIfaceFc.iter_children);
+	lpStruct->iter_has_child = (gboolean(*)())(*env)->GetIntLongField(env, lpObject, GtkTreeModelIfaceFc.iter_has_child);
+	lpStruct->iter_n_children = (gint(*)())(*env)->GetIntLongField(env, lpObject, GtkTreeModelIfaceFc.iter_n_children);
+	lpStruct->iter_nth_child = (gboolean(*)())(*env)->GetIntLongField(env, lpObject, GtkTreeModelIfaceFc.iter_nth_child);
+	lpStruct->iter_parent = (gboolean(*)())(*env)->GetIntLongField(env, lpObject, GtkTreeModelIfaceFc.iter_parent);
+	return lpStruct;
+}
+
+void setGtkTreeModelIfaceFields(JNIEnv *env, jobject lpObject, GtkTreeModelIface *lpStruct)
+{
+	if (!GtkTreeModelIfaceFc.cached) cacheGtkTreeModelIfaceFields(env, lpObject);
+	(*env)->SetIntLongField(env, lpObject, GtkTreeModelIfaceFc.get_flags, (jintLong)lpStruct->get_flags);
+	(*env)->SetIntLongField(env, lpObject, GtkTreeModelIfaceFc.get_n_columns, (jintLong)lpStruct->get_n_columns);
+	(*env)->SetIntLongField(env, lpObject, GtkTreeModelIfaceFc.get_column_type, (jintLong)lpStruct->get_column_type);
+	(*env)->SetIntLongField(env, lpObject, GtkTreeModelIfaceFc.get_iter, (jintLong)lpStruct->get_iter);
+	(*env)->SetIntLongField(env, lpObject, GtkTreeModelIfaceFc.get_path, (jintLong)lpStruct->get_path);
+	(*env)->SetIntLongField(env, lpObject, GtkTreeModelIfaceFc.get_value, (jintLong)lpStruct->get_value);
+	(*env)->SetIntLongField(env, lpObject, GtkTreeModelIfaceFc.iter_next, (jintLong)lpStruct->iter_next);
+	(*env)->SetIntLongField(env, lpObject, GtkTreeModelIfaceFc.iter_children, (jintLong)lpStruct->iter_children);
+	(*env)->SetIntLongField(env, lpObject, GtkTreeModelIfaceFc.iter_has_child, (jintLong)lpStruct->iter_has_child);
+	(*env)->SetIntLongField(env, lpObject, GtkTreeModelIfaceFc.iter_n_children, (jintLong)lpStruct->iter_n_children);
+	(*env)->SetIntLongField(env, lpObject, GtkTreeModelIfaceFc.iter_nth_child, (jintLong)lpStruct->iter_nth_child);
+	(*env)->SetIntLongField(env, lpObject, GtkTreeModelIfaceFc.iter_parent, (jintLong)lpStruct->iter_parent);
+}
+#endif
+
 #ifndef NO_GtkWidgetClass
 typedef struct GtkWidgetClass_FID_CACHE {
 	int cached;
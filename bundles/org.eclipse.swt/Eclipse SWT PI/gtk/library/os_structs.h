@@ -423,6 +423,18 @@ void setGtkTargetEntryFields(JNIEnv *env, jobject lpObject, GtkTargetEntry *lpSt
 #define GtkTargetEntry_sizeof() 0
 #endif
 
+#ifndef NO_GtkTreeModelIface
+void cacheGtkTreeModelIfaceFields(JNIEnv *env, jobject lpObject);
+GtkTreeModelIface *getGtkTreeModelIfaceFields(JNIEnv *env, jobject lpObject, GtkTreeModelIface *lpStruct);
+void setGtkTreeModelIfaceFields(JNIEnv *env, jobject lpObject, GtkTreeModelIface *lpStruct);
+#define GtkTreeModelIface_sizeof() sizeof(GtkTreeModelIface)
+#else
+#define cacheGtkTreeModelIfaceFields(a,b)
+#define getGtkTreeModelIfaceFields(a,b,c) NULL
+#define setGtkTreeModelIfaceFields(a,b,c)
+#define GtkTreeModelIface_sizeof() 0
+#endif
+
 #ifndef NO_GtkWidgetClass
 void cacheGtkWidgetClassFields(JNIEnv *env, jobject lpObject);
 GtkWidgetClass *getGtkWidgetClassFields(JNIEnv *env, jobject lpObject, GtkWidgetClass *lpStruct);
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others. All rights reserved.
+ * The contents of this file are made available under the terms
+ * of the GNU Lesser General Public License (LGPL) Version 2.1 that
+ * accompanies this distribution (lgpl-v21.txt).  The LGPL is also
+ * available at http://www.gnu.org/licenses/lgpl.html.  If the version
+ * of the LGPL at http://www.gnu.org is different to the version of
+ * the LGPL accompanying this distribution and there is any conflict
+ * between the two license versions, the terms of the LGPL accompanying
+ * this distribution shall govern.
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.internal.gtk;
+
+
+public class GtkTreeModelIface {
+	/** @field cast=(GtkTreeModelFlags(*)()) */
+	public long /*int*/ get_flags;
+	/** @field cast=(gint(*)()) */
+	public long /*int*/ get_n_columns;
+	/** @field cast=(GType(*)()) */
+	public long /*int*/ get_column_type;
+	/** @field cast=(gboolean(*)()) */
+	public long /*int*/ get_iter;
+	/** @field cast=(GtkTreePath*(*)()) */
+	public long /*int*/ get_path;
+	/** @field cast=(void(*)()) */
+	public long /*int*/ get_value;
+	/** @field cast=(gboolean(*)()) */
+	public long /*int*/ iter_next;
+	/** @field cast=(gboolean(*)()) */
+	public long /*int*/ iter_children;
+	/** @field cast=(gboolean(*)()) */
+	public long /*int*/ iter_has_child;
+	/** @field cast=(gint(*)()) */
+	public long /*int*/ iter_n_children;
+	/** @field cast=(gboolean(*)()) */
+	public long /*int*/ iter_nth_child;
+	/** @field cast=(gboolean(*)()) */
+	public long /*int*/ iter_parent;
+}
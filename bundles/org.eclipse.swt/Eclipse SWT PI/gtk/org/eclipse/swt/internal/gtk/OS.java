@@ -415,6 +415,8 @@ public class OS extends C {
 	public static final int GTK_TOOLBAR_TEXT = 1;
 	public static final int GTK_TOOLBAR_BOTH = 2;
 	public static final int GTK_TOOLBAR_BOTH_HORIZ = 3;	
+	public static final int GTK_TREE_MODEL_ITERS_PERSIST = 1;
+	public static final int GTK_TREE_MODEL_LIST_ONLY = 2;
 	public static final int GTK_TREE_VIEW_COLUMN_GROW_ONLY = 0;
 	public static final int GTK_TREE_VIEW_COLUMN_AUTOSIZE = 1;
 	public static final int GTK_TREE_VIEW_COLUMN_FIXED = 2;
@@ -700,6 +702,7 @@ public static final native int GtkCellRendererPixbufClass_sizeof();
 public static final native int GtkCellRendererToggle_sizeof();
 public static final native int GtkCellRendererToggleClass_sizeof();
 public static final native int GtkTreeIter_sizeof();
+public static final native int GtkTreeModelIface_sizeof();
 public static final native int PangoAttribute_sizeof();
 public static final native int PangoAttrColor_sizeof();
 public static final native int PangoAttrInt_sizeof();
@@ -3459,6 +3462,23 @@ public static final native int g_value_get_int (long /*int*/ value);
 /** @param value cast=(GValue *) */
 public static final native void g_value_set_int (long /*int*/ value, int v);
 /** @param value cast=(GValue *) */
+public static final native void g_value_set_boolean (long /*int*/ value, boolean v);
+/**
+ * @param value cast=(GValue *)
+ * @param v_boxed cast=(gconstpointer)
+ */
+public static final native void g_value_set_boxed (long /*int*/ value, long /*int*/ v_boxed);
+/**
+ * @param value cast=(GValue *)
+ * @param v_object cast=(gpointer)
+ */
+public static final native void g_value_set_object (long /*int*/ value, long /*int*/ v_object);
+/**
+ * @param value cast=(GValue *)
+ * @param v_string cast=(const gchar *),flags=no_out critical
+ */
+public static final native void g_value_set_string (long /*int*/ value, byte[] v_string);
+/** @param value cast=(GValue *) */
 public static final native double g_value_get_double (long /*int*/ value);
 /** @param value cast=(GValue *) */
 public static final native void g_value_set_double (long /*int*/ value, double v);
@@ -12223,6 +12243,61 @@ public static final boolean gtk_tree_model_iter_next(long /*int*/ model, long /*
 		lock.unlock();
 	}
 }
+/**
+ * @param tree_model cast=(GtkTreeModel *)
+ * @param path cast=(GtkTreePath *)
+ * @param iter cast=(GtkTreeIter *)
+ */
+public static final native void _gtk_tree_model_row_changed(long /*int*/ tree_model, long /*int*/ path, long /*int*/ iter);
+public static final void gtk_tree_model_row_changed(long /*int*/ tree_model, long /*int*/ path, long /*int*/ iter) {
+	lock.lock();
+	try {
+		_gtk_tree_model_row_changed(tree_model, path, iter);
+	} finally {
+		lock.unlock();
+	}
+}
+/**
+ * @param tree_model cast=(GtkTreeModel *)
+ * @param path cast=(GtkTreePath *)
+ */
+public static final native void _gtk_tree_model_row_deleted(long /*int*/ tree_model, long /*int*/ path);
+public static final void gtk_tree_model_row_deleted(long /*int*/ tree_model, long /*int*/ path) {
+	lock.lock();
+	try {
+		_gtk_tree_model_row_deleted(tree_model, path);
+	} finally {
+		lock.unlock();
+	}
+}
+/**
+ * @param tree_model cast=(GtkTreeModel *)
+ * @param path cast=(GtkTreePath *)
+ * @param iter cast=(GtkTreeIter *)
+ */
+public static final native void _gtk_tree_model_row_has_child_toggled(long /*int*/ tree_model, long /*int*/ path, long /*int*/ iter);
+public static final void gtk_tree_model_row_has_child_toggled(long /*int*/ tree_model, long /*int*/ path, long /*int*/ iter) {
+	lock.lock();
+	try {
+		_gtk_tree_model_row_has_child_toggled(tree_model, path, iter);
+	} finally {
+		lock.unlock();
+	}
+}
+/**
+ * @param tree_model cast=(GtkTreeModel *)
+ * @param path cast=(GtkTreePath *)
+ * @param iter cast=(GtkTreeIter *)
+ */
+public static final native void _gtk_tree_model_row_inserted(long /*int*/ tree_model, long /*int*/ path, long /*int*/ iter);
+public static final void gtk_tree_model_row_inserted(long /*int*/ tree_model, long /*int*/ path, long /*int*/ iter) {
+	lock.lock();
+	try {
+		_gtk_tree_model_row_inserted(tree_model, path, iter);
+	} finally {
+		lock.unlock();
+	}
+}
 /**
  * @param tree_model cast=(GtkTreeModel *)
  * @param iter cast=(GtkTreeIter *)
@@ -14831,6 +14906,8 @@ public static final native void memmove(GdkEventVisibility dest, long /*int*/ sr
 public static final native void memmove(GdkEventWindowState dest, long /*int*/ src, long /*int*/ size);
 public static final native void memmove(long /*int*/ dest, GtkCellRendererClass src);
 public static final native void memmove(GtkCellRendererClass dest, long /*int*/ src);
+public static final native void memmove(long /*int*/ dest, GtkTreeModelIface src);
+public static final native void memmove(GtkTreeModelIface dest, long /*int*/ src);
 /**
  * @param dest cast=(void *),flags=no_in
  * @param src cast=(const void *)
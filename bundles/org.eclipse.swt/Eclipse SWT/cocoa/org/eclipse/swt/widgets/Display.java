@@ -591,6 +591,49 @@ public void asyncExec (Runnable runnable) {
 	}
 }
 
+/**
+ * Causes the <code>run()</code> method of the runnable to
+ * be invoked by the user-interface thread at the next 
+ * reasonable opportunity, replacing the runnable that was
+ * queued with the same key if it has not been run yet. The
+ * caller of this method continues to run in parallel, and is
+ * not notified when the runnable has completed.
+ * <p>
+ * This is intended for work where only the latest request
+ * matters, such as refreshing a view while a background
+ * thread streams updates for it. Runnables queued by this
+ * method are run together, in the order in which their keys
+ * were first queued, when the user-interface thread reaches
+ * the first of them.
+ * </p>
+ * <p>
+ * Note that at the time the runnable is invoked, widgets 
+ * that have the receiver as their display may have been
+ * disposed. Therefore, it is necessary to check for this
+ * case inside the runnable before accessing the widget.
+ * </p>
+ *
+ * @param key the key identifying the runnables that replace each other
+ * @param runnable code to run on the user-interface thread
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the key or the runnable is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the receiver has been disposed</li>
+ * </ul>
+ * 
+ * @see #asyncExec(Runnable)
+ * 
+ * @since 3.103
+ */
+public void asyncExec (Object key, Runnable runnable) {
+	synchronized (Device.class) {
+		if (isDisposed ()) error (SWT.ERROR_DEVICE_DISPOSED);
+		synchronizer.asyncExec (key, runnable);
+	}
+}
+
 /**
  * Causes the system hardware to emit a short sound
  * (if it supports this capability).
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -2620,6 +2620,45 @@ public void setRedraw (boolean redraw) {
 	}
 }
 
+/**
+ * Sets the receiver's items to one item for each of the given rows,
+ * with the strings of a row as the text of the columns of its item.
+ * Strings beyond the number of columns and null strings are ignored.
+ * <p>
+ * This is equivalent to removing all of the items and creating an
+ * item for each row with its text set, but it is much faster for
+ * large numbers of rows.
+ * </p>
+ *
+ * @param rows the strings of the items, one array per item
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the rows array is null</li>
+ *    <li>ERROR_INVALID_ARGUMENT - if a row in the rows array is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_WIDGET_DISPOSED - if the receiver has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the receiver</li>
+ * </ul>
+ *
+ * @see TableItem#setText(String[])
+ *
+ * @since 3.103
+ */
+public void setItems (String [][] rows) {
+	checkWidget ();
+	if (rows == null) error (SWT.ERROR_NULL_ARGUMENT);
+	for (int i=0; i<rows.length; i++) {
+		if (rows [i] == null) error (SWT.ERROR_INVALID_ARGUMENT);
+	}
+	setRedraw (false);
+	removeAll ();
+	for (int i=0; i<rows.length; i++) {
+		new TableItem (this, SWT.NONE).setText (rows [i]);
+	}
+	setRedraw (true);
+}
+
 /**
  * Marks the receiver's lines as visible if the argument is <code>true</code>,
  * and marks it invisible otherwise. Note that some platforms draw grid lines
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -189,6 +189,52 @@ long /*int*/ accessibilityAttributeValue(long /*int*/ id, long /*int*/ sel, long
 	}
 }
 
+/**
+ * Adds an item for each of the given rows to the end of the items
+ * of the given parent item, or of the root items of the receiver
+ * when the parent item is null. The strings of a row are the text
+ * of the columns of its item. Strings beyond the number of columns
+ * and null strings are ignored.
+ * <p>
+ * This is equivalent to creating an item for each row and setting
+ * its text, but it is much faster for large numbers of rows.
+ * </p>
+ *
+ * @param parentItem the parent of the new items, or null for root items
+ * @param rows the strings of the new items, one array per item
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the rows array is null</li>
+ *    <li>ERROR_INVALID_ARGUMENT - if a row in the rows array is null or the parent item has been disposed</li>
+ *    <li>ERROR_INVALID_PARENT - if the parent item is not an item of the receiver</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_WIDGET_DISPOSED - if the receiver has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the receiver</li>
+ * </ul>
+ *
+ * @see TreeItem#setText(String[])
+ *
+ * @since 3.103
+ */
+public void addItems (TreeItem parentItem, String [][] rows) {
+	checkWidget ();
+	if (rows == null) error (SWT.ERROR_NULL_ARGUMENT);
+	for (int i=0; i<rows.length; i++) {
+		if (rows [i] == null) error (SWT.ERROR_INVALID_ARGUMENT);
+	}
+	if (parentItem != null) {
+		if (parentItem.isDisposed ()) error (SWT.ERROR_INVALID_ARGUMENT);
+		if (parentItem.getParent () != this) error (SWT.ERROR_INVALID_PARENT);
+	}
+	setRedraw (false);
+	for (int i=0; i<rows.length; i++) {
+		TreeItem item = parentItem != null ? new TreeItem (parentItem, SWT.NONE) : new TreeItem (this, SWT.NONE);
+		item.setText (rows [i]);
+	}
+	setRedraw (true);
+}
+
 /**
  * Adds the listener to the collection of listeners who will
  * be notified when the user changes the receiver's selection, by sending
@@ -1158,6 +1158,61 @@ public ImageData scaledTo(int width, int height) {
 	return dest;
 }
 
+/**
+ * Returns a copy of the receiver which has been stretched or
+ * shrunk to the specified size using the given filter. If either
+ * the width or height is negative, the resulting image will be
+ * inverted in the associated axis.
+ * <p>
+ * The filter is one of the interpolation constants used by
+ * <code>GC.setInterpolation()</code>:
+ * <dl>
+ * <dt><code>SWT.NONE</code></dt>
+ * <dd>nearest neighbor, the same as <code>scaledTo(int, int)</code></dd>
+ * <dt><code>SWT.LOW</code></dt>
+ * <dd>a box filter, which averages the pixels each destination pixel covers</dd>
+ * <dt><code>SWT.DEFAULT</code></dt>
+ * <dd>a triangle (bilinear) filter</dd>
+ * <dt><code>SWT.HIGH</code></dt>
+ * <dd>a three lobed Lanczos filter</dd>
+ * </dl>
+ * </p><p>
+ * When a filter other than <code>SWT.NONE</code> is used, the
+ * colors of neighboring pixels are blended, so an image that is
+ * not a 24 or 32 bit direct color image is converted to a 24 bit
+ * direct color image, and an image with a mask, a transparent
+ * pixel or alpha data is given alpha data.
+ * </p>
+ *
+ * @param width the width of the new ImageData
+ * @param height the height of the new ImageData
+ * @param filter the filter, one of <code>SWT.NONE</code>, <code>SWT.LOW</code>, <code>SWT.DEFAULT</code> or <code>SWT.HIGH</code>
+ * @return a scaled copy of the image
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_INVALID_ARGUMENT - if the filter is not one of the valid values</li>
+ *    <li>ERROR_INVALID_ARGUMENT - if the width or height is zero</li>
+ * </ul>
+ *
+ * @see GC#setInterpolation(int)
+ *
+ * @since 3.103
+ */
+public ImageData scaledTo(int width, int height, int filter) {
+	switch (filter) {
+		case SWT.NONE:
+			return scaledTo(width, height);
+		case SWT.LOW:
+		case SWT.DEFAULT:
+		case SWT.HIGH:
+			break;
+		default:
+			SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	}
+	if (width == 0 || height == 0) SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	return ImageDataScaler.scale(this, width, height, filter);
+}
+
 /**
  * Sets the alpha value at offset <code>x</code> in
  * scanline <code>y</code> in the receiver's alpha data.
@@ -1880,6 +1935,14 @@ static void blit(int op,
 		(srcRedMask == destRedMask) && (srcGreenMask == destGreenMask) &&
 		(srcBlueMask == destBlueMask) && (srcAlphaMask == destAlphaMask)) {
 		/*** Fast blit (straight copy) ***/
+		if (srcWidth == destWidth && srcHeight == destHeight && !flipX) {
+			/* Unscaled, copy whole rows */
+			final int length = destWidth * dbpp;
+			for (int dy = destHeight; dy > 0; --dy, sp += srcStride, dp += dpryi) {
+				System.arraycopy(srcData, sp, destData, dp, length);
+			}
+			return;
+		}
 		switch (sbpp) {
 			case 1:
 				for (int dy = destHeight, sfy = sfyi; dy > 0; --dy, sp = spr += (sfy >>> 16) * srcStride, sfy = (sfy & 0xffff) + sfyi, dp = dpr += dpryi) {
@@ -1922,31 +1985,36 @@ static void blit(int op,
 		}
 		return;
 	}
-	/*Fast 32 to 32 blit */
-	if (alphaMode == 0x10000 && stype == TYPE_GENERIC_32_MSB && dtype == TYPE_GENERIC_32_MSB) {
-		if (srcRedMask == 0xFF00 && srcGreenMask == 0xff0000 && srcBlueMask == 0xff000000 && destRedMask == 0xFF0000 && destGreenMask == 0xff00 && destBlueMask == 0xff) {
-			for (int dy = destHeight, sfy = sfyi; dy > 0; --dy, sp = spr += (sfy >>> 16) * srcStride, sfy = (sfy & 0xffff) + sfyi, dp = dpr += dpryi) {
-				for (int dx = destWidth, sfx = sfxi; dx > 0; --dx, dp += dprxi, sfx = (sfx & 0xffff) + sfxi) {
-					destData[dp] = srcData[sp + 3];
-					destData[dp + 1] = srcData[sp + 2];
-					destData[dp + 2] = srcData[sp + 1];
-					destData[dp + 3] = srcData[sp];
-					sp += (sfx >>> 16) * 4;
+	/*** Fast 24 and 32 bit blit (swizzle whole bytes) ***/
+	if (alphaMode == 0x10000 && sbpp >= 3 && dbpp >= 3) {
+		/* The offset of the byte holding each channel within a pixel, or -1 */
+		final int sr = getByteOffset(srcRedMask, sbpp, stype);
+		final int sg = getByteOffset(srcGreenMask, sbpp, stype);
+		final int sb = getByteOffset(srcBlueMask, sbpp, stype);
+		final int dr = getByteOffset(destRedMask, dbpp, dtype);
+		final int dg = getByteOffset(destGreenMask, dbpp, dtype);
+		final int db = getByteOffset(destBlueMask, dbpp, dtype);
+		if (sr != -1 && sg != -1 && sb != -1 && dr != -1 && dg != -1 && db != -1 && dr != dg && dr != db && dg != db) {
+			if (dbpp == 4) {
+				/* The byte of the destination pixel that holds no channel is cleared */
+				final int dz = 6 - dr - dg - db;
+				for (int dy = destHeight, sfy = sfyi; dy > 0; --dy, sp = spr += (sfy >>> 16) * srcStride, sfy = (sfy & 0xffff) + sfyi, dp = dpr += dpryi) {
+					for (int dx = destWidth, sfx = sfxi; dx > 0; --dx, dp += dprxi, sfx = (sfx & 0xffff) + sfxi) {
+						destData[dp + dr] = srcData[sp + sr];
+						destData[dp + dg] = srcData[sp + sg];
+						destData[dp + db] = srcData[sp + sb];
+						destData[dp + dz] = 0;
+						sp += (sfx >>> 16) * sbpp;
+					}
 				}
-			}
-			return;
-		}
-	}
-	/*Fast 24 to 32 blit */
-	if (alphaMode == 0x10000 && stype == TYPE_GENERIC_24 && dtype == TYPE_GENERIC_32_MSB) {
-		if (srcRedMask == 0xFF && srcGreenMask == 0xff00 && srcBlueMask == 0xff0000 && destRedMask == 0xFF0000 && destGreenMask == 0xff00 && destBlueMask == 0xff) {
-			for (int dy = destHeight, sfy = sfyi; dy > 0; --dy, sp = spr += (sfy >>> 16) * srcStride, sfy = (sfy & 0xffff) + sfyi, dp = dpr += dpryi) {
-				for (int dx = destWidth, sfx = sfxi; dx > 0; --dx, dp += dprxi, sfx = (sfx & 0xffff) + sfxi) {
-					destData[dp] = 0;
-					destData[dp + 1] = srcData[sp + 2];
-					destData[dp + 2] = srcData[sp + 1];
-					destData[dp + 3] = srcData[sp];
-					sp += (sfx >>> 16) * 3;
+			} else {
+				for (int dy = destHeight, sfy = sfyi; dy > 0; --dy, sp = spr += (sfy >>> 16) * srcStride, sfy = (sfy & 0xffff) + sfyi, dp = dpr += dpryi) {
+					for (int dx = destWidth, sfx = sfxi; dx > 0; --dx, dp += dprxi, sfx = (sfx & 0xffff) + sfxi) {
+						destData[dp + dr] = srcData[sp + sr];
+						destData[dp + dg] = srcData[sp + sg];
+						destData[dp + db] = srcData[sp + sb];
+						sp += (sfx >>> 16) * sbpp;
+					}
 				}
 			}
 			return;
@@ -3440,6 +3508,78 @@ static void blit(int op,
 	}
 }
 
+/**
+ * Premultiplies the color channels of the 32 bit pixels in the
+ * given region by their alpha and stores the alpha in each pixel.
+ * The alpha is read from the alpha data when it is not null, or
+ * else the global alpha is used for every pixel.
+ *
+ * @param data the pixels, 4 bytes per pixel
+ * @param stride the number of bytes per line of the pixels
+ * @param width the width of the region
+ * @param height the height of the region
+ * @param oa the offset of the alpha byte within a pixel
+ * @param or the offset of the red byte within a pixel
+ * @param og the offset of the green byte within a pixel
+ * @param ob the offset of the blue byte within a pixel
+ * @param alpha the global alpha, 0-255; ignored if alphaData is not null
+ * @param alphaData the alpha of each pixel, or null
+ * @param alphaStride the number of bytes per line of the alpha data
+ */
+static void premultiply(byte[] data, int stride, int width, int height,
+	int oa, int or, int og, int ob,
+	int alpha, byte[] alphaData, int alphaStride) {
+	final byte[] multiply = AlphaTables.MULTIPLY;
+	for (int y = 0, rp = 0, ap = 0; y < height; y++, rp += stride, ap += alphaStride) {
+		if (alphaData == null && alpha == 0xFF) {
+			for (int x = 0, p = rp; x < width; x++, p += 4) {
+				data[p + oa] = (byte)0xFF;
+			}
+			continue;
+		}
+		for (int x = 0, p = rp; x < width; x++, p += 4) {
+			final int a = alphaData != null ? alphaData[ap + x] & 0xFF : alpha;
+			final int row = a << 8;
+			data[p + oa] = (byte)a;
+			data[p + or] = multiply[row | (data[p + or] & 0xFF)];
+			data[p + og] = multiply[row | (data[p + og] & 0xFF)];
+			data[p + ob] = multiply[row | (data[p + ob] & 0xFF)];
+		}
+	}
+}
+
+/**
+ * Returns the value of a color channel premultiplied by the given
+ * alpha with its premultiplication undone. The channel is returned
+ * unchanged when the alpha is 0.
+ *
+ * @param channel the premultiplied channel, 0-255
+ * @param alpha the alpha, 0-255
+ * @return the channel
+ */
+static byte unpremultiply(int channel, int alpha) {
+	return AlphaTables.DIVIDE[(alpha << 8) | channel];
+}
+
+/**
+ * Lookup tables indexed by <code>alpha &lt;&lt; 8 | channel</code>
+ * that premultiply a color channel by an alpha and undo it, created
+ * the first time they are used.
+ */
+static class AlphaTables {
+	static final byte[] MULTIPLY = new byte[0x10000];
+	static final byte[] DIVIDE = new byte[0x10000];
+	static {
+		for (int a = 0; a < 0x100; a++) {
+			for (int c = 0; c < 0x100; c++) {
+				int value = (c * a) + 128;
+				MULTIPLY[(a << 8) | c] = (byte)((value + (value >> 8)) >> 8);
+				DIVIDE[(a << 8) | c] = (byte)(a != 0 ? ((c * 0xFF) + a / 2) / a : c);
+			}
+		}
+	}
+}
+
 /**
  * Computes the required channel shift from a mask.
  */
@@ -3465,6 +3605,16 @@ static int getChannelWidth(int mask, int shift) {
 	return i - shift;
 }
 
+/**
+ * Computes the offset within a 24 or 32 bit pixel of the byte
+ * that a mask covers, or -1 if the mask is not a whole byte.
+ */
+static int getByteOffset(int mask, int bpp, int type) {
+	int shift = getChannelShift(mask);
+	if ((shift & 7) != 0 || mask != 0xFF << shift || shift >= bpp * 8) return -1;
+	return type == TYPE_GENERIC_32_LSB ? shift >> 3 : bpp - 1 - (shift >> 3);
+}
+
 /**
  * Extracts a field from packed RGB data given a mask for that field.
  */
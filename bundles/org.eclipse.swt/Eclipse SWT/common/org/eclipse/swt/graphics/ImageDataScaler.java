@@ -0,0 +1,377 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.graphics;
+
+
+import java.util.concurrent.*;
+
+import org.eclipse.swt.*;
+
+/**
+ * Internal class that resamples an ImageData with a box,
+ * triangle (bilinear) or Lanczos filter.
+ * <p>
+ * The filter is applied in two separable passes: each source
+ * row is filtered horizontally, with the color premultiplied by
+ * the alpha, into a small window of rows, and each destination
+ * row is then filtered vertically from that window. Large images
+ * are processed in bands of destination rows by the common
+ * fork-join pool.
+ * </p>
+ */
+class ImageDataScaler {
+	ImageData source, dest;
+	int filter;
+	boolean flipX, flipY, hasAlpha;
+
+	/* The source pixels covered by each destination column and row */
+	int[] xStart, xCount, yStart, yCount;
+	float[] xWeights, yWeights;
+	int xStride, yStride;
+
+	/* Red, green and blue values of the colors of an indexed palette */
+	int[] colors;
+
+	static final int BOX = SWT.LOW;
+	static final int TRIANGLE = SWT.DEFAULT;
+	static final int LANCZOS = SWT.HIGH;
+
+	/* The number of filtered pixels below which the image is not split up */
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+	static final int MIN_BAND_HEIGHT = 8;
+
+	/* Set to scale in the calling thread only, without the common fork-join pool */
+	static final String DISABLE_PARALLEL = "org.eclipse.swt.internal.image.disableParallelScaling"; //$NON-NLS-1$
+
+ImageDataScaler(ImageData source, int width, int height, int filter) {
+	this.source = source;
+	this.filter = filter;
+	flipX = width < 0;
+	if (flipX) width = -width;
+	flipY = height < 0;
+	if (flipY) height = -height;
+	/* A global alpha takes precedence over the alpha data, as it does when drawing */
+	hasAlpha = (source.alphaData != null && source.alpha == -1) || source.maskData != null || source.transparentPixel != -1;
+	PaletteData palette = source.palette;
+	if (palette.isDirect && (source.depth == 24 || source.depth == 32)) {
+		dest = new ImageData(width, height, source.depth, palette, source.scanlinePad, null, 0, null,
+			null, -1, -1, source.type, source.x, source.y, source.disposalMethod, source.delayTime);
+	} else {
+		dest = new ImageData(width, height, 24, new PaletteData(0xFF0000, 0xFF00, 0xFF), 4, null, 0, null,
+			null, -1, -1, source.type, source.x, source.y, source.disposalMethod, source.delayTime);
+	}
+	dest.alpha = source.alpha;
+	if (hasAlpha) dest.alphaData = new byte[width * height];
+	if (!palette.isDirect) {
+		RGB[] rgbs = palette.colors;
+		colors = new int[1 << source.depth];
+		for (int i = 0; i < rgbs.length && i < colors.length; i++) {
+			RGB rgb = rgbs[i];
+			if (rgb != null) colors[i] = (rgb.red << 16) | (rgb.green << 8) | rgb.blue;
+		}
+	}
+}
+
+static ImageData scale(ImageData source, int width, int height, int filter) {
+	ImageDataScaler scaler = new ImageDataScaler(source, width, height, filter);
+	scaler.scale();
+	return scaler.dest;
+}
+
+static float kernel(int filter, float x) {
+	if (x < 0) x = -x;
+	switch (filter) {
+		case BOX:
+			return x <= 0.5f ? 1 : 0;
+		case TRIANGLE:
+			return x < 1 ? 1 - x : 0;
+		case LANCZOS: {
+			if (x == 0) return 1;
+			if (x >= 3) return 0;
+			double px = Math.PI * x;
+			return (float) (3 * Math.sin(px) * Math.sin(px / 3) / (px * px));
+		}
+	}
+	return 0;
+}
+
+static float support(int filter) {
+	switch (filter) {
+		case BOX: return 0.5f;
+		case TRIANGLE: return 1;
+		case LANCZOS: return 3;
+	}
+	return 0;
+}
+
+/*
+* Computes the source pixels and their weights for each of the
+* destination pixels along one axis. The kernel is widened by the
+* scale factor when shrinking so that every source pixel counts.
+*/
+int contributions(int srcSize, int destSize, int[] start, int[] count, float[][] weights) {
+	float scale = (float) destSize / srcSize;
+	float width = scale < 1 ? 1 / scale : 1;
+	float support = support(filter) * width;
+	int stride = (int) Math.ceil(support * 2) + 1;
+	float[] result = new float[destSize * stride];
+	for (int i = 0; i < destSize; i++) {
+		float center = (i + 0.5f) / scale - 0.5f;
+		int first = Math.max(0, (int) Math.ceil(center - support));
+		int last = Math.min(srcSize - 1, (int) Math.floor(center + support));
+		if (last - first + 1 > stride) last = first + stride - 1;
+		float total = 0;
+		int n = 0;
+		for (int j = first; j <= last; j++) {
+			float weight = kernel(filter, (j - center) / width);
+			result[i * stride + n++] = weight;
+			total += weight;
+		}
+		if (total == 0) {
+			/* The kernel fell between the source pixels, use the nearest one */
+			first = Math.min(srcSize - 1, Math.max(0, Math.round(center)));
+			result[i * stride] = 1;
+			n = 1;
+		} else if (total != 1) {
+			for (int j = 0; j < n; j++) result[i * stride + j] /= total;
+		}
+		start[i] = first;
+		count[i] = n;
+	}
+	weights[0] = result;
+	return stride;
+}
+
+void scale() {
+	int srcWidth = source.width, srcHeight = source.height;
+	int destWidth = dest.width, destHeight = dest.height;
+	float[][] weights = new float[1][];
+	xStart = new int[destWidth];
+	xCount = new int[destWidth];
+	xStride = contributions(srcWidth, destWidth, xStart, xCount, weights);
+	xWeights = weights[0];
+	yStart = new int[destHeight];
+	yCount = new int[destHeight];
+	yStride = contributions(srcHeight, destHeight, yStart, yCount, weights);
+	yWeights = weights[0];
+
+	int parallelism = ForkJoinPool.getCommonPoolParallelism();
+	if (parallelism < 2 || (long) srcHeight * destWidth + (long) destHeight * destWidth < PARALLEL_THRESHOLD || System.getProperty(DISABLE_PARALLEL) != null) {
+		scaleRows(0, destHeight);
+		return;
+	}
+	/*
+	* Each band filters the source rows it needs on its own, so the
+	* bands are made tall enough that the rows shared with the next
+	* band are a small part of the work.
+	*/
+	int overlap = (int) Math.ceil((double) yStride * destHeight / srcHeight);
+	final int bandHeight = Math.max(Math.max(MIN_BAND_HEIGHT, overlap * 4), destHeight / (parallelism * 4));
+	class Band extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		int start, end;
+		Band(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+		protected void compute() {
+			if (end - start <= bandHeight) {
+				scaleRows(start, end);
+				return;
+			}
+			int middle = (start + end) >>> 1;
+			invokeAll(new Band(start, middle), new Band(middle, end));
+		}
+	}
+	ForkJoinPool.commonPool().invoke(new Band(0, destHeight));
+}
+
+/*
+* Computes the destination rows from start to end. The source
+* rows are read, premultiplied and filtered horizontally into a
+* window that holds the rows needed by one destination row, and
+* the destination row is then filtered vertically from the window.
+*/
+void scaleRows(int start, int end) {
+	int srcWidth = source.width, destWidth = dest.width, destHeight = dest.height;
+	int[] pixels = new int[Math.max(srcWidth, destWidth)];
+	float[] row = new float[srcWidth * 4];
+	float[][] window = new float[yStride][destWidth * 4];
+	int[] windowRows = new int[yStride];
+	for (int i = 0; i < yStride; i++) windowRows[i] = -1;
+	byte[] alphas = hasAlpha ? new byte[destWidth] : null;
+	for (int y = start; y < end; y++) {
+		int w = y * yStride, first = yStart[y], n = yCount[y];
+		for (int j = 0; j < n; j++) {
+			int srcY = first + j, slot = srcY % yStride;
+			if (windowRows[slot] != srcY) {
+				filterRow(srcY, pixels, row, window[slot]);
+				windowRows[slot] = srcY;
+			}
+		}
+		for (int x = 0, i = 0; x < destWidth; x++, i += 4) {
+			float r = 0, g = 0, b = 0, a = 0;
+			for (int j = 0; j < n; j++) {
+				float weight = yWeights[w + j];
+				float[] filtered = window[(first + j) % yStride];
+				r += filtered[i] * weight;
+				g += filtered[i + 1] * weight;
+				b += filtered[i + 2] * weight;
+				a += filtered[i + 3] * weight;
+			}
+			int alpha = Math.round(a * 255);
+			if (alpha <= 0) {
+				pixels[x] = 0;
+				if (alphas != null) alphas[x] = 0;
+				continue;
+			}
+			if (alpha > 255) alpha = 255;
+			pixels[x] = (clamp(r / a) << 16) | (clamp(g / a) << 8) | clamp(b / a);
+			if (alphas != null) alphas[x] = (byte) alpha;
+		}
+		int destY = flipY ? destHeight - 1 - y : y;
+		writeRow(destY, pixels);
+		if (alphas != null) System.arraycopy(alphas, 0, dest.alphaData, destY * destWidth, destWidth);
+	}
+}
+
+/*
+* Reads a source row, premultiplies it and filters it horizontally.
+*/
+void filterRow(int y, int[] pixels, float[] row, float[] result) {
+	int srcWidth = source.width, destWidth = dest.width;
+	readRow(y, pixels);
+	for (int x = 0, i = 0; x < srcWidth; x++) {
+		int pixel = pixels[x];
+		float a = (pixel >>> 24) / 255f;
+		row[i++] = ((pixel >> 16) & 0xFF) * a;
+		row[i++] = ((pixel >> 8) & 0xFF) * a;
+		row[i++] = (pixel & 0xFF) * a;
+		row[i++] = a;
+	}
+	for (int x = 0; x < destWidth; x++) {
+		int w = x * xStride, s = xStart[x] * 4, n = xCount[x];
+		float r = 0, g = 0, b = 0, a = 0;
+		for (int j = 0; j < n; j++) {
+			float weight = xWeights[w + j];
+			r += row[s++] * weight;
+			g += row[s++] * weight;
+			b += row[s++] * weight;
+			a += row[s++] * weight;
+		}
+		int index = (flipX ? destWidth - 1 - x : x) * 4;
+		result[index] = r;
+		result[index + 1] = g;
+		result[index + 2] = b;
+		result[index + 3] = a;
+	}
+}
+
+static int clamp(float value) {
+	int result = Math.round(value);
+	return result < 0 ? 0 : result > 255 ? 255 : result;
+}
+
+static int channel(int pixel, int mask, int shift) {
+	int value = pixel & mask;
+	return (shift < 0 ? value >>> -shift : value << shift) & 0xFF;
+}
+
+/*
+* Reads a source row as non-premultiplied ARGB values.
+*/
+void readRow(int y, int[] pixels) {
+	ImageData source = this.source;
+	PaletteData palette = source.palette;
+	int width = source.width;
+	byte[] data = source.data;
+	int index = y * source.bytesPerLine;
+	if (palette.isDirect) {
+		int redMask = palette.redMask, greenMask = palette.greenMask, blueMask = palette.blueMask;
+		int redShift = palette.redShift, greenShift = palette.greenShift, blueShift = palette.blueShift;
+		switch (source.depth) {
+			case 32:
+				for (int x = 0; x < width; x++, index += 4) {
+					pixels[x] = ((data[index] & 0xFF) << 24) | ((data[index + 1] & 0xFF) << 16)
+						| ((data[index + 2] & 0xFF) << 8) | (data[index + 3] & 0xFF);
+				}
+				break;
+			case 24:
+				for (int x = 0; x < width; x++, index += 3) {
+					pixels[x] = ((data[index] & 0xFF) << 16) | ((data[index + 1] & 0xFF) << 8)
+						| (data[index + 2] & 0xFF);
+				}
+				break;
+			default:
+				source.getPixels(0, y, width, pixels, 0);
+		}
+		int transparentPixel = source.transparentPixel;
+		boolean transparent = transparentPixel != -1;
+		for (int x = 0; x < width; x++) {
+			int pixel = pixels[x];
+			int alpha = transparent && pixel == transparentPixel ? 0 : 0xFF000000;
+			pixels[x] = alpha | (channel(pixel, redMask, redShift) << 16)
+				| (channel(pixel, greenMask, greenShift) << 8) | channel(pixel, blueMask, blueShift);
+		}
+	} else {
+		source.getPixels(0, y, width, pixels, 0);
+		int transparentPixel = source.transparentPixel;
+		for (int x = 0; x < width; x++) {
+			int pixel = pixels[x];
+			int alpha = pixel == transparentPixel ? 0 : 0xFF000000;
+			pixels[x] = alpha | colors[pixel];
+		}
+	}
+	if (source.alphaData != null && source.alpha == -1) {
+		byte[] alphaData = source.alphaData;
+		int offset = y * width;
+		for (int x = 0; x < width; x++) {
+			pixels[x] = (pixels[x] & 0xFFFFFF) | ((alphaData[offset + x] & 0xFF) << 24);
+		}
+	} else if (source.maskData != null) {
+		byte[] maskData = source.maskData;
+		int maskPad = source.maskPad;
+		int bytesPerLine = (((width + 7) / 8) + (maskPad - 1)) / maskPad * maskPad;
+		int offset = y * bytesPerLine;
+		for (int x = 0; x < width; x++) {
+			if ((maskData[offset + (x >> 3)] & (0x80 >> (x & 7))) == 0) pixels[x] &= 0xFFFFFF;
+		}
+	}
+}
+
+/*
+* Stores a destination row of RGB values.
+*/
+void writeRow(int y, int[] pixels) {
+	ImageData dest = this.dest;
+	PaletteData palette = dest.palette;
+	int redMask = palette.redMask, greenMask = palette.greenMask, blueMask = palette.blueMask;
+	int redShift = palette.redShift, greenShift = palette.greenShift, blueShift = palette.blueShift;
+	int width = dest.width;
+	byte[] data = dest.data;
+	int index = y * dest.bytesPerLine;
+	boolean is32 = dest.depth == 32;
+	for (int x = 0; x < width; x++) {
+		int rgb = pixels[x];
+		int red = (rgb >> 16) & 0xFF, green = (rgb >> 8) & 0xFF, blue = rgb & 0xFF;
+		int pixel = ((redShift < 0 ? red << -redShift : red >>> redShift) & redMask)
+			| ((greenShift < 0 ? green << -greenShift : green >>> greenShift) & greenMask)
+			| ((blueShift < 0 ? blue << -blueShift : blue >>> blueShift) & blueMask);
+		if (is32) {
+			data[index++] = (byte) (pixel >> 24);
+		}
+		data[index++] = (byte) (pixel >> 16);
+		data[index++] = (byte) (pixel >> 8);
+		data[index++] = (byte) pixel;
+	}
+}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -103,6 +103,11 @@ public class ImageLoader {
 	 */
 	Vector imageLoaderListeners;
 
+	/*
+	 * the reader of the frames loaded by loadFrame(), if any
+	 */
+	FrameReader frameReader;
+
 /**
  * Construct a new empty ImageLoader.
  */
@@ -121,6 +126,7 @@ void reset() {
 	backgroundPixel = -1;
 	repeatCount = 1;
 	compression = -1;
+	frameReader = null;
 }
 
 /**
@@ -184,6 +190,183 @@ public ImageData[] load(String filename) {
 	return null;
 }
 
+/**
+ * Loads an array of <code>ImageData</code> objects from the
+ * specified input stream, decoding the images at a reduced size
+ * when the format allows it. Throws an error if either an error
+ * occurs while loading the images, or if the images are not
+ * of a supported type. Returns the loaded image data array.
+ * <p>
+ * The width and height are a hint that the images are only needed
+ * at that size, for example to show thumbnails. JPEG images are
+ * decoded at the smallest of 1/1, 1/2, 1/4 or 1/8 of their size
+ * that is at least as wide and as high as the requested size, which
+ * takes less time and memory than decoding them at full size. Images
+ * in other formats are loaded at full size. The loaded images are
+ * never smaller than the requested size unless the images themselves
+ * are smaller, and may be larger, so callers that need an exact size
+ * should scale the result with <code>ImageData.scaledTo()</code>.
+ * </p>
+ *
+ * @param stream the input stream to load the images from
+ * @param width the width the images are needed at
+ * @param height the height the images are needed at
+ * @return an array of <code>ImageData</code> objects loaded from the specified input stream
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the stream is null</li>
+ *    <li>ERROR_INVALID_ARGUMENT - if either the width or height is not positive</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_IO - if an IO error occurs while reading from the stream</li>
+ *    <li>ERROR_INVALID_IMAGE - if the image stream contains invalid data</li>
+ *    <li>ERROR_UNSUPPORTED_FORMAT - if the image stream contains an unrecognized format</li>
+ * </ul>
+ * 
+ * @see ImageData#scaledTo(int, int, int)
+ * 
+ * @since 3.103
+ */
+public ImageData[] load(InputStream stream, int width, int height) {
+	if (stream == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	if (width <= 0 || height <= 0) SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	reset();
+	data = FileFormat.load(stream, this, width, height);
+	return data;
+}
+
+/**
+ * Loads an array of <code>ImageData</code> objects from the
+ * file with the specified name, decoding the images at a reduced
+ * size when the format allows it. Throws an error if either
+ * an error occurs while loading the images, or if the images are
+ * not of a supported type. Returns the loaded image data array.
+ * <p>
+ * See <code>load(InputStream, int, int)</code> for the meaning
+ * of the width and height.
+ * </p>
+ *
+ * @param filename the name of the file to load the images from
+ * @param width the width the images are needed at
+ * @param height the height the images are needed at
+ * @return an array of <code>ImageData</code> objects loaded from the specified file
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the file name is null</li>
+ *    <li>ERROR_INVALID_ARGUMENT - if either the width or height is not positive</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_IO - if an IO error occurs while reading from the file</li>
+ *    <li>ERROR_INVALID_IMAGE - if the image file contains invalid data</li>
+ *    <li>ERROR_UNSUPPORTED_FORMAT - if the image file contains an unrecognized format</li>
+ * </ul>
+ * 
+ * @see #load(InputStream, int, int)
+ * 
+ * @since 3.103
+ */
+public ImageData[] load(String filename, int width, int height) {
+	if (filename == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	if (width <= 0 || height <= 0) SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	InputStream stream = null;
+	try {
+		stream = Compatibility.newFileInputStream(filename);
+		return load(stream, width, height);
+	} catch (IOException e) {
+		SWT.error(SWT.ERROR_IO, e);
+	} finally {
+		try {
+			if (stream != null) stream.close();
+		} catch (IOException e) {
+			// Ignore error
+		}
+	}
+	return null;
+}
+
+/**
+ * Prepares to load the frames of the image in the specified
+ * input stream one at a time with <code>loadFrame(int)</code>.
+ * The logical screen size and the background pixel are read
+ * when the stream is opened, and the data of this ImageLoader
+ * is set to null. Throws an error if either an error occurs
+ * while reading the image, or if the image is not of a supported
+ * type.
+ * <p>
+ * The frames of an animated GIF are decoded only when they are
+ * requested, so an animation can start as soon as its first frame
+ * is read, and only one frame is kept in memory however long the
+ * animation is. The bytes read from the stream are kept so that
+ * the animation can be restarted. Images in other formats are
+ * loaded all at once. The stream must not be closed until no more
+ * frames are needed.
+ * </p>
+ *
+ * @param stream the input stream to load the frames from
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the stream is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_IO - if an IO error occurs while reading from the stream</li>
+ *    <li>ERROR_INVALID_IMAGE - if the image stream contains invalid data</li>
+ *    <li>ERROR_UNSUPPORTED_FORMAT - if the image stream contains an unrecognized format</li>
+ * </ul>
+ * 
+ * @see #loadFrame(int)
+ * 
+ * @since 3.103
+ */
+public void openFrames(InputStream stream) {
+	if (stream == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	reset();
+	frameReader = new FrameReader(stream, this);
+}
+
+/**
+ * Returns the frame at the specified index of the image opened
+ * with <code>openFrames(InputStream)</code>, or null if the image
+ * has no frame at that index. Throws an error if either an error
+ * occurs while reading the frame, or if the frame contains invalid
+ * data.
+ * <p>
+ * The frames of an animated GIF are returned as they appear on
+ * the logical screen: each frame is drawn over the previous ones
+ * after the previous frame has been disposed of as its disposal
+ * method requires. The result is an image the size of the logical
+ * screen with a depth of 32 and an alpha value for each pixel, in
+ * which pixels that are not covered by a frame or that have been
+ * restored to the background are transparent, and its delay time
+ * is that of the frame. The same <code>ImageData</code>
+ * is updated for every frame, so callers that need to keep a frame
+ * must copy it. Frames are read in order; asking for the current
+ * frame again returns it without reading, and asking for an earlier
+ * frame restarts the animation from the first frame. Images in other
+ * formats are returned as they were loaded.
+ * </p>
+ *
+ * @param index the index of the frame to load
+ * @return the frame at the specified index, or null if there is no such frame
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_INVALID_ARGUMENT - if the index is negative</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_IO - if an IO error occurs while reading from the stream</li>
+ *    <li>ERROR_INVALID_IMAGE - if the image stream contains invalid data</li>
+ *    <li>ERROR_FAILED_EXEC - if no image has been opened with <code>openFrames(InputStream)</code></li>
+ * </ul>
+ * 
+ * @see #openFrames(InputStream)
+ * 
+ * @since 3.103
+ */
+public ImageData loadFrame(int index) {
+	if (index < 0) SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+	if (frameReader == null) SWT.error(SWT.ERROR_FAILED_EXEC);
+	return frameReader.readFrame(index);
+}
+
 /**
  * Saves the image data in this ImageLoader to the specified stream.
  * The format parameter can have one of the following values:
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,7 @@ public abstract class FileFormat {
 	LEDataOutputStream outputStream;
 	ImageLoader loader;
 	int compression;
+	int targetWidth, targetHeight;
 
 static FileFormat getFileFormat (LEDataInputStream stream, String format) throws Exception {
 	Class clazz = Class.forName(FORMAT_PACKAGE + '.' + format + FORMAT_SUFFIX);
@@ -69,6 +70,16 @@ public ImageData[] loadFromStream(LEDataInputStream stream) {
  * return the device independent image array represented by the stream.
  */	
 public static ImageData[] load(InputStream is, ImageLoader loader) {
+	return load(is, loader, 0, 0);
+}
+
+/**
+ * Read the specified input stream using the specified loader, and
+ * return the device independent image array represented by the stream.
+ * Formats that can decode an image at a reduced size decode it at the
+ * smallest size that is not smaller than the given width and height.
+ */	
+public static ImageData[] load(InputStream is, ImageLoader loader, int width, int height) {
 	FileFormat fileFormat = null;
 	LEDataInputStream stream = new LEDataInputStream(is);
 	for (int i = 1; i < FORMATS.length; i++) {
@@ -84,6 +95,8 @@ public static ImageData[] load(InputStream is, ImageLoader loader) {
 	}
 	if (fileFormat == null) SWT.error(SWT.ERROR_UNSUPPORTED_FORMAT);
 	fileFormat.loader = loader;
+	fileFormat.targetWidth = width;
+	fileFormat.targetHeight = height;
 	return fileFormat.loadFromStream(stream);
 }
 
@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.internal.image;
+
+
+import java.io.*;
+import org.eclipse.swt.*;
+import org.eclipse.swt.graphics.*;
+
+/**
+ * Reads the frames of an image stream one at a time.
+ * <p>
+ * The frames of a GIF are decoded as they are requested and
+ * composited onto a 32-bit image the size of the logical screen,
+ * honoring the disposal method of each frame, so that only the
+ * current frame and the area to restore for the next one are
+ * kept in memory. The bytes read from the stream are kept so
+ * that the animation can be restarted without reopening it.
+ * The images of other formats are loaded all at once and
+ * returned as they are.
+ * </p>
+ */
+public final class FrameReader {
+	ImageLoader loader;
+	ReplayInputStream stream;
+	GIFFileFormat gif;
+	ImageData[] images;
+	int index;
+
+	/* The composited frame and the state needed to dispose of it */
+	ImageData screen;
+	int disposalMethod, disposalX, disposalY, disposalWidth, disposalHeight;
+	byte[] previousData, previousAlpha;
+	int[] rgbs = new int[256];
+	byte[] pixels;
+
+	static final int OPAQUE = 0xFF;
+
+	/**
+	 * Bytes read from the source stream are recorded so that
+	 * reading can be restarted from the beginning.
+	 */
+	static final class ReplayInputStream extends InputStream {
+		InputStream in;
+		byte[] buffer = new byte[4096];
+		int length, position;
+
+		ReplayInputStream(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (position == length) {
+				int b = in.read();
+				if (b == -1) return -1;
+				if (length == buffer.length) grow(1);
+				buffer[length++] = (byte) b;
+			}
+			return buffer[position++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) return 0;
+			if (position == length) {
+				grow(len);
+				int count = in.read(buffer, length, len);
+				if (count <= 0) return -1;
+				length += count;
+			}
+			int count = Math.min(len, length - position);
+			System.arraycopy(buffer, position, b, off, count);
+			position += count;
+			return count;
+		}
+
+		void grow(int count) {
+			if (length + count <= buffer.length) return;
+			byte[] newBuffer = new byte[Math.max(length + count, buffer.length * 2)];
+			System.arraycopy(buffer, 0, newBuffer, 0, length);
+			buffer = newBuffer;
+		}
+
+		void rewind() {
+			position = 0;
+		}
+	}
+
+/**
+ * Create a reader for the image in the specified input stream
+ * and read its header into the specified loader.
+ */
+public FrameReader(InputStream inputStream, ImageLoader loader) {
+	this.loader = loader;
+	stream = new ReplayInputStream(inputStream);
+	open();
+}
+
+void open() {
+	index = 0;
+	screen = null;
+	LEDataInputStream in = new LEDataInputStream(stream);
+	GIFFileFormat fileFormat = new GIFFileFormat();
+	if (!fileFormat.isFileFormat(in)) {
+		images = FileFormat.load(in, loader);
+		stream = null;
+		return;
+	}
+	gif = fileFormat;
+	gif.loader = loader;
+	gif.inputStream = in;
+	try {
+		gif.readHeader();
+	} catch (SWTException e) {
+		throw e;
+	} catch (Exception e) {
+		SWT.error(SWT.ERROR_INVALID_IMAGE, e);
+	}
+}
+
+/**
+ * Return the frame at the specified index, or null if the
+ * image has fewer frames. Frames after the current one are
+ * read from the stream; reading an earlier frame restarts
+ * the animation from the first frame.
+ */
+public ImageData readFrame(int frameIndex) {
+	if (images != null) {
+		return frameIndex < images.length ? images[frameIndex] : null;
+	}
+	if (frameIndex < index - 1) {
+		stream.rewind();
+		open();
+	} else if (frameIndex == index - 1) {
+		return screen;
+	}
+	try {
+		while (index <= frameIndex) {
+			ImageData frame = gif.readNextImage();
+			if (frame == null) return null;
+			compose(frame);
+			index++;
+		}
+	} catch (SWTException e) {
+		throw e;
+	} catch (Exception e) {
+		SWT.error(SWT.ERROR_INVALID_IMAGE, e);
+	}
+	return screen;
+}
+
+/**
+ * Dispose of the previous frame as it requested and draw
+ * the specified frame over the logical screen.
+ */
+void compose(ImageData frame) {
+	if (screen == null) {
+		int width = Math.max(loader.logicalScreenWidth, frame.x + frame.width);
+		int height = Math.max(loader.logicalScreenHeight, frame.y + frame.height);
+		PaletteData palette = new PaletteData(0xFF0000, 0xFF00, 0xFF);
+		screen = new ImageData(width, height, 32, palette);
+		screen.alphaData = new byte[width * height];
+		screen.type = SWT.IMAGE_GIF;
+		disposalMethod = SWT.DM_FILL_NONE;
+	}
+	int x = Math.max(0, frame.x), y = Math.max(0, frame.y);
+	int width = Math.min(frame.x + frame.width, screen.width) - x;
+	int height = Math.min(frame.y + frame.height, screen.height) - y;
+	width = Math.max(0, width);
+	height = Math.max(0, height);
+	switch (disposalMethod) {
+		case SWT.DM_FILL_BACKGROUND:
+			clear(disposalX, disposalY, disposalWidth, disposalHeight);
+			break;
+		case SWT.DM_FILL_PREVIOUS:
+			copyArea(disposalX, disposalY, disposalWidth, disposalHeight, false);
+			break;
+	}
+	disposalMethod = frame.disposalMethod;
+	disposalX = x;
+	disposalY = y;
+	disposalWidth = width;
+	disposalHeight = height;
+	if (disposalMethod == SWT.DM_FILL_PREVIOUS) {
+		copyArea(x, y, width, height, true);
+	}
+	draw(frame, x, y, width, height);
+	screen.delayTime = frame.delayTime;
+}
+
+void clear(int x, int y, int width, int height) {
+	byte[] data = screen.data, alphaData = screen.alphaData;
+	for (int row = y; row < y + height; row++) {
+		int offset = row * screen.bytesPerLine + x * 4;
+		for (int i = offset; i < offset + width * 4; i++) data[i] = 0;
+		offset = row * screen.width + x;
+		for (int i = offset; i < offset + width; i++) alphaData[i] = 0;
+	}
+}
+
+/**
+ * Save the specified area of the logical screen before
+ * it is drawn over, or restore it.
+ */
+void copyArea(int x, int y, int width, int height, boolean save) {
+	int size = width * height;
+	if (save && (previousAlpha == null || previousAlpha.length < size)) {
+		previousData = new byte[size * 4];
+		previousAlpha = new byte[size];
+	}
+	byte[] data = screen.data, alphaData = screen.alphaData;
+	for (int row = 0; row < height; row++) {
+		int dataOffset = (y + row) * screen.bytesPerLine + x * 4;
+		int alphaOffset = (y + row) * screen.width + x;
+		if (save) {
+			System.arraycopy(data, dataOffset, previousData, row * width * 4, width * 4);
+			System.arraycopy(alphaData, alphaOffset, previousAlpha, row * width, width);
+		} else {
+			System.arraycopy(previousData, row * width * 4, data, dataOffset, width * 4);
+			System.arraycopy(previousAlpha, row * width, alphaData, alphaOffset, width);
+		}
+	}
+}
+
+/**
+ * Draw the opaque pixels of the frame that fall within the
+ * specified area of the logical screen.
+ */
+void draw(ImageData frame, int x, int y, int width, int height) {
+	RGB[] colors = frame.palette.getRGBs();
+	for (int i = 0; i < colors.length && i < rgbs.length; i++) {
+		RGB rgb = colors[i];
+		rgbs[i] = (rgb.red << 16) | (rgb.green << 8) | rgb.blue;
+	}
+	for (int i = colors.length; i < rgbs.length; i++) rgbs[i] = 0;
+	if (pixels == null || pixels.length < width) pixels = new byte[width];
+	int transparentPixel = frame.transparentPixel;
+	byte[] data = screen.data, alphaData = screen.alphaData;
+	for (int row = y; row < y + height; row++) {
+		frame.getPixels(x - frame.x, row - frame.y, width, pixels, 0);
+		int dataOffset = row * screen.bytesPerLine + x * 4;
+		int alphaOffset = row * screen.width + x;
+		for (int i = 0; i < width; i++, dataOffset += 4, alphaOffset++) {
+			int pixel = pixels[i] & 0xFF;
+			if (pixel == transparentPixel) continue;
+			int rgb = rgbs[pixel];
+			data[dataOffset + 1] = (byte) (rgb >> 16);
+			data[dataOffset + 2] = (byte) (rgb >> 8);
+			data[dataOffset + 3] = (byte) rgb;
+			alphaData[alphaOffset] = (byte) OPAQUE;
+		}
+	}
+}
+
+}
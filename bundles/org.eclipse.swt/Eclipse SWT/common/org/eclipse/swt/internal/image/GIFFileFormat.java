@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,6 +22,8 @@ public final class GIFFileFormat extends FileFormat {
 	int delayTime = 0;
 	int transparentPixel = -1;
 	int repeatCount = 1;
+	PaletteData globalPalette;
+	int nextID, imageCount;
 	
 	static final int GIF_APPLICATION_EXTENSION_BLOCK_ID = 0xFF;
 	static final int GIF_GRAPHICS_CONTROL_BLOCK_ID = 0xF9;
@@ -65,6 +67,26 @@ public final class GIFFileFormat extends FileFormat {
 	 */
 	@Override
 	ImageData[] loadFromByteStream() {
+		readHeader();
+		ImageData[] images = new ImageData[0];
+		ImageData image;
+		while ((image = readNextImage()) != null) {
+			if (loader.hasListeners()) {
+				loader.notifyListeners(new ImageLoaderEvent(loader, image, 3, true));
+			}
+			ImageData[] oldImages = images;
+			images = new ImageData[oldImages.length + 1];
+			System.arraycopy(oldImages, 0, images, 0, oldImages.length);
+			images[images.length - 1] = image;
+		}
+		return images;
+	}
+
+	/**
+	 * Read the header and the global palette of the GIF
+	 * stored in the input stream.
+	 */
+	void readHeader() {
 		byte[] signature = new byte[3];
 		byte[] versionBytes = new byte[3];
 		byte[] block = new byte[7];
@@ -100,19 +122,20 @@ public final class GIFFileFormat extends FileFormat {
 			defaultDepth = bitsPerPixel;
 		}
 		loader.backgroundPixel = backgroundPixel;
+		globalPalette = palette;
+		nextID = readID();
+	}
 
-		ImageData[] images = new ImageData[0];
-		int id = readID();
+	/**
+	 * Read the blocks up to and including the next image block.
+	 * Return the image, or null when there are no more images.
+	 */
+	ImageData readNextImage() {
+		int id = nextID;
 		while (id != GIF_TRAILER_ID && id != -1) {
+			ImageData image = null;
 			if (id == GIF_IMAGE_BLOCK_ID) {
-				ImageData image = readImageBlock(palette);
-				if (loader.hasListeners()) {
-					loader.notifyListeners(new ImageLoaderEvent(loader, image, 3, true));
-				}
-				ImageData[] oldImages = images;
-				images = new ImageData[oldImages.length + 1];
-				System.arraycopy(oldImages, 0, images, 0, oldImages.length);
-				images[images.length - 1] = image;
+				image = readImageBlock(globalPalette);
 			} else if (id == GIF_EXTENSION_BLOCK_ID) {
 				/* Read the extension block. Currently, only the
 				 * interesting parts of certain extensions are kept,
@@ -124,13 +147,19 @@ public final class GIFFileFormat extends FileFormat {
 			} else {
 				/* The GIF is not to spec, but try to salvage it
 				 * if we read at least one image. */
-				if (images.length > 0) break;
+				if (imageCount > 0) break;
 				SWT.error(SWT.ERROR_INVALID_IMAGE);
 			}
 			id = readID(); // block terminator (0)
 			if (id == 0) id = readID(); // next block ID (unless we just read it)
+			if (image != null) {
+				nextID = id;
+				imageCount++;
+				return image;
+			}
 		}
-		return images;
+		nextID = GIF_TRAILER_ID;
+		return null;
 	}
 
 	/**
@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.internal.image;
+
+
+import java.io.*;
+import java.util.concurrent.*;
+
+import org.eclipse.swt.*;
+import org.eclipse.swt.graphics.*;
+
+/**
+ * Decodes large baseline JPEG images that have restart markers
+ * in bands of MCU rows on the common fork-join pool.
+ * <p>
+ * The entropy coded data of an image with a restart interval is
+ * made of segments that can be decoded independently. The image
+ * is split at the restart markers that start an MCU row, and each
+ * band of rows is decoded by <code>JPEGDecoder</code> as an image
+ * of its own, made of the header of the image with the height of
+ * the band, the segments of the band and an EOI marker. When the
+ * chroma is subsampled vertically, a band is decoded together with
+ * the MCU rows around it so that the upsampled rows at its edges
+ * are the same as when the image is decoded serially.
+ * </p><p>
+ * Only the markers up to the first scan are read before deciding
+ * whether to decode the image in parallel, so that the images that
+ * are decoded serially are still read as a stream. No image is
+ * decoded in parallel when the system property named by
+ * <code>DISABLE_PARALLEL</code> is set.
+ * </p>
+ */
+class JPEGParallelDecoder {
+	InputStream inputStream;
+	int targetWidth, targetHeight;
+
+	/* The bytes read from the input stream */
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+	byte[] data;
+
+	/* The frame and scan parameters read from the header */
+	int sofOffset, headerLength;
+	int width, height, restartInterval, componentCount, scanComponentCount;
+	int maxHSampFactor, maxVSampFactor;
+	boolean baseline, subsampledVertically;
+
+	/* The entropy coded segments between the restart markers */
+	int[] segmentStart, segmentEnd;
+	int segmentCount;
+
+	static final int DCTSIZE = JPEGDecoder.DCTSIZE;
+	static final int PARALLEL_THRESHOLD = 1 << 20;
+	static final int READ_SIZE = 1 << 16;
+
+	/* Set to decode every image serially, without the common fork-join pool */
+	static final String DISABLE_PARALLEL = "org.eclipse.swt.internal.image.disableParallelJPEGDecoding"; //$NON-NLS-1$
+
+JPEGParallelDecoder(InputStream inputStream, int targetWidth, int targetHeight) {
+	this.inputStream = inputStream;
+	this.targetWidth = targetWidth;
+	this.targetHeight = targetHeight;
+}
+
+/*
+ * Answers the image, or null when the image cannot be decoded
+ * in parallel and must be decoded from getInputStream().
+ */
+ImageData decode() {
+	try {
+		if (!readHeader()) return null;
+		if (!baseline || restartInterval == 0 || height == 0) return null;
+		if (scanComponentCount != componentCount) return null;
+		if ((long) width * height < PARALLEL_THRESHOLD) return null;
+		if (ForkJoinPool.getCommonPoolParallelism() < 2) return null;
+		readData();
+	} catch (IOException e) {
+		SWT.error(SWT.ERROR_IO, e);
+	}
+	if (!readSegments()) return null;
+
+	/* A single component scan is made of one block per MCU */
+	int mcuWidth = DCTSIZE, mcuHeight = DCTSIZE;
+	if (scanComponentCount > 1) {
+		mcuWidth *= maxHSampFactor;
+		mcuHeight *= maxVSampFactor;
+	}
+	int mcusPerRow = (width + mcuWidth - 1) / mcuWidth;
+	int mcuRows = (height + mcuHeight - 1) / mcuHeight;
+	if (segmentCount != ((long) mcusPerRow * mcuRows + restartInterval - 1) / restartInterval) return null;
+
+	/* The MCU rows that start a segment, where the image can be split */
+	int[] rowStarts = new int[mcuRows + 1];
+	int rowStartCount = 0;
+	for (int row = 0; row < mcuRows; row++) {
+		if ((long) row * mcusPerRow % restartInterval == 0) rowStarts[rowStartCount++] = row;
+	}
+	rowStarts[rowStartCount] = mcuRows;
+	int bandCount = Math.min(rowStartCount, ForkJoinPool.getCommonPoolParallelism() * 2);
+	int[] bandStarts = new int[bandCount + 1];
+	int count = 0;
+	for (int i = 0, index = 0; i < bandCount; i++) {
+		int target = (int) ((long) i * mcuRows / bandCount);
+		while (rowStarts[index] < target) index++;
+		if (count == 0 || rowStarts[index] > bandStarts[count - 1]) bandStarts[count++] = rowStarts[index];
+	}
+	if (count < 2) return null;
+	bandStarts[count] = mcuRows;
+
+	/* The header, scaled as requested, gives the size and colors of the result */
+	JPEGDecoder.jpeg_decompress_struct cinfo = new JPEGDecoder.jpeg_decompress_struct();
+	cinfo.inputStream = new ByteArrayInputStream(data, 0, headerLength);
+	JPEGDecoder.jpeg_create_decompress(cinfo);
+	JPEGDecoder.jpeg_read_header(cinfo, true);
+	JPEGDecoder.setScale(cinfo, targetWidth, targetHeight);
+	JPEGDecoder.jpeg_start_decompress(cinfo);
+	PaletteData palette = JPEGDecoder.getPalette(cinfo);
+	int scanlinePad = 4;
+	int rowStride = JPEGDecoder.getRowStride(cinfo, scanlinePad);
+	int scaleDenom = cinfo.scale_denom;
+	int outputRowsPerMCURow = mcuHeight / scaleDenom;
+	byte[] imageBytes = new byte[rowStride * cinfo.output_height];
+	ImageData imageData = ImageData.internal_new(
+			cinfo.output_width, cinfo.output_height, palette.isDirect ? 24 : 8, palette, scanlinePad, imageBytes,
+			0, null, null, -1, -1, SWT.IMAGE_JPEG, 0, 0, 0, 0);
+	JPEGDecoder.jpeg_destroy_decompress(cinfo);
+
+	Band[] bands = new Band[count];
+	for (int i = 0; i < count; i++) {
+		int start = bandStarts[i], end = bandStarts[i + 1];
+		int decodeStart = start, decodeEnd = end;
+		if (subsampledVertically) {
+			int index = 0;
+			while (rowStarts[index + 1] <= start - 1) index++;
+			decodeStart = rowStarts[index];
+			while (rowStarts[index] < Math.min(end + 1, mcuRows)) index++;
+			decodeEnd = rowStarts[index];
+		}
+		Band band = bands[i] = new Band();
+		band.bytes = createImage(decodeStart, decodeEnd, mcuHeight, mcusPerRow);
+		band.scaleDenom = scaleDenom;
+		band.data = imageBytes;
+		band.rowStride = rowStride;
+		band.firstRow = decodeStart * outputRowsPerMCURow;
+		band.startRow = start * outputRowsPerMCURow;
+		band.endRow = Math.min(end * outputRowsPerMCURow, cinfo.output_height);
+	}
+	data = null;
+	ForkJoinTask.invokeAll(bands);
+	return imageData;
+}
+
+/*
+ * Answers the data of an image made of the given MCU rows, with
+ * the restart markers numbered from the start of the image.
+ */
+byte[] createImage(int startRow, int endRow, int mcuHeight, int mcusPerRow) {
+	int first = (int) ((long) startRow * mcusPerRow / restartInterval);
+	int last = endRow * mcuHeight >= height ? segmentCount : (int) ((long) endRow * mcusPerRow / restartInterval);
+	int length = headerLength + 2;
+	for (int i = first; i < last; i++) {
+		length += segmentEnd[i] - segmentStart[i] + 2;
+	}
+	byte[] image = new byte[length];
+	System.arraycopy(data, 0, image, 0, headerLength);
+	int imageHeight = Math.min(endRow * mcuHeight, height) - startRow * mcuHeight;
+	image[sofOffset + 5] = (byte) (imageHeight >> 8);
+	image[sofOffset + 6] = (byte) imageHeight;
+	int offset = headerLength;
+	for (int i = first; i < last; i++) {
+		if (i > first) {
+			image[offset++] = (byte) 0xFF;
+			image[offset++] = (byte) (JPEGDecoder.M_RST0 + ((i - first - 1) & 7));
+		}
+		int segmentLength = segmentEnd[i] - segmentStart[i];
+		System.arraycopy(data, segmentStart[i], image, offset, segmentLength);
+		offset += segmentLength;
+	}
+	image[offset++] = (byte) 0xFF;
+	image[offset++] = (byte) JPEGDecoder.M_EOI;
+	return image;
+}
+
+/*
+ * Answers a stream that replays the bytes that were read and
+ * then reads the rest of the input stream.
+ */
+InputStream getInputStream() {
+	InputStream stream = new ByteArrayInputStream(data != null ? data : bytes.toByteArray());
+	if (data != null) return stream;
+	return new SequenceInputStream(stream, inputStream);
+}
+
+/*
+ * Reads the markers up to the end of the first scan header, and
+ * answers whether the header can be decoded in parallel.
+ */
+boolean readHeader() throws IOException {
+	byte[] buffer = new byte[4];
+	if (!read(buffer, 2)) return false;
+	if ((buffer[0] & 0xFF) != 0xFF || (buffer[1] & 0xFF) != JPEGDecoder.M_SOI) return false;
+	while (true) {
+		if (!read(buffer, 1)) return false;
+		if ((buffer[0] & 0xFF) != 0xFF) return false;
+		int marker;
+		do {
+			if (!read(buffer, 1)) return false;
+			marker = buffer[0] & 0xFF;
+		} while (marker == 0xFF);
+		if (marker == 0x01 || (marker >= JPEGDecoder.M_RST0 && marker < JPEGDecoder.M_RST0 + 8)) continue;
+		if (marker == JPEGDecoder.M_EOI) return false;
+		if (!read(buffer, 2)) return false;
+		int length = ((buffer[0] & 0xFF) << 8 | (buffer[1] & 0xFF)) - 2;
+		if (length < 0) return false;
+		byte[] segment = new byte[length];
+		if (!read(segment, length)) return false;
+		switch (marker) {
+			case JPEGDecoder.M_SOF0:
+			case JPEGDecoder.M_SOF1:
+				if (length < 6) return false;
+				/* The offset of the marker, that is followed by the length and the precision */
+				sofOffset = bytes.size() - length - 4;
+				baseline = true;
+				height = (segment[1] & 0xFF) << 8 | (segment[2] & 0xFF);
+				width = (segment[3] & 0xFF) << 8 | (segment[4] & 0xFF);
+				componentCount = segment[5] & 0xFF;
+				if (length < 6 + componentCount * 3) return false;
+				for (int i = 0; i < componentCount; i++) {
+					int factors = segment[7 + i * 3] & 0xFF;
+					maxHSampFactor = Math.max(maxHSampFactor, factors >> 4);
+					maxVSampFactor = Math.max(maxVSampFactor, factors & 0xF);
+				}
+				for (int i = 0; i < componentCount; i++) {
+					int factors = segment[7 + i * 3] & 0xFF;
+					if ((factors & 0xF) != maxVSampFactor) subsampledVertically = true;
+				}
+				break;
+			case 0xC2: case 0xC3: case 0xC5: case 0xC6: case 0xC7:
+			case 0xC9: case 0xCA: case 0xCB: case 0xCD: case 0xCE: case 0xCF:
+				/* Progressive, lossless and arithmetic coded images are decoded serially */
+				baseline = false;
+				return false;
+			case JPEGDecoder.M_DRI:
+				if (length < 2) return false;
+				restartInterval = (segment[0] & 0xFF) << 8 | (segment[1] & 0xFF);
+				break;
+			case JPEGDecoder.M_SOS:
+				if (length < 1) return false;
+				scanComponentCount = segment[0] & 0xFF;
+				headerLength = bytes.size();
+				return true;
+		}
+	}
+}
+
+boolean read(byte[] buffer, int length) throws IOException {
+	int offset = 0;
+	while (offset < length) {
+		int count = inputStream.read(buffer, offset, length - offset);
+		if (count <= 0) return false;
+		bytes.write(buffer, offset, count);
+		offset += count;
+	}
+	return true;
+}
+
+void readData() throws IOException {
+	byte[] buffer = new byte[READ_SIZE];
+	int count;
+	while ((count = inputStream.read(buffer)) > 0) {
+		bytes.write(buffer, 0, count);
+	}
+	data = bytes.toByteArray();
+	bytes = null;
+}
+
+/*
+ * Finds the segments of the scan, and answers whether the scan
+ * is the last one of the image.
+ */
+boolean readSegments() {
+	int capacity = 64;
+	segmentStart = new int[capacity];
+	segmentEnd = new int[capacity];
+	int start = headerLength, offset = headerLength;
+	while (offset < data.length - 1) {
+		if ((data[offset] & 0xFF) != 0xFF) {
+			offset++;
+			continue;
+		}
+		int next = offset + 1;
+		while (next < data.length && (data[next] & 0xFF) == 0xFF) next++;
+		if (next == data.length) return false;
+		int marker = data[next] & 0xFF;
+		if (marker == 0) {
+			offset = next + 1;
+			continue;
+		}
+		if (segmentCount == capacity) {
+			capacity *= 2;
+			int[] newStart = new int[capacity], newEnd = new int[capacity];
+			System.arraycopy(segmentStart, 0, newStart, 0, segmentCount);
+			System.arraycopy(segmentEnd, 0, newEnd, 0, segmentCount);
+			segmentStart = newStart;
+			segmentEnd = newEnd;
+		}
+		segmentStart[segmentCount] = start;
+		segmentEnd[segmentCount++] = offset;
+		if (marker >= JPEGDecoder.M_RST0 && marker < JPEGDecoder.M_RST0 + 8) {
+			if (marker != JPEGDecoder.M_RST0 + ((segmentCount - 1) & 7)) return false;
+			offset = start = next + 1;
+			continue;
+		}
+		return marker == JPEGDecoder.M_EOI;
+	}
+	return false;
+}
+
+/*
+ * Decodes the image of a band and copies its rows into the
+ * image data, leaving out the rows decoded for context.
+ */
+static class Band extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	byte[] bytes, data;
+	int scaleDenom, rowStride, firstRow, startRow, endRow;
+
+	@Override
+	protected void compute() {
+		JPEGDecoder.jpeg_decompress_struct cinfo = new JPEGDecoder.jpeg_decompress_struct();
+		cinfo.inputStream = new ByteArrayInputStream(bytes);
+		JPEGDecoder.jpeg_create_decompress(cinfo);
+		JPEGDecoder.jpeg_read_header(cinfo, true);
+		cinfo.scale_denom = scaleDenom;
+		JPEGDecoder.jpeg_start_decompress(cinfo);
+		bytes = null;
+		byte[][] buffer = new byte[1][rowStride];
+		int rows = endRow - firstRow;
+		while (cinfo.output_scanline < rows) {
+			int row = firstRow + cinfo.output_scanline;
+			JPEGDecoder.jpeg_read_scanlines(cinfo, buffer, 1);
+			if (row >= startRow) System.arraycopy(buffer[0], 0, data, rowStride * row, rowStride);
+		}
+		JPEGDecoder.jpeg_destroy_decompress(cinfo);
+	}
+}
+
+}
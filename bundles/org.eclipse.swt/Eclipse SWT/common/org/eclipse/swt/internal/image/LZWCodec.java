@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,94 +11,99 @@
 package org.eclipse.swt.internal.image;
 
 
+import java.util.*;
 import org.eclipse.swt.*;
 import org.eclipse.swt.graphics.*;
 
+/*
+ * The decoder keeps, for every code in the string table, the
+ * offset and length of the string where it was last written to
+ * the decoded pixels. A string is the previous string followed by
+ * the first pixel of the next, so a code is decoded by copying
+ * its string from earlier in the output instead of following the
+ * chain of its prefixes. The encoder finds the code for a string
+ * followed by a pixel in an open addressing hash table, in which
+ * each entry holds the code of the new string in its low 12 bits
+ * and the code of the string and the pixel above them. Codes of
+ * new strings are never 0, which marks free entries.
+ * Codes get wider once the table reaches the size of the current
+ * code width, also when the minimum code size is 1 and the first
+ * new code is already at that size.
+ */
 final class LZWCodec {
-	int bitsPerPixel, blockSize, blockIndex, currentByte, bitsLeft,
+	int bitsPerPixel, blockSize, blockIndex, bitBuffer, bitCount,
 		codeSize, clearCode, endCode, newCodes, topSlot, currentSlot,
-		imageWidth, imageHeight, imageX, imageY, pass, line, codeMask;
-	byte[] block, lineArray;
-	int[] stack, suffix, prefix;
-	LZWNode[] nodeStack;
+		imageWidth, imageHeight, pass, line, codeMask;
+	byte[] block, pixels;
+	int[] offsets, lengths, entries;
 	LEDataInputStream inputStream;
 	LEDataOutputStream outputStream;
 	ImageData image;
 	ImageLoader loader;
 	boolean interlaced;
-	static final int[] MASK_TABLE = new int[] {
-		0x1, 0x3, 0x7, 0xF, 0x1F, 0x3F, 0x7F,
-		0xFF, 0x1FF, 0x3FF, 0x7FF, 0xFFF
-	};
+
+	static final int MAX_CODES = 4096;
+	static final int HASH_BITS = 13;
+	static final int HASH_SIZE = 1 << HASH_BITS;
+	static final int BLOCK_SIZE = 255;
 
 /**
  * Decode the input.
  */
 void decode() {
+	byte[] pixels = this.pixels;
+	int[] offsets = this.offsets, lengths = this.lengths;
+	int size = imageWidth * imageHeight;
+	int position = 0, rowEnd = imageWidth;
+	int lastOffset = 0, lastLength = 0;
 	int code;
-	int oc = 0;
-	int fc = 0;
-	byte[] buf = new byte[imageWidth];
-	int stackIndex = 0;
-	int bufIndex = 0;
-	int c;
-	while ((c = nextCode()) != endCode) {
-		if (c == clearCode) {
+	while ((code = nextCode()) != endCode) {
+		if (code == clearCode) {
 			codeSize = bitsPerPixel + 1;
-			codeMask = MASK_TABLE[bitsPerPixel];
+			codeMask = (1 << codeSize) - 1;
 			currentSlot = newCodes;
 			topSlot = 1 << codeSize;
-			while ((c = nextCode()) == clearCode) {}
-			if (c != endCode) {
-				oc = fc = c;
-				buf[bufIndex] = (byte)c;
-				bufIndex++;
-				if (bufIndex == imageWidth) {
-					nextPutPixels(buf);
-					bufIndex = 0;
-				}
-			}
+			lastLength = 0;
+			continue;
+		}
+		int offset = position;
+		int length;
+		if (lastLength == 0 || code < clearCode) {
+			/* A single pixel, which adds no string after a clear code */
+			if (position < size) pixels[position] = (byte)code;
+			length = 1;
+		} else if (code < currentSlot && code >= newCodes) {
+			length = lengths[code];
+			int count = Math.min(length, size - position);
+			if (count > 0) System.arraycopy(pixels, offsets[code], pixels, position, count);
 		} else {
-			code = c;
-			if (code >= currentSlot) {
-				code = oc;
-				stack[stackIndex] = fc;
-				stackIndex++;
-			}
-			while (code >= newCodes) {
-				stack[stackIndex] = suffix[code];
-				stackIndex++;
-				code = prefix[code];
-			}
-			stack[stackIndex] = code;
-			stackIndex++;
-			if (currentSlot < topSlot) {
-				fc = code;
-				suffix[currentSlot] = fc;
-				prefix[currentSlot] = oc;
-				currentSlot++;
-				oc = c;
-			}
-			if (currentSlot >= topSlot) {
-				if (codeSize < 12) {
-					codeMask = MASK_TABLE[codeSize];
-					codeSize++;
-					topSlot = topSlot + topSlot;
-				}
-			}
-			while (stackIndex > 0) {
-				stackIndex--;
-				buf[bufIndex] = (byte)stack[stackIndex];
-				bufIndex++;
-				if (bufIndex == imageWidth) {
-					nextPutPixels(buf);
-					bufIndex = 0;
-				}
+			/* The code being defined: the last string followed by its first pixel */
+			length = lastLength + 1;
+			int count = Math.min(lastLength, size - position);
+			if (count > 0) System.arraycopy(pixels, lastOffset, pixels, position, count);
+			if (position + lastLength < size) pixels[position + lastLength] = pixels[lastOffset];
+		}
+		if (lastLength != 0 && currentSlot < MAX_CODES) {
+			offsets[currentSlot] = lastOffset;
+			lengths[currentSlot] = lastLength + 1;
+			currentSlot++;
+			if (currentSlot >= topSlot && codeSize < 12) {
+				codeSize++;
+				codeMask = (1 << codeSize) - 1;
+				topSlot <<= 1;
 			}
 		}
+		lastOffset = offset;
+		lastLength = length;
+		position = Math.min(size, position + length);
+		while (position >= rowEnd && line < imageHeight && rowEnd <= size) {
+			nextPutPixels(pixels, rowEnd - imageWidth);
+			rowEnd += imageWidth;
+		}
 	}
-	if (bufIndex != 0 && line < imageHeight) {
-		nextPutPixels(buf);
+	if (position > rowEnd - imageWidth && position < size && line < imageHeight) {
+		/* Put the last incomplete row */
+		nextPutPixels(pixels, rowEnd - imageWidth);
 	}
 }
 /**
@@ -118,24 +123,68 @@ public void decode(LEDataInputStream inputStream, ImageLoader loader, ImageData
  * Encode the image.
  */
 void encode() {
+	int[] entries = this.entries;
+	byte[] pixels = this.pixels;
 	nextPutCode(clearCode);
-	int lastPrefix = encodeLoop();
-	nextPutCode(lastPrefix);
+	int prefix = -1;
+	for (int y = 0; y < imageHeight; y++) {
+		int offset = 0;
+		if (image.depth == 8) {
+			pixels = image.data;
+			offset = y * image.bytesPerLine;
+		} else {
+			image.getPixels(0, y, imageWidth, pixels, 0);
+		}
+		for (int x = 0; x < imageWidth; x++) {
+			int pixel = pixels[offset + x] & 0xFF;
+			if (prefix == -1) {
+				prefix = pixel;
+				continue;
+			}
+			int key = (prefix << 8) | pixel;
+			int index = (key * 0x9E3779B1) >>> (32 - HASH_BITS);
+			int entry;
+			while ((entry = entries[index]) != 0 && (entry >>> 12) != key) {
+				index = (index + 1) & (HASH_SIZE - 1);
+			}
+			if (entry != 0) {
+				prefix = entry & 0xFFF;
+				continue;
+			}
+			entries[index] = (key << 12) | currentSlot;
+			nextPutCode(prefix);
+			currentSlot++;
+			if (currentSlot < MAX_CODES) {
+				if (currentSlot > topSlot) {
+					codeSize++;
+					topSlot <<= 1;
+				}
+			} else {
+				nextPutCode(clearCode);
+				Arrays.fill(entries, 0);
+				codeSize = bitsPerPixel + 1;
+				currentSlot = newCodes;
+				topSlot = 1 << codeSize;
+			}
+			prefix = pixel;
+		}
+	}
+	nextPutCode(prefix);
 	nextPutCode(endCode);
 
-	// Write out last partial block
-	if (bitsLeft == 8) {
-		block[0] = (byte)(blockIndex - 1); // Nothing in last byte
-	} else {
-		block[0] = (byte)(blockIndex); // Last byte has data
+	// Write out the last partial byte and block
+	if (bitCount > 0) {
+		putByte(bitBuffer);
+		bitCount = 0;
 	}
-	writeBlock();
-
-	// Write out empty block to indicate the end (if needed)
-	if (block[0] != 0) {
-		block[0] = 0;
+	if (blockIndex > 1) {
+		block[0] = (byte)(blockIndex - 1);
 		writeBlock();
 	}
+
+	// Write out empty block to indicate the end
+	block[0] = 0;
+	writeBlock();
 }
 /**
  * Encode the bytes into the given byte stream
@@ -147,74 +196,6 @@ public void encode(LEDataOutputStream byteStream, ImageData image) {
 	initializeForEncoding();
 	encode();
 }
-/**
- * Encoding loop broken out to allow early return.
- */
-int encodeLoop() {
-	int pixel = nextPixel();
-	boolean found;
-	LZWNode node;
-	while (true) {
-		int currentPrefix = pixel;
-		node = nodeStack[currentPrefix];
-		found = true;
-		pixel = nextPixel();
-		if (pixel < 0)
-			return currentPrefix;
-		while (found && (node.children != null)) {
-			node = node.children;
-			while (found && (node.suffix != pixel)) {
-				if (pixel < node.suffix) {
-					if (node.left == null) {
-						node.left = new LZWNode();
-						found = false;
-					}
-					node = node.left;
-				} else {
-					if (node.right == null) {
-						node.right = new LZWNode();
-						found = false;
-					}
-					node = node.right;
-				}
-			}
-			if (found) {
-				currentPrefix = node.code;
-				pixel = nextPixel();
-				if (pixel < 0)
-					return currentPrefix;
-			}
-		}
-		if (found) {
-			node.children = new LZWNode();
-			node = node.children;
-		}
-		node.children = null;
-		node.left = null;
-		node.right = null;
-		node.code = currentSlot;
-		node.prefix = currentPrefix;
-		node.suffix = pixel;
-		nextPutCode(currentPrefix);
-		currentSlot++;
-		// Off by one?
-		if (currentSlot < 4096) {
-			if (currentSlot > topSlot) {
-				codeSize++;
-				codeMask = MASK_TABLE[codeSize - 1];
-				topSlot *= 2;
-			}
-		} else {
-			nextPutCode(clearCode);
-			for (int i = 0; i < nodeStack.length; i++)
-				nodeStack[i].children = null;
-			codeSize = bitsPerPixel + 1;
-			codeMask = MASK_TABLE[codeSize - 1];
-			currentSlot = newCodes;
-			topSlot = 1 << codeSize;
-		}
-	}
-}
 /**
  * Initialize the receiver for decoding the given
  * byte array.
@@ -223,20 +204,24 @@ void initializeForDecoding() {
 	pass = 1;
 	line = 0;
 	codeSize = bitsPerPixel + 1;
+	codeMask = (1 << codeSize) - 1;
 	topSlot = 1 << codeSize;
 	clearCode = 1 << bitsPerPixel;
 	endCode = clearCode + 1;
 	newCodes = currentSlot = endCode + 1;
-	currentByte = -1;
-	blockSize = bitsLeft = 0;
-	blockIndex = 0;
-	codeMask = MASK_TABLE[codeSize - 1];
-	stack = new int[4096];
-	suffix = new int[4096];
-	prefix = new int[4096];
-	block = new byte[256];
+	bitBuffer = bitCount = 0;
+	blockSize = blockIndex = 0;
+	offsets = new int[MAX_CODES];
+	lengths = new int[MAX_CODES];
+	block = new byte[BLOCK_SIZE + 1];
 	imageWidth = image.width;
 	imageHeight = image.height;
+	if (image.depth == 8 && image.bytesPerLine == imageWidth && !interlaced) {
+		/* The decoded rows are the image data */
+		pixels = image.data;
+	} else {
+		pixels = new byte[imageWidth * imageHeight];
+	}
 }
 /**
  * Initialize the receiver for encoding the given
@@ -250,161 +235,76 @@ void initializeForEncoding() {
 	clearCode = 1 << bitsPerPixel;
 	endCode = clearCode + 1;
 	newCodes = currentSlot = endCode + 1;
-	bitsLeft = 8;
-	currentByte = 0;
+	bitBuffer = bitCount = 0;
 	blockIndex = 1;
-	blockSize = 255;
-	block = new byte[blockSize];
-	block[0] = (byte)(blockSize - 1);
-	nodeStack = new LZWNode[1 << bitsPerPixel];
-	for (int i = 0; i < nodeStack.length; i++) {
-		LZWNode node = new LZWNode();
-		node.code = i + 1;
-		node.prefix = -1;
-		node.suffix = i + 1;
-		nodeStack[i] = node;
-	}
+	block = new byte[BLOCK_SIZE];
+	entries = new int[HASH_SIZE];
 	imageWidth = image.width;
 	imageHeight = image.height;
-	imageY = -1;
-	lineArray = new byte[imageWidth];
-	imageX = imageWidth + 1; // Force a read
+	pixels = new byte[imageWidth];
 }
 /**
  * Answer the next code from the input byte array.
  */
 int nextCode() {
-	int code;
-	if (bitsLeft == 0) {
-		if (blockIndex >= blockSize) {
-			blockSize = readBlock();
-			blockIndex = 0;
-			if (blockSize == 0) return endCode;
-		}
-		blockIndex++;
-		currentByte = block[blockIndex] & 0xFF;
-		bitsLeft = 8;
-		code = currentByte;
-	} else {
-		int shift = bitsLeft - 8;
-		if (shift < 0)
-			code = currentByte >> (0 - shift);
-		else
-			code = currentByte << shift;
-	}
-	while (codeSize > bitsLeft) {
+	while (bitCount < codeSize) {
 		if (blockIndex >= blockSize) {
 			blockSize = readBlock();
 			blockIndex = 0;
 			if (blockSize == 0) return endCode;
 		}
-		blockIndex++;
-		currentByte = block[blockIndex] & 0xFF;
-		code += currentByte << bitsLeft;
-		bitsLeft += 8;
+		bitBuffer |= (block[++blockIndex] & 0xFF) << bitCount;
+		bitCount += 8;
 	}
-	bitsLeft -= codeSize;
-	return code & codeMask;
+	int code = bitBuffer & codeMask;
+	bitBuffer >>>= codeSize;
+	bitCount -= codeSize;
+	return code;
 }
 /**
- * Answer the next pixel to encode in the image
- */
-int nextPixel() {
-	imageX++;
-	if (imageX > imageWidth) {
-		imageY++;
-		if (imageY >= imageHeight) {
-			return -1;
-		} else {
-			nextPixels(lineArray, imageWidth);
-		}
-		imageX = 1;
-	}
-	return this.lineArray[imageX - 1] & 0xFF;
-}
-/**
- * Copy a row of pixel values from the image.
+ * Output aCode to the output stream.
  */
-void nextPixels(byte[] buf, int lineWidth) {
-	if (image.depth == 8) {
-		System.arraycopy(image.data, imageY * image.bytesPerLine, buf, 0, lineWidth);
-	} else {
-		image.getPixels(0, imageY, lineWidth, buf, 0);
+void nextPutCode(int aCode) {
+	bitBuffer |= aCode << bitCount;
+	bitCount += codeSize;
+	while (bitCount >= 8) {
+		putByte(bitBuffer);
+		bitBuffer >>>= 8;
+		bitCount -= 8;
 	}
 }
 /**
- * Output aCode to the output stream.
+ * Output a byte to the current block, writing the
+ * block to the output stream when it is full.
  */
-void nextPutCode(int aCode) {
-	int codeToDo = aCode;
-	int codeBitsToDo = codeSize;
-	// Fill in the remainder of the current byte with the
-	// *high-order* bits of the code.
-	int c = codeToDo & MASK_TABLE[bitsLeft - 1];
-	currentByte = currentByte | (c << (8 - bitsLeft));
-	block[blockIndex] = (byte)currentByte;
-	codeBitsToDo -= bitsLeft;
-	if (codeBitsToDo < 1) {
-		// The whole code fit in the first byte, so we are done.
-		bitsLeft -= codeSize;
-		if (bitsLeft == 0) {
-			// We used the whole last byte, so get ready
-			// for the next one.
-			bitsLeft = 8;
-			blockIndex++;
-			if (blockIndex >= blockSize) {
-				writeBlock();
-				blockIndex = 1;
-			}
-			currentByte = 0;
-		}
-		return;
-	}
-	codeToDo = codeToDo >> bitsLeft;
-
-	// Fill in any remaining whole bytes (i.e. not the last one!)
-	blockIndex++;
-	if (blockIndex >= blockSize) {
+void putByte(int value) {
+	block[blockIndex++] = (byte)value;
+	if (blockIndex >= BLOCK_SIZE) {
+		block[0] = (byte)(BLOCK_SIZE - 1);
 		writeBlock();
 		blockIndex = 1;
 	}
-	while (codeBitsToDo >= 8) {
-		currentByte = codeToDo & 0xFF;
-		block[blockIndex] = (byte)currentByte;
-		codeToDo = codeToDo >> 8;
-		codeBitsToDo -= 8;
-		blockIndex++;
-		if (blockIndex >= blockSize) {
-			writeBlock();
-			blockIndex = 1;
-		}
-	}
-	// Fill the *low-order* bits of the last byte with the remainder
-	bitsLeft = 8 - codeBitsToDo;
-	currentByte = codeToDo;
-	block[blockIndex] = (byte)currentByte;
 }
 /**
  * Copy a row of pixel values to the image.
  */
-void nextPutPixels(byte[] buf) {
-	if (image.depth == 8) {
-		// Slight optimization for depth = 8.
-		int start = line * image.bytesPerLine;
-		for (int i = 0; i < imageWidth; i++)
-			image.data[start + i] = buf[i];
-	} else {
-		image.setPixels(0, line, imageWidth, buf, 0);
+void nextPutPixels(byte[] buf, int offset) {
+	if (buf != image.data) {
+		if (image.depth == 8) {
+			System.arraycopy(buf, offset, image.data, line * image.bytesPerLine, imageWidth);
+		} else {
+			image.setPixels(0, line, imageWidth, buf, offset);
+		}
 	}
 	if (interlaced) {
 		if (pass == 1) {
-			copyRow(buf, 7);
+			copyRow(buf, offset, 7);
 			line += 8;
 		} else if (pass == 2) {
-			copyRow(buf, 3);
+			copyRow(buf, offset, 3);
 			line += 8;
 		} else if (pass == 3) {
-			copyRow(buf, 1);
+			copyRow(buf, offset, 1);
 			line += 4;
 		} else if (pass == 4) {
 			line += 2;
@@ -434,10 +334,10 @@ void nextPutPixels(byte[] buf) {
  * Copy duplicate rows of pixel values to the image.
  * This is to fill in rows if the image is interlaced.
  */
-void copyRow(byte[] buf, int copies) {
+void copyRow(byte[] buf, int offset, int copies) {
 	for (int i = 1; i <= copies; i++) {
 		if (line + i < imageHeight) {
-			image.setPixels(0, line + i, imageWidth, buf, 0);
+			image.setPixels(0, line + i, imageWidth, buf, offset);
 		}
 	}
 }
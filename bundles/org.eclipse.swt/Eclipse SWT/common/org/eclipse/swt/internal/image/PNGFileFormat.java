@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,21 +12,27 @@ package org.eclipse.swt.internal.image;
 
 
 import java.io.*;
+import java.util.zip.*;
+
 import org.eclipse.swt.*;
 import org.eclipse.swt.graphics.*;
-import org.eclipse.swt.internal.*;
 
 public final class PNGFileFormat extends FileFormat {
 	static final int SIGNATURE_LENGTH = 8;
 	static final int PRIME = 65521;
+	/* The number of rows decoded between events for non-interlaced images */
+	static final int ROWS_PER_EVENT = 16;
 	PngIhdrChunk headerChunk;
 	PngPlteChunk paletteChunk;
 	ImageData imageData;
-	byte[] data;
 	byte[] alphaPalette;
 	byte headerByte1;
 	byte headerByte2;
 	int adler;
+	Inflater inflater;
+	PngChunkReader chunkReader;
+	PngChunk pendingChunk;
+	boolean readImage;
 
 /**
  * Skip over signature data. This has already been
@@ -47,15 +53,18 @@ ImageData[] loadFromByteStream() {
 		headerChunk = chunkReader.getIhdrChunk();
 		int width = headerChunk.getWidth(), height = headerChunk.getHeight();
 		if (width <= 0 || height <= 0) SWT.error(SWT.ERROR_INVALID_IMAGE);
-		int imageSize = getAlignedBytesPerRow() * height;
-		data = new byte[imageSize];		
+		/*
+		* The pixel data is decoded directly into the data of
+		* the image, which is allocated in the format of the
+		* image rather than in the format of the PNG.
+		*/
 		imageData = ImageData.internal_new(
 			width,
 			height,
 			headerChunk.getSwtBitsPerPixel(),
 			new PaletteData(0, 0, 0),
 			4,
-			data,
+			null,
 			0,
 			null,
 			null,
@@ -87,7 +96,9 @@ ImageData[] loadFromByteStream() {
  * PNG file.
  */
 void readNextChunk(PngChunkReader chunkReader) throws IOException {
-	PngChunk chunk = chunkReader.readNextChunk();
+	PngChunk chunk = pendingChunk;
+	pendingChunk = null;
+	if (chunk == null) chunk = chunkReader.readNextChunk();
 	switch (chunk.getChunkType()) {
 		case PngChunk.CHUNK_IEND:
 			break;
@@ -128,6 +139,9 @@ void readNextChunk(PngChunkReader chunkReader) throws IOException {
 				// been read and another IDAT block is encountered,
 				// then this is an invalid image.
 				SWT.error(SWT.ERROR_INVALID_IMAGE);
+			} else if (readImage) {
+				// The compressed data ended in an earlier IDAT
+				// chunk. Ignore the extra chunk.
 			} else {
 				// Read in the pixel data for the image. This should
 				// go through all the image's IDAT chunks. 	
@@ -167,171 +181,178 @@ boolean isFileFormat(LEDataInputStream stream) {
 	}
 }
 /**
- * SWT does not support 16-bit depths. If this image uses
- * 16-bit depths, convert the data to an 8-bit depth.
+ * Read the image data from the data stream. This must handle
+ * decoding the data, filtering, and interlacing.
+ * <p>
+ * The IDAT chunks are inflated as they are read and each row
+ * is unfiltered and stored in the image as soon as it has been
+ * inflated, so no more than two rows of PNG data are held at
+ * a time.
+ * </p>
+ */
+void readPixelData(PngIdatChunk chunk, PngChunkReader chunkReader) throws IOException {
+	this.chunkReader = chunkReader;
+	inflater = new Inflater();
+	try {
+		inflater.setInput(chunk.reference, PngChunk.DATA_OFFSET, chunk.getLength());
+		int colorType = headerChunk.getColorType();
+		if (alphaPalette != null ||
+			colorType == PngIhdrChunk.COLOR_TYPE_RGB_WITH_ALPHA ||
+			colorType == PngIhdrChunk.COLOR_TYPE_GRAYSCALE_WITH_ALPHA)
+		{
+			imageData.alphaData = new byte[imageData.width * imageData.height];
+		}
+		int interlaceMethod = headerChunk.getInterlaceMethod();
+		if (interlaceMethod == PngIhdrChunk.INTERLACE_METHOD_NONE) {
+			readNonInterlacedImage();
+		} else {
+			readInterlacedImage();
+		}
+		/*
+		* The end of the compressed data may be in an IDAT chunk
+		* that has not been read yet. Read the IDAT chunks up to
+		* the end of the compressed data so that the next chunk
+		* is read by readNextChunk().
+		*/
+		byte[] buffer = new byte[64];
+		while (!inflater.finished()) {
+			if (inflater.inflate(buffer) == 0 && !inflater.finished()) {
+				if (!inflater.needsInput() || !setNextInput()) break;
+			}
+		}
+	} catch (DataFormatException e) {
+		throw new IOException(e.getMessage());
+	} finally {
+		inflater.end();
+		inflater = null;
+		readImage = true;
+	}
+}
+/**
+ * Give the inflater the data of the next IDAT chunk. Answer
+ * false if the next chunk is not an IDAT chunk, in which case
+ * it is kept to be handled by readNextChunk().
+ */
+boolean setNextInput() {
+	PngChunk chunk = chunkReader.readNextChunk();
+	if (chunk.getChunkType() != PngChunk.CHUNK_IDAT) {
+		pendingChunk = chunk;
+		return false;
+	}
+	inflater.setInput(chunk.reference, PngChunk.DATA_OFFSET, chunk.getLength());
+	return true;
+}
+/**
+ * Inflate the next row of the image, which starts with its
+ * filter type, and unfilter it.
  */
-byte[] validateBitDepth(byte[] data) {
-	if (headerChunk.getBitDepth() > 8) {
-		byte[] result = new byte[data.length / 2];
-		compress16BitDepthTo8BitDepth(data, 0, result, 0, result.length);
-		return result;
-	} else {
-		return data;
+void readRow(byte[] row, byte[] previousRow) throws IOException, DataFormatException {
+	int read = 0, length = row.length;
+	while (read < length) {
+		int count = inflater.inflate(row, read, length - read);
+		if (count == 0) {
+			if (inflater.finished() || inflater.needsDictionary()) throw new IOException();
+			if (inflater.needsInput() && !setNextInput()) throw new IOException();
+		}
+		read += count;
 	}
+	filterRow(row, previousRow, row[0]);
 }
 /**
- * SWT does not support greyscale as a color type. For
- * plain grayscale, we create a palette. For Grayscale
- * with Alpha, however, we need to convert the pixels
- * to use RGB values.
- * Note: This method assumes that the bit depth of the
- * data has already been restricted to 8 or less.
+ * Store the pixels of an unfiltered row in the image, converting
+ * them to the format of the image. The row holds the filter type
+ * followed by count pixels, which are stored from startColumn on
+ * in every columnInterval pixels of the given image row.
+ * <p>
+ * SWT does not support 16-bit depths or greyscale with alpha.
+ * Samples with a 16-bit depth are reduced to their high byte and
+ * greyscale with alpha is stored as RGB with alpha data.
+ * </p>
  */
-void setPixelData(byte[] data, ImageData imageData) {
+void setRow(byte[] row, int y, int startColumn, int columnInterval, int count) {
+	byte[] data = imageData.data;
+	byte[] alphaData = imageData.alphaData;
+	int dataOffset = y * imageData.bytesPerLine;
+	int alphaOffset = y * imageData.width + startColumn;
+	int bitDepth = headerChunk.getBitDepth();
 	switch (headerChunk.getColorType()) {
-		case PngIhdrChunk.COLOR_TYPE_GRAYSCALE_WITH_ALPHA:
-		{
-			int width = imageData.width;
-			int height = imageData.height;
-			int destBytesPerLine = imageData.bytesPerLine;
-			/*
-			* If the image uses 16-bit depth, it is converted
-			* to an 8-bit depth image.
-			*/
-			int srcBytesPerLine = getAlignedBytesPerRow();
-			if (headerChunk.getBitDepth() > 8) srcBytesPerLine /= 2;
-
-			byte[] rgbData = new byte[destBytesPerLine * height];
-			byte[] alphaData = new byte[width * height];
-			for (int y = 0; y < height; y++) {
-				int srcIndex = srcBytesPerLine * y;
-				int destIndex = destBytesPerLine * y;
-				int destAlphaIndex = width * y;
-				for (int x = 0; x < width; x++) {
-					byte grey = data[srcIndex];
-					byte alpha = data[srcIndex + 1];
-					rgbData[destIndex + 0] = grey;
-					rgbData[destIndex + 1] = grey;
-					rgbData[destIndex + 2] = grey;
-					alphaData[destAlphaIndex] = alpha;
-					srcIndex += 2;
-					destIndex += 3;
-					destAlphaIndex++;
-				}
+		case PngIhdrChunk.COLOR_TYPE_RGB_WITH_ALPHA:
+		case PngIhdrChunk.COLOR_TYPE_RGB: {
+			boolean hasAlpha = alphaData != null;
+			int sampleBytes = bitDepth / 8;
+			int pixelBytes = sampleBytes * (hasAlpha ? 4 : 3);
+			if (!hasAlpha && sampleBytes == 1 && columnInterval == 1) {
+				System.arraycopy(row, 1, data, dataOffset + startColumn * 3, count * 3);
+				break;
+			}
+			int dataIndex = dataOffset + startColumn * 3;
+			for (int i = 0, index = 1; i < count; i++, index += pixelBytes) {
+				data[dataIndex] = row[index];
+				data[dataIndex + 1] = row[index + sampleBytes];
+				data[dataIndex + 2] = row[index + 2 * sampleBytes];
+				if (hasAlpha) alphaData[alphaOffset] = row[index + 3 * sampleBytes];
+				dataIndex += 3 * columnInterval;
+				alphaOffset += columnInterval;
 			}
-			imageData.data = rgbData;
-			imageData.alphaData = alphaData;
 			break;
 		}
-		case PngIhdrChunk.COLOR_TYPE_RGB_WITH_ALPHA:
-		{
-			int width = imageData.width;
-			int height = imageData.height;
-			int destBytesPerLine = imageData.bytesPerLine;
-			int srcBytesPerLine = getAlignedBytesPerRow();
-			/*
-			* If the image uses 16-bit depth, it is converted
-			* to an 8-bit depth image.
-			*/
-			if (headerChunk.getBitDepth() > 8) srcBytesPerLine /= 2;
-
-			byte[] rgbData = new byte[destBytesPerLine * height];
-			byte[] alphaData = new byte[width * height];
-			for (int y = 0; y < height; y++) {
-				int srcIndex = srcBytesPerLine * y;
-				int destIndex = destBytesPerLine * y;
-				int destAlphaIndex = width * y;
-				for (int x = 0; x < width; x++) {
-					rgbData[destIndex + 0] = data[srcIndex + 0];
-					rgbData[destIndex + 1] = data[srcIndex + 1];
-					rgbData[destIndex + 2] = data[srcIndex + 2];
-					alphaData[destAlphaIndex] = data[srcIndex + 3];
-					srcIndex += 4;
-					destIndex += 3;
-					destAlphaIndex++;
-				}
+		case PngIhdrChunk.COLOR_TYPE_GRAYSCALE_WITH_ALPHA: {
+			int sampleBytes = bitDepth / 8;
+			int dataIndex = dataOffset + startColumn * 3;
+			for (int i = 0, index = 1; i < count; i++, index += 2 * sampleBytes) {
+				byte grey = row[index];
+				data[dataIndex] = grey;
+				data[dataIndex + 1] = grey;
+				data[dataIndex + 2] = grey;
+				alphaData[alphaOffset] = row[index + sampleBytes];
+				dataIndex += 3 * columnInterval;
+				alphaOffset += columnInterval;
 			}
-			imageData.data = rgbData;
-			imageData.alphaData = alphaData;
 			break;
-		}		
+		}
+		case PngIhdrChunk.COLOR_TYPE_GRAYSCALE:
 		case PngIhdrChunk.COLOR_TYPE_PALETTE:
-			imageData.data = data;
-			if (alphaPalette != null) {
-				int size = imageData.width * imageData.height;
-				byte[] alphaData = new byte[size];
-				byte[] pixelData = new byte[size];
-				imageData.getPixels(0, 0, size, pixelData, 0);
-				for (int i = 0; i < pixelData.length; i++) {
-					alphaData[i] = alphaPalette[pixelData[i] & 0xFF];
+		default: {
+			if (bitDepth >= 8) {
+				int sampleBytes = bitDepth / 8;
+				if (sampleBytes == 1 && columnInterval == 1) {
+					System.arraycopy(row, 1, data, dataOffset + startColumn, count);
+				} else {
+					int dataIndex = dataOffset + startColumn;
+					for (int i = 0, index = 1; i < count; i++, index += sampleBytes) {
+						data[dataIndex] = row[index];
+						dataIndex += columnInterval;
+					}
 				}
-				imageData.alphaData = alphaData;
+				if (alphaData != null) {
+					for (int i = 0, index = 1; i < count; i++, index += sampleBytes) {
+						alphaData[alphaOffset] = alphaPalette[row[index] & 0xFF];
+						alphaOffset += columnInterval;
+					}
+				}
+				break;
 			}
-			break;
-		case PngIhdrChunk.COLOR_TYPE_RGB:
-		default:
-			int height = imageData.height;
-			int destBytesPerLine = imageData.bytesPerLine;
-			int srcBytesPerLine = getAlignedBytesPerRow();
-			/*
-			* If the image uses 16-bit depth, it is converted
-			* to an 8-bit depth image.
-			*/
-			if (headerChunk.getBitDepth() > 8) srcBytesPerLine /= 2;
-			if (destBytesPerLine != srcBytesPerLine) {
-				for (int y = 0; y < height; y++) {
-					System.arraycopy(data, y * srcBytesPerLine, imageData.data, y * destBytesPerLine, srcBytesPerLine);
+			int pixelsPerByte = 8 / bitDepth;
+			int valueMask = (1 << bitDepth) - 1;
+			int maxShift = 8 - bitDepth;
+			boolean packed = columnInterval == 1 && startColumn == 0;
+			if (packed) {
+				System.arraycopy(row, 1, data, dataOffset, row.length - 1);
+				if (alphaData == null) break;
+			}
+			for (int i = 0, column = startColumn; i < count; i++, column += columnInterval) {
+				int value = (row[1 + i / pixelsPerByte] >> (maxShift - bitDepth * (i % pixelsPerByte))) & valueMask;
+				if (!packed) {
+					int dataShift = maxShift - (bitDepth * (column % pixelsPerByte));
+					data[dataOffset + column / pixelsPerByte] |= value << dataShift;
+				}
+				if (alphaData != null) {
+					alphaData[alphaOffset] = alphaPalette[value];
+					alphaOffset += columnInterval;
 				}
-			} else {
-				imageData.data = data;
 			}
-			break;
-	}
-}
-/**
- * PNG supports some color types and bit depths that are 
- * unsupported by SWT. If the image uses an unsupported
- * color type (either of the gray scale types) or bit
- * depth (16), convert the data to an SWT-supported
- * format. Then assign the data into the ImageData given.
- */
-void setImageDataValues(byte[] data, ImageData imageData) {
-	byte[] result = validateBitDepth(data);
-	setPixelData(result, imageData);
-}
-/**
- * Read the image data from the data stream. This must handle
- * decoding the data, filtering, and interlacing.
- */
-void readPixelData(PngIdatChunk chunk, PngChunkReader chunkReader) throws IOException {
-	InputStream stream = new PngInputStream(chunk, chunkReader);
-	//TEMPORARY CODE
-	boolean use3_2 = System.getProperty("org.eclipse.swt.internal.image.PNGFileFormat_3.2") != null;
-	InputStream inflaterStream = use3_2 ? null : Compatibility.newInflaterInputStream(stream);
-	if (inflaterStream != null) {
-		stream = inflaterStream;
-	} else {
-		stream = new PngDecodingDataStream(stream);
-	}
-	int interlaceMethod = headerChunk.getInterlaceMethod();
-	if (interlaceMethod == PngIhdrChunk.INTERLACE_METHOD_NONE) {
-		readNonInterlacedImage(stream);
-	} else {
-		readInterlacedImage(stream);
+		}
 	}
-	/*
-	* InflaterInputStream does not consume all bytes in the stream
-	* when it is closed. This may leave unread IDAT chunks. The fix
-	* is to read all available bytes before closing it.
-	*/
-	while (stream.available() > 0) stream.read();
-	stream.close();
-}
-/**
- * Answer the number of bytes in a word-aligned row of pixel data.
- */
-int getAlignedBytesPerRow() {
-	return ((getBytesPerRow(headerChunk.getWidth()) + 3) / 4) * 4;
 }
 /**
  * Answer the number of bytes in each row of the image
@@ -371,81 +392,41 @@ int getBytesPerRow(int rowWidthInPixels) {
  * 3. Notify the image loader's listeners of the frame load.
  */
 void readInterlaceFrame(
-	InputStream inputStream,
 	int rowInterval,
 	int columnInterval,
 	int startRow,
 	int startColumn,
-	int frameCount) throws IOException 
+	int frameCount) throws IOException, DataFormatException 
 {
 	int width = headerChunk.getWidth();
-	int alignedBytesPerRow = getAlignedBytesPerRow();
 	int height = headerChunk.getHeight();
 	if (startRow >= height || startColumn >= width) return;
 	
 	int pixelsPerRow = (width - startColumn + columnInterval - 1) / columnInterval;
 	int bytesPerRow = getBytesPerRow(pixelsPerRow);
-	byte[] row1 = new byte[bytesPerRow];
-	byte[] row2 = new byte[bytesPerRow];
-	byte[] currentRow = row1;	
-	byte[] lastRow = row2;	
+	byte[] currentRow = new byte[bytesPerRow + 1];
+	byte[] lastRow = new byte[bytesPerRow + 1];
 	for (int row = startRow; row < height; row += rowInterval) {
-		byte filterType = (byte)inputStream.read();
-		int read = 0;
-		while (read != bytesPerRow) {
-			read += inputStream.read(currentRow, read, bytesPerRow - read);
-		}
-		filterRow(currentRow, lastRow, filterType);
-		if (headerChunk.getBitDepth() >= 8) {
-			int bytesPerPixel = getBytesPerPixel();
-			int dataOffset = (row * alignedBytesPerRow) + (startColumn * bytesPerPixel);
-			for (int rowOffset = 0; rowOffset < currentRow.length; rowOffset += bytesPerPixel) {
-				for (int byteOffset = 0; byteOffset < bytesPerPixel; byteOffset++) {
-					data[dataOffset + byteOffset] = currentRow[rowOffset + byteOffset];
-				}
-				dataOffset += (columnInterval * bytesPerPixel);
-			}
-		} else {
-			int bitsPerPixel = headerChunk.getBitDepth();
-			int pixelsPerByte = 8 / bitsPerPixel;
-			int column = startColumn;
-			int rowBase = row * alignedBytesPerRow;
-			int valueMask = 0;
-			for (int i = 0; i < bitsPerPixel; i++) {
-				valueMask <<= 1;
-				valueMask |= 1;
-			}
-			int maxShift = 8 - bitsPerPixel;
-			for (int byteOffset = 0; byteOffset < currentRow.length; byteOffset++) {
-				for (int bitOffset = maxShift; bitOffset >= 0; bitOffset -= bitsPerPixel) {
-					if (column < width) {
-						int dataOffset = rowBase + (column * bitsPerPixel / 8);							
-						int value = (currentRow[byteOffset] >> bitOffset) & valueMask;
-						int dataShift = maxShift - (bitsPerPixel * (column % pixelsPerByte));
-						data[dataOffset] |= value << dataShift;
-					}
-					column += columnInterval;
-				}
-			}
-		}
-		currentRow = (currentRow == row1) ? row2 : row1;
-		lastRow = (lastRow == row1) ? row2 : row1;
+		readRow(currentRow, lastRow);
+		setRow(currentRow, row, startColumn, columnInterval, pixelsPerRow);
+		byte[] temp = currentRow;
+		currentRow = lastRow;
+		lastRow = temp;
 	}
-	setImageDataValues(data, imageData);
 	fireInterlacedFrameEvent(frameCount);
 }
 /**
  * Read the pixel data for an interlaced image from the
  * data stream.
  */
-void readInterlacedImage(InputStream inputStream) throws IOException {
-	readInterlaceFrame(inputStream, 8, 8, 0, 0, 0);
-	readInterlaceFrame(inputStream, 8, 8, 0, 4, 1);	
-	readInterlaceFrame(inputStream, 8, 4, 4, 0, 2);	
-	readInterlaceFrame(inputStream, 4, 4, 0, 2, 3);
-	readInterlaceFrame(inputStream, 4, 2, 2, 0, 4);
-	readInterlaceFrame(inputStream, 2, 2, 0, 1, 5);	
-	readInterlaceFrame(inputStream, 2, 1, 1, 0, 6);
+void readInterlacedImage() throws IOException, DataFormatException {
+	readInterlaceFrame(8, 8, 0, 0, 0);
+	readInterlaceFrame(8, 8, 0, 4, 1);	
+	readInterlaceFrame(8, 4, 4, 0, 2);	
+	readInterlaceFrame(4, 4, 0, 2, 3);
+	readInterlaceFrame(4, 2, 2, 0, 4);
+	readInterlaceFrame(2, 2, 0, 1, 5);	
+	readInterlaceFrame(2, 1, 1, 0, 6);
 }
 /**
  * Fire an event to let listeners know that an interlaced
@@ -463,55 +444,28 @@ void fireInterlacedFrameEvent(int frameCount) {
 /**
  * Read the pixel data for a non-interlaced image from the
  * data stream.
- * Update the imageData to reflect the new data.
+ * Update the imageData to reflect the new data, notifying
+ * the image loader's listeners every ROWS_PER_EVENT rows.
+ * Like the strips of a TIFF image, the rows are reported in
+ * the image data that is being loaded rather than in a copy.
  */
-void readNonInterlacedImage(InputStream inputStream) throws IOException {
-	int dataOffset = 0;
-	int alignedBytesPerRow = getAlignedBytesPerRow();
+void readNonInterlacedImage() throws IOException, DataFormatException {
+	int width = headerChunk.getWidth();
 	int bytesPerRow = getBytesPerRow();
-	byte[] row1 = new byte[bytesPerRow];
-	byte[] row2 = new byte[bytesPerRow];
-	byte[] currentRow = row1;	
-	byte[] lastRow = row2;
+	byte[] currentRow = new byte[bytesPerRow + 1];
+	byte[] lastRow = new byte[bytesPerRow + 1];
 	int height = headerChunk.getHeight();
+	int incrementCount = 0;
 	for (int row = 0; row < height; row++) {
-		byte filterType = (byte)inputStream.read();
-		int read = 0;
-		while (read != bytesPerRow) {
-			read += inputStream.read(currentRow, read, bytesPerRow - read);
+		readRow(currentRow, lastRow);
+		setRow(currentRow, row, 0, 1, width);
+		byte[] temp = currentRow;
+		currentRow = lastRow;
+		lastRow = temp;
+		boolean endOfImage = row == height - 1;
+		if ((endOfImage || (row + 1) % ROWS_PER_EVENT == 0) && loader.hasListeners()) {
+			loader.notifyListeners(new ImageLoaderEvent(loader, imageData, incrementCount++, endOfImage));
 		}
-		filterRow(currentRow, lastRow, filterType);
-		System.arraycopy(currentRow, 0, data, dataOffset, bytesPerRow);
-		dataOffset += alignedBytesPerRow;
-		currentRow = (currentRow == row1) ? row2 : row1;
-		lastRow = (lastRow == row1) ? row2 : row1;
-	}
-	setImageDataValues(data, imageData);
-}
-/**
- * SWT does not support 16-bit depth color formats.
- * Convert the 16-bit data to 8-bit data.
- * The correct way to do this is to multiply each
- * 16 bit value by the value:
- * (2^8 - 1) / (2^16 - 1).
- * The fast way to do this is just to drop the low
- * byte of the 16-bit value.
- */
-static void compress16BitDepthTo8BitDepth(
-	byte[] source,
-	int sourceOffset,
-	byte[] destination, 
-	int destinationOffset,
-	int numberOfValues) 
-{
-	//double multiplier = (Compatibility.pow2(8) - 1) / (Compatibility.pow2(16) - 1);
-	for (int i = 0; i < numberOfValues; i++) {
-		int sourceIndex = sourceOffset + (2 * i);
-		int destinationIndex = destinationOffset + i;
-		//int value = (source[sourceIndex] << 8) | source[sourceIndex + 1];
-		//byte compressedValue = (byte)(value * multiplier);
-		byte compressedValue = source[sourceIndex];
-		destination[destinationIndex] = compressedValue;
 	}
 }
 /**
@@ -531,39 +485,44 @@ static int compress16BitDepthTo8BitDepth(int value) {
 /**
  * PNG supports four filtering types. These types are applied
  * per row of image data. This method unfilters the given row
- * based on the filterType.
+ * based on the filterType. The first byte of the rows holds
+ * their filter type and is not part of the image data.
  */
 void filterRow(byte[] row, byte[] previousRow, int filterType) {
 	int byteOffset = headerChunk.getFilterByteOffset();
+	int length = row.length;
+	int first = Math.min(1 + byteOffset, length);
 	switch (filterType) {
 		case PngIhdrChunk.FILTER_NONE:
 			break;
 		case PngIhdrChunk.FILTER_SUB:
-			for (int i = byteOffset; i < row.length; i++) {
-				int current = row[i] & 0xFF;
-				int left = row[i - byteOffset] & 0xFF;
-				row[i] = (byte)((current + left) & 0xFF);
+			for (int i = first; i < length; i++) {
+				row[i] = (byte)(row[i] + row[i - byteOffset]);
 			}
 			break;
 		case PngIhdrChunk.FILTER_UP:
-			for (int i = 0; i < row.length; i++) {
-				int current = row[i] & 0xFF;
-				int above = previousRow[i] & 0xFF;				
-				row[i] = (byte)((current + above) & 0xFF);
+			for (int i = 1; i < length; i++) {
+				row[i] = (byte)(row[i] + previousRow[i]);
 			}
 			break;
 		case PngIhdrChunk.FILTER_AVERAGE:
-			for (int i = 0; i < row.length; i++) {
-				int left = (i < byteOffset) ? 0 : row[i - byteOffset] & 0xFF;
+			for (int i = 1; i < first; i++) {
+				row[i] = (byte)(row[i] + ((previousRow[i] & 0xFF) >> 1));
+			}
+			for (int i = first; i < length; i++) {
+				int left = row[i - byteOffset] & 0xFF;
 				int above = previousRow[i] & 0xFF;
-				int current = row[i] & 0xFF;
-				row[i] = (byte)((current + ((left + above) / 2)) & 0xFF);
+				row[i] = (byte)(row[i] + ((left + above) >> 1));
 			}
 			break;
 		case PngIhdrChunk.FILTER_PAETH:
-			for (int i = 0; i < row.length; i++) {
-				int left = (i < byteOffset) ? 0 : row[i - byteOffset] & 0xFF;
-				int aboveLeft = (i < byteOffset) ? 0 : previousRow[i - byteOffset] & 0xFF;
+			// With no pixel to the left the predictor is the pixel above
+			for (int i = 1; i < first; i++) {
+				row[i] = (byte)(row[i] + previousRow[i]);
+			}
+			for (int i = first; i < length; i++) {
+				int left = row[i - byteOffset] & 0xFF;
+				int aboveLeft = previousRow[i - byteOffset] & 0xFF;
 				int above = previousRow[i] & 0xFF;
 				
 				int a = Math.abs(above - aboveLeft);
@@ -579,11 +538,10 @@ void filterRow(byte[] row, byte[] previousRow, int filterType) {
 					preductor = aboveLeft;
 				}
 				
-				int currentValue = row[i] & 0xFF;
-				row[i] = (byte) ((currentValue + preductor) & 0xFF);
+				row[i] = (byte)(row[i] + preductor);
 			}
 			break;
 	}
 }
 
-}
\ No newline at end of file
+}
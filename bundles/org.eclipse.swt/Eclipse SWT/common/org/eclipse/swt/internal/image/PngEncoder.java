@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,13 +12,16 @@ package org.eclipse.swt.internal.image;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.ImageLoader;
 import org.eclipse.swt.graphics.RGB;
-import org.eclipse.swt.internal.Compatibility;
 
 final class PngEncoder extends Object {
 
@@ -34,9 +37,30 @@ final class PngEncoder extends Object {
 	static final int BEST_COMPRESSION = 9;
 	static final int DEFAULT_COMPRESSION = -1;
 	
+	static final int FILTER_NONE = 0;
+	static final int FILTER_SUB = 1;
+	static final int FILTER_UP = 2;
+	static final int FILTER_AVERAGE = 3;
+	static final int FILTER_PAETH = 4;
+	
+	/* The size of the data of the IDAT chunks */
+	static final int IDAT_SIZE = 1 << 15;
+	
+	/* The amount of row data compressed by each thread, and below which the image is compressed by one thread */
+	static final int BAND_SIZE = 1 << 18;
+	static final int PARALLEL_THRESHOLD = 1 << 20;
+	
+	/* Set to compress every image by one thread, without the common fork-join pool */
+	static final String DISABLE_PARALLEL = "org.eclipse.swt.internal.image.disableParallelPNGEncoding"; //$NON-NLS-1$
+	
 	ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
 	PngChunk chunk;
 	
+	LEDataOutputStream outputStream;
+	byte[] idat = new byte[IDAT_SIZE];
+	int idatLength;
+	CRC32 crc = new CRC32();
+	
 	ImageLoader loader;
 	ImageData data;
 	int transparencyType;
@@ -234,49 +258,65 @@ void writeTransparency() {
 
 }
 
-void writeImageData() throws IOException {
+int getCompressionLevel() {
 
-	ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
-	OutputStream os = null;
 	switch (loader.compression) {
-	case 0:
-		os = Compatibility.newDeflaterOutputStream(baos, NO_COMPRESSION);
-		break;
-	case 1:
-		os = Compatibility.newDeflaterOutputStream(baos, BEST_SPEED);
-		break;
-	case 3:
-		os = Compatibility.newDeflaterOutputStream(baos, BEST_COMPRESSION);
-		break;
-	default:
-		os = Compatibility.newDeflaterOutputStream(baos, DEFAULT_COMPRESSION);
-		break;
+		case 0: return NO_COMPRESSION;
+		case 1: return BEST_SPEED;
+		case 3: return BEST_COMPRESSION;
+		default: return DEFAULT_COMPRESSION;
 	}
-	if (os == null) os = baos; // returns null for J2ME
-	
-	if (colorType == 3) {
-	
-		byte[] lineData = new byte[width];
-		
-		for (int y = 0; y < height; y++) {
-			
-			int filter = 0;
-			os.write(filter);
-			
-			data.getPixels(0, y, width, lineData, 0);
-			
-			os.write(lineData);
-		
+
+}
+
+int getBytesPerPixel() {
+
+	return colorType == 6 ? 4 : colorType == 2 ? 3 : 1;
+
+}
+
+/*
+ * Converts the rows of the image to PNG data and filters them.
+ * Each row is filtered with every filter type and the result
+ * whose bytes have the smallest sum of absolute values is kept.
+ * Palette images and uncompressed images are not filtered.
+ * Every thread that encodes rows has its own RowFilter.
+ */
+class RowFilter {
+
+	int bytesPerPixel = getBytesPerPixel();
+	int rowLength = width * bytesPerPixel + 1;
+	boolean adaptive = colorType != 3 && getCompressionLevel() != NO_COMPRESSION;
+	
+	/* The unfiltered rows start with filter type none, so the current row is the result of that filter */
+	byte[] current = new byte[rowLength];
+	byte[] previous = new byte[rowLength];
+	byte[][] filtered = adaptive ? new byte[5][rowLength] : null;
+	
+	int[] lineData = new int[width];
+	byte[] alphaData = colorType == 6 ? new byte[width] : null;
+	byte[] indexData = colorType == 3 ? new byte[width] : null;
+
+	/*
+	 * Reads the row before the given row so that the row can be
+	 * filtered with the filters that refer to the row above.
+	 */
+	void start(int y) {
+	
+		if (y == 0) {
+			for (int i = 0; i < rowLength; i++) previous[i] = 0;
+		} else {
+			readRow(y - 1, previous);
 		}
 	
 	}
 	
-	else {
+	void readRow(int y, byte[] row) {
 	
-		int[] lineData = new int[width];
-		byte[] alphaData = null;
-		if (colorType == 6) {
-			alphaData = new byte[width];
+		if (colorType == 3) {
+			data.getPixels(0, y, width, indexData, 0);
+			System.arraycopy(indexData, 0, row, 1, width);
+			return;
 		}
 		
 		int redMask = data.palette.redMask;
@@ -286,57 +326,296 @@ void writeImageData() throws IOException {
 		int blueShift = data.palette.blueShift;
 		int blueMask = data.palette.blueMask;
 		
-		byte[] lineBytes = new byte[width * (colorType == 6 ? 4 : 3)];
+		data.getPixels(0, y, width, lineData, 0);
 		
-		for (int y = 0; y < height; y++) {
+		if (colorType == 6) {
+			data.getAlphas(0, y, width, alphaData, 0);
+		}
+		
+		int offset = 1;
+		for (int x = 0; x < lineData.length; x++) {
 		
-			int filter = 0;
-			os.write(filter);
+			int pixel = lineData[x];
 			
-			data.getPixels(0, y, width, lineData, 0);
+			int r = pixel & redMask;
+			row[offset++] = (byte) ((redShift < 0) ? r >>> -redShift
+					: r << redShift);
+			int g = pixel & greenMask;
+			row[offset++] = (byte) ((greenShift < 0) ? g >>> -greenShift
+					: g << greenShift);
+			int b = pixel & blueMask;
+			row[offset++] = (byte) ((blueShift < 0) ? b >>> -blueShift
+					: b << blueShift);
 			
 			if (colorType == 6) {
-				data.getAlphas(0, y, width, alphaData, 0);
+				row[offset++] = alphaData[x];
+			}
+		
+		}
+	
+	}
+	
+	/*
+	 * Answers the next row, starting with its filter type. The row
+	 * is valid until the next call.
+	 */
+	byte[] filterRow(int y) {
+	
+		byte[] temp = previous;
+		previous = current;
+		current = temp;
+		readRow(y, current);
+		if (!adaptive) return current;
+		
+		byte[] sub = filtered[FILTER_SUB], up = filtered[FILTER_UP];
+		byte[] average = filtered[FILTER_AVERAGE], paeth = filtered[FILTER_PAETH];
+		int noneSum = 0, subSum = 0, upSum = 0, averageSum = 0, paethSum = 0;
+		for (int i = 1; i < rowLength; i++) {
+		
+			int value = current[i] & 0xFF;
+			int above = previous[i] & 0xFF;
+			int left = 0, aboveLeft = 0;
+			if (i > bytesPerPixel) {
+				left = current[i - bytesPerPixel] & 0xFF;
+				aboveLeft = previous[i - bytesPerPixel] & 0xFF;
 			}
 			
-			int offset = 0;
-			for (int x = 0; x < lineData.length; x++) {
+			int a = Math.abs(above - aboveLeft);
+			int b = Math.abs(left - aboveLeft);
+			int c = Math.abs(left - aboveLeft + above - aboveLeft);
+			int predictor = (a <= b && a <= c) ? left : (b <= c) ? above : aboveLeft;
 			
-				int pixel = lineData[x];
-				
-				int r = pixel & redMask;
-				lineBytes[offset++] = (byte) ((redShift < 0) ? r >>> -redShift
-						: r << redShift);
-				int g = pixel & greenMask;
-				lineBytes[offset++] = (byte) ((greenShift < 0) ? g >>> -greenShift
-						: g << greenShift);
-				int b = pixel & blueMask;
-				lineBytes[offset++] = (byte) ((blueShift < 0) ? b >>> -blueShift
-						: b << blueShift);
-				
-				if (colorType == 6) {
-					lineBytes[offset++] = alphaData[x];
+			byte none = (byte) value;
+			byte s = (byte) (value - left);
+			byte u = (byte) (value - above);
+			byte v = (byte) (value - ((left + above) >> 1));
+			byte p = (byte) (value - predictor);
+			sub[i] = s;
+			up[i] = u;
+			average[i] = v;
+			paeth[i] = p;
+			noneSum += Math.abs(none);
+			subSum += Math.abs(s);
+			upSum += Math.abs(u);
+			averageSum += Math.abs(v);
+			paethSum += Math.abs(p);
+		
+		}
+		
+		byte[] result = current;
+		int sum = noneSum;
+		if (subSum < sum) { result = sub; sum = subSum; }
+		if (upSum < sum) { result = up; sum = upSum; }
+		if (averageSum < sum) { result = average; sum = averageSum; }
+		if (paethSum < sum) { result = paeth; sum = paethSum; }
+		sub[0] = FILTER_SUB;
+		up[0] = FILTER_UP;
+		average[0] = FILTER_AVERAGE;
+		paeth[0] = FILTER_PAETH;
+		return result;
+	
+	}
+
+}
+
+/*
+ * Compresses a band of rows into a raw deflate stream that ends
+ * on a byte boundary, so that the bands can be concatenated.
+ */
+class Band extends RecursiveAction {
+
+	static final long serialVersionUID = 1L;
+	
+	int start, end;
+	boolean last;
+	ByteArrayOutputStream result;
+	long adler, length;
+
+	Band(int start, int end, boolean last) {
+	
+		this.start = start;
+		this.end = end;
+		this.last = last;
+	
+	}
+
+	@Override
+	protected void compute() {
+	
+		RowFilter filter = new RowFilter();
+		filter.start(start);
+		Deflater deflater = new Deflater(getCompressionLevel(), true);
+		Adler32 checksum = new Adler32();
+		byte[] buffer = new byte[IDAT_SIZE];
+		result = new ByteArrayOutputStream(BAND_SIZE / 2);
+		try {
+			for (int y = start; y < end; y++) {
+			
+				byte[] row = filter.filterRow(y);
+				checksum.update(row, 0, row.length);
+				deflater.setInput(row);
+				while (!deflater.needsInput()) {
+					result.write(buffer, 0, deflater.deflate(buffer));
 				}
 			
 			}
-			
-			os.write(lineBytes);
-			
+			if (last) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					result.write(buffer, 0, deflater.deflate(buffer));
+				}
+			} else {
+				int count;
+				do {
+					count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+					result.write(buffer, 0, count);
+				} while (count == buffer.length);
+			}
+		} finally {
+			deflater.end();
 		}
+		adler = checksum.getValue();
+		length = (long) (end - start) * filter.rowLength;
 	
 	}
+
+}
+
+/*
+ * Answers the checksum of two blocks of data given their checksums
+ * and the length of the second block.
+ */
+static long combineAdler(long adler1, long adler2, long length2) {
+
+	long base = PNGFileFormat.PRIME;
+	long remainder = length2 % base;
+	long sum1 = adler1 & 0xFFFF;
+	long sum2 = (remainder * sum1) % base;
+	sum1 += (adler2 & 0xFFFF) + base - 1;
+	sum2 += ((adler1 >> 16) & 0xFFFF) + ((adler2 >> 16) & 0xFFFF) + base - remainder;
+	if (sum1 >= base) sum1 -= base;
+	if (sum1 >= base) sum1 -= base;
+	if (sum2 >= (base << 1)) sum2 -= (base << 1);
+	if (sum2 >= base) sum2 -= base;
+	return sum1 | (sum2 << 16);
+
+}
+
+void writeIdat() throws IOException {
+
+	if (idatLength == 0) return;
 	
-	os.flush();
-	os.close();
+	byte[] header = {
+		(byte) (idatLength >> 24), (byte) (idatLength >> 16), (byte) (idatLength >> 8), (byte) idatLength,
+		TAG_IDAT[0], TAG_IDAT[1], TAG_IDAT[2], TAG_IDAT[3],
+	};
+	crc.reset();
+	crc.update(TAG_IDAT, 0, 4);
+	crc.update(idat, 0, idatLength);
+	int value = (int) crc.getValue();
+	byte[] trailer = {(byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value};
+	
+	outputStream.write(header);
+	outputStream.write(idat, 0, idatLength);
+	outputStream.write(trailer);
+	idatLength = 0;
+
+}
+
+void writeImageBytes(byte[] buffer, int offset, int length) throws IOException {
+
+	while (length > 0) {
+	
+		int count = Math.min(length, IDAT_SIZE - idatLength);
+		System.arraycopy(buffer, offset, idat, idatLength, count);
+		idatLength += count;
+		offset += count;
+		length -= count;
+		if (idatLength == IDAT_SIZE) writeIdat();
 	
-	byte[] compressed = baos.toByteArray();
-	if (os == baos) {
-		/* Use PngDeflater for J2ME. */
-		PngDeflater deflater = new PngDeflater();
-		compressed = deflater.deflate(compressed);
 	}
+
+}
+
+/*
+ * Compresses the rows of the image and writes them to the output
+ * stream in IDAT chunks as the compressed data is produced.
+ */
+void writeImageData() throws IOException {
+
+	int level = getCompressionLevel();
+	long size = (long) height * (width * getBytesPerPixel() + 1);
+	if (level != NO_COMPRESSION && size >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1 && System.getProperty(DISABLE_PARALLEL) == null) {
+		writeImageDataParallel(level, size);
+		return;
+	}
+	
+	RowFilter filter = new RowFilter();
+	filter.start(0);
+	Deflater deflater = new Deflater(level);
+	try {
 	
-	writeChunk(TAG_IDAT, compressed);
+		for (int y = 0; y < height; y++) {
+		
+			deflater.setInput(filter.filterRow(y));
+			while (!deflater.needsInput()) {
+				idatLength += deflater.deflate(idat, idatLength, IDAT_SIZE - idatLength);
+				if (idatLength == IDAT_SIZE) writeIdat();
+			}
+		
+		}
+		
+		deflater.finish();
+		while (!deflater.finished()) {
+			idatLength += deflater.deflate(idat, idatLength, IDAT_SIZE - idatLength);
+			if (idatLength == IDAT_SIZE) writeIdat();
+		}
+		writeIdat();
+	
+	} finally {
+		deflater.end();
+	}
+
+}
+
+/*
+ * Compresses bands of rows in parallel. The bands are compressed
+ * independently and are written in order, between the zlib header
+ * and the checksum of the whole image.
+ */
+void writeImageDataParallel(int level, long size) throws IOException {
+
+	int rowsPerBand = (int) Math.max(1, BAND_SIZE * height / size);
+	int count = (height + rowsPerBand - 1) / rowsPerBand;
+	Band[] bands = new Band[count];
+	for (int i = 0; i < count; i++) {
+		int start = i * rowsPerBand;
+		bands[i] = new Band(start, Math.min(height, start + rowsPerBand), i == count - 1);
+		ForkJoinPool.commonPool().execute(bands[i]);
+	}
+	
+	int levelFlags = level == DEFAULT_COMPRESSION ? 2 : level < 2 ? 0 : level < 6 ? 1 : level == 6 ? 2 : 3;
+	int flags = levelFlags << 6;
+	flags += 31 - ((0x78 << 8 | flags) % 31);
+	byte[] header = {0x78, (byte) flags};
+	writeImageBytes(header, 0, header.length);
+	
+	long adler = 1;
+	for (int i = 0; i < count; i++) {
+	
+		Band band = bands[i];
+		band.join();
+		byte[] compressed = band.result.toByteArray();
+		band.result = null;
+		writeImageBytes(compressed, 0, compressed.length);
+		adler = combineAdler(adler, band.adler, band.length);
+	
+	}
+	
+	int value = (int) adler;
+	byte[] trailer = {(byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value};
+	writeImageBytes(trailer, 0, trailer.length);
+	writeIdat();
 
 }
 
@@ -366,6 +645,10 @@ public void encode(LEDataOutputStream outputStream) {
 			writeTransparency();
 		}
 		
+		this.outputStream = outputStream;
+		outputStream.write(bytes.toByteArray());
+		bytes.reset();
+		
 		writeImageData();
 		writeEnd();
 		
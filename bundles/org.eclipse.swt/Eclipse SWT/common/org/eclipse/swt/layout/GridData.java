@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -485,25 +485,32 @@ public GridData (int width, int height) {
 }
 
 void computeSize (Control control, int wHint, int hHint, boolean flushCache) {
-	if (cacheWidth != -1 && cacheHeight != -1) return;
+	if (cacheWidth != -1 && cacheHeight != -1) {
+		LayoutProfiler.internal_cacheHit (control);
+		return;
+	}
 	if (wHint == this.widthHint && hHint == this.heightHint) {
 		if (defaultWidth == -1 || defaultHeight == -1 || wHint != defaultWhint || hHint != defaultHhint) {
-			Point size = control.computeSize (wHint, hHint, flushCache);
+			Point size = LayoutProfiler.internal_computeSize (control, wHint, hHint, flushCache);
 			defaultWhint = wHint;
 			defaultHhint = hHint;
 			defaultWidth = size.x;
 			defaultHeight = size.y;
+		} else {
+			LayoutProfiler.internal_cacheHit (control);
 		}
 		cacheWidth = defaultWidth;
 		cacheHeight = defaultHeight;
 		return;
 	}
 	if (currentWidth == -1 || currentHeight == -1 || wHint != currentWhint || hHint != currentHhint) {
-		Point size = control.computeSize (wHint, hHint, flushCache);
+		Point size = LayoutProfiler.internal_computeSize (control, wHint, hHint, flushCache);
 		currentWhint = wHint;
 		currentHhint = hHint;
 		currentWidth = size.x;
 		currentHeight = size.y;
+	} else {
+		LayoutProfiler.internal_cacheHit (control);
 	}
 	cacheWidth = currentWidth;
 	cacheHeight = currentHeight;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -135,6 +135,41 @@ public final class GridLayout extends Layout {
 	 * The default value is 5.
 	 */
  	public int verticalSpacing = 5;
+
+	/*
+	 * The grid and the column widths and row heights before any
+	 * space is distributed, as computed by the last layout.
+	 */
+	Cache cache;
+
+	/*
+	 * GridData has public fields and cannot report changes, so
+	 * the cache keeps the values each result was computed from.
+	 * A layout builds the grid again only when the children or
+	 * their spans have changed, and computes the column widths
+	 * and row heights again starting from the first column or
+	 * row whose controls have changed.
+	 */
+	static final class Cache {
+		Composite composite;
+		boolean busy, columnsValid, rowsValid, makeColumnsEqualWidth;
+		int count, columnCount, rowCount, horizontalSpacing, verticalSpacing;
+		Control [] children;
+		GridData [] data;
+		/* the spans and the first and last row and column of each control */
+		int [] spans, cells;
+		/* the values of each control that the widths and heights depend on */
+		int [] columnValues, rowValues;
+		Control [][] grid;
+		/* the first column or row changed when computing a column or row, or any after it */
+		int [] columnReach, rowReach;
+		int [] widths, minWidths, heights, minHeights;
+		boolean [] expandColumn, expandRow;
+		/* the widths and heights being distributed */
+		int [] columnWidths, columnMinWidths, rowHeights, rowMinHeights;
+		boolean [] columnExpand, rowExpand;
+		GridData [] flush;
+	}
  
 /**
  * Constructs a new instance of this class
@@ -174,6 +209,114 @@ protected boolean flushCache (Control control) {
 	return true;
 }
 
+void buildGrid (Cache cache, Composite composite, Control [] children, int count, int columnCount) {
+	int row = 0, column = 0, rowCount = 0;
+	int [] spans = new int [count * 2];
+	int [] cells = new int [count * 4];
+	Control [][] grid = new Control [4] [columnCount];
+	for (int i=0; i<count; i++) {	
+		Control child = children [i];
+		GridData data = (GridData) child.getLayoutData ();
+		int hSpan = Math.max (1, Math.min (data.horizontalSpan, columnCount));
+		int vSpan = Math.max (1, data.verticalSpan);
+		while (true) {
+			int lastRow = row + vSpan;
+			if (lastRow >= grid.length) {
+				Control [][] newGrid = new Control [lastRow + 4] [columnCount];
+				System.arraycopy (grid, 0, newGrid, 0, grid.length);
+				grid = newGrid;
+			}
+			if (grid [row] == null) {
+				grid [row] = new Control [columnCount];
+			}
+			while (column < columnCount && grid [row] [column] != null) {
+				column++;
+			}
+			int endCount = column + hSpan;
+			if (endCount <= columnCount) {
+				int index = column;
+				while (index < endCount && grid [row] [index] == null) {
+					index++;
+				}
+				if (index == endCount) break;
+				column = index;
+			}
+			if (column + hSpan >= columnCount) {
+				column = 0;
+				row++;
+			}
+		}
+		for (int j=0; j<vSpan; j++) {
+			if (grid [row + j] == null) {
+				grid [row + j] = new Control [columnCount];
+			}
+			for (int k=0; k<hSpan; k++) {
+				grid [row + j] [column + k] = child;
+			}
+		}
+		spans [i * 2] = data.horizontalSpan;
+		spans [i * 2 + 1] = data.verticalSpan;
+		cells [i * 4] = row;
+		cells [i * 4 + 1] = column;
+		cells [i * 4 + 2] = row + vSpan - 1;
+		cells [i * 4 + 3] = column + hSpan - 1;
+		rowCount = Math.max (rowCount, row + vSpan);
+		column += hSpan;
+	}
+
+	/*
+	* Computing the width of a column can change the widths of the
+	* columns that the controls ending in it span, so find the first
+	* column changed when computing each column or any column after it.
+	*/
+	int [] columnReach = new int [columnCount];
+	int [] rowReach = new int [rowCount];
+	for (int j=0; j<columnCount; j++) columnReach [j] = j;
+	for (int i=0; i<rowCount; i++) rowReach [i] = i;
+	for (int i=0; i<count; i++) {
+		rowReach [cells [i * 4 + 2]] = Math.min (rowReach [cells [i * 4 + 2]], cells [i * 4]);
+		columnReach [cells [i * 4 + 3]] = Math.min (columnReach [cells [i * 4 + 3]], cells [i * 4 + 1]);
+	}
+	for (int j=columnCount-2; j>=0; j--) {
+		columnReach [j] = Math.min (columnReach [j], columnReach [j + 1]);
+	}
+	for (int i=rowCount-2; i>=0; i--) {
+		rowReach [i] = Math.min (rowReach [i], rowReach [i + 1]);
+	}
+
+	cache.composite = composite;
+	cache.count = count;
+	cache.columnCount = columnCount;
+	cache.rowCount = rowCount;
+	cache.children = new Control [count];
+	cache.data = new GridData [count];
+	for (int i=0; i<count; i++) {
+		cache.children [i] = children [i];
+		cache.data [i] = (GridData) children [i].getLayoutData ();
+	}
+	cache.spans = spans;
+	cache.cells = cells;
+	cache.columnValues = new int [count * 4];
+	cache.rowValues = new int [count * 4];
+	cache.grid = grid;
+	cache.columnReach = columnReach;
+	cache.rowReach = rowReach;
+	cache.widths = new int [columnCount];
+	cache.minWidths = new int [columnCount];
+	cache.expandColumn = new boolean [columnCount];
+	cache.columnWidths = new int [columnCount];
+	cache.columnMinWidths = new int [columnCount];
+	cache.columnExpand = new boolean [columnCount];
+	cache.heights = new int [rowCount];
+	cache.minHeights = new int [rowCount];
+	cache.expandRow = new boolean [rowCount];
+	cache.rowHeights = new int [rowCount];
+	cache.rowMinHeights = new int [rowCount];
+	cache.rowExpand = new boolean [rowCount];
+	cache.flush = new GridData [count];
+	cache.columnsValid = cache.rowsValid = false;
+}
+
 GridData getData (Control [][] grid, int row, int column, int rowCount, int columnCount, boolean first) {
 	Control control = grid [row] [column];
 	if (control != null) {
@@ -198,6 +341,24 @@ protected void layout (Composite composite, boolean flushCache) {
 }
 
 Point layout (Composite composite, boolean move, int x, int y, int width, int height, boolean flushCache) {
+	Cache cache = this.cache;
+	if (cache == null || cache.busy) {
+		/*
+		* The layout is used by a composite that is inside the
+		* composite being laid out, so lay it out without the cache.
+		*/
+		cache = new Cache ();
+		if (this.cache == null) this.cache = cache;
+	}
+	cache.busy = true;
+	try {
+		return layout (cache, composite, move, x, y, width, height, flushCache);
+	} finally {
+		cache.busy = false;
+	}
+}
+
+Point layout (Cache cache, Composite composite, boolean move, int x, int y, int width, int height, boolean flushCache) {
 	if (numColumns < 1) {
 		return new Point (marginLeft + marginWidth * 2 + marginRight, marginTop + marginHeight * 2 + marginBottom);
 	}
@@ -239,59 +400,34 @@ Point layout (Composite composite, boolean move, int x, int y, int width, int he
 	}
 
 	/* Build the grid */
-	int row = 0, column = 0, rowCount = 0, columnCount = numColumns;
-	Control [][] grid = new Control [4] [columnCount];
-	for (int i=0; i<count; i++) {	
-		Control child = children [i];
-		GridData data = (GridData) child.getLayoutData ();
-		int hSpan = Math.max (1, Math.min (data.horizontalSpan, columnCount));
-		int vSpan = Math.max (1, data.verticalSpan);
-		while (true) {
-			int lastRow = row + vSpan;
-			if (lastRow >= grid.length) {
-				Control [][] newGrid = new Control [lastRow + 4] [columnCount];
-				System.arraycopy (grid, 0, newGrid, 0, grid.length);
-				grid = newGrid;
-			}
-			if (grid [row] == null) {
-				grid [row] = new Control [columnCount];
-			}
-			while (column < columnCount && grid [row] [column] != null) {
-				column++;
-			}
-			int endCount = column + hSpan;
-			if (endCount <= columnCount) {
-				int index = column;
-				while (index < endCount && grid [row] [index] == null) {
-					index++;
-				}
-				if (index == endCount) break;
-				column = index;
-			}
-			if (column + hSpan >= columnCount) {
-				column = 0;
-				row++;
-			}
-		}
-		for (int j=0; j<vSpan; j++) {
-			if (grid [row + j] == null) {
-				grid [row + j] = new Control [columnCount];
-			}
-			for (int k=0; k<hSpan; k++) {
-				grid [row + j] [column + k] = child;
-			}
-		}
-		rowCount = Math.max (rowCount, row + vSpan);
-		column += hSpan;
+	int columnCount = numColumns;
+	if (!isGridValid (cache, composite, children, count, columnCount)) {
+		buildGrid (cache, composite, children, count, columnCount);
 	}
+	Control [][] grid = cache.grid;
+	int rowCount = cache.rowCount;
 
 	/* Column widths */
 	int availableWidth = width - horizontalSpacing * (columnCount - 1) - (marginLeft + marginWidth * 2 + marginRight);
 	int expandCount = 0;
-	int [] widths = new int [columnCount];
-	int [] minWidths = new int [columnCount];
-	boolean [] expandColumn = new boolean [columnCount];
-	for (int j=0; j<columnCount; j++) {
+	int [] widths = cache.widths;
+	int [] minWidths = cache.minWidths;
+	boolean [] expandColumn = cache.expandColumn;
+	int firstColumn = cache.columnsValid && cache.horizontalSpacing == horizontalSpacing && cache.makeColumnsEqualWidth == makeColumnsEqualWidth ? columnCount : 0;
+	for (int i=0; i<count; i++) {
+		GridData data = cache.data [i];
+		if (updateValues (cache.columnValues, i, data.cacheWidth, data.horizontalIndent, data.minimumWidth, data.grabExcessHorizontalSpace)) {
+			firstColumn = Math.min (firstColumn, cache.cells [i * 4 + 3]);
+		}
+	}
+	while (firstColumn < columnCount && cache.columnReach [firstColumn] < firstColumn) {
+		firstColumn = cache.columnReach [firstColumn];
+	}
+	for (int j=firstColumn; j<columnCount; j++) {
+		widths [j] = minWidths [j] = 0;
+		expandColumn [j] = false;
+	}
+	for (int j=firstColumn; j<columnCount; j++) {
 		for (int i=0; i<rowCount; i++) {
 			GridData data = getData (grid, i, j, rowCount, columnCount, true);
 			if (data != null) {
@@ -372,6 +508,16 @@ Point layout (Composite composite, boolean move, int x, int y, int width, int he
 			}
 		}
 	}
+	cache.columnsValid = true;
+	cache.horizontalSpacing = horizontalSpacing;
+	cache.makeColumnsEqualWidth = makeColumnsEqualWidth;
+	expandCount = 0;
+	for (int j=0; j<columnCount; j++) {
+		if (expandColumn [j]) expandCount++;
+	}
+	System.arraycopy (widths, 0, widths = cache.columnWidths, 0, columnCount);
+	System.arraycopy (minWidths, 0, minWidths = cache.columnMinWidths, 0, columnCount);
+	System.arraycopy (expandColumn, 0, expandColumn = cache.columnExpand, 0, columnCount);
 	if (makeColumnsEqualWidth) {
 		int minColumnWidth = 0;
 		int columnWidth = 0;
@@ -454,7 +600,7 @@ Point layout (Composite composite, boolean move, int x, int y, int width, int he
 	}
 
 	/* Wrapping */
-	GridData [] flush = null;
+	GridData [] flush = cache.flush;
 	int flushLength = 0;
 	if (width != SWT.DEFAULT) {
 		for (int j=0; j<columnCount; j++) {
@@ -483,7 +629,6 @@ Point layout (Composite composite, boolean move, int x, int y, int width, int he
 							if (data.grabExcessVerticalSpace && data.minimumHeight > 0) {
 								data.cacheHeight = Math.max (data.cacheHeight, data.minimumHeight);
 							}
-							if (flush == null) flush = new GridData [count];
 							flush [flushLength++] = data;
 						}
 					}
@@ -495,10 +640,24 @@ Point layout (Composite composite, boolean move, int x, int y, int width, int he
 	/* Row heights */
 	int availableHeight = height - verticalSpacing * (rowCount - 1) - (marginTop + marginHeight * 2 + marginBottom);
 	expandCount = 0;
-	int [] heights = new int [rowCount];
-	int [] minHeights = new int [rowCount];
-	boolean [] expandRow = new boolean [rowCount];
-	for (int i=0; i<rowCount; i++) {
+	int [] heights = cache.heights;
+	int [] minHeights = cache.minHeights;
+	boolean [] expandRow = cache.expandRow;
+	int firstRow = cache.rowsValid && cache.verticalSpacing == verticalSpacing ? rowCount : 0;
+	for (int i=0; i<count; i++) {
+		GridData data = cache.data [i];
+		if (updateValues (cache.rowValues, i, data.cacheHeight, data.verticalIndent, data.minimumHeight, data.grabExcessVerticalSpace)) {
+			firstRow = Math.min (firstRow, cache.cells [i * 4 + 2]);
+		}
+	}
+	while (firstRow < rowCount && cache.rowReach [firstRow] < firstRow) {
+		firstRow = cache.rowReach [firstRow];
+	}
+	for (int i=firstRow; i<rowCount; i++) {
+		heights [i] = minHeights [i] = 0;
+		expandRow [i] = false;
+	}
+	for (int i=firstRow; i<rowCount; i++) {
 		for (int j=0; j<columnCount; j++) {
 			GridData data = getData (grid, i, j, rowCount, columnCount, true);
 			if (data != null) {
@@ -570,6 +729,15 @@ Point layout (Composite composite, boolean move, int x, int y, int width, int he
 			}
 		}
 	}
+	cache.rowsValid = true;
+	cache.verticalSpacing = verticalSpacing;
+	expandCount = 0;
+	for (int i=0; i<rowCount; i++) {
+		if (expandRow [i]) expandCount++;
+	}
+	System.arraycopy (heights, 0, heights = cache.rowHeights, 0, rowCount);
+	System.arraycopy (minHeights, 0, minHeights = cache.rowMinHeights, 0, rowCount);
+	System.arraycopy (expandRow, 0, expandRow = cache.rowExpand, 0, rowCount);
 	if (height != SWT.DEFAULT && expandCount > 0) {
 		int totalHeight = 0;
 		for (int i=0; i<rowCount; i++) {
@@ -702,6 +870,7 @@ Point layout (Composite composite, boolean move, int x, int y, int width, int he
 	// clean up cache
 	for (int i = 0; i < flushLength; i++) {
 		flush [i].cacheWidth = flush [i].cacheHeight = -1;
+		flush [i] = null;
 	}
 
 	int totalDefaultWidth = 0;
@@ -717,6 +886,33 @@ Point layout (Composite composite, boolean move, int x, int y, int width, int he
 	return new Point (totalDefaultWidth, totalDefaultHeight);
 }
 
+boolean isGridValid (Cache cache, Composite composite, Control [] children, int count, int columnCount) {
+	if (cache.composite != composite || cache.count != count || cache.columnCount != columnCount) return false;
+	for (int i=0; i<count; i++) {
+		Control child = children [i];
+		GridData data = (GridData) child.getLayoutData ();
+		if (cache.children [i] != child || cache.data [i] != data) return false;
+		if (cache.spans [i * 2] != data.horizontalSpan || cache.spans [i * 2 + 1] != data.verticalSpan) return false;
+	}
+	return true;
+}
+
+/*
+* Stores the values of a control that the column widths or row
+* heights depend on, returning whether any of them has changed.
+*/
+boolean updateValues (int [] values, int index, int size, int indent, int minimum, boolean grab) {
+	int offset = index * 4, flag = grab ? 1 : 0;
+	if (values [offset] == size && values [offset + 1] == indent && values [offset + 2] == minimum && values [offset + 3] == flag) {
+		return false;
+	}
+	values [offset] = size;
+	values [offset + 1] = indent;
+	values [offset + 2] = minimum;
+	values [offset + 3] = flag;
+	return true;
+}
+
 String getName () {
 	String string = getClass ().getName ();
 	int index = string.lastIndexOf ('.');
@@ -22,130 +22,247 @@ import org.eclipse.swt.internal.SWTEventListener;
  */
 
 class EventTable {
+	/*
+	* Listeners are kept in one array per event type, in the
+	* order they were hooked. The bit for each type between 0
+	* and 63 that has a listener is set in mask so that hooks()
+	* and sendEvent() can answer without searching for the
+	* common event types. The position each listener would have
+	* if all the listeners were kept in one array, in the order
+	* they were hooked, is kept in orders so that sendEvent() can
+	* continue with the listeners of another type when a listener
+	* changes the type of the event.
+	*/
 	int [] types;
-	Listener [] listeners;
+	Listener [][] listeners;
+	int [][] orders;
+	int [] counts;
+	int typeCount, order;
+	long mask;
 	int level;
 	static final int GROW_SIZE = 4;
+	static final Listener [] EMPTY = new Listener [0];
 	
 public Listener [] getListeners (int eventType) {
-	if (types == null) return new Listener [0];
-	int count = 0;
-	for (int i=0; i<types.length; i++) {
-		if (types [i] == eventType) count++;
+	int index = indexOf (eventType);
+	if (index == -1) return EMPTY;
+	Listener [] bucket = listeners [index];
+	int count = 0, length = counts [index];
+	for (int i=0; i<length; i++) {
+		if (bucket [i] != null) count++;
 	}
-	if (count == 0) return new Listener [0];
+	if (count == 0) return EMPTY;
 	Listener [] result = new Listener [count];
 	count = 0;
-	for (int i=0; i<types.length; i++) {
-		if (types [i] == eventType) {
-			result [count++] = listeners [i];
-		}
+	for (int i=0; i<length; i++) {
+		if (bucket [i] != null) result [count++] = bucket [i];
 	}
 	return result;
 }
 
 public void hook (int eventType, Listener listener) {
-	if (types == null) types = new int [GROW_SIZE];
-	if (listeners == null) listeners = new Listener [GROW_SIZE];
-	int length = types.length, index = length - 1;
-	while (index >= 0) {
-		if (types [index] != 0) break;
-		--index;
+	int index = find (eventType);
+	if (index == -1) {
+		if (types == null) {
+			types = new int [GROW_SIZE];
+			listeners = new Listener [GROW_SIZE][];
+			orders = new int [GROW_SIZE][];
+			counts = new int [GROW_SIZE];
+		}
+		if (typeCount == types.length) {
+			int length = typeCount + GROW_SIZE;
+			int [] newTypes = new int [length];
+			System.arraycopy (types, 0, newTypes, 0, typeCount);
+			types = newTypes;
+			Listener [][] newListeners = new Listener [length][];
+			System.arraycopy (listeners, 0, newListeners, 0, typeCount);
+			listeners = newListeners;
+			int [][] newOrders = new int [length][];
+			System.arraycopy (orders, 0, newOrders, 0, typeCount);
+			orders = newOrders;
+			int [] newCounts = new int [length];
+			System.arraycopy (counts, 0, newCounts, 0, typeCount);
+			counts = newCounts;
+		}
+		index = typeCount++;
+		types [index] = eventType;
+		listeners [index] = new Listener [GROW_SIZE];
+		orders [index] = new int [GROW_SIZE];
 	}
-	index++;
-	if (index == length) {
-		int [] newTypes = new int [length + GROW_SIZE];
-		System.arraycopy (types, 0, newTypes, 0, length);
-		types = newTypes;
-		Listener [] newListeners = new Listener [length + GROW_SIZE];
-		System.arraycopy (listeners, 0, newListeners, 0, length);
-		listeners = newListeners;
+	Listener [] bucket = listeners [index];
+	int count = counts [index];
+	if (count == bucket.length) {
+		Listener [] newBucket = new Listener [count + GROW_SIZE];
+		System.arraycopy (bucket, 0, newBucket, 0, count);
+		listeners [index] = bucket = newBucket;
+		int [] newOrders = new int [count + GROW_SIZE];
+		System.arraycopy (orders [index], 0, newOrders, 0, count);
+		orders [index] = newOrders;
 	}
-	types [index] = eventType;
-	listeners [index] = listener;
+	/*
+	* While an event is sent, a listener that is hooked takes the
+	* position after the last listener that has not been unhooked,
+	* which the listeners being called may already have passed.
+	*/
+	int hookOrder = order;
+	if (level != 0) {
+		hookOrder = 0;
+		for (int j=0; j<typeCount; j++) {
+			Listener [] typeBucket = listeners [j];
+			int [] typeOrders = orders [j];
+			for (int i=0; i<counts [j]; i++) {
+				if (typeBucket [i] != null) hookOrder = Math.max (hookOrder, typeOrders [i] + 1);
+			}
+		}
+	}
+	bucket [count] = listener;
+	orders [index][count] = hookOrder;
+	order = Math.max (order, hookOrder + 1);
+	counts [index] = count + 1;
+	if (0 <= eventType && eventType < 64) mask |= 1L << eventType;
 }
 
 public boolean hooks (int eventType) {
-	if (types == null) return false;
-	for (int i=0; i<types.length; i++) {
-		if (types [i] == eventType) return true;
+	if (0 <= eventType && eventType < 64) return (mask & (1L << eventType)) != 0;
+	return indexOf (eventType) != -1;
+}
+
+/*
+* Returns the index of the listeners for the event type, or -1
+* if no listener is hooked for it.
+*/
+int indexOf (int eventType) {
+	if (0 <= eventType && eventType < 64) {
+		if ((mask & (1L << eventType)) == 0) return -1;
+		return find (eventType);
+	}
+	int index = find (eventType);
+	if (index != -1) {
+		Listener [] bucket = listeners [index];
+		for (int i=0; i<counts [index]; i++) {
+			if (bucket [i] != null) return index;
+		}
 	}
-	return false;
+	return -1;
+}
+
+/*
+* Returns the index of the listeners for the event type, which
+* may all have been removed, or -1 if the type was never hooked.
+*/
+int find (int eventType) {
+	for (int i=0; i<typeCount; i++) {
+		if (types [i] == eventType) return i;
+	}
+	return -1;
 }
 
 public void sendEvent (Event event) {
-	if (types == null) return;
+	int type = event.type;
+	int index = indexOf (type);
+	if (index == -1) return;
 	level += level >= 0 ? 1 : -1;
 	try {
-		for (int i=0; i<types.length; i++) {
+		/*
+		* Listeners hooked while the event is sent are appended to
+		* the array and are called. Listeners unhooked while the
+		* event is sent are cleared and skipped, and the arrays are
+		* compacted once the outermost event has been sent. The
+		* listeners are called in the order of their positions, so
+		* when a listener changes the type of the event, the
+		* listeners of the new type that follow it are called, and
+		* setting the type to SWT.None stops the event.
+		*/
+		int i = 0, position = -1;
+		while (i < counts [index]) {
+			Listener listener = listeners [index][i];
+			int hookOrder = orders [index][i++];
+			if (listener == null || hookOrder <= position) continue;
+			position = hookOrder;
+			listener.handleEvent (event);
+			if (event.type == type) continue;
 			if (event.type == SWT.None) return;
-			if (types [i] == event.type) {
-				Listener listener = listeners [i];
-				if (listener != null) listener.handleEvent (event);
-			}
+			type = event.type;
+			index = find (type);
+			if (index == -1) return;
+			i = 0;
 		}
 	} finally {
 		boolean compact = level < 0;
 		level -= level >= 0 ? 1 : -1;
 		if (compact && level == 0) {
-			int index = 0;
-			for (int i=0; i<types.length; i++) {
-				if (types [i] != 0) {
-					types [index] = types [i];
-					listeners [index] = listeners [i];
-					index++;
+			for (int j=0; j<typeCount; j++) {
+				Listener [] bucket = listeners [j];
+				int [] bucketOrders = orders [j];
+				int count = 0, length = counts [j];
+				for (int i=0; i<length; i++) {
+					if (bucket [i] != null) {
+						bucketOrders [count] = bucketOrders [i];
+						bucket [count++] = bucket [i];
+					}
 				}
-			}
-			for (int i=index; i<types.length; i++) {
-				types [i] = 0;
-				listeners [i] = null;
+				for (int i=count; i<length; i++) {
+					bucket [i] = null;
+				}
+				counts [j] = count;
 			}
 		}
 	}
 }
 
 public int size () {
-	if (types == null) return 0;
 	int count = 0;
-	for (int i=0; i<types.length; i++) {
-		if (types [i] != 0) count++;
+	for (int j=0; j<typeCount; j++) {
+		Listener [] bucket = listeners [j];
+		for (int i=0; i<counts [j]; i++) {
+			if (bucket [i] != null) count++;
+		}
 	}
 	return count;
 }
 
-void remove (int index) {
+void remove (int index, int i) {
+	Listener [] bucket = listeners [index];
 	if (level == 0) {
-		int end = types.length - 1;
-		System.arraycopy (types, index + 1, types, index, end - index);
-		System.arraycopy (listeners, index + 1, listeners, index, end - index);
-		index = end;
+		int end = --counts [index];
+		System.arraycopy (bucket, i + 1, bucket, i, end - i);
+		System.arraycopy (orders [index], i + 1, orders [index], i, end - i);
+		i = end;
 	} else {
 		if (level > 0) level = -level;
 	}
-	types [index] = 0;
-	listeners [index] = null;
+	bucket [i] = null;
+	int eventType = types [index];
+	if (0 <= eventType && eventType < 64) {
+		for (int j=0; j<counts [index]; j++) {
+			if (bucket [j] != null) return;
+		}
+		mask &= ~(1L << eventType);
+	}
 }
 
 public void unhook (int eventType, Listener listener) {
-	if (types == null) return;
-	for (int i=0; i<types.length; i++) {
-		if (types [i] == eventType && listeners [i] == listener) {
-			remove (i);
+	int index = find (eventType);
+	if (index == -1) return;
+	Listener [] bucket = listeners [index];
+	for (int i=0; i<counts [index]; i++) {
+		if (bucket [i] == listener) {
+			remove (index, i);
 			return;
 		}
 	}
 }
 
 public void unhook (int eventType, SWTEventListener listener) {
-	if (types == null) return;
-	for (int i=0; i<types.length; i++) {
-		if (types [i] == eventType) {
-			if (listeners [i] instanceof TypedListener) {
-				TypedListener typedListener = (TypedListener) listeners [i];
-				if (typedListener.getEventListener () == listener) {
-					remove (i);
-					return;
-				}
+	int index = find (eventType);
+	if (index == -1) return;
+	Listener [] bucket = listeners [index];
+	for (int i=0; i<counts [index]; i++) {
+		if (bucket [i] instanceof TypedListener) {
+			TypedListener typedListener = (TypedListener) bucket [i];
+			if (typedListener.getEventListener () == listener) {
+				remove (index, i);
+				return;
 			}
 		}
 	}
@@ -0,0 +1,657 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.widgets;
+
+
+import java.io.*;
+import java.util.*;
+
+import org.eclipse.swt.*;
+import org.eclipse.swt.graphics.*;
+
+/**
+ * Instances of this class record where the time spent laying
+ * out the controls of a display goes.
+ * <p>
+ * While a profiler is running, it counts and times, for every
+ * control, the layout passes of the control's layout, the sizes
+ * computed for the control by its parent's layout and the hits
+ * and misses of the size caches kept by <code>GridData</code>
+ * and <code>FormData</code>. A layout pass is redundant when it
+ * does not move or resize any of the children of the composite.
+ * The runs of the layouts deferred by the display are counted
+ * and timed as well. Times are in nanoseconds and include the
+ * time spent laying out and computing the sizes of descendants.
+ * </p>
+ * <p>
+ * Computed sizes are recorded when <code>GridLayout</code> or
+ * <code>FormLayout</code> asks the layout data of a control for
+ * its size, and when the size of a composite that has a layout
+ * is computed. The sizes that other layouts, such as
+ * <code>RowLayout</code>, <code>FillLayout</code> and custom
+ * layouts, compute by calling <code>Control.computeSize</code>
+ * on controls that have no layout are not recorded.
+ * </p>
+ * <p>
+ * When no profiler is running, recording costs a single check
+ * for each layout pass and each computed size.
+ * </p>
+ * <p>
+ * The methods of this class must be called from the user-interface
+ * thread of its display.
+ * </p>
+ *
+ * @see Composite#layout(boolean, boolean)
+ * @see Layout
+ *
+ * @since 3.103
+ */
+public final class LayoutProfiler {
+	Display display;
+	boolean running, hooked;
+	IdentityHashMap<Control, Record> records = new IdentityHashMap<Control, Record> ();
+	Frame [] frames = new Frame [16];
+	int depth, deferredCount;
+	long deferredTime;
+
+	static LayoutProfiler [] Profilers = new LayoutProfiler [0];
+	static volatile int Running;
+
+	static final int LAYOUT = 0;
+	static final int COMPUTE_SIZE = 1;
+
+	static final class Record {
+		Control parent;
+		String name, layoutName;
+		int layoutCount, redundantCount, computeSizeCount, cacheHits, cacheMisses;
+		long layoutTime, computeSizeTime;
+	}
+
+	static final class Frame {
+		Control control;
+		int kind;
+		long start;
+		Rectangle [] bounds;
+		boolean nested;
+	}
+
+/**
+ * Constructs a new profiler for the layouts of the given display.
+ * The profiler is not running until it is started.
+ *
+ * @param display the display whose layouts are profiled
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the display is null</li>
+ *    <li>ERROR_INVALID_ARGUMENT - if the display has been disposed</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ *
+ * @see #start()
+ */
+public LayoutProfiler (Display display) {
+	if (display == null) SWT.error (SWT.ERROR_NULL_ARGUMENT);
+	if (display.isDisposed ()) SWT.error (SWT.ERROR_INVALID_ARGUMENT);
+	this.display = display;
+	checkThread ();
+}
+
+void checkThread () {
+	if (display.isDisposed ()) SWT.error (SWT.ERROR_DEVICE_DISPOSED);
+	if (display.getThread () != Thread.currentThread ()) SWT.error (SWT.ERROR_THREAD_INVALID_ACCESS);
+}
+
+static LayoutProfiler getProfiler (Display display) {
+	if (Running == 0) return null;
+	LayoutProfiler [] profilers = Profilers;
+	for (int i = 0; i < profilers.length; i++) {
+		if (profilers [i].display == display) return profilers [i];
+	}
+	return null;
+}
+
+Record getRecord (Control control) {
+	Record record = records.get (control);
+	if (record == null) {
+		record = new Record ();
+		record.parent = control.getParent ();
+		record.name = control.toString ();
+		records.put (control, record);
+	}
+	return record;
+}
+
+Record findRecord (Control control) {
+	checkThread ();
+	if (control == null) SWT.error (SWT.ERROR_NULL_ARGUMENT);
+	return records.get (control);
+}
+
+Frame push (Control control, int kind) {
+	if (depth == frames.length) {
+		Frame [] newFrames = new Frame [depth * 2];
+		System.arraycopy (frames, 0, newFrames, 0, depth);
+		frames = newFrames;
+	}
+	Frame frame = frames [depth];
+	if (frame == null) frame = frames [depth] = new Frame ();
+	frame.nested = false;
+	for (int i = depth - 1; i >= 0 && !frame.nested; i--) {
+		frame.nested = frames [i].control == control && frames [i].kind == kind;
+	}
+	frame.control = control;
+	frame.kind = kind;
+	frame.bounds = null;
+	depth++;
+	return frame;
+}
+
+/*
+* Returns the innermost frame for the control, discarding the
+* frames above it that were left by a layout that did not return.
+* The frame is reused by the next push.
+*/
+Frame pop (Control control, int kind) {
+	for (int i = depth - 1; i >= 0; i--) {
+		Frame frame = frames [i];
+		if (frame.control == control && frame.kind == kind) {
+			frame.control = null;
+			for (int j = i + 1; j < depth; j++) {
+				frames [j].control = null;
+				frames [j].bounds = null;
+			}
+			depth = i;
+			return frame;
+		}
+	}
+	return null;
+}
+
+void beginLayout (Composite composite) {
+	Frame frame = push (composite, LAYOUT);
+	Control [] children = composite.getChildren ();
+	frame.bounds = new Rectangle [children.length];
+	for (int i = 0; i < children.length; i++) {
+		frame.bounds [i] = children [i].getBounds ();
+	}
+	frame.start = System.nanoTime ();
+}
+
+void endLayout (Composite composite) {
+	long end = System.nanoTime ();
+	Frame frame = pop (composite, LAYOUT);
+	if (frame == null || composite.isDisposed ()) return;
+	Rectangle [] bounds = frame.bounds;
+	frame.bounds = null;
+	Control [] children = composite.getChildren ();
+	boolean redundant = bounds.length == children.length;
+	for (int i = 0; i < children.length && redundant; i++) {
+		redundant = children [i].getBounds ().equals (bounds [i]);
+	}
+	Record record = getRecord (composite);
+	Layout layout = composite.getLayout ();
+	if (layout != null) record.layoutName = layout.getClass ().getName ();
+	record.layoutCount++;
+	if (redundant) record.redundantCount++;
+	if (!frame.nested) record.layoutTime += end - frame.start;
+}
+
+void beginComputeSize (Control control) {
+	Frame frame = push (control, COMPUTE_SIZE);
+	frame.start = System.nanoTime ();
+}
+
+void endComputeSize (Control control) {
+	long end = System.nanoTime ();
+	Frame frame = pop (control, COMPUTE_SIZE);
+	if (frame == null || frame.nested || control.isDisposed ()) return;
+	Record record = getRecord (control);
+	record.computeSizeCount++;
+	record.computeSizeTime += end - frame.start;
+}
+
+long beginDeferredLayouts () {
+	return System.nanoTime ();
+}
+
+void endDeferredLayouts (long start) {
+	deferredCount++;
+	deferredTime += System.nanoTime () - start;
+}
+
+/**
+ * Records that the layout data of the control found its size
+ * in its cache.
+ * <p>
+ * <b>IMPORTANT:</b> This method is <em>not</em> part of the public
+ * API for <code>LayoutProfiler</code>. It is marked public only so that it
+ * can be shared within the packages provided by SWT. It should never
+ * be called from application code.
+ * </p>
+ *
+ * @param control the control
+ *
+ * @noreference This method is not intended to be referenced by clients.
+ */
+public static void internal_cacheHit (Control control) {
+	if (Running == 0) return;
+	LayoutProfiler profiler = getProfiler (control.getDisplay ());
+	if (profiler != null) profiler.getRecord (control).cacheHits++;
+}
+
+/**
+ * Computes the size of the control for its layout data, recording
+ * a miss of the cache of the layout data.
+ * <p>
+ * <b>IMPORTANT:</b> This method is <em>not</em> part of the public
+ * API for <code>LayoutProfiler</code>. It is marked public only so that it
+ * can be shared within the packages provided by SWT. It should never
+ * be called from application code.
+ * </p>
+ *
+ * @param control the control
+ * @param wHint the width hint
+ * @param hHint the height hint
+ * @param changed whether the cached values of the control are flushed
+ * @return the size of the control
+ *
+ * @noreference This method is not intended to be referenced by clients.
+ */
+public static Point internal_computeSize (Control control, int wHint, int hHint, boolean changed) {
+	LayoutProfiler profiler = Running != 0 ? getProfiler (control.getDisplay ()) : null;
+	if (profiler == null) return control.computeSize (wHint, hHint, changed);
+	profiler.getRecord (control).cacheMisses++;
+	profiler.beginComputeSize (control);
+	try {
+		return control.computeSize (wHint, hHint, changed);
+	} finally {
+		profiler.endComputeSize (control);
+	}
+}
+
+/**
+ * Starts recording. A display has at most one running profiler,
+ * so the profiler that is running for the display, if any, is
+ * stopped.
+ *
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the display has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ */
+public void start () {
+	checkThread ();
+	if (running) return;
+	synchronized (LayoutProfiler.class) {
+		LayoutProfiler [] profilers = Profilers;
+		LayoutProfiler [] newProfilers = new LayoutProfiler [profilers.length + 1];
+		int count = 0;
+		for (int i = 0; i < profilers.length; i++) {
+			if (profilers [i].display == display) {
+				profilers [i].running = false;
+			} else {
+				newProfilers [count++] = profilers [i];
+			}
+		}
+		newProfilers [count++] = this;
+		if (count < newProfilers.length) {
+			LayoutProfiler [] temp = new LayoutProfiler [count];
+			System.arraycopy (newProfilers, 0, temp, 0, count);
+			newProfilers = temp;
+		}
+		Profilers = newProfilers;
+		Running = count;
+	}
+	depth = 0;
+	running = true;
+	if (!hooked) {
+		hooked = true;
+		display.disposeExec (new Runnable () {
+			public void run () {
+				stop ();
+			}
+		});
+	}
+}
+
+/**
+ * Stops recording. The recorded values are kept until the
+ * profiler is reset. A profiler is stopped when its display
+ * is disposed, so stopping it after that does nothing.
+ *
+ * @exception SWTException <ul>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ */
+public void stop () {
+	if (display.isDisposed () && !running) return;
+	checkThread ();
+	if (!running) return;
+	synchronized (LayoutProfiler.class) {
+		LayoutProfiler [] profilers = Profilers;
+		LayoutProfiler [] newProfilers = new LayoutProfiler [profilers.length - 1];
+		int count = 0;
+		for (int i = 0; i < profilers.length; i++) {
+			if (profilers [i] != this) newProfilers [count++] = profilers [i];
+		}
+		Profilers = newProfilers;
+		Running = count;
+	}
+	for (int i = 0; i < depth; i++) {
+		frames [i].control = null;
+		frames [i].bounds = null;
+	}
+	depth = 0;
+	running = false;
+}
+
+/**
+ * Returns <code>true</code> if the profiler is recording,
+ * and <code>false</code> otherwise.
+ *
+ * @return whether the profiler is recording
+ */
+public boolean isRunning () {
+	return running;
+}
+
+/**
+ * Discards the recorded values.
+ *
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the display has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ */
+public void reset () {
+	checkThread ();
+	records.clear ();
+	deferredCount = 0;
+	deferredTime = 0;
+}
+
+/**
+ * Returns the controls for which values have been recorded,
+ * including the controls that have since been disposed.
+ *
+ * @return the recorded controls
+ *
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the display has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ */
+public Control [] getControls () {
+	checkThread ();
+	return records.keySet ().toArray (new Control [records.size ()]);
+}
+
+/**
+ * Returns the number of times the layout of the composite
+ * laid out its children.
+ *
+ * @param control the composite
+ * @return the number of layout passes
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the control is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the display has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ */
+public int getLayoutCount (Control control) {
+	Record record = findRecord (control);
+	return record != null ? record.layoutCount : 0;
+}
+
+/**
+ * Returns the number of layout passes of the composite that
+ * did not move or resize any of its children.
+ *
+ * @param control the composite
+ * @return the number of redundant layout passes
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the control is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the display has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ */
+public int getRedundantLayoutCount (Control control) {
+	Record record = findRecord (control);
+	return record != null ? record.redundantCount : 0;
+}
+
+/**
+ * Returns the time spent in the layout passes of the composite,
+ * in nanoseconds.
+ *
+ * @param control the composite
+ * @return the time spent laying out the composite
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the control is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the display has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ */
+public long getLayoutTime (Control control) {
+	Record record = findRecord (control);
+	return record != null ? record.layoutTime : 0;
+}
+
+/**
+ * Returns the number of times the size of the control was
+ * computed, either by the layout of the control or for the
+ * layout of its parent.
+ *
+ * @param control the control
+ * @return the number of computed sizes
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the control is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the display has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ */
+public int getComputeSizeCount (Control control) {
+	Record record = findRecord (control);
+	return record != null ? record.computeSizeCount : 0;
+}
+
+/**
+ * Returns the time spent computing the size of the control,
+ * in nanoseconds.
+ *
+ * @param control the control
+ * @return the time spent computing the size of the control
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the control is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the display has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ */
+public long getComputeSizeTime (Control control) {
+	Record record = findRecord (control);
+	return record != null ? record.computeSizeTime : 0;
+}
+
+/**
+ * Returns the number of times the layout data of the control
+ * found the size of the control in its cache.
+ *
+ * @param control the control
+ * @return the number of cache hits
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the control is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the display has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ */
+public int getCacheHitCount (Control control) {
+	Record record = findRecord (control);
+	return record != null ? record.cacheHits : 0;
+}
+
+/**
+ * Returns the number of times the layout data of the control
+ * had to compute the size of the control.
+ *
+ * @param control the control
+ * @return the number of cache misses
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the control is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the display has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ */
+public int getCacheMissCount (Control control) {
+	Record record = findRecord (control);
+	return record != null ? record.cacheMisses : 0;
+}
+
+/**
+ * Returns the number of times the display ran the layouts
+ * that were deferred.
+ *
+ * @return the number of deferred layout runs
+ *
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the display has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ *
+ * @see Composite#setLayoutDeferred(boolean)
+ */
+public int getDeferredLayoutCount () {
+	checkThread ();
+	return deferredCount;
+}
+
+/**
+ * Returns the time spent running the layouts that were
+ * deferred, in nanoseconds.
+ *
+ * @return the time spent running deferred layouts
+ *
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the display has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ *
+ * @see Composite#setLayoutDeferred(boolean)
+ */
+public long getDeferredLayoutTime () {
+	checkThread ();
+	return deferredTime;
+}
+
+/**
+ * Prints the recorded values as a tree of the recorded controls
+ * and their ancestors, one control per line.
+ *
+ * @param stream the stream to print to
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the stream is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the display has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the display</li>
+ * </ul>
+ */
+public void dump (PrintStream stream) {
+	checkThread ();
+	if (stream == null) SWT.error (SWT.ERROR_NULL_ARGUMENT);
+	stream.println ("Deferred layouts: " + deferredCount + " in " + millis (deferredTime)); //$NON-NLS-1$ //$NON-NLS-2$
+	IdentityHashMap<Control, ArrayList<Control>> children = new IdentityHashMap<Control, ArrayList<Control>> ();
+	ArrayList<Control> roots = new ArrayList<Control> ();
+	ArrayList<Control> controls = new ArrayList<Control> (records.keySet ());
+	for (int i = 0; i < controls.size (); i++) {
+		Control control = controls.get (i);
+		Control parent = parent (control);
+		if (parent == null) {
+			roots.add (control);
+			continue;
+		}
+		ArrayList<Control> list = children.get (parent);
+		if (list == null) {
+			children.put (parent, list = new ArrayList<Control> ());
+			if (!records.containsKey (parent)) controls.add (parent);
+		}
+		list.add (control);
+	}
+	for (int i = 0; i < roots.size (); i++) {
+		dump (stream, roots.get (i), children, 0);
+	}
+}
+
+void dump (PrintStream stream, Control control, IdentityHashMap<Control, ArrayList<Control>> children, int level) {
+	StringBuilder buffer = new StringBuilder ();
+	for (int i = 0; i < level; i++) buffer.append ("  "); //$NON-NLS-1$
+	Record record = records.get (control);
+	if (record == null) {
+		buffer.append (control.toString ());
+	} else {
+		buffer.append (record.name);
+		if (record.layoutName != null) {
+			buffer.append (" [").append (record.layoutName.substring (record.layoutName.lastIndexOf ('.') + 1)).append (']'); //$NON-NLS-1$
+		}
+		if (record.layoutCount != 0) {
+			buffer.append (" layout: ").append (record.layoutCount); //$NON-NLS-1$
+			buffer.append (" (").append (record.redundantCount).append (" redundant) in ").append (millis (record.layoutTime)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		if (record.computeSizeCount != 0) {
+			buffer.append (" computeSize: ").append (record.computeSizeCount).append (" in ").append (millis (record.computeSizeTime)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		if (record.cacheHits != 0 || record.cacheMisses != 0) {
+			buffer.append (" cache: ").append (record.cacheHits).append (" hits ").append (record.cacheMisses).append (" misses"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+	stream.println (buffer.toString ());
+	ArrayList<Control> list = children.get (control);
+	if (list == null) return;
+	for (int i = 0; i < list.size (); i++) {
+		dump (stream, list.get (i), children, level + 1);
+	}
+}
+
+Control parent (Control control) {
+	Record record = records.get (control);
+	if (record != null) return record.parent;
+	return control.isDisposed () ? null : control.getParent ();
+}
+
+static String millis (long nanos) {
+	long micros = nanos / 1000;
+	return micros / 1000 + "." + (char) ('0' + micros / 100 % 10) + (char) ('0' + micros / 10 % 10) + " ms"; //$NON-NLS-1$ //$NON-NLS-2$
+}
+
+}
@@ -22,6 +22,8 @@ class RunnableLock {
 	Runnable runnable;
 	Thread thread;
 	Throwable throwable;
+	volatile RunnableLock next;
+	long time;
 	
 RunnableLock (Runnable runnable) {
 	this.runnable = runnable;
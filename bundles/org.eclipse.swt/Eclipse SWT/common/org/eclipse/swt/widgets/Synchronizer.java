@@ -11,6 +11,9 @@
 package org.eclipse.swt.widgets;
 
 
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
 import org.eclipse.swt.*;
 import org.eclipse.swt.graphics.*;
 import org.eclipse.swt.internal.Compatibility;
@@ -35,12 +38,39 @@ import org.eclipse.swt.internal.Compatibility;
  */
 public class Synchronizer {
 	Display display;
-	int messageCount;
-	RunnableLock [] messages;
-	Object messageLock = new Object ();
 	Thread syncThread;
-	static final int GROW_SIZE = 4;
-	static final int MESSAGE_LIMIT = 64;
+
+	/*
+	* Pending messages are kept in a linked queue that any thread
+	* may append to without locking. Producers swap themselves in
+	* as the new tail and then link the previous tail to them. Only
+	* the user-interface thread removes messages, starting from
+	* head, which is the last message removed (or a place holder).
+	* The count is incremented before a message is linked so that
+	* a display that sees no messages is always woken.
+	*/
+	RunnableLock head = new RunnableLock (null);
+	final AtomicReference<RunnableLock> tail = new AtomicReference<RunnableLock> (head);
+	final AtomicInteger messageCount = new AtomicInteger ();
+
+	/* Statistics, only written by the user-interface thread */
+	volatile long drainedCount, waitTime, maxWaitTime;
+	volatile int maxBacklog;
+
+	/*
+	* Runnables queued with a key are kept in insertion order and
+	* run together by a single message that is queued when the
+	* first of them arrives. Queuing a runnable for a key that is
+	* still pending replaces it in place.
+	*/
+	Object coalesceLock = new Object ();
+	LinkedHashMap<Object, Runnable> coalesced;
+	volatile long coalescedCount;
+	final Runnable coalesceRunnable = new Runnable () {
+		public void run () {
+			runCoalesced ();
+		}
+	};
 
 	//TEMPORARY CODE
 	static final boolean IS_CARBON = "carbon".equals (SWT.getPlatform ());
@@ -57,17 +87,10 @@ public Synchronizer (Display display) {
 }
 
 void addLast (RunnableLock lock) {
-	boolean wake = false;
-	synchronized (messageLock) {
-		if (messages == null) messages = new RunnableLock [GROW_SIZE];
-		if (messageCount == messages.length) {
-			RunnableLock[] newMessages = new RunnableLock [messageCount + GROW_SIZE];
-			System.arraycopy (messages, 0, newMessages, 0, messageCount);
-			messages = newMessages;
-		}
-		messages [messageCount++] = lock;
-		wake = messageCount == 1;
-	}
+	lock.time = System.nanoTime ();
+	boolean wake = messageCount.getAndIncrement () == 0;
+	RunnableLock last = tail.getAndSet (lock);
+	last.next = lock;
 	if (wake) display.wakeThread ();
 }
 
@@ -93,29 +116,181 @@ protected void asyncExec (Runnable runnable) {
 	addLast (new RunnableLock (runnable));
 }
 
-int getMessageCount () {
-	synchronized (messageLock) {
-		return messageCount;
+/**
+ * Causes the <code>run()</code> method of the runnable to
+ * be invoked by the user-interface thread at the next
+ * reasonable opportunity, replacing the runnable that was
+ * queued with the same key if it has not been run yet. The
+ * caller of this method continues to run in parallel, and is
+ * not notified when the runnable has completed.
+ * <p>
+ * Runnables queued by this method are run together, in the
+ * order in which their keys were first queued, when the
+ * user-interface thread reaches the first of them.
+ * </p>
+ *
+ * @param key the key identifying the runnables that replace each other
+ * @param runnable code to run on the user-interface thread.
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the key or the runnable is null</li>
+ * </ul>
+ *
+ * @see #asyncExec(Runnable)
+ *
+ * @since 3.103
+ */
+protected void asyncExec (Object key, Runnable runnable) {
+	if (key == null || runnable == null) SWT.error (SWT.ERROR_NULL_ARGUMENT);
+	boolean schedule = false;
+	synchronized (coalesceLock) {
+		if (coalesced == null) {
+			coalesced = new LinkedHashMap<Object, Runnable> ();
+			schedule = true;
+		}
+		if (coalesced.put (key, runnable) != null) coalescedCount++;
 	}
+	if (schedule) asyncExec (coalesceRunnable);
+}
+
+/**
+ * Returns the number of runnables queued with a key that
+ * were replaced by a later runnable with the same key before
+ * they could be run.
+ *
+ * @return the number of runnables replaced
+ *
+ * @see #asyncExec(Object, Runnable)
+ *
+ * @since 3.103
+ */
+public long getCoalescedCount () {
+	return coalescedCount;
+}
+
+/**
+ * Returns the number of runnables that have been drained from
+ * the queue and run by the user-interface thread.
+ *
+ * @return the number of runnables drained
+ *
+ * @since 3.103
+ */
+public long getDrainedCount () {
+	return drainedCount;
+}
+
+/**
+ * Returns the number of runnables that have been queued by
+ * <code>asyncExec</code> and <code>syncExec</code>, including
+ * those that are still waiting to be run.
+ *
+ * @return the number of runnables queued
+ *
+ * @since 3.103
+ */
+public long getEnqueuedCount () {
+	return drainedCount + Math.max (0, messageCount.get ());
+}
+
+/**
+ * Returns the largest number of runnables that have been waiting
+ * in the queue at the same time.
+ *
+ * @return the maximum backlog
+ *
+ * @since 3.103
+ */
+public int getMaxBacklog () {
+	return Math.max (maxBacklog, messageCount.get ());
+}
+
+/**
+ * Returns the longest time, in nanoseconds, that a runnable
+ * waited in the queue before the user-interface thread
+ * started to run it.
+ *
+ * @return the maximum wait time in nanoseconds
+ *
+ * @since 3.103
+ */
+public long getMaxWaitTime () {
+	return maxWaitTime;
+}
+
+int getMessageCount () {
+	return messageCount.get ();
+}
+
+/**
+ * Returns the total time, in nanoseconds, that the drained
+ * runnables waited in the queue before the user-interface
+ * thread started to run them.
+ *
+ * @return the total wait time in nanoseconds
+ *
+ * @since 3.103
+ */
+public long getWaitTime () {
+	return waitTime;
 }
 
 void releaseSynchronizer () {
 	display = null;
-	messages = null;
-	messageLock = null;
+	synchronized (coalesceLock) {
+		coalesced = null;
+	}
+	head = new RunnableLock (null);
+	tail.set (head);
+	messageCount.set (0);
 	syncThread = null;
 }
 
 RunnableLock removeFirst () {
-	synchronized (messageLock) {
-		if (messageCount == 0) return null;
-		RunnableLock lock = messages [0];
-		System.arraycopy (messages, 1, messages, 0, --messageCount);
-		messages [messageCount] = null;
-		if (messageCount == 0) {
-			if (messages.length > MESSAGE_LIMIT) messages = null;
+	RunnableLock lock = head.next;
+	if (lock == null) return null;
+	head.next = null;
+	head = lock;
+	int backlog = messageCount.getAndDecrement ();
+	if (backlog > maxBacklog) maxBacklog = backlog;
+	long wait = System.nanoTime () - lock.time;
+	waitTime += wait;
+	if (wait > maxWaitTime) maxWaitTime = wait;
+	drainedCount++;
+	return lock;
+}
+
+void runCoalesced () {
+	LinkedHashMap<Object, Runnable> runnables;
+	synchronized (coalesceLock) {
+		runnables = coalesced;
+		coalesced = null;
+	}
+	if (runnables == null) return;
+	Iterator<Runnable> iterator = runnables.values ().iterator ();
+	try {
+		while (iterator.hasNext ()) {
+			Runnable runnable = iterator.next ();
+			iterator.remove ();
+			runnable.run ();
+		}
+	} finally {
+		/*
+		* If a runnable failed, queue the ones that did not run
+		* again, ahead of any that arrived in the meantime.
+		*/
+		if (!runnables.isEmpty ()) {
+			boolean schedule = false;
+			synchronized (coalesceLock) {
+				if (coalesced == null) {
+					schedule = true;
+				} else {
+					runnables.putAll (coalesced);
+				}
+				coalesced = runnables;
+			}
+			if (schedule) asyncExec (coalesceRunnable);
 		}
-		return lock;
 	}
 }
 
@@ -140,6 +315,13 @@ boolean runAsyncMessages (boolean all) {
 			} finally {
 				display.sendPostEvent(null);
 				syncThread = null;
+				/*
+				* The lock stays in the queue as its head until the
+				* next message is removed, so drop the runnable that
+				* failed instead of keeping it alive. The waiting thread
+				* only needs the throwable.
+				*/
+				lock.runnable = null;
 				lock.notifyAll ();
 			}
 		}
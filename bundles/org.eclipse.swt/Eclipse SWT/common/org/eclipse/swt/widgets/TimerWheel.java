@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.widgets;
+
+
+import java.util.*;
+
+/**
+ * Instances of this class keep the runnables scheduled by
+ * <code>Display.timerExec()</code> in a hierarchical timer
+ * wheel so that a display can drive any number of timers
+ * from a single operating system timer.
+ * <p>
+ * Time is measured in ticks of one millisecond. Each level
+ * of the wheel has 64 slots, and a slot of one level covers
+ * as many ticks as the whole of the level below it. A timer
+ * is kept in the lowest level that can hold its deadline and
+ * moves down a level each time the wheel reaches the slot it
+ * is in, until it expires from the first level. Scheduling
+ * and cancelling a timer take constant time.
+ * </p>
+ */
+class TimerWheel {
+	Timer [] slots = new Timer [LEVELS << BITS];
+	long [] masks = new long [LEVELS];
+	Timer expired, lastExpired;
+	IdentityHashMap<Runnable, Timer> timers = new IdentityHashMap<Runnable, Timer> ();
+	long time, sequence;
+
+	static final int BITS = 6;
+	static final int MASK = (1 << BITS) - 1;
+	static final int LEVELS = 5;
+	static final long RANGE = 1L << (BITS * LEVELS);
+	static final int EXPIRED = -1;
+
+	static class Timer {
+		Runnable runnable;
+		long deadline, sequence;
+		int slot;
+		Timer previous, next;
+	}
+
+TimerWheel (long time) {
+	this.time = time;
+}
+
+/*
+* Schedules the runnable to expire at the deadline, replacing
+* the deadline it was scheduled for if it is already pending.
+*/
+void add (Runnable runnable, long deadline) {
+	Timer timer = timers.get (runnable);
+	if (timer != null) {
+		unlink (timer);
+	} else {
+		timer = new Timer ();
+		timer.runnable = runnable;
+		timers.put (runnable, timer);
+	}
+	timer.deadline = deadline;
+	timer.sequence = sequence++;
+	insert (timer);
+}
+
+/*
+* Moves the timers whose deadline is not after the given time
+* to the list of expired timers, ordered by deadline and then by
+* the order in which they were scheduled.
+*/
+void advance (long now) {
+	while (time <= now) {
+		long tick = nextTick ();
+		if (tick > now) {
+			time = now + 1;
+			return;
+		}
+		time = tick;
+		for (int level=1; level<LEVELS; level++) {
+			int shift = BITS * level;
+			if ((time & ((1L << shift) - 1)) != 0) break;
+			cascade (level, (int) ((time >> shift) & MASK));
+		}
+		int slot = (int) (time & MASK);
+		Timer timer = slots [slot];
+		slots [slot] = null;
+		masks [0] &= ~(1L << slot);
+		while (timer != null) {
+			Timer next = timer.next;
+			expire (timer);
+			timer = next;
+		}
+		time++;
+	}
+}
+
+void cascade (int level, int index) {
+	int slot = (level << BITS) + index;
+	Timer timer = slots [slot];
+	slots [slot] = null;
+	masks [level] &= ~(1L << index);
+	while (timer != null) {
+		Timer next = timer.next;
+		insert (timer);
+		timer = next;
+	}
+}
+
+void expire (Timer timer) {
+	timer.slot = EXPIRED;
+	Timer previous = lastExpired;
+	while (previous != null) {
+		if (previous.deadline < timer.deadline) break;
+		if (previous.deadline == timer.deadline && previous.sequence < timer.sequence) break;
+		previous = previous.previous;
+	}
+	Timer next = previous != null ? previous.next : expired;
+	timer.previous = previous;
+	timer.next = next;
+	if (previous != null) {
+		previous.next = timer;
+	} else {
+		expired = timer;
+	}
+	if (next != null) {
+		next.previous = timer;
+	} else {
+		lastExpired = timer;
+	}
+}
+
+boolean hasExpired () {
+	return expired != null;
+}
+
+void insert (Timer timer) {
+	long delta = timer.deadline - time, index = timer.deadline;
+	if (delta < 0) {
+		expire (timer);
+		return;
+	}
+	if (delta >= RANGE) index = time + RANGE - 1;
+	int level = 0;
+	while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) level++;
+	int bit = (int) ((index >> (BITS * level)) & MASK);
+	int slot = (level << BITS) + bit;
+	Timer next = slots [slot];
+	timer.slot = slot;
+	timer.previous = null;
+	timer.next = next;
+	if (next != null) next.previous = timer;
+	slots [slot] = timer;
+	masks [level] |= 1L << bit;
+}
+
+/*
+* Returns the first tick from the current time on at which a
+* timer expires or moves down a level, or Long.MAX_VALUE if no
+* timer is pending in the wheel.
+*/
+long nextTick () {
+	long result = Long.MAX_VALUE;
+	for (int level=0; level<LEVELS; level++) {
+		long mask = masks [level];
+		if (mask == 0) continue;
+		int shift = BITS * level;
+		long base = (time + (1L << shift) - 1) >> shift;
+		int offset = Long.numberOfTrailingZeros (Long.rotateRight (mask, (int) (base & MASK)));
+		result = Math.min (result, (base + offset) << shift);
+	}
+	return result;
+}
+
+/*
+* Removes and returns the first expired runnable, provided it
+* expired by the given time and was scheduled before the given
+* sequence number, so that runnables scheduled while expired
+* ones are run wait for the next time the wheel is advanced.
+*/
+Runnable poll (long now, long sequence) {
+	Timer timer = expired;
+	if (timer == null || timer.deadline > now || timer.sequence >= sequence) return null;
+	unlink (timer);
+	timers.remove (timer.runnable);
+	return timer.runnable;
+}
+
+/*
+* Cancels the runnable, returning whether it was pending.
+*/
+boolean remove (Runnable runnable) {
+	Timer timer = timers.remove (runnable);
+	if (timer == null) return false;
+	unlink (timer);
+	return true;
+}
+
+int size () {
+	return timers.size ();
+}
+
+void unlink (Timer timer) {
+	Timer previous = timer.previous, next = timer.next;
+	if (next != null) next.previous = previous;
+	if (timer.slot == EXPIRED) {
+		if (previous != null) {
+			previous.next = next;
+		} else {
+			expired = next;
+		}
+		if (next == null) lastExpired = previous;
+	} else {
+		if (previous != null) {
+			previous.next = next;
+		} else {
+			slots [timer.slot] = next;
+			if (next == null) masks [timer.slot >> BITS] &= ~(1L << (timer.slot & MASK));
+		}
+	}
+	timer.previous = timer.next = null;
+}
+
+}
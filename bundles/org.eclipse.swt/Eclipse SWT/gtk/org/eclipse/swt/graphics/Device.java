@@ -85,6 +85,9 @@ public abstract class Device implements Drawable {
 	
 	long /*int*/ emptyTab;
 
+	/* Shaped text shared by the GCs of the device */
+	TextCache textCache;
+
 	boolean useXRender;
 	static boolean CAIRO_LOADED;
 
@@ -654,6 +657,7 @@ protected void init () {
 	emptyTab = OS.pango_tab_array_new(1, false);
 	if (emptyTab == 0) SWT.error(SWT.ERROR_NO_HANDLES);
 	OS.pango_tab_array_set_tab(emptyTab, 0, OS.PANGO_TAB_LEFT, 1);
+	textCache = new TextCache();
 
 	shellHandle = OS.gtk_window_new(OS.GTK_WINDOW_TOPLEVEL);
 	if (shellHandle == 0) SWT.error(SWT.ERROR_NO_HANDLES);
@@ -711,6 +715,44 @@ public abstract long /*int*/ internal_new_GC (GCData data);
  */
 public abstract void internal_dispose_GC (long /*int*/ hDC, GCData data);
 
+/**	 
+ * Discards the extents and layouts of the text drawn or measured
+ * with the device. This must be done when the resolution or the
+ * font settings of the screen change.
+ * <p>
+ * <b>IMPORTANT:</b> This method is <em>not</em> part of the public
+ * API for <code>Device</code>. It is marked public only so that it
+ * can be shared within the packages provided by SWT. It is not
+ * available on all platforms, and should never be called from
+ * application code.
+ * </p>
+ * 
+ * @noreference This method is not intended to be referenced by clients.
+ */
+public void internal_flush_text_cache () {
+	if (textCache != null) textCache.reset();
+}
+
+/**	 
+ * Returns the number of hits, the number of misses and the number
+ * of entries of the cache of the text drawn or measured with the
+ * device.
+ * <p>
+ * <b>IMPORTANT:</b> This method is <em>not</em> part of the public
+ * API for <code>Device</code>. It is marked public only so that it
+ * can be shared within the packages provided by SWT. It is not
+ * available on all platforms, and should never be called from
+ * application code.
+ * </p>
+ *
+ * @return the cache statistics
+ * 
+ * @noreference This method is not intended to be referenced by clients.
+ */
+public int[] internal_get_text_cache_statistics () {
+	return textCache != null ? textCache.getStatistics() : new int[3];
+}
+
 /**
  * Returns <code>true</code> if the device has been disposed,
  * and <code>false</code> otherwise.
@@ -747,7 +789,10 @@ public boolean loadFont (String path) {
 	checkDevice();
 	if (path == null) SWT.error (SWT.ERROR_NULL_ARGUMENT);
 	byte [] buffer = Converter.wcsToMbcs (null, path, true);
-	return OS.FcConfigAppFontAddFile (0, buffer);
+	boolean loaded = OS.FcConfigAppFontAddFile (0, buffer);
+	/* The new font may be picked for text shaped with a fallback font */
+	if (loaded) internal_flush_text_cache ();
+	return loaded;
 }
 
 long /*int*/ logProc (long /*int*/ log_domain, long /*int*/ log_level, long /*int*/ message, long /*int*/ user_data) {
@@ -867,6 +912,9 @@ protected void release () {
 	if (emptyTab != 0) OS.pango_tab_array_free(emptyTab);
 	emptyTab = 0;
 
+	if (textCache != null) textCache.dispose();
+	textCache = null;
+
 	/* Free the GTK error and warning handler */
 	if (xDisplay != 0) {
 		for (int i=0; i<handler_ids.length; i++) {
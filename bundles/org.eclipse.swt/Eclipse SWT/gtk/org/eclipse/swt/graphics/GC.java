@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -73,6 +73,11 @@ public final class GC extends Resource {
 	
 	Drawable drawable;
 	GCData data;
+	
+	/* The font of the text cache key and its description */
+	Font keyFont;
+	String fontKey;
+	boolean customContext;
 
 	final static int FOREGROUND = 1 << 0;
 	final static int BACKGROUND = 1 << 1;
@@ -1732,56 +1737,78 @@ public void drawText (String string, int x, int y, int flags) {
 	if (handle == 0) SWT.error(SWT.ERROR_GRAPHIC_DISPOSED);
 	if (string == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
 	if (string.length() == 0) return;
+	TextCache.CachedText entry = getCachedText(string, flags, true);
+	if (entry == null) {
+		setString(string, flags);
+		checkGC(FONT);
+		drawLayout(data.layout, -1, -1, x, y, flags);
+		return;
+	}
+	try {
+		drawLayout(entry.layout, entry.width, entry.height, x, y, flags);
+	} finally {
+		OS.g_object_unref(entry.layout);
+	}
+}
+
+/**
+ * Draws the given layout, whose extent is computed from the layout
+ * of the receiver when the given width is -1.
+ */
+void drawLayout(long /*int*/ layout, int width, int height, int x, int y, int flags) {
 	long /*int*/ cairo = data.cairo;
-	setString(string, flags);
 	if (cairo != 0) {
-		checkGC(FONT);
 		if ((flags & SWT.DRAW_TRANSPARENT) == 0) {
 			checkGC(BACKGROUND);
-			if (data.stringWidth == -1) {
-				computeStringSize();
+			if (width == -1) {
+				if (data.stringWidth == -1) computeStringSize();
+				width = data.stringWidth;
+				height = data.stringHeight;
 			}
-			Cairo.cairo_rectangle(cairo, x, y, data.stringWidth, data.stringHeight);
+			Cairo.cairo_rectangle(cairo, x, y, width, height);
 			Cairo.cairo_fill(cairo);
 		}
 		checkGC(FOREGROUND);
 		if ((data.style & SWT.MIRRORED) != 0) {
 			Cairo.cairo_save(cairo);
-			if (data.stringWidth == -1) {
-				computeStringSize();
+			if (width == -1) {
+				if (data.stringWidth == -1) computeStringSize();
+				width = data.stringWidth;
+				height = data.stringHeight;
 			}
 			Cairo.cairo_scale(cairo, -1f,  1);
-			Cairo.cairo_translate(cairo, -2 * x - data.stringWidth, 0);
+			Cairo.cairo_translate(cairo, -2 * x - width, 0);
 		}
 		Cairo.cairo_move_to(cairo, x, y);
-		OS.pango_cairo_show_layout(cairo, data.layout);
+		OS.pango_cairo_show_layout(cairo, layout);
 		if ((data.style & SWT.MIRRORED) != 0) {
 			Cairo.cairo_restore(cairo);
 		}
 		Cairo.cairo_new_path(cairo);
 		return;
 	}
-	checkGC(FOREGROUND | FONT | BACKGROUND_BG);
+	checkGC(FOREGROUND | BACKGROUND_BG);
 	GdkColor background = null;
 	if ((flags & SWT.DRAW_TRANSPARENT) == 0) background = data.background;
 	if (!data.xorMode) {
-		OS.gdk_draw_layout_with_colors(data.drawable, handle, x, y, data.layout, null, background);
+		OS.gdk_draw_layout_with_colors(data.drawable, handle, x, y, layout, null, background);
 	} else {
-		long /*int*/ layout = data.layout;
-		if (data.stringWidth == -1) {
-			computeStringSize();
+		if (width == -1) {
+			if (data.stringWidth == -1) computeStringSize();
+			width = data.stringWidth;
+			height = data.stringHeight;
 		}
-		long /*int*/ pixmap = OS.gdk_pixmap_new(OS.gdk_get_default_root_window(), data.stringWidth, data.stringHeight, -1);
+		long /*int*/ pixmap = OS.gdk_pixmap_new(OS.gdk_get_default_root_window(), width, height, -1);
 		if (pixmap == 0) SWT.error(SWT.ERROR_NO_HANDLES);
 		long /*int*/ gdkGC = OS.gdk_gc_new(pixmap);
 		if (gdkGC == 0) SWT.error(SWT.ERROR_NO_HANDLES);
 		GdkColor black = new GdkColor();
 		OS.gdk_gc_set_foreground(gdkGC, black);
-		OS.gdk_draw_rectangle(pixmap, gdkGC, 1, 0, 0, data.stringWidth, data.stringHeight);
+		OS.gdk_draw_rectangle(pixmap, gdkGC, 1, 0, 0, width, height);
 		OS.gdk_gc_set_foreground(gdkGC, data.foreground);
 		OS.gdk_draw_layout_with_colors(pixmap, gdkGC, 0, 0, layout, null, background);
 		OS.g_object_unref(gdkGC);
-		OS.gdk_draw_drawable(data.drawable, handle, pixmap, 0, 0, x, y, data.stringWidth, data.stringHeight);
+		OS.gdk_draw_drawable(data.drawable, handle, pixmap, 0, 0, x, y, width, height);
 		OS.g_object_unref(pixmap);
 	}
 }
@@ -3002,6 +3029,33 @@ void computeStringSize() {
 	data.stringWidth = width[0];
 }
 
+/**
+ * Returns the layout and extent of the given string from the text
+ * cache of the device, shaping the string if it is not cached, or
+ * null when the receiver cannot use the cache.  When <code>reference</code>
+ * is true, the caller must release a reference to the layout.
+ */
+TextCache.CachedText getCachedText(String string, int flags, boolean reference) {
+	TextCache cache = data.device.textCache;
+	Font font = data.font;
+	if (cache == null || font == null || font.handle == 0 || customContext || string.length() > TextCache.MAX_LENGTH) return null;
+	if (font != keyFont) {
+		fontKey = TextCache.fontKey(font.handle);
+		keyFont = font;
+	}
+	boolean mirrored = (data.style & SWT.MIRRORED) != 0;
+	int key = flags & ~SWT.DRAW_TRANSPARENT;
+	if (mirrored) key |= TextCache.MIRRORED;
+	TextCache.CachedText entry = cache.get(fontKey, key, string, reference);
+	if (entry == null) {
+		long /*int*/ layout = cache.newLayout(mirrored);
+		OS.pango_layout_set_font_description(layout, font.handle);
+		setLayoutText(layout, string, flags);
+		entry = cache.put(fontKey, key, string, layout, reference);
+	}
+	return entry;
+}
+
 /**
  * Returns <code>true</code> if the receiver has a clipping
  * region set into it, and <code>false</code> otherwise.
@@ -3901,41 +3955,41 @@ void setString(String string, int flags) {
 	if (string == data.string && (flags & ~SWT.DRAW_TRANSPARENT) == (data.drawFlags  & ~SWT.DRAW_TRANSPARENT)) {
 		return;
 	}
-	byte[] buffer;
-	int mnemonic, length = string.length ();
-	long /*int*/ layout = data.layout;
-	char[] text = new char[length];
-	string.getChars(0, length, text, 0);	
-	if ((flags & SWT.DRAW_MNEMONIC) != 0 && (mnemonic = fixMnemonic(text)) != -1) {
-		char[] text1 = new char[mnemonic - 1];
-		System.arraycopy(text, 0, text1, 0, text1.length);
-		byte[] buffer1 = Converter.wcsToMbcs(null, text1, false);
-		char[] text2 = new char[text.length - mnemonic];
-		System.arraycopy(text, mnemonic - 1, text2, 0, text2.length);
-		byte[] buffer2 = Converter.wcsToMbcs(null, text2, false);
-		buffer = new byte[buffer1.length + buffer2.length];
-		System.arraycopy(buffer1, 0, buffer, 0, buffer1.length);
-		System.arraycopy(buffer2, 0, buffer, buffer1.length, buffer2.length);
-		long /*int*/ attr_list = OS.pango_attr_list_new();
-		long /*int*/ attr = OS.pango_attr_underline_new(OS.PANGO_UNDERLINE_LOW);
-		PangoAttribute attribute = new PangoAttribute();
-		OS.memmove(attribute, attr, PangoAttribute.sizeof);
-		attribute.start_index = buffer1.length;
-		attribute.end_index = buffer1.length + 1;
-		OS.memmove(attr, attribute, PangoAttribute.sizeof);
-		OS.pango_attr_list_insert(attr_list, attr);
-		OS.pango_layout_set_attributes(layout, attr_list);
-		OS.pango_attr_list_unref(attr_list);
+	setLayoutText(data.layout, string, flags);
+	data.string = string;
+	data.stringWidth = data.stringHeight = -1;
+	data.drawFlags = flags;
+}
+
+void setLayoutText(long /*int*/ layout, String string, int flags) {
+	int mnemonic = -1, count, length = string.length ();
+	byte[] buffer = Converter.getByteBuffer(length * 3);
+	if ((flags & SWT.DRAW_MNEMONIC) != 0) {
+		char[] text = new char[length];
+		string.getChars(0, length, text, 0);
+		if ((mnemonic = fixMnemonic(text)) != -1) {
+			count = Converter.wcsToMbcs(text, 0, mnemonic - 1, buffer, 0, false);
+			long /*int*/ attr_list = OS.pango_attr_list_new();
+			long /*int*/ attr = OS.pango_attr_underline_new(OS.PANGO_UNDERLINE_LOW);
+			PangoAttribute attribute = new PangoAttribute();
+			OS.memmove(attribute, attr, PangoAttribute.sizeof);
+			attribute.start_index = count;
+			attribute.end_index = count + 1;
+			OS.memmove(attr, attribute, PangoAttribute.sizeof);
+			OS.pango_attr_list_insert(attr_list, attr);
+			OS.pango_layout_set_attributes(layout, attr_list);
+			OS.pango_attr_list_unref(attr_list);
+			count += Converter.wcsToMbcs(text, mnemonic - 1, length - mnemonic, buffer, count, false);
+		} else {
+			count = Converter.wcsToMbcs(text, 0, length, buffer, 0, false);
+		}
 	} else {
-		buffer = Converter.wcsToMbcs(null, text, false);
-		OS.pango_layout_set_attributes(layout, 0);
+		count = Converter.wcsToMbcs(string, buffer, 0, false);
 	}
-	OS.pango_layout_set_text(layout, buffer, buffer.length);
+	if (mnemonic == -1) OS.pango_layout_set_attributes(layout, 0);
+	OS.pango_layout_set_text(layout, buffer, count);
 	OS.pango_layout_set_single_paragraph_mode(layout, (flags & SWT.DRAW_DELIMITER) == 0);
 	OS.pango_layout_set_tabs(layout, (flags & SWT.DRAW_TAB) != 0 ? 0 : data.device.emptyTab);
-	data.string = string;
-	data.stringWidth = data.stringHeight = -1;
-	data.drawFlags = flags;
 }
 
 /**
@@ -3983,6 +4037,7 @@ public void setTextAntialias(int antialias) {
     Cairo.cairo_font_options_set_antialias(options, mode);
 	if (data.context == 0) createLayout();
 	OS.pango_cairo_context_set_font_options(data.context, options);
+	customContext = true;
     Cairo.cairo_font_options_destroy(options);
 }
 
@@ -4142,6 +4197,8 @@ public Point textExtent(String string) {
 public Point textExtent(String string, int flags) {
 	if (handle == 0) SWT.error(SWT.ERROR_GRAPHIC_DISPOSED);
 	if (string == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+	TextCache.CachedText entry = getCachedText(string, flags, false);
+	if (entry != null) return new Point(entry.width, entry.height);
 	setString(string, flags);
 	checkGC(FONT);
 	if (data.stringWidth == -1) {
@@ -1136,11 +1136,9 @@ public ImageData getImageData() {
 					int b = srcData[offset + ob] & 0xFF;
 					srcData[offset + 0] = 0;
 					alphaData[alphaOffset++] = (byte)a;
-					if (a != 0) {
-						srcData[offset + 1] = (byte)(((r * 0xFF) + a / 2) / a);
-						srcData[offset + 2] = (byte)(((g * 0xFF) + a / 2) / a);
-						srcData[offset + 3] = (byte)(((b * 0xFF) + a / 2) / a);
-					}
+					srcData[offset + 1] = ImageData.unpremultiply(r, a);
+					srcData[offset + 2] = ImageData.unpremultiply(g, a);
+					srcData[offset + 3] = ImageData.unpremultiply(b, a);
 				}
 			}
 		} else {
@@ -1434,39 +1432,11 @@ void init(ImageData image) {
 				System.arraycopy(image.alphaData, 0, this.alphaData, 0, alphaData.length);
 			}
 			if (this.alpha != -1) {
-				for (int y = 0, offset = 0; y < height; y++) {
-					for (int x=0; x<width; x++, offset += 4) {
-						int alpha = this.alpha;
-						/* pre-multiplied alpha */
-						int r = ((buffer[offset + or] & 0xFF) * alpha) + 128;
-						r = (r + (r >> 8)) >> 8;
-						int g = ((buffer[offset + og] & 0xFF) * alpha) + 128;
-						g = (g + (g >> 8)) >> 8;
-						int b = ((buffer[offset + ob] & 0xFF) * alpha) + 128;
-						b = (b + (b >> 8)) >> 8;
-						buffer[offset + oa] = (byte)alpha;
-						buffer[offset + or] = (byte)r;
-						buffer[offset + og] = (byte)g;
-						buffer[offset + ob] = (byte)b;
-					}
-				}
+				/* pre-multiplied alpha */
+				ImageData.premultiply(buffer, stride, width, height, oa, or, og, ob, this.alpha, null, 0);
 			} else if (this.alphaData != null) {
-				for (int y = 0, offset = 0; y < height; y++) {
-					for (int x=0; x<width; x++, offset += 4) {
-						int alpha = alphaData [y*width+x] & 0xFF;
-						/* pre-multiplied alpha */
-						int r = ((buffer[offset + or] & 0xFF) * alpha) + 128;
-						r = (r + (r >> 8)) >> 8;
-						int g = ((buffer[offset + og] & 0xFF) * alpha) + 128;
-						g = (g + (g >> 8)) >> 8;
-						int b = ((buffer[offset + ob] & 0xFF) * alpha) + 128;
-						b = (b + (b >> 8)) >> 8;
-						buffer[offset + oa] = (byte)alpha;
-						buffer[offset + or] = (byte)r;
-						buffer[offset + og] = (byte)g;
-						buffer[offset + ob] = (byte)b;
-					}
-				}
+				/* pre-multiplied alpha */
+				ImageData.premultiply(buffer, stride, width, height, oa, or, og, ob, 0, alphaData, width);
 			}
 		}
 		OS.memmove(data, buffer, stride * height);
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.graphics;
+
+
+import java.util.*;
+
+import org.eclipse.swt.*;
+import org.eclipse.swt.internal.*;
+import org.eclipse.swt.internal.gtk.*;
+
+/**
+ * Keeps the Pango layouts of the strings most recently drawn or
+ * measured with a device, so that drawing or measuring the same
+ * string again with the same font and flags does not convert and
+ * shape it again.
+ * <p>
+ * Entries are keyed by the string form of the font description
+ * rather than its handle, since the handles of fonts owned by the
+ * widget styles are freed and reused. The layouts are created from
+ * contexts shared by the cache, so a GC whose context has been
+ * changed does not use the cache. The least recently used entry is
+ * discarded when the cache is full.
+ * </p>
+ */
+final class TextCache {
+	long /*int*/ context, mirroredContext;
+	LinkedHashMap<CachedText, CachedText> entries;
+	CachedText probe = new CachedText();
+	int hits, misses;
+
+	/* Flag added to the draw flags of the strings measured right to left */
+	static final int MIRRORED = 1 << 30;
+	static final int MAX_ENTRIES = 2048;
+	/* Longer strings are seldom measured twice and are not cached */
+	static final int MAX_LENGTH = 256;
+
+	static final class CachedText {
+		String font;
+		int flags;
+		String string;
+		int hash;
+		long /*int*/ layout;
+		int width, height;
+
+		void set(String font, int flags, String string) {
+			this.font = font;
+			this.flags = flags;
+			this.string = string;
+			hash = (font.hashCode() * 31 + flags) * 31 + string.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof CachedText)) return false;
+			CachedText entry = (CachedText) object;
+			return hash == entry.hash && flags == entry.flags && string.equals(entry.string) && font.equals(entry.font);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+TextCache() {
+	entries = new LinkedHashMap<CachedText, CachedText>(64, 0.75f, true) {
+		static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CachedText, CachedText> eldest) {
+			if (size() <= MAX_ENTRIES) return false;
+			OS.g_object_unref(eldest.getValue().layout);
+			return true;
+		}
+	};
+}
+
+/**
+ * Returns the string form of the given font description, which
+ * identifies the font in the cache.
+ */
+static String fontKey(long /*int*/ font) {
+	long /*int*/ string = OS.pango_font_description_to_string(font);
+	int length = OS.strlen(string);
+	byte[] buffer = new byte[length];
+	OS.memmove(buffer, string, length);
+	OS.g_free(string);
+	return new String(Converter.mbcsToWcs(null, buffer));
+}
+
+/**
+ * Returns the entry of the given string, or null if it is not
+ * cached. When <code>reference</code> is true, a reference to the
+ * layout of the entry is added for the caller to release.
+ */
+synchronized CachedText get(String font, int flags, String string, boolean reference) {
+	if (entries == null) return null;
+	probe.set(font, flags, string);
+	CachedText entry = entries.get(probe);
+	probe.font = probe.string = null;
+	if (entry == null) {
+		misses++;
+		return null;
+	}
+	hits++;
+	if (reference) OS.g_object_ref(entry.layout);
+	return entry;
+}
+
+/**
+ * Returns the statistics of the cache: the number of hits, the
+ * number of misses and the number of entries.
+ */
+synchronized int[] getStatistics() {
+	return new int[] {hits, misses, entries != null ? entries.size() : 0};
+}
+
+/**
+ * Returns a new layout for the given direction. The caller sets its
+ * font and text before adding it to the cache.
+ */
+synchronized long /*int*/ newLayout(boolean mirrored) {
+	long /*int*/ context = mirrored ? mirroredContext : this.context;
+	if (context == 0) {
+		context = OS.gdk_pango_context_get();
+		if (context == 0) SWT.error(SWT.ERROR_NO_HANDLES);
+		OS.pango_context_set_language(context, OS.gtk_get_default_language());
+		OS.pango_context_set_base_dir(context, mirrored ? OS.PANGO_DIRECTION_RTL : OS.PANGO_DIRECTION_LTR);
+		if (mirrored) {
+			mirroredContext = context;
+		} else {
+			this.context = context;
+		}
+	}
+	long /*int*/ layout = OS.pango_layout_new(context);
+	if (layout == 0) SWT.error(SWT.ERROR_NO_HANDLES);
+	OS.pango_layout_set_auto_dir(layout, false);
+	return layout;
+}
+
+/**
+ * Adds the layout of the given string to the cache, which takes
+ * over the reference of the caller. When <code>reference</code> is
+ * true, a new reference is added for the caller to release.
+ */
+synchronized CachedText put(String font, int flags, String string, long /*int*/ layout, boolean reference) {
+	CachedText entry = new CachedText();
+	entry.set(font, flags, string);
+	entry.layout = layout;
+	int[] width = new int[1], height = new int[1];
+	OS.pango_layout_get_pixel_size(layout, width, height);
+	entry.width = width[0];
+	entry.height = height[0];
+	if (reference) OS.g_object_ref(layout);
+	if (entries == null) {
+		OS.g_object_unref(layout);
+		return entry;
+	}
+	CachedText old = entries.put(entry, entry);
+	if (old != null) OS.g_object_unref(old.layout);
+	return entry;
+}
+
+/**
+ * Discards all the entries, which must be done when the settings
+ * that affect the size of text, such as the resolution or the
+ * font options of the screen, change.
+ */
+synchronized void reset() {
+	if (entries == null) return;
+	for (Iterator<CachedText> iterator = entries.values().iterator(); iterator.hasNext();) {
+		OS.g_object_unref(iterator.next().layout);
+	}
+	entries.clear();
+	if (context != 0) OS.g_object_unref(context);
+	if (mirroredContext != 0) OS.g_object_unref(mirroredContext);
+	context = mirroredContext = 0;
+}
+
+synchronized void dispose() {
+	reset();
+	entries = null;
+}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,6 @@
 package org.eclipse.swt.internal;
 
 
-import org.eclipse.swt.internal.gtk.OS;
-
 /**
  * This class implements the conversions between unicode characters
  * and the <em>platform supported</em> representation for characters.
@@ -26,6 +24,20 @@ public final class Converter {
 	public static final byte [] EmptyByteArray = new byte [0];
 	public static final char [] EmptyCharArray = new char [0];
 
+	/*
+	* The conversions are done in Java instead of by g_utf8_to_utf16()
+	* and g_utf16_to_utf8() so that converting a string does not allocate
+	* and copy a native buffer.  They follow the GLib functions: the input
+	* ends at the first NUL, a string that is not valid UTF-8 or UTF-16,
+	* including UTF-8 that encodes a surrogate, converts to an empty one
+	* and a high surrogate at the end of UTF-16 input is dropped.  Strings
+	* are converted through per thread buffers, which are not kept when
+	* they grow larger than MAX_BUFFER.
+	*/
+	static final int MAX_BUFFER = 64 * 1024;
+	static final ThreadLocal<char []> CharBuffer = new ThreadLocal<char []> ();
+	static final ThreadLocal<byte []> ByteBuffer = new ThreadLocal<byte []> ();
+
 /**
  * Returns the default code page for the platform where the
  * application is currently running.
@@ -36,37 +48,187 @@ public static String defaultCodePage () {
 	return "UTF8";
 }
 
-public static char [] mbcsToWcs (String codePage, byte [] buffer) {
-	long /*int*/ [] items_written = new long /*int*/ [1];
-	long /*int*/ ptr = OS.g_utf8_to_utf16 (buffer, buffer.length, null, items_written, null);
-	if (ptr == 0) return EmptyCharArray;
-	int length = (int)/*64*/items_written [0];
-	char [] chars = new char [length];
-	OS.memmove (chars, ptr, length * 2);
-	OS.g_free (ptr);
+static char [] getCharBuffer (int length) {
+	char [] chars = CharBuffer.get ();
+	if (chars == null || chars.length < length) {
+		chars = new char [length];
+		if (length <= MAX_BUFFER) CharBuffer.set (chars);
+	}
 	return chars;
 }
 
+/**
+ * Returns a byte array owned by the calling thread that is at
+ * least the given length. The array may be returned again by the
+ * next call on the same thread, so its contents must be used before
+ * then.
+ *
+ * @param length the minimum length of the array
+ * @return the array
+ */
+public static byte [] getByteBuffer (int length) {
+	byte [] bytes = ByteBuffer.get ();
+	if (bytes == null || bytes.length < length) {
+		bytes = new byte [length];
+		if (length <= MAX_BUFFER) ByteBuffer.set (bytes);
+	}
+	return bytes;
+}
+
+public static char [] mbcsToWcs (String codePage, byte [] buffer) {
+	char [] chars = getCharBuffer (buffer.length);
+	int length = mbcsToWcs (buffer, 0, buffer.length, chars, 0);
+	if (length == 0) return EmptyCharArray;
+	char [] result = new char [length];
+	System.arraycopy (chars, 0, result, 0, length);
+	return result;
+}
+
+/**
+ * Converts UTF-8 bytes to UTF-16 characters, stopping at the first
+ * NUL byte. The array of characters must have room for
+ * <code>length</code> characters after the offset.
+ *
+ * @param buffer the UTF-8 bytes
+ * @param start the index of the first byte to convert
+ * @param length the number of bytes to convert
+ * @param chars the array to store the characters in
+ * @param offset the index to store the first character at
+ * @return the number of characters stored, which is zero when the bytes are not valid UTF-8
+ */
+public static int mbcsToWcs (byte [] buffer, int start, int length, char [] chars, int offset) {
+	int index = start, end = start + length, count = offset;
+	while (index < end) {
+		int c = buffer [index++];
+		if (c > 0) {
+			chars [count++] = (char) c;
+			continue;
+		}
+		if (c == 0) break;
+		c &= 0xFF;
+		int size, min;
+		if (c < 0xC0) {
+			return 0;
+		} else if (c < 0xE0) {
+			c &= 0x1F; size = 1; min = 0x80;
+		} else if (c < 0xF0) {
+			c &= 0x0F; size = 2; min = 0x800;
+		} else if (c < 0xF8) {
+			c &= 0x07; size = 3; min = 0x10000;
+		} else {
+			/* Five and six byte forms are out of the range of UTF-16 */
+			return 0;
+		}
+		if (index + size > end) return 0;
+		for (int i=0; i<size; i++) {
+			int b = buffer [index++];
+			if ((b & 0xC0) != 0x80) return 0;
+			c = (c << 6) | (b & 0x3F);
+		}
+		/* Overlong forms, encoded surrogates and code points past U+10FFFF are invalid */
+		if (c < min || c > 0x10FFFF || (0xD800 <= c && c < 0xE000)) return 0;
+		if (c < 0x10000) {
+			chars [count++] = (char) c;
+		} else {
+			c -= 0x10000;
+			chars [count++] = (char) (0xD800 | (c >> 10));
+			chars [count++] = (char) (0xDC00 | (c & 0x3FF));
+		}
+	}
+	return count - offset;
+}
+
 public static byte [] wcsToMbcs (String codePage, String string, boolean terminate) {
 	int length = string.length ();
-	char [] buffer = new char [length];
+	char [] buffer = getCharBuffer (length);
 	string.getChars (0, length, buffer, 0);
-	return wcsToMbcs (codePage, buffer, terminate);
+	return wcsToMbcs (buffer, length, terminate);
 }
 
 public static byte [] wcsToMbcs (String codePage, char [] buffer, boolean terminate) {
-	long /*int*/ [] items_read = new long /*int*/ [1], items_written = new long /*int*/ [1];
-	/*
-	* Note that g_utf16_to_utf8()  stops converting 
-	* when it finds the first NULL.
-	*/
-	long /*int*/ ptr = OS.g_utf16_to_utf8 (buffer, buffer.length, items_read, items_written, null);
-	if (ptr == 0) return terminate ? NullByteArray : EmptyByteArray;
-	int written = (int)/*64*/items_written [0];
-	byte [] bytes = new byte [written + (terminate ? 1 : 0)];
-	OS.memmove (bytes, ptr, written);
-	OS.g_free (ptr);
-	return bytes;
+	return wcsToMbcs (buffer, buffer.length, terminate);
+}
+
+static byte [] wcsToMbcs (char [] buffer, int length, boolean terminate) {
+	byte [] bytes = getByteBuffer (length * 3);
+	int count = wcsToMbcs (buffer, 0, length, bytes, 0, false);
+	byte [] result = new byte [count + (terminate ? 1 : 0)];
+	System.arraycopy (bytes, 0, result, 0, count);
+	return result;
+}
+
+/**
+ * Converts a string to UTF-8 bytes, stopping at the first NUL
+ * character. The array of bytes must have room for three times
+ * the length of the string after the offset, plus one for the
+ * terminator.
+ *
+ * @param string the string to convert
+ * @param bytes the array to store the bytes in
+ * @param offset the index to store the first byte at
+ * @param terminate whether to store a NUL byte after the bytes
+ * @return the number of bytes stored, not counting the terminator
+ */
+public static int wcsToMbcs (String string, byte [] bytes, int offset, boolean terminate) {
+	int length = string.length ();
+	char [] buffer = getCharBuffer (length);
+	string.getChars (0, length, buffer, 0);
+	return wcsToMbcs (buffer, 0, length, bytes, offset, terminate);
+}
+
+/**
+ * Converts UTF-16 characters to UTF-8 bytes, stopping at the first
+ * NUL character. The array of bytes must have room for three times
+ * <code>length</code> bytes after the offset, plus one for the
+ * terminator.
+ *
+ * @param buffer the UTF-16 characters
+ * @param start the index of the first character to convert
+ * @param length the number of characters to convert
+ * @param bytes the array to store the bytes in
+ * @param offset the index to store the first byte at
+ * @param terminate whether to store a NUL byte after the bytes
+ * @return the number of bytes stored, not counting the terminator, which is zero when the characters are not valid UTF-16
+ */
+public static int wcsToMbcs (char [] buffer, int start, int length, byte [] bytes, int offset, boolean terminate) {
+	int index = start, end = start + length, count = offset;
+	while (index < end) {
+		int c = buffer [index++];
+		if (c < 0x80) {
+			if (c == 0) break;
+			bytes [count++] = (byte) c;
+			/* Copy a run of ASCII characters in a tighter loop */
+			while (index < end && (c = buffer [index]) < 0x80 && c != 0) {
+				bytes [count++] = (byte) c;
+				index++;
+			}
+		} else if (c < 0x800) {
+			bytes [count++] = (byte) (0xC0 | (c >> 6));
+			bytes [count++] = (byte) (0x80 | (c & 0x3F));
+		} else if (c < 0xD800 || c >= 0xE000) {
+			bytes [count++] = (byte) (0xE0 | (c >> 12));
+			bytes [count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+			bytes [count++] = (byte) (0x80 | (c & 0x3F));
+		} else {
+			if (c >= 0xDC00) {
+				count = offset;
+				break;
+			}
+			if (index == end || buffer [index] == 0) break;
+			int low = buffer [index++];
+			if (!(0xDC00 <= low && low < 0xE000)) {
+				count = offset;
+				break;
+			}
+			c = 0x10000 + ((c - 0xD800) << 10) + (low - 0xDC00);
+			bytes [count++] = (byte) (0xF0 | (c >> 18));
+			bytes [count++] = (byte) (0x80 | ((c >> 12) & 0x3F));
+			bytes [count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+			bytes [count++] = (byte) (0x80 | (c & 0x3F));
+		}
+	}
+	if (terminate) bytes [count] = 0;
+	return count - offset;
 }
 
 }
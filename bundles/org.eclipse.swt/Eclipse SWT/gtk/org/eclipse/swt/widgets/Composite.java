@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -236,7 +236,10 @@ public Point computeSize (int wHint, int hHint, boolean changed) {
 	if (layout != null) {
 		if (wHint == SWT.DEFAULT || hHint == SWT.DEFAULT) {
 			changed |= (state & LAYOUT_CHANGED) != 0;
+			LayoutProfiler profiler = LayoutProfiler.getProfiler (display);
+			if (profiler != null) profiler.beginComputeSize (this);
 			size = layout.computeSize (this, wHint, hHint, changed);
+			if (profiler != null) profiler.endComputeSize (this);
 			state &= ~LAYOUT_CHANGED;
 		} else {
 			size = new Point (wHint, hHint);
@@ -1649,7 +1652,10 @@ void updateLayout (boolean all) {
 		boolean changed = (state & LAYOUT_CHANGED) != 0;
 		state &= ~(LAYOUT_NEEDED | LAYOUT_CHANGED);
 		display.runSkin();
+		LayoutProfiler profiler = LayoutProfiler.getProfiler (display);
+		if (profiler != null) profiler.beginLayout (this);
 		layout.layout (this, changed);
+		if (profiler != null) profiler.endLayout (this);
 	}
 	if (all) {
 		state &= ~LAYOUT_CHILD;
@@ -99,11 +99,12 @@ import org.eclipse.swt.graphics.*;
 public class Display extends Device {
 
 	/* Events Dispatching and Callback */
-	int gdkEventCount;
+	int gdkEventStart, gdkEventCount;
 	long /*int*/ [] gdkEvents;
 	Widget [] gdkEventWidgets;
 	int [] dispatchEvents;
 	Event [] eventQueue;
+	int eventQueueStart, eventQueueCount;
 	long /*int*/ fds;
 	int allocated_nfds;
 	boolean wake;
@@ -175,8 +176,9 @@ public class Display extends Device {
 	TrayItem currentTrayItem;
 	
 	/* Timers */
-	int [] timerIds;
-	Runnable [] timerList;
+	TimerWheel timerWheel;
+	int timerId;
+	long timerTime;
 	Callback timerCallback;
 	long /*int*/ timerProc;
 	Callback windowTimerCallback;
@@ -563,20 +565,28 @@ void addLayoutDeferred (Composite comp) {
 }
 
 void addGdkEvent (long /*int*/ event) {
+	/*
+	* The events are kept in a circular queue that starts
+	* at gdkEventStart and wraps around the end of the arrays.
+	*/
 	if (gdkEvents == null) {
 		int length = GROW_SIZE;
 		gdkEvents = new long /*int*/ [length];
 		gdkEventWidgets = new Widget [length];
-		gdkEventCount = 0;
+		gdkEventStart = gdkEventCount = 0;
 	}
 	if (gdkEventCount == gdkEvents.length) {
-		int length = gdkEventCount + GROW_SIZE;
+		int length = gdkEventCount * 2;
+		int first = gdkEventCount - gdkEventStart;
 		long /*int*/ [] newEvents = new long /*int*/ [length];
-		System.arraycopy (gdkEvents, 0, newEvents, 0, gdkEventCount);
+		System.arraycopy (gdkEvents, gdkEventStart, newEvents, 0, first);
+		System.arraycopy (gdkEvents, 0, newEvents, first, gdkEventStart);
 		gdkEvents = newEvents;
 		Widget [] newWidgets = new Widget [length];
-		System.arraycopy (gdkEventWidgets, 0, newWidgets, 0, gdkEventCount);
+		System.arraycopy (gdkEventWidgets, gdkEventStart, newWidgets, 0, first);
+		System.arraycopy (gdkEventWidgets, 0, newWidgets, first, gdkEventStart);
 		gdkEventWidgets = newWidgets;
+		gdkEventStart = 0;
 	}
 	Widget widget = null;
 	long /*int*/ handle = OS.gtk_get_event_widget (event);
@@ -585,8 +595,10 @@ void addGdkEvent (long /*int*/ event) {
 			widget = getWidget (handle);
 		} while (widget == null && (handle = OS.gtk_widget_get_parent (handle)) != 0);
 	}
-	gdkEvents [gdkEventCount] = event;
-	gdkEventWidgets [gdkEventCount] = widget;
+	int index = gdkEventStart + gdkEventCount;
+	if (index >= gdkEvents.length) index -= gdkEvents.length;
+	gdkEvents [index] = event;
+	gdkEventWidgets [index] = widget;
 	gdkEventCount++;
 }
 
@@ -730,6 +742,55 @@ public void asyncExec (Runnable runnable) {
 	}
 }
 
+/**
+ * Causes the <code>run()</code> method of the runnable to
+ * be invoked by the user-interface thread at the next 
+ * reasonable opportunity, replacing the runnable that was
+ * queued with the same key if it has not been run yet. The
+ * caller of this method continues to run in parallel, and is
+ * not notified when the runnable has completed.
+ * <p>
+ * This is intended for work where only the latest request
+ * matters, such as refreshing a view while a background
+ * thread streams updates for it. Runnables queued by this
+ * method are run together, in the order in which their keys
+ * were first queued, when the user-interface thread reaches
+ * the first of them.
+ * </p>
+ * <p>
+ * Note that at the time the runnable is invoked, widgets 
+ * that have the receiver as their display may have been
+ * disposed. Therefore, it is necessary to check for this
+ * case inside the runnable before accessing the widget.
+ * </p>
+ *
+ * @param key the key identifying the runnables that replace each other
+ * @param runnable code to run on the user-interface thread
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the key or the runnable is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_DEVICE_DISPOSED - if the receiver has been disposed</li>
+ * </ul>
+ * 
+ * @see #asyncExec(Runnable)
+ * 
+ * @since 3.103
+ */
+public void asyncExec (Object key, Runnable runnable) {
+	synchronized (Device.class) {
+		if (isDisposed ()) error (SWT.ERROR_DEVICE_DISPOSED);
+		synchronized (idleLock) {
+			if (idleNeeded && idleHandle == 0) {
+	 			//NOTE: calling unlocked function in OS
+				idleHandle = OS._g_idle_add (idleProc, 0);
+			}
+		}
+		synchronizer.asyncExec (key, runnable);
+	}
+}
+
 /**
  * Causes the system hardware to emit a short sound
  * (if it supports this capability).
@@ -3315,36 +3376,45 @@ void postEvent (Event event) {
 	* Place the event at the end of the event queue.
 	* This code is always called in the Display's
 	* thread so it must be re-enterant but does not
-	* need to be synchronized.
+	* need to be synchronized.  The queue is circular,
+	* starting at eventQueueStart and wrapping around
+	* the end of the array, which doubles when full.
 	*/
-	if (eventQueue == null) eventQueue = new Event [4];
-	int index = 0;
-	int length = eventQueue.length;
-	while (index < length) {
-		if (eventQueue [index] == null) break;
-		index++;
+	if (eventQueue == null) {
+		eventQueue = new Event [4];
+		eventQueueStart = eventQueueCount = 0;
 	}
-	if (index == length) {
-		Event [] newQueue = new Event [length + 4];
-		System.arraycopy (eventQueue, 0, newQueue, 0, length);
+	int length = eventQueue.length;
+	if (eventQueueCount == length) {
+		Event [] newQueue = new Event [length * 2];
+		int first = length - eventQueueStart;
+		System.arraycopy (eventQueue, eventQueueStart, newQueue, 0, first);
+		System.arraycopy (eventQueue, 0, newQueue, first, eventQueueStart);
 		eventQueue = newQueue;
+		eventQueueStart = 0;
+		length *= 2;
 	}
+	int index = eventQueueStart + eventQueueCount;
+	if (index >= length) index -= length;
 	eventQueue [index] = event;
+	eventQueueCount++;
 }
 
 void putGdkEvents () {
 	if (gdkEventCount != 0) {
+		int index = gdkEventStart;
 		for (int i = 0; i < gdkEventCount; i++) {
-			long /*int*/ event = gdkEvents [i];
-			Widget widget = gdkEventWidgets [i];
+			long /*int*/ event = gdkEvents [index];
+			Widget widget = gdkEventWidgets [index];
 			if (widget == null || !widget.isDisposed ()) {
 				OS.gdk_event_put (event);
 			}
 			OS.gdk_event_free (event);
-			gdkEvents [i] = 0;
-			gdkEventWidgets [i] = null;
+			gdkEvents [index] = 0;
+			gdkEventWidgets [index] = null;
+			if (++index == gdkEvents.length) index = 0;
 		}
-		gdkEventCount = 0;
+		gdkEventStart = gdkEventCount = 0;
 	}
 }
 
@@ -3528,13 +3598,9 @@ void releaseDisplay () {
 	if (shellMapProcClosure != 0) OS.g_closure_unref (shellMapProcClosure);
 
 	/* Dispose the timer callback */
-	if (timerIds != null) {
-		for (int i=0; i<timerIds.length; i++) {
-			if (timerIds [i] != 0) OS.g_source_remove (timerIds [i]);
-		}
-	}
-	timerIds = null;
-	timerList = null;
+	if (timerId != 0) OS.g_source_remove (timerId);
+	timerId = 0;
+	timerWheel = null;
 	timerProc = 0;
 	timerCallback.dispose ();
 	timerCallback = null;
@@ -3661,13 +3727,12 @@ public void removeFilter (int eventType, Listener listener) {
 
 long /*int*/ removeGdkEvent () {
 	if (gdkEventCount == 0) return 0;
-	long /*int*/ event = gdkEvents [0];
-	--gdkEventCount;
-	System.arraycopy (gdkEvents, 1, gdkEvents, 0, gdkEventCount);
-	System.arraycopy (gdkEventWidgets, 1, gdkEventWidgets, 0, gdkEventCount);
-	gdkEvents [gdkEventCount] = 0;
-	gdkEventWidgets [gdkEventCount] = null;
-	if (gdkEventCount == 0) {
+	long /*int*/ event = gdkEvents [gdkEventStart];
+	gdkEvents [gdkEventStart] = 0;
+	gdkEventWidgets [gdkEventStart] = null;
+	if (++gdkEventStart == gdkEvents.length) gdkEventStart = 0;
+	if (--gdkEventCount == 0) {
+		gdkEventStart = 0;
 		gdkEvents = null;
 		gdkEventWidgets = null;
 	}
@@ -3753,14 +3818,13 @@ boolean runDeferredEvents () {
 	* called in the Display's thread so it must
 	* be re-enterant but need not be synchronized.
 	*/
-	while (eventQueue != null) {
+	while (eventQueue != null && eventQueueCount != 0) {
 		
 		/* Take an event off the queue */
-		Event event = eventQueue [0];
-		if (event == null) break;
-		int length = eventQueue.length;
-		System.arraycopy (eventQueue, 1, eventQueue, 0, --length);
-		eventQueue [length] = null;
+		Event event = eventQueue [eventQueueStart];
+		eventQueue [eventQueueStart] = null;
+		if (++eventQueueStart == eventQueue.length) eventQueueStart = 0;
+		eventQueueCount--;
 
 		/* Run the event */
 		Widget widget = event.widget;
@@ -3781,6 +3845,7 @@ boolean runDeferredEvents () {
 
 	/* Clear the queue */
 	eventQueue = null;
+	eventQueueStart = eventQueueCount = 0;
 	return run;
 }
 
@@ -3790,10 +3855,13 @@ boolean runDeferredLayouts () {
 		int count = layoutDeferredCount;
 		layoutDeferred = null;
 		layoutDeferredCount = 0;
+		LayoutProfiler profiler = LayoutProfiler.getProfiler (this);
+		long start = profiler != null ? profiler.beginDeferredLayouts () : 0;
 		for (int i = 0; i < count; i++) {
 			Composite comp = temp[i];
 			if (!comp.isDisposed()) comp.setLayoutDeferred (false);
 		}
+		if (profiler != null) profiler.endDeferredLayouts (start);
 		update ();
 		return true;
 	}	
@@ -3822,6 +3890,7 @@ boolean runSettings () {
 	runSettings = false;
 	saveResources ();
 	initializeSystemColors ();
+	internal_flush_text_cache ();
 	sendEvent (SWT.Settings, null);
 	Shell [] shells = getShells ();
 	for (int i=0; i<shells.length; i++) {
@@ -4302,49 +4371,36 @@ public boolean sleep () {
 public void timerExec (int milliseconds, Runnable runnable) {
 	checkDevice ();
 	if (runnable == null) error (SWT.ERROR_NULL_ARGUMENT);
-	if (timerList == null) timerList = new Runnable [4];
-	if (timerIds == null) timerIds = new int [4];	
-	int index = 0;
-	while (index < timerList.length) {
-		if (timerList [index] == runnable) break;
-		index++;
-	}
-	if (index != timerList.length) {
-		OS.g_source_remove (timerIds [index]);
-		timerList [index] = null;
-		timerIds [index] = 0;
-		if (milliseconds < 0) return;
+	long now = System.nanoTime () / 1000000;
+	if (timerWheel == null) timerWheel = new TimerWheel (now);
+	timerWheel.advance (now);
+	if (milliseconds < 0) {
+		timerWheel.remove (runnable);
 	} else {
-		if (milliseconds < 0) return;
-		index = 0;
-		while (index < timerList.length) {
-			if (timerList [index] == null) break;
-			index++;
-		}
-		if (index == timerList.length) {
-			Runnable [] newTimerList = new Runnable [timerList.length + 4];
-			System.arraycopy (timerList, 0, newTimerList, 0, timerList.length);
-			timerList = newTimerList;
-			int [] newTimerIds = new int [timerIds.length + 4];
-			System.arraycopy (timerIds, 0, newTimerIds, 0, timerIds.length);
-			timerIds = newTimerIds;
-		}
-	}
-	int timerId = OS.g_timeout_add (milliseconds, timerProc, index);
-	if (timerId != 0) {
-		timerIds [index] = timerId;
-		timerList [index] = runnable;
+		timerWheel.add (runnable, now + milliseconds);
 	}
+	updateTimer (now);
 }
 
 long /*int*/ timerProc (long /*int*/ i) {
-	if (timerList == null) return 0;
-	int index = (int)/*64*/i;
-	if (0 <= index && index < timerList.length) {
-		Runnable runnable = timerList [index];
-		timerList [index] = null;
-		timerIds [index] = 0;
-		if (runnable != null) runnable.run ();
+	if (timerWheel == null) return 0;
+	timerId = 0;
+	long now = System.nanoTime () / 1000000;
+	timerWheel.advance (now);
+	/*
+	* Only run the runnables that were due when the timer fired.
+	* Runnables that are scheduled while these run, including the
+	* ones that schedule themselves again, wait for the next time
+	* the timer fires, as they would with separate timers.
+	*/
+	long sequence = timerWheel.sequence;
+	try {
+		Runnable runnable;
+		while ((runnable = timerWheel.poll (now, sequence)) != null) {
+			runnable.run ();
+		}
+	} finally {
+		if (timerWheel != null) updateTimer (System.nanoTime () / 1000000);
 	}
 	return 0;
 }
@@ -4576,6 +4632,27 @@ public void update () {
 	OS.gdk_window_process_all_updates ();
 }
 
+/*
+* Arms the timer that drives the timer wheel for the earliest
+* time at which the wheel has work to do, unless it is already
+* armed for that time or before.
+*/
+void updateTimer (long now) {
+	long next = timerWheel.hasExpired () ? now : timerWheel.nextTick ();
+	if (next == Long.MAX_VALUE) {
+		if (timerId != 0) OS.g_source_remove (timerId);
+		timerId = 0;
+		return;
+	}
+	if (timerId != 0) {
+		if (timerTime <= next) return;
+		OS.g_source_remove (timerId);
+	}
+	long delay = Math.min (Math.max (0, next - now), Integer.MAX_VALUE);
+	timerId = OS.g_timeout_add ((int) delay, timerProc, 0);
+	timerTime = next;
+}
+
 /**
  * If the receiver's user-interface thread was <code>sleep</code>ing, 
  * causes it to be awakened and start running again. Note that this
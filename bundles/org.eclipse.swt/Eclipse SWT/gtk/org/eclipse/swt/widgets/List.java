@@ -1312,18 +1312,27 @@ public void setItems (String [] items) {
 	for (int i=0; i<items.length; i++) {
 		if (items [i] == null) error (SWT.ERROR_INVALID_ARGUMENT);
 	}
+	long /*int*/ iter = OS.g_malloc (OS.GtkTreeIter_sizeof ());
+	if (iter == 0) error (SWT.ERROR_ITEM_NOT_ADDED);
 	long /*int*/ selection = OS.gtk_tree_view_get_selection (handle);
 	OS.g_signal_handlers_block_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
+	/*
+	* Adding the rows one at a time makes the tree view update
+	* itself for each of them.  The fix is to detach the model
+	* while it is filled.
+	*/
+	OS.gtk_tree_view_set_model (handle, 0);
 	OS.gtk_list_store_clear (modelHandle);
-	OS.g_signal_handlers_unblock_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
-	long /*int*/ iter = OS.g_malloc (OS.GtkTreeIter_sizeof ());
-	if (iter == 0) error (SWT.ERROR_ITEM_NOT_ADDED);
 	for (int i=0; i<items.length; i++) {
-		String string = items [i];
-		byte [] buffer = Converter.wcsToMbcs (null, string, true);
+		byte [] buffer = Converter.wcsToMbcs (null, items [i], true);
 		OS.gtk_list_store_append (modelHandle, iter);
 		OS.gtk_list_store_set (modelHandle, iter, TEXT_COLUMN, buffer, -1);
 	}
+	OS.gtk_tree_view_set_model (handle, modelHandle);
+	if ((getShell ().style & SWT.ON_TOP) != 0) {
+		OS.gtk_tree_view_set_search_column (handle, -1);
+	}
+	OS.g_signal_handlers_unblock_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
 	OS.g_free (iter);
 }
 
@@ -76,6 +76,7 @@ public class Table extends Composite {
 	TableColumn [] columns;
 	TableItem currentItem;
 	TableColumn sortColumn;
+	VirtualModel virtualModel;
 	ImageList imageList, headerImageList;
 	boolean firstCustomDraw;
 	int drawState, drawFlags;
@@ -514,7 +515,12 @@ void createColumn (TableColumn column, int index) {
 			if (!usedColumns [modelIndex]) break;
 			modelIndex++;
 		}
-		if (modelIndex == modelLength) {
+		if (modelIndex == modelLength && virtualModel != null) {
+			long /*int*/[] types = getColumnTypes (columnCount + 4); // grow by 4 rows at a time
+			int [] map = new int [types.length];
+			for (int i=0; i<map.length; i++) map [i] = i < modelLength ? i : -1;
+			virtualModel.setColumnTypes (types, map);
+		} else if (modelIndex == modelLength) {
 			long /*int*/ oldModel = modelHandle;
 			long /*int*/[] types = getColumnTypes (columnCount + 4); // grow by 4 rows at a time
 			long /*int*/ newModel = OS.gtk_list_store_newv (types.length, types);
@@ -603,7 +609,12 @@ void createHandle (int index) {
 	scrolledHandle = OS.gtk_scrolled_window_new (0, 0);
 	if (scrolledHandle == 0) error (SWT.ERROR_NO_HANDLES);
 	long /*int*/ [] types = getColumnTypes (1);
-	modelHandle = OS.gtk_list_store_newv (types.length, types);
+	if ((style & SWT.VIRTUAL) != 0 && VirtualModel.isSupported ()) {
+		virtualModel = new VirtualModel (true, types);
+		modelHandle = virtualModel.handle;
+	} else {
+		modelHandle = OS.gtk_list_store_newv (types.length, types);
+	}
 	if (modelHandle == 0) error (SWT.ERROR_NO_HANDLES);
 	handle = OS.gtk_tree_view_new_with_model (modelHandle);
 	if (handle == 0) error (SWT.ERROR_NO_HANDLES);
@@ -719,7 +730,9 @@ void createItem (TableItem item, int index) {
 	* Feature in GTK.  It is much faster to append to a list store
 	* than to insert at the end using gtk_list_store_insert(). 
 	*/
-	if (index == itemCount) {
+	if (virtualModel != null) {
+		virtualModel.insert (0, item.handle, index);
+	} else if (index == itemCount) {
 		OS.gtk_list_store_append (modelHandle, item.handle);
 	} else {
 		OS.gtk_list_store_insert (modelHandle, item.handle, index);
@@ -941,7 +954,14 @@ void destroyItem (TableColumn column) {
 	System.arraycopy (columns, index + 1, columns, index, --columnCount - index);
 	columns [columnCount] = null;
 	OS.gtk_tree_view_remove_column (handle, columnHandle);
-	if (columnCount == 0) {
+	if (columnCount == 0 && virtualModel != null) {
+		long /*int*/[] types = getColumnTypes (1);
+		int [] map = new int [types.length];
+		for (int i=0; i<FIRST_COLUMN; i++) map [i] = i;
+		for (int i=0; i<CELL_TYPES; i++) map [FIRST_COLUMN + i] = column.modelIndex + i;
+		virtualModel.setColumnTypes (types, map);
+		createColumn (null, 0);
+	} else if (columnCount == 0) {
 		long /*int*/ oldModel = modelHandle;
 		long /*int*/[] types = getColumnTypes (1);
 		long /*int*/ newModel = OS.gtk_list_store_newv (types.length, types);
@@ -1002,11 +1022,11 @@ void destroyItem (TableColumn column) {
 			if (item != null) {
 				long /*int*/ iter = item.handle;
 				int modelIndex = column.modelIndex;
-				OS.gtk_list_store_set (modelHandle, iter, modelIndex + CELL_PIXBUF, (long /*int*/)0, -1);
-				OS.gtk_list_store_set (modelHandle, iter, modelIndex + CELL_TEXT, (long /*int*/)0, -1);
-				OS.gtk_list_store_set (modelHandle, iter, modelIndex + CELL_FOREGROUND, (long /*int*/)0, -1);
-				OS.gtk_list_store_set (modelHandle, iter, modelIndex + CELL_BACKGROUND, (long /*int*/)0, -1);
-				OS.gtk_list_store_set (modelHandle, iter, modelIndex + CELL_FONT, (long /*int*/)0, -1);
+				setModelValue (iter, modelIndex + CELL_PIXBUF, (long /*int*/)0);
+				setModelValue (iter, modelIndex + CELL_TEXT, (long /*int*/)0);
+				setModelValue (iter, modelIndex + CELL_FOREGROUND, (long /*int*/)0);
+				setModelValue (iter, modelIndex + CELL_BACKGROUND, (long /*int*/)0);
+				setModelValue (iter, modelIndex + CELL_FONT, (long /*int*/)0);
 				
 				Font [] cellFont = item.cellFont;
 				if (cellFont != null) {
@@ -1044,7 +1064,7 @@ void destroyItem (TableItem item) {
 	if (index == itemCount) return;
 	long /*int*/ selection = OS.gtk_tree_view_get_selection (handle);
 	OS.g_signal_handlers_block_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
-	OS.gtk_list_store_remove (modelHandle, item.handle);
+	removeRow (item.handle);
 	OS.g_signal_handlers_unblock_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
 	System.arraycopy (items, index + 1, items, index, --itemCount - index);
 	items [itemCount] = null;
@@ -2244,6 +2264,8 @@ void releaseChildren (boolean destroy) {
 @Override
 void releaseWidget () {
 	super.releaseWidget ();
+	if (virtualModel != null) virtualModel.release ();
+	virtualModel = null;
 	if (modelHandle != 0) OS.g_object_unref (modelHandle);
 	modelHandle = 0;
 	if (checkRenderer != 0) OS.g_object_unref (checkRenderer);
@@ -2286,7 +2308,7 @@ public void remove (int index) {
 	if (!disposed) {
 		long /*int*/ selection = OS.gtk_tree_view_get_selection (handle);
 		OS.g_signal_handlers_block_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
-		OS.gtk_list_store_remove (modelHandle, iter);
+		removeRow (iter);
 		OS.g_signal_handlers_unblock_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
 		System.arraycopy (items, index + 1, items, index, --itemCount - index);
 		items [itemCount] = null;
@@ -2328,7 +2350,7 @@ public void remove (int start, int end) {
 		TableItem item = items [index];
 		if (item != null && !item.isDisposed ()) item.release (false);
 		OS.g_signal_handlers_block_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
-		OS.gtk_list_store_remove (modelHandle, iter);
+		removeRow (iter);
 		OS.g_signal_handlers_unblock_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
 		index--;
 	}
@@ -2392,7 +2414,7 @@ public void remove (int [] indices) {
 			}
 			if (!disposed) {
 				OS.g_signal_handlers_block_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
-				OS.gtk_list_store_remove (modelHandle, iter);
+				removeRow (iter);
 				OS.g_signal_handlers_unblock_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
 				System.arraycopy (items, index + 1, items, index, --itemCount - index);
 				items [itemCount] = null;
@@ -2430,7 +2452,18 @@ public void removeAll () {
 	if (fixAccessibility ()) {
 		ignoreAccessibility = true;
 	}
-	OS.gtk_list_store_clear (modelHandle);
+	if (virtualModel != null) {
+		/*
+		* Removing the rows one at a time makes the tree view update
+		* itself for each of them.  The fix is to detach the model
+		* while it is cleared.
+		*/
+		OS.gtk_tree_view_set_model (handle, 0);
+		virtualModel.clear (false);
+		OS.gtk_tree_view_set_model (handle, modelHandle);
+	} else {
+		OS.gtk_list_store_clear (modelHandle);
+	}
 	if (fixAccessibility ()) {
 		ignoreAccessibility = false;
 		OS.g_object_notify (handle, OS.model);
@@ -2447,6 +2480,14 @@ public void removeAll () {
 	}
 }
 
+void removeRow (long /*int*/ iter) {
+	if (virtualModel != null) {
+		virtualModel.remove (iter);
+	} else {
+		OS.gtk_list_store_remove (modelHandle, iter);
+	}
+}
+
 /**
  * Removes the listener from the collection of listeners who will
  * be notified when the user changes the receiver's selection.
@@ -3105,19 +3146,37 @@ public void setItemCount (int count) {
 	System.arraycopy (items, 0, newItems, 0, itemCount);
 	items = newItems;
 	if (isVirtual) {
-		long /*int*/ iter = OS.g_malloc (OS.GtkTreeIter_sizeof ());
-		if (iter == 0) error (SWT.ERROR_NO_HANDLES);
 		if (fixAccessibility ()) {
 			ignoreAccessibility = true;
 		}
-		for (int i=itemCount; i<count; i++) {
-			OS.gtk_list_store_append (modelHandle, iter);
+		/*
+		* The rows of a virtual table hold no values until they are
+		* materialized, so they are only counted by the model.  Adding
+		* them one at a time makes the tree view update itself for each
+		* of them.  The fix is to detach the model when the table is
+		* empty and let the tree view read all the rows when it is
+		* attached again.
+		*/
+		if (virtualModel != null) {
+			boolean detach = itemCount == 0;
+			if (detach) OS.gtk_tree_view_set_model (handle, 0);
+			virtualModel.append (0, count - itemCount, !detach);
+			if (detach) {
+				OS.gtk_tree_view_set_model (handle, modelHandle);
+				OS.gtk_tree_view_set_search_column (handle, -1);
+			}
+		} else {
+			long /*int*/ iter = OS.g_malloc (OS.GtkTreeIter_sizeof ());
+			if (iter == 0) error (SWT.ERROR_NO_HANDLES);
+			for (int i=itemCount; i<count; i++) {
+				OS.gtk_list_store_append (modelHandle, iter);
+			}
+			OS.g_free (iter);
 		}
 		if (fixAccessibility ()) {
 			ignoreAccessibility = false;
 			OS.g_object_notify (handle, OS.model);
 		}
-		OS.g_free (iter);
 		itemCount = count;
 	} else {
 		for (int i=itemCount; i<count; i++) {
@@ -3127,6 +3186,78 @@ public void setItemCount (int count) {
 	if (!isVirtual) setRedraw (true);
 }
 
+/**
+ * Sets the receiver's items to one item for each of the given rows,
+ * with the strings of a row as the text of the columns of its item.
+ * Strings beyond the number of columns and null strings are ignored.
+ * <p>
+ * This is equivalent to removing all of the items and creating an
+ * item for each row with its text set, but it is much faster for
+ * large numbers of rows.
+ * </p>
+ *
+ * @param rows the strings of the items, one array per item
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the rows array is null</li>
+ *    <li>ERROR_INVALID_ARGUMENT - if a row in the rows array is null</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_WIDGET_DISPOSED - if the receiver has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the receiver</li>
+ * </ul>
+ *
+ * @see TableItem#setText(String[])
+ *
+ * @since 3.103
+ */
+public void setItems (String [][] rows) {
+	checkWidget ();
+	if (rows == null) error (SWT.ERROR_NULL_ARGUMENT);
+	for (int i=0; i<rows.length; i++) {
+		if (rows [i] == null) error (SWT.ERROR_INVALID_ARGUMENT);
+	}
+	removeAll ();
+	if (rows.length == 0) return;
+	items = new TableItem [Math.max (4, rows.length)];
+	long /*int*/ selection = OS.gtk_tree_view_get_selection (handle);
+	OS.g_signal_handlers_block_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
+	if (fixAccessibility ()) {
+		ignoreAccessibility = true;
+	}
+	/*
+	* Adding the rows one at a time makes the tree view update
+	* itself for each of them.  The fix is to detach the model
+	* while it is filled.
+	*/
+	OS.gtk_tree_view_set_model (handle, 0);
+	int count = Math.max (1, columnCount);
+	for (int i=0; i<rows.length; i++) {
+		TableItem item = new TableItem (this, SWT.NONE, i, true);
+		String [] row = rows [i];
+		for (int j=0; j<row.length && j<count; j++) {
+			if (row [j] == null) continue;
+			byte [] buffer = Converter.wcsToMbcs (null, row [j], true);
+			int modelIndex = columnCount == 0 ? FIRST_COLUMN : columns [j].modelIndex;
+			setModelValue (item.handle, modelIndex + CELL_TEXT, buffer);
+		}
+		item.cached = true;
+	}
+	OS.gtk_tree_view_set_model (handle, modelHandle);
+	if (!searchEnabled ()) {
+		OS.gtk_tree_view_set_search_column (handle, -1); 
+	} else {
+		/* Set the search column whenever the model changes */
+		int firstColumn = columnCount == 0 ? FIRST_COLUMN : columns [0].modelIndex;
+		OS.gtk_tree_view_set_search_column (handle, firstColumn + CELL_TEXT);
+	}
+	if (fixAccessibility ()) {
+		ignoreAccessibility = false;
+		OS.g_object_notify (handle, OS.model);
+	}
+	OS.g_signal_handlers_unblock_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
+}
+
 /**
  * Marks the receiver's lines as visible if the argument is <code>true</code>,
  * and marks it invisible otherwise. Note that some platforms draw grid lines
@@ -3152,6 +3283,46 @@ public void setLinesVisible (boolean show) {
 	}
 }
 
+void setModelValue (long /*int*/ iter, int column, boolean value) {
+	if (virtualModel != null) {
+		virtualModel.set (iter, column, value);
+	} else {
+		OS.gtk_list_store_set (modelHandle, iter, column, value, -1);
+	}
+}
+
+void setModelValue (long /*int*/ iter, int column, byte [] value) {
+	if (virtualModel != null) {
+		virtualModel.set (iter, column, value);
+	} else {
+		OS.gtk_list_store_set (modelHandle, iter, column, value, -1);
+	}
+}
+
+void setModelValue (long /*int*/ iter, int column, GdkColor value) {
+	if (virtualModel != null) {
+		virtualModel.set (iter, column, value);
+	} else {
+		OS.gtk_list_store_set (modelHandle, iter, column, value, -1);
+	}
+}
+
+void setModelValue (long /*int*/ iter, int column, int value) {
+	if (virtualModel != null) {
+		virtualModel.set (iter, column, value);
+	} else {
+		OS.gtk_list_store_set (modelHandle, iter, column, value, -1);
+	}
+}
+
+void setModelValue (long /*int*/ iter, int column, long value) {
+	if (virtualModel != null) {
+		virtualModel.set (iter, column, value);
+	} else {
+		OS.gtk_list_store_set (modelHandle, iter, column, value, -1);
+	}
+}
+
 void setModel (long /*int*/ newModel) {
 	display.removeWidget (modelHandle);
 	OS.g_object_unref (modelHandle);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -200,10 +200,11 @@ String _getText (int index) {
 	OS.gtk_tree_model_get (parent.modelHandle, handle, modelIndex + Table.CELL_TEXT, ptr, -1);
 	if (ptr [0] == 0) return "";
 	int length = OS.strlen (ptr [0]);
-	byte[] buffer = new byte [length];
+	byte[] buffer = Converter.getByteBuffer (length);
 	OS.memmove (buffer, ptr [0], length);
 	OS.g_free (ptr [0]);
-	return new String (Converter.mbcsToWcs (null, buffer));
+	char[] chars = new char [length];
+	return new String (chars, 0, Converter.mbcsToWcs (buffer, 0, length, chars, 0));
 }
 
 @Override
@@ -217,10 +218,10 @@ void clear () {
 		int columnCount = OS.gtk_tree_model_get_n_columns (parent.modelHandle);
 		/* the columns before FOREGROUND_COLUMN contain int values, subsequent columns contain pointers */
 		for (int i=Table.CHECKED_COLUMN; i<Table.FOREGROUND_COLUMN; i++) {
-			OS.gtk_list_store_set (parent.modelHandle, handle, i, 0, -1);
+			parent.setModelValue (handle, i, 0);
 		}
 		for (int i=Table.FOREGROUND_COLUMN; i<columnCount; i++) {
-			OS.gtk_list_store_set (parent.modelHandle, handle, i, (long /*int*/)0, -1);
+			parent.setModelValue (handle, i, (long /*int*/)0);
 		}
 	}
 	cached = false;
@@ -734,7 +735,7 @@ public void setBackground (Color color) {
 	}
 	if (_getBackground ().equals (color)) return;
 	GdkColor gdkColor = color != null ? color.handle : null;
-	OS.gtk_list_store_set (parent.modelHandle, handle, Table.BACKGROUND_COLUMN, gdkColor, -1);
+	parent.setModelValue (handle, Table.BACKGROUND_COLUMN, gdkColor);
 	cached = true;
 }
 
@@ -766,7 +767,7 @@ public void setBackground (int index, Color color) {
 	if (0 > index || index > count - 1) return;
 	int modelIndex = parent.columnCount == 0 ? Table.FIRST_COLUMN : parent.columns [index].modelIndex;
 	GdkColor gdkColor = color != null ? color.handle : null;
-	OS.gtk_list_store_set (parent.modelHandle, handle, modelIndex + Table.CELL_BACKGROUND, gdkColor, -1);
+	parent.setModelValue (handle, modelIndex + Table.CELL_BACKGROUND, gdkColor);
 	cached = true;
 	
 	if (color != null) {
@@ -810,13 +811,13 @@ public void setChecked (boolean checked) {
 	checkWidget();
 	if ((parent.style & SWT.CHECK) == 0) return;
 	if (_getChecked () == checked) return;
-	OS.gtk_list_store_set (parent.modelHandle, handle, Table.CHECKED_COLUMN, checked, -1);
+	parent.setModelValue (handle, Table.CHECKED_COLUMN, checked);
 	/*
 	* GTK+'s "inconsistent" state does not match SWT's concept of grayed.  To
 	* show checked+grayed differently from unchecked+grayed, we must toggle the
 	* grayed state on check and uncheck. 
 	*/
-	OS.gtk_list_store_set (parent.modelHandle, handle, Table.GRAYED_COLUMN, !checked ? false : grayed, -1);
+	parent.setModelValue (handle, Table.GRAYED_COLUMN, !checked ? false : grayed);
 	cached = true;
 }
 
@@ -847,7 +848,7 @@ public void setFont (Font font){
 	this.font = font;
 	if (oldFont != null && oldFont.equals (font)) return;
 	long /*int*/ fontHandle = font != null ? font.handle : 0;
-	OS.gtk_list_store_set (parent.modelHandle, handle, Table.FONT_COLUMN, fontHandle, -1);
+	parent.setModelValue (handle, Table.FONT_COLUMN, fontHandle);
 	cached = true;
 }
 
@@ -888,7 +889,7 @@ public void setFont (int index, Font font) {
 
 	int modelIndex = parent.columnCount == 0 ? Table.FIRST_COLUMN : parent.columns [index].modelIndex;
 	long /*int*/ fontHandle  = font != null ? font.handle : 0;
-	OS.gtk_list_store_set (parent.modelHandle, handle, modelIndex + Table.CELL_FONT, fontHandle, -1);
+	parent.setModelValue (handle, modelIndex + Table.CELL_FONT, fontHandle);
 	cached = true;	
 	
 	if (font != null) {
@@ -941,7 +942,7 @@ public void setForeground (Color color){
 	}
 	if (_getForeground ().equals (color)) return;
 	GdkColor gdkColor = color != null ? color.handle : null;
-	OS.gtk_list_store_set (parent.modelHandle, handle, Table.FOREGROUND_COLUMN, gdkColor, -1);
+	parent.setModelValue (handle, Table.FOREGROUND_COLUMN, gdkColor);
 	cached = true;
 }
 
@@ -973,7 +974,7 @@ public void setForeground (int index, Color color){
 	if (0 > index || index > count - 1) return;
 	int modelIndex = parent.columnCount == 0 ? Table.FIRST_COLUMN : parent.columns [index].modelIndex;
 	GdkColor gdkColor = color != null ? color.handle : null;
-	OS.gtk_list_store_set (parent.modelHandle, handle, modelIndex + Table.CELL_FOREGROUND, gdkColor, -1);
+	parent.setModelValue (handle, modelIndex + Table.CELL_FOREGROUND, gdkColor);
 	cached = true;
 	
 	if (color != null) {
@@ -1024,7 +1025,7 @@ public void setGrayed (boolean grayed) {
 	*/
 	int [] ptr = new int [1];
 	OS.gtk_tree_model_get (parent.modelHandle, handle, Table.CHECKED_COLUMN, ptr, -1);
-	OS.gtk_list_store_set (parent.modelHandle, handle, Table.GRAYED_COLUMN, ptr [0] == 0 ? false : grayed, -1);
+	parent.setModelValue (handle, Table.GRAYED_COLUMN, ptr [0] == 0 ? false : grayed);
 	cached = true;
 }
 
@@ -1061,7 +1062,7 @@ public void setImage (int index, Image image) {
 		pixbuf = imageList.getPixbuf (imageIndex);
 	}
 	int modelIndex = parent.columnCount == 0 ? Table.FIRST_COLUMN : parent.columns [index].modelIndex;
-	OS.gtk_list_store_set (parent.modelHandle, handle, modelIndex + Table.CELL_PIXBUF, pixbuf, -1);
+	parent.setModelValue (handle, modelIndex + Table.CELL_PIXBUF, pixbuf);
 	/*
 	 * Bug in GTK.  When in fixed height mode, GTK does not recalculate the cell renderer width
 	 * when the image is changed in the model.  The fix is to force it to recalculate the width if
@@ -1156,12 +1157,12 @@ public void setImageIndent (int indent) {
 public void setText (int index, String string) {
 	checkWidget ();
 	if (string == null) error (SWT.ERROR_NULL_ARGUMENT);
-	if (_getText (index).equals (string)) return;
 	int count = Math.max (1, parent.getColumnCount ());
 	if (0 > index || index > count - 1) return;
 	byte[] buffer = Converter.wcsToMbcs (null, string, true);
 	int modelIndex = parent.columnCount == 0 ? Table.FIRST_COLUMN : parent.columns [index].modelIndex;
-	OS.gtk_list_store_set (parent.modelHandle, handle, modelIndex + Table.CELL_TEXT, buffer, -1);
+	if (modelTextEquals (parent.modelHandle, handle, modelIndex + Table.CELL_TEXT, buffer)) return;
+	parent.setModelValue (handle, modelIndex + Table.CELL_TEXT, buffer);
 	cached = true;
 }
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -77,11 +77,12 @@ import org.eclipse.swt.events.*;
  */
 public class Tree extends Composite {
 	long /*int*/ modelHandle, checkRenderer;
-	int columnCount, sortDirection;
+	int columnCount, sortDirection, freeId;
 	long /*int*/ ignoreCell;
 	TreeItem[] items;
 	TreeColumn [] columns;
 	TreeColumn sortColumn;
+	VirtualModel virtualModel;
 	TreeItem currentItem;
 	ImageList imageList, headerImageList;
 	boolean firstCustomDraw;
@@ -191,15 +192,16 @@ int getId (long /*int*/ iter, boolean queryModel) {
 		OS.gtk_tree_model_get (modelHandle, iter, ID_COLUMN, value, -1);
 		if (value [0] != -1) return value [0];
 	}
-	// find next available id
-	int id = 0;
+	// find next available id, no id below freeId is available
+	int id = freeId;
 	while (id < items.length && items [id] != null) id++;
 	if (id == items.length) {
-		TreeItem [] newItems = new TreeItem [items.length + 4];
+		TreeItem [] newItems = new TreeItem [Math.max (4, items.length * 3 / 2)];
 		System.arraycopy (items, 0, newItems, 0, items.length);
 		items = newItems;
 	}
-	OS.gtk_tree_store_set (modelHandle, iter, ID_COLUMN, id, -1);
+	freeId = id + 1;
+	setModelValue (iter, ID_COLUMN, id);
 	return id;
 }
 
@@ -327,6 +329,102 @@ protected void checkSubclass () {
 	if (!isValidSubclass ()) error (SWT.ERROR_INVALID_SUBCLASS);
 }
 
+/**
+ * Adds an item for each of the given rows to the end of the items
+ * of the given parent item, or of the root items of the receiver
+ * when the parent item is null. The strings of a row are the text
+ * of the columns of its item. Strings beyond the number of columns
+ * and null strings are ignored.
+ * <p>
+ * This is equivalent to creating an item for each row and setting
+ * its text, but it is much faster for large numbers of rows.
+ * </p>
+ *
+ * @param parentItem the parent of the new items, or null for root items
+ * @param rows the strings of the new items, one array per item
+ *
+ * @exception IllegalArgumentException <ul>
+ *    <li>ERROR_NULL_ARGUMENT - if the rows array is null</li>
+ *    <li>ERROR_INVALID_ARGUMENT - if a row in the rows array is null or the parent item has been disposed</li>
+ *    <li>ERROR_INVALID_PARENT - if the parent item is not an item of the receiver</li>
+ * </ul>
+ * @exception SWTException <ul>
+ *    <li>ERROR_WIDGET_DISPOSED - if the receiver has been disposed</li>
+ *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the receiver</li>
+ * </ul>
+ *
+ * @see TreeItem#setText(String[])
+ *
+ * @since 3.103
+ */
+public void addItems (TreeItem parentItem, String [][] rows) {
+	checkWidget ();
+	if (rows == null) error (SWT.ERROR_NULL_ARGUMENT);
+	for (int i=0; i<rows.length; i++) {
+		if (rows [i] == null) error (SWT.ERROR_INVALID_ARGUMENT);
+	}
+	long /*int*/ parentIter = 0;
+	if (parentItem != null) {
+		if (parentItem.isDisposed ()) error (SWT.ERROR_INVALID_ARGUMENT);
+		if (parentItem.parent != this) error (SWT.ERROR_INVALID_PARENT);
+		parentIter = parentItem.handle;
+	}
+	if (rows.length == 0) return;
+	int count = OS.gtk_tree_model_iter_n_children (modelHandle, parentIter);
+	if (items.length < freeId + rows.length) {
+		TreeItem [] newItems = new TreeItem [freeId + rows.length];
+		System.arraycopy (items, 0, newItems, 0, items.length);
+		items = newItems;
+	}
+	long /*int*/ selection = OS.gtk_tree_view_get_selection (handle);
+	OS.g_signal_handlers_block_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
+	if (fixAccessibility ()) {
+		ignoreAccessibility = true;
+	}
+	/*
+	* Adding the rows one at a time makes the tree view update
+	* itself for each of them.  The fix is to detach the model
+	* while it is filled.  Detaching the model collapses all the
+	* items, so it is only done when the tree is empty.
+	*/
+	boolean detach = parentIter == 0 && count == 0;
+	if (detach) {
+		OS.gtk_tree_view_set_model (handle, 0);
+	} else {
+		setRedraw (false);
+	}
+	int cellCount = Math.max (1, columnCount);
+	for (int i=0; i<rows.length; i++) {
+		TreeItem item = new TreeItem (this, parentIter, SWT.NONE, count + i, count + i);
+		String [] row = rows [i];
+		for (int j=0; j<row.length && j<cellCount; j++) {
+			if (row [j] == null) continue;
+			byte [] buffer = Converter.wcsToMbcs (null, row [j], true);
+			int modelIndex = columnCount == 0 ? FIRST_COLUMN : columns [j].modelIndex;
+			setModelValue (item.handle, modelIndex + CELL_TEXT, buffer);
+		}
+		item.cached = true;
+	}
+	if (detach) {
+		OS.gtk_tree_view_set_model (handle, modelHandle);
+		if (!searchEnabled ()) {
+			OS.gtk_tree_view_set_search_column (handle, -1); 
+		} else {
+			/* Set the search column whenever the model changes */
+			int firstColumn = columnCount == 0 ? FIRST_COLUMN : columns [0].modelIndex;
+			OS.gtk_tree_view_set_search_column (handle, firstColumn + CELL_TEXT);
+		}
+	} else {
+		setRedraw (true);
+	}
+	if (fixAccessibility ()) {
+		ignoreAccessibility = false;
+		OS.g_object_notify (handle, OS.model);
+	}
+	OS.g_signal_handlers_unblock_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
+	modelChanged = true;
+}
+
 /**
  * Adds the listener to the collection of listeners who will
  * be notified when the user changes the receiver's selection, by sending
@@ -656,7 +754,12 @@ void createColumn (TreeColumn column, int index) {
 			if (!usedColumns [modelIndex]) break;
 			modelIndex++;
 		}
-		if (modelIndex == modelLength) {
+		if (modelIndex == modelLength && virtualModel != null) {
+			long /*int*/[] types = getColumnTypes (columnCount + 4); // grow by 4 rows at a time
+			int [] map = new int [types.length];
+			for (int i=0; i<map.length; i++) map [i] = i < modelLength ? i : -1;
+			virtualModel.setColumnTypes (types, map);
+		} else if (modelIndex == modelLength) {
 			long /*int*/ oldModel = modelHandle;
 			long /*int*/[] types = getColumnTypes (columnCount + 4); // grow by 4 rows at a time
 			long /*int*/ newModel = OS.gtk_tree_store_newv (types.length, types);
@@ -710,7 +813,12 @@ void createHandle (int index) {
 	scrolledHandle = OS.gtk_scrolled_window_new (0, 0);
 	if (scrolledHandle == 0) error (SWT.ERROR_NO_HANDLES);
 	long /*int*/ [] types = getColumnTypes (1);
-	modelHandle = OS.gtk_tree_store_newv (types.length, types);
+	if ((style & SWT.VIRTUAL) != 0 && VirtualModel.isSupported ()) {
+		virtualModel = new VirtualModel (false, types);
+		modelHandle = virtualModel.handle;
+	} else {
+		modelHandle = OS.gtk_tree_store_newv (types.length, types);
+	}
 	if (modelHandle == 0) error (SWT.ERROR_NO_HANDLES);
 	handle = OS.gtk_tree_view_new_with_model (modelHandle);
 	if (handle == 0) error (SWT.ERROR_NO_HANDLES);
@@ -812,13 +920,19 @@ void createItem (TreeItem item, long /*int*/ parentIter, int index) {
 	int count = OS.gtk_tree_model_iter_n_children (modelHandle, parentIter);
 	if (index == -1) index = count;
 	if (!(0 <= index && index <= count)) error (SWT.ERROR_INVALID_RANGE);
+	createItem (item, parentIter, index, count);
+}
+
+void createItem (TreeItem item, long /*int*/ parentIter, int index, int count) {
 	item.handle = OS.g_malloc (OS.GtkTreeIter_sizeof ());
 	if (item.handle == 0) error(SWT.ERROR_NO_HANDLES);
 	/*
 	* Feature in GTK.  It is much faster to append to a tree store
 	* than to insert at the end using gtk_tree_store_insert(). 
 	*/
-	if (index == count) {
+	if (virtualModel != null) {
+		virtualModel.insert (parentIter, item.handle, index);
+	} else if (index == count) {
 		OS.gtk_tree_store_append (modelHandle, item.handle, parentIter);
 	} else {
 		OS.gtk_tree_store_insert (modelHandle, item.handle, parentIter, index);
@@ -906,6 +1020,7 @@ void createRenderers (long /*int*/ columnHandle, int modelIndex, boolean check,
 void createWidget (int index) {
 	super.createWidget (index);
 	items = new TreeItem [4];
+	freeId = 0;
 	columns = new TreeColumn [4];
 	columnCount = 0;
 }
@@ -987,7 +1102,14 @@ void destroyItem (TreeColumn column) {
 	System.arraycopy (columns, index + 1, columns, index, --columnCount - index);
 	columns [columnCount] = null;
 	OS.gtk_tree_view_remove_column (handle, columnHandle);
-	if (columnCount == 0) {
+	if (columnCount == 0 && virtualModel != null) {
+		long /*int*/[] types = getColumnTypes (1);
+		int [] map = new int [types.length];
+		for (int i=0; i<FIRST_COLUMN; i++) map [i] = i;
+		for (int i=0; i<CELL_TYPES; i++) map [FIRST_COLUMN + i] = column.modelIndex + i;
+		virtualModel.setColumnTypes (types, map);
+		createColumn (null, 0);
+	} else if (columnCount == 0) {
 		long /*int*/ oldModel = modelHandle;
 		long /*int*/[] types = getColumnTypes (1);
 		long /*int*/ newModel = OS.gtk_tree_store_newv (types.length, types);
@@ -1002,11 +1124,11 @@ void destroyItem (TreeColumn column) {
 			if (item != null) {
 				long /*int*/ iter = item.handle;
 				int modelIndex = column.modelIndex;
-				OS.gtk_tree_store_set (modelHandle, iter, modelIndex + CELL_PIXBUF, (long /*int*/)0, -1);
-				OS.gtk_tree_store_set (modelHandle, iter, modelIndex + CELL_TEXT, (long /*int*/)0, -1);
-				OS.gtk_tree_store_set (modelHandle, iter, modelIndex + CELL_FOREGROUND, (long /*int*/)0, -1);
-				OS.gtk_tree_store_set (modelHandle, iter, modelIndex + CELL_BACKGROUND, (long /*int*/)0, -1);
-				OS.gtk_tree_store_set (modelHandle, iter, modelIndex + CELL_FONT, (long /*int*/)0, -1);
+				setModelValue (iter, modelIndex + CELL_PIXBUF, (long /*int*/)0);
+				setModelValue (iter, modelIndex + CELL_TEXT, (long /*int*/)0);
+				setModelValue (iter, modelIndex + CELL_FOREGROUND, (long /*int*/)0);
+				setModelValue (iter, modelIndex + CELL_BACKGROUND, (long /*int*/)0);
+				setModelValue (iter, modelIndex + CELL_FONT, (long /*int*/)0);
 				
 				Font [] cellFont = item.cellFont;
 				if (cellFont != null) {
@@ -1042,7 +1164,7 @@ void destroyItem (TreeColumn column) {
 void destroyItem (TreeItem item) {
 	long /*int*/ selection = OS.gtk_tree_view_get_selection (handle);
 	OS.g_signal_handlers_block_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
-	OS.gtk_tree_store_remove (modelHandle, item.handle);
+	removeRow (item.handle);
 	OS.g_signal_handlers_unblock_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
 	modelChanged = true;
 }
@@ -2300,6 +2422,7 @@ void releaseItem (TreeItem item, boolean release) {
 	if (index [0] == -1) return;
 	if (release) item.release (false);
 	items [index [0]] = null;
+	freeId = Math.min (freeId, index [0]);
 }
 
 void releaseItems (long /*int*/ parentIter) {
@@ -2346,6 +2469,8 @@ void releaseChildren (boolean destroy) {
 @Override
 void releaseWidget () {
 	super.releaseWidget ();
+	if (virtualModel != null) virtualModel.release ();
+	virtualModel = null;
 	if (modelHandle != 0) OS.g_object_unref (modelHandle);
 	modelHandle = 0;
 	if (checkRenderer != 0) OS.g_object_unref (checkRenderer);
@@ -2377,7 +2502,7 @@ void remove (long /*int*/ parentIter, int start, int end) {
 			item.dispose ();
 		} else {
 			OS.g_signal_handlers_block_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
-			OS.gtk_tree_store_remove (modelHandle, iter);
+			removeRow (iter);
 			OS.g_signal_handlers_unblock_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
 		}
 	}
@@ -2403,6 +2528,7 @@ public void removeAll () {
 		if (item != null && !item.isDisposed ()) item.release (false);
 	}
 	items = new TreeItem[4];
+	freeId = 0;
 	long /*int*/ selection = OS.gtk_tree_view_get_selection (handle);
 	OS.g_signal_handlers_block_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
 	if (fixAccessibility ()) {
@@ -2414,7 +2540,11 @@ public void removeAll () {
 	 * By disconnecting the model from the handle while clearing no intermediate signals are emitted.
 	 */
 	OS.gtk_tree_view_set_model(handle, 0);
-	OS.gtk_tree_store_clear (modelHandle);
+	if (virtualModel != null) {
+		virtualModel.clear (false);
+	} else {
+		OS.gtk_tree_store_clear (modelHandle);
+	}
 	OS.gtk_tree_view_set_model(handle, modelHandle);
 	if (fixAccessibility ()) {
 		ignoreAccessibility = false;
@@ -2431,6 +2561,14 @@ public void removeAll () {
 	}
 }
 
+void removeRow (long /*int*/ iter) {
+	if (virtualModel != null) {
+		virtualModel.remove (iter);
+	} else {
+		OS.gtk_tree_store_remove (modelHandle, iter);
+	}
+}
+
 /**
  * Removes the listener from the collection of listeners who will
  * be notified when the user changes the receiver's selection.
@@ -2858,12 +2996,30 @@ void setItemCount (long /*int*/ parentIter, int count) {
 		if (fixAccessibility ()) {
 			ignoreAccessibility = true;
 		}
-		for (int i=itemCount; i<count; i++) {
-			long /*int*/ iter = OS.g_malloc (OS.GtkTreeIter_sizeof ());
-			if (iter == 0) error (SWT.ERROR_NO_HANDLES);
-			OS.gtk_tree_store_append (modelHandle, iter, parentIter);
-			OS.gtk_tree_store_set (modelHandle, iter, ID_COLUMN, -1, -1);
-			OS.g_free (iter);
+		/*
+		* The rows of a virtual tree hold no values until they are
+		* materialized, so they are only counted by the model and
+		* answer -1 for their ids.  Adding them one at a time makes
+		* the tree view update itself for each of them.  The fix is
+		* to detach the model when the tree is empty and let the tree
+		* view read all the rows when it is attached again.
+		*/
+		if (virtualModel != null) {
+			boolean detach = parentIter == 0 && itemCount == 0;
+			if (detach) OS.gtk_tree_view_set_model (handle, 0);
+			virtualModel.append (parentIter, count - itemCount, !detach);
+			if (detach) {
+				OS.gtk_tree_view_set_model (handle, modelHandle);
+				OS.gtk_tree_view_set_search_column (handle, -1);
+			}
+		} else {
+			for (int i=itemCount; i<count; i++) {
+				long /*int*/ iter = OS.g_malloc (OS.GtkTreeIter_sizeof ());
+				if (iter == 0) error (SWT.ERROR_NO_HANDLES);
+				OS.gtk_tree_store_append (modelHandle, iter, parentIter);
+				OS.gtk_tree_store_set (modelHandle, iter, ID_COLUMN, -1, -1);
+				OS.g_free (iter);
+			}
 		}
 		if (fixAccessibility ()) {
 			ignoreAccessibility = false;
@@ -3089,6 +3245,46 @@ public void setLinesVisible (boolean show) {
 	}
 }
 
+void setModelValue (long /*int*/ iter, int column, boolean value) {
+	if (virtualModel != null) {
+		virtualModel.set (iter, column, value);
+	} else {
+		OS.gtk_tree_store_set (modelHandle, iter, column, value, -1);
+	}
+}
+
+void setModelValue (long /*int*/ iter, int column, byte [] value) {
+	if (virtualModel != null) {
+		virtualModel.set (iter, column, value);
+	} else {
+		OS.gtk_tree_store_set (modelHandle, iter, column, value, -1);
+	}
+}
+
+void setModelValue (long /*int*/ iter, int column, GdkColor value) {
+	if (virtualModel != null) {
+		virtualModel.set (iter, column, value);
+	} else {
+		OS.gtk_tree_store_set (modelHandle, iter, column, value, -1);
+	}
+}
+
+void setModelValue (long /*int*/ iter, int column, int value) {
+	if (virtualModel != null) {
+		virtualModel.set (iter, column, value);
+	} else {
+		OS.gtk_tree_store_set (modelHandle, iter, column, value, -1);
+	}
+}
+
+void setModelValue (long /*int*/ iter, int column, long value) {
+	if (virtualModel != null) {
+		virtualModel.set (iter, column, value);
+	} else {
+		OS.gtk_tree_store_set (modelHandle, iter, column, value, -1);
+	}
+}
+
 void setModel (long /*int*/ newModel) {
 	display.removeWidget (modelHandle);
 	OS.g_object_unref (modelHandle);
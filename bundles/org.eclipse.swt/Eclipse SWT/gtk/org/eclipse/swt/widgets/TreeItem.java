@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -192,6 +192,16 @@ TreeItem (Tree parent, long /*int*/ parentIter, int style, int index, boolean cr
 	}
 }
 
+/*
+* Creates the item at the index of a parent item that is known
+* to have the given number of children.
+*/
+TreeItem (Tree parent, long /*int*/ parentIter, int style, int index, int count) {
+	super (parent, style);
+	this.parent = parent;
+	parent.createItem (this, parentIter, index, count);
+}
+
 static int checkIndex (int index) {
 	if (index < 0) SWT.error (SWT.ERROR_INVALID_RANGE);
 	return index;
@@ -286,10 +296,11 @@ String _getText (int index) {
 	OS.gtk_tree_model_get (parent.modelHandle, handle, modelIndex + Tree.CELL_TEXT, ptr, -1);
 	if (ptr [0] == 0) return ""; //$NON-NLS-1$
 	int length = OS.strlen (ptr [0]);
-	byte[] buffer = new byte [length];
+	byte[] buffer = Converter.getByteBuffer (length);
 	OS.memmove (buffer, ptr [0], length);
 	OS.g_free (ptr [0]);
-	return new String (Converter.mbcsToWcs (null, buffer));
+	char[] chars = new char [length];
+	return new String (chars, 0, Converter.mbcsToWcs (buffer, 0, length, chars, 0));
 }
 
 void clear () {
@@ -298,10 +309,10 @@ void clear () {
 		int columnCount = OS.gtk_tree_model_get_n_columns (parent.modelHandle);
 		/* the columns before FOREGROUND_COLUMN contain int values, subsequent columns contain pointers */
 		for (int i=Tree.CHECKED_COLUMN; i<Tree.FOREGROUND_COLUMN; i++) {
-			OS.gtk_tree_store_set (parent.modelHandle, handle, i, 0, -1);
+			parent.setModelValue (handle, i, 0);
 		}
 		for (int i=Tree.FOREGROUND_COLUMN; i<columnCount; i++) {
-			OS.gtk_tree_store_set (parent.modelHandle, handle, i, (long /*int*/)0, -1);
+			parent.setModelValue (handle, i, (long /*int*/)0);
 		}
 	}
 	cached = false;
@@ -1031,7 +1042,7 @@ public void removeAll () {
 			item.dispose ();
 		} else {
 			OS.g_signal_handlers_block_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
-			OS.gtk_tree_store_remove (modelHandle, iter);
+			parent.removeRow (iter);
 			OS.g_signal_handlers_unblock_matched (selection, OS.G_SIGNAL_MATCH_DATA, 0, 0, 0, 0, CHANGED);
 		}
 	}
@@ -1067,7 +1078,7 @@ public void setBackground (Color color) {
 	}
 	if (_getBackground ().equals (color)) return;
 	GdkColor gdkColor = color != null ? color.handle : null;
-	OS.gtk_tree_store_set (parent.modelHandle, handle, Tree.BACKGROUND_COLUMN, gdkColor, -1);
+	parent.setModelValue (handle, Tree.BACKGROUND_COLUMN, gdkColor);
 	cached = true;
 }
 
@@ -1100,7 +1111,7 @@ public void setBackground (int index, Color color) {
 	if (0 > index || index > count - 1) return;
 	int modelIndex = parent.columnCount == 0 ? Tree.FIRST_COLUMN : parent.columns [index].modelIndex;
 	GdkColor gdkColor = color != null ? color.handle : null;
-	OS.gtk_tree_store_set (parent.modelHandle, handle, modelIndex + Tree.CELL_BACKGROUND, gdkColor, -1);
+	parent.setModelValue (handle, modelIndex + Tree.CELL_BACKGROUND, gdkColor);
 	cached = true;
 	
 	if (color != null) {
@@ -1144,13 +1155,13 @@ public void setChecked (boolean checked) {
 	checkWidget();
 	if ((parent.style & SWT.CHECK) == 0) return;
 	if (_getChecked () == checked) return;
-	OS.gtk_tree_store_set (parent.modelHandle, handle, Tree.CHECKED_COLUMN, checked, -1);
+	parent.setModelValue (handle, Tree.CHECKED_COLUMN, checked);
 	/*
 	* GTK+'s "inconsistent" state does not match SWT's concept of grayed.  To
 	* show checked+grayed differently from unchecked+grayed, we must toggle the
 	* grayed state on check and uncheck. 
 	*/
-	OS.gtk_tree_store_set (parent.modelHandle, handle, Tree.GRAYED_COLUMN, !checked ? false : grayed, -1);
+	parent.setModelValue (handle, Tree.GRAYED_COLUMN, !checked ? false : grayed);
 	cached = true;
 }
 
@@ -1211,7 +1222,7 @@ public void setFont (Font font){
 	this.font = font;
 	if (oldFont != null && oldFont.equals (font)) return;
 	long /*int*/ fontHandle = font != null ? font.handle : 0;
-	OS.gtk_tree_store_set (parent.modelHandle, handle, Tree.FONT_COLUMN, fontHandle, -1);
+	parent.setModelValue (handle, Tree.FONT_COLUMN, fontHandle);
 	cached = true;
 }
 
@@ -1252,7 +1263,7 @@ public void setFont (int index, Font font) {
 	
 	int modelIndex = parent.columnCount == 0 ? Tree.FIRST_COLUMN : parent.columns [index].modelIndex;
 	long /*int*/ fontHandle  = font != null ? font.handle : 0;
-	OS.gtk_tree_store_set (parent.modelHandle, handle, modelIndex + Tree.CELL_FONT, fontHandle, -1);
+	parent.setModelValue (handle, modelIndex + Tree.CELL_FONT, fontHandle);
 	cached = true;
 	
 	if (font != null) {
@@ -1306,7 +1317,7 @@ public void setForeground (Color color){
 	}
 	if (_getForeground ().equals (color)) return;
 	GdkColor gdkColor = color != null ? color.handle : null;
-	OS.gtk_tree_store_set (parent.modelHandle, handle, Tree.FOREGROUND_COLUMN, gdkColor, -1);
+	parent.setModelValue (handle, Tree.FOREGROUND_COLUMN, gdkColor);
 	cached = true;
 }
 
@@ -1339,7 +1350,7 @@ public void setForeground (int index, Color color){
 	if (0 > index || index > count - 1) return;
 	int modelIndex = parent.columnCount == 0 ? Tree.FIRST_COLUMN : parent.columns [index].modelIndex;
 	GdkColor gdkColor = color != null ? color.handle : null;
-	OS.gtk_tree_store_set (parent.modelHandle, handle, modelIndex + Tree.CELL_FOREGROUND, gdkColor, -1);
+	parent.setModelValue (handle, modelIndex + Tree.CELL_FOREGROUND, gdkColor);
 	cached = true;
 	
 	if (color != null) {
@@ -1390,7 +1401,7 @@ public void setGrayed (boolean grayed) {
 	*/
 	int [] ptr = new int [1];
 	OS.gtk_tree_model_get (parent.modelHandle, handle, Tree.CHECKED_COLUMN, ptr, -1);
-	OS.gtk_tree_store_set (parent.modelHandle, handle, Tree.GRAYED_COLUMN, ptr [0] == 0 ? false : grayed, -1);
+	parent.setModelValue (handle, Tree.GRAYED_COLUMN, ptr [0] == 0 ? false : grayed);
 	cached = true;
 }
 
@@ -1429,7 +1440,7 @@ public void setImage (int index, Image image) {
 		pixbuf = imageList.getPixbuf (imageIndex);
 	}
 	int modelIndex = parent.columnCount == 0 ? Tree.FIRST_COLUMN : parent.columns [index].modelIndex;
-	OS.gtk_tree_store_set (parent.modelHandle, handle, modelIndex + Tree.CELL_PIXBUF, pixbuf, -1);
+	parent.setModelValue (handle, modelIndex + Tree.CELL_PIXBUF, pixbuf);
 	/*
 	* Bug in GTK.  When using fixed-height-mode, GTK does not recalculate the cell renderer width
 	* when the image is changed in the model.  The fix is to force it to recalculate the width if
@@ -1525,12 +1536,12 @@ public void setItemCount (int count) {
 public void setText (int index, String string) {
 	checkWidget ();
 	if (string == null) error (SWT.ERROR_NULL_ARGUMENT);
-	if (_getText (index).equals (string)) return;
 	int count = Math.max (1, parent.getColumnCount ());
 	if (0 > index || index > count - 1) return;
 	byte[] buffer = Converter.wcsToMbcs (null, string, true);
 	int modelIndex = parent.columnCount == 0 ? Tree.FIRST_COLUMN : parent.columns [index].modelIndex;
-	OS.gtk_tree_store_set (parent.modelHandle, handle, modelIndex + Tree.CELL_TEXT, buffer, -1);
+	if (modelTextEquals (parent.modelHandle, handle, modelIndex + Tree.CELL_TEXT, buffer)) return;
+	parent.setModelValue (handle, modelIndex + Tree.CELL_TEXT, buffer);
 	cached = true;
 }
 
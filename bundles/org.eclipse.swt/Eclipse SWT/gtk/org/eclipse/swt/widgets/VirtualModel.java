@@ -0,0 +1,600 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.widgets;
+
+
+import org.eclipse.swt.*;
+import org.eclipse.swt.internal.*;
+import org.eclipse.swt.internal.gtk.*;
+
+/**
+ * Instances of this class implement the GtkTreeModel interface
+ * of a <code>SWT.VIRTUAL</code> table or tree from Java data.
+ * <p>
+ * A GtkListStore or GtkTreeStore allocates a native row for every
+ * item, initializes it and keeps it for the life of the item, so
+ * setting the item count of a virtual widget takes time and memory
+ * proportional to the number of items whether or not they are ever
+ * shown. This model answers the row count, the iterators and the
+ * values of the cells from Java arrays instead. A row is an int id
+ * that is stored in the user data of its iterators, which therefore
+ * persist, and keeps no values until one is set, typically when the
+ * item is materialized by <code>SWT.SetData</code>.
+ * </p><p>
+ * Cells that have not been set answer FALSE, NULL or, for integers,
+ * -1 so that rows can be added without initializing them.
+ * </p><p>
+ * The model needs natives that older libraries do not have. When
+ * they are missing, or when the system property
+ * <code>org.eclipse.swt.internal.gtk.disableVirtualModel</code> is
+ * set, the widgets keep using a GtkListStore or GtkTreeStore.
+ * </p>
+ */
+class VirtualModel {
+	long /*int*/ handle;
+	long /*int*/ [] types;
+	int [] kinds;
+
+	/* The rows, where row 0 is the root */
+	int [] parents, positions, counts;
+	int [][] children;
+	Object [][] values;
+	int [] freeIds;
+	int freeCount, nextId;
+
+	long /*int*/ color;
+	long /*int*/ [] buffer = new long /*int*/ [1];
+	int [] indices = new int [8];
+
+	static final int INT = 0;
+	static final int BOOLEAN = 1;
+	static final int STRING = 2;
+	static final int COLOR = 3;
+	static final int FONT = 4;
+	static final int OBJECT = 5;
+
+	static final String DISABLE = "org.eclipse.swt.internal.gtk.disableVirtualModel"; //$NON-NLS-1$
+	static boolean checked, supported;
+
+	static long /*int*/ list_model_type, tree_model_type;
+	static long /*int*/ model_info_ptr, model_iface_info_ptr;
+	static Callback interfaceInitCallback, getFlagsCallback, getNColumnsCallback, getColumnTypeCallback;
+	static Callback getIterCallback, getPathCallback, getValueCallback, iterNextCallback;
+	static Callback iterChildrenCallback, iterHasChildCallback, iterNChildrenCallback, iterNthChildCallback, iterParentCallback;
+
+VirtualModel (boolean list, long /*int*/ [] types) {
+	if (list_model_type == 0) registerTypes ();
+	handle = OS.g_object_new (list ? list_model_type : tree_model_type, 0);
+	if (handle == 0) SWT.error (SWT.ERROR_NO_HANDLES);
+	color = OS.g_malloc (GdkColor.sizeof);
+	parents = new int [4];
+	positions = new int [4];
+	counts = new int [4];
+	children = new int [4] [];
+	values = new Object [4] [];
+	freeIds = new int [4];
+	parents [0] = -1;
+	nextId = 1;
+	setColumnTypes (types, null);
+}
+
+/**
+ * Returns whether the model can be used, which is the case when the
+ * library has its natives and it has not been disabled.
+ */
+static boolean isSupported () {
+	if (!checked) {
+		checked = true;
+		if (System.getProperty (DISABLE) == null) {
+			try {
+				supported = OS.GtkTreeModelIface_sizeof () > 0;
+			} catch (UnsatisfiedLinkError e) {
+				supported = false;
+			}
+		}
+	}
+	return supported;
+}
+
+static Callback newCallback (String method, int argCount) {
+	Callback callback = new Callback (VirtualModel.class, method, argCount);
+	if (callback.getAddress () == 0) SWT.error (SWT.ERROR_NO_MORE_CALLBACKS);
+	return callback;
+}
+
+static void registerTypes () {
+	interfaceInitCallback = newCallback ("interfaceInitProc", 2); //$NON-NLS-1$
+	getFlagsCallback = newCallback ("getFlagsProc", 1); //$NON-NLS-1$
+	getNColumnsCallback = newCallback ("getNColumnsProc", 1); //$NON-NLS-1$
+	getColumnTypeCallback = newCallback ("getColumnTypeProc", 2); //$NON-NLS-1$
+	getIterCallback = newCallback ("getIterProc", 3); //$NON-NLS-1$
+	getPathCallback = newCallback ("getPathProc", 2); //$NON-NLS-1$
+	getValueCallback = newCallback ("getValueProc", 4); //$NON-NLS-1$
+	iterNextCallback = newCallback ("iterNextProc", 2); //$NON-NLS-1$
+	iterChildrenCallback = newCallback ("iterChildrenProc", 3); //$NON-NLS-1$
+	iterHasChildCallback = newCallback ("iterHasChildProc", 2); //$NON-NLS-1$
+	iterNChildrenCallback = newCallback ("iterNChildrenProc", 2); //$NON-NLS-1$
+	iterNthChildCallback = newCallback ("iterNthChildProc", 4); //$NON-NLS-1$
+	iterParentCallback = newCallback ("iterParentProc", 3); //$NON-NLS-1$
+	long /*int*/ parent_type = OS.g_type_from_name (Converter.wcsToMbcs (null, "GObject", true)); //$NON-NLS-1$
+	long /*int*/ queryPtr = OS.g_malloc (GTypeQuery.sizeof);
+	OS.g_type_query (parent_type, queryPtr);
+	GTypeQuery query = new GTypeQuery ();
+	OS.memmove (query, queryPtr, GTypeQuery.sizeof);
+	OS.g_free (queryPtr);
+	GTypeInfo model_info = new GTypeInfo ();
+	model_info.class_size = (short) query.class_size;
+	model_info.instance_size = (short) query.instance_size;
+	model_info_ptr = OS.g_malloc (GTypeInfo.sizeof);
+	OS.memmove (model_info_ptr, model_info, GTypeInfo.sizeof);
+	GInterfaceInfo iface_info = new GInterfaceInfo ();
+	iface_info.interface_init = interfaceInitCallback.getAddress ();
+	model_iface_info_ptr = OS.g_malloc (GInterfaceInfo.sizeof);
+	OS.memmove (model_iface_info_ptr, iface_info, GInterfaceInfo.sizeof);
+	byte [] type_name = Converter.wcsToMbcs (null, "SwtListModel", true); //$NON-NLS-1$
+	list_model_type = OS.g_type_register_static (parent_type, type_name, model_info_ptr, 0);
+	OS.g_type_add_interface_static (list_model_type, OS.gtk_tree_model_get_type (), model_iface_info_ptr);
+	type_name = Converter.wcsToMbcs (null, "SwtTreeModel", true); //$NON-NLS-1$
+	tree_model_type = OS.g_type_register_static (parent_type, type_name, model_info_ptr, 0);
+	OS.g_type_add_interface_static (tree_model_type, OS.gtk_tree_model_get_type (), model_iface_info_ptr);
+}
+
+static VirtualModel getModel (long /*int*/ handle) {
+	Display display = Display.getCurrent ();
+	if (display == null) return null;
+	Widget widget = display.getWidget (handle);
+	if (widget instanceof Table) return ((Table) widget).virtualModel;
+	if (widget instanceof Tree) return ((Tree) widget).virtualModel;
+	return null;
+}
+
+static long /*int*/ interfaceInitProc (long /*int*/ g_iface, long /*int*/ iface_data) {
+	GtkTreeModelIface iface = new GtkTreeModelIface ();
+	OS.memmove (iface, g_iface);
+	iface.get_flags = getFlagsCallback.getAddress ();
+	iface.get_n_columns = getNColumnsCallback.getAddress ();
+	iface.get_column_type = getColumnTypeCallback.getAddress ();
+	iface.get_iter = getIterCallback.getAddress ();
+	iface.get_path = getPathCallback.getAddress ();
+	iface.get_value = getValueCallback.getAddress ();
+	iface.iter_next = iterNextCallback.getAddress ();
+	iface.iter_children = iterChildrenCallback.getAddress ();
+	iface.iter_has_child = iterHasChildCallback.getAddress ();
+	iface.iter_n_children = iterNChildrenCallback.getAddress ();
+	iface.iter_nth_child = iterNthChildCallback.getAddress ();
+	iface.iter_parent = iterParentCallback.getAddress ();
+	OS.memmove (g_iface, iface);
+	return 0;
+}
+
+static long /*int*/ getFlagsProc (long /*int*/ tree_model) {
+	/*
+	* The flags are asked for when the model is set on the tree
+	* view, before it is registered with its widget, so they are
+	* answered from the type of the model.
+	*/
+	int flags = OS.GTK_TREE_MODEL_ITERS_PERSIST;
+	if (OS.G_OBJECT_TYPE (tree_model) == list_model_type) flags |= OS.GTK_TREE_MODEL_LIST_ONLY;
+	return flags;
+}
+
+static long /*int*/ getNColumnsProc (long /*int*/ tree_model) {
+	VirtualModel model = getModel (tree_model);
+	return model != null ? model.types.length : 0;
+}
+
+static long /*int*/ getColumnTypeProc (long /*int*/ tree_model, long /*int*/ index) {
+	VirtualModel model = getModel (tree_model);
+	if (model == null || !(0 <= index && index < model.types.length)) return 0;
+	return model.types [(int)/*64*/index];
+}
+
+static long /*int*/ getIterProc (long /*int*/ tree_model, long /*int*/ iter, long /*int*/ path) {
+	VirtualModel model = getModel (tree_model);
+	return model != null && model.getIter (iter, path) ? 1 : 0;
+}
+
+static long /*int*/ getPathProc (long /*int*/ tree_model, long /*int*/ iter) {
+	VirtualModel model = getModel (tree_model);
+	return model != null ? model.getPath (model.getId (iter)) : 0;
+}
+
+static long /*int*/ getValueProc (long /*int*/ tree_model, long /*int*/ iter, long /*int*/ column, long /*int*/ value) {
+	VirtualModel model = getModel (tree_model);
+	if (model != null) model.getValue (iter, (int)/*64*/column, value);
+	return 0;
+}
+
+static long /*int*/ iterNextProc (long /*int*/ tree_model, long /*int*/ iter) {
+	VirtualModel model = getModel (tree_model);
+	if (model == null) return 0;
+	int id = model.getId (iter);
+	return model.setChild (iter, model.parents [id], model.positions [id] + 1) ? 1 : 0;
+}
+
+static long /*int*/ iterChildrenProc (long /*int*/ tree_model, long /*int*/ iter, long /*int*/ parent) {
+	VirtualModel model = getModel (tree_model);
+	if (model == null) return 0;
+	return model.setChild (iter, parent != 0 ? model.getId (parent) : 0, 0) ? 1 : 0;
+}
+
+static long /*int*/ iterHasChildProc (long /*int*/ tree_model, long /*int*/ iter) {
+	VirtualModel model = getModel (tree_model);
+	return model != null && model.counts [model.getId (iter)] > 0 ? 1 : 0;
+}
+
+static long /*int*/ iterNChildrenProc (long /*int*/ tree_model, long /*int*/ iter) {
+	VirtualModel model = getModel (tree_model);
+	if (model == null) return 0;
+	return model.counts [iter != 0 ? model.getId (iter) : 0];
+}
+
+static long /*int*/ iterNthChildProc (long /*int*/ tree_model, long /*int*/ iter, long /*int*/ parent, long /*int*/ n) {
+	VirtualModel model = getModel (tree_model);
+	if (model == null) return 0;
+	return model.setChild (iter, parent != 0 ? model.getId (parent) : 0, (int)/*64*/n) ? 1 : 0;
+}
+
+static long /*int*/ iterParentProc (long /*int*/ tree_model, long /*int*/ iter, long /*int*/ child) {
+	VirtualModel model = getModel (tree_model);
+	if (model == null) return 0;
+	int id = model.parents [model.getId (child)];
+	if (id <= 0) return 0;
+	model.setId (iter, id);
+	return 1;
+}
+
+int allocateId () {
+	if (freeCount > 0) return freeIds [--freeCount];
+	if (nextId == parents.length) {
+		int length = parents.length * 2;
+		int [] newParents = new int [length];
+		System.arraycopy (parents, 0, newParents, 0, nextId);
+		parents = newParents;
+		int [] newPositions = new int [length];
+		System.arraycopy (positions, 0, newPositions, 0, nextId);
+		positions = newPositions;
+		int [] newCounts = new int [length];
+		System.arraycopy (counts, 0, newCounts, 0, nextId);
+		counts = newCounts;
+		int [][] newChildren = new int [length] [];
+		System.arraycopy (children, 0, newChildren, 0, nextId);
+		children = newChildren;
+		Object [][] newValues = new Object [length] [];
+		System.arraycopy (values, 0, newValues, 0, nextId);
+		values = newValues;
+	}
+	return nextId++;
+}
+
+void freeId (int id) {
+	int [] ids = children [id];
+	for (int i=0; i<counts [id]; i++) freeId (ids [i]);
+	Object [] row = values [id];
+	if (row != null) {
+		for (int i=0; i<row.length; i++) {
+			if (row [i] != null) releaseValue (i, row [i]);
+		}
+	}
+	values [id] = null;
+	children [id] = null;
+	counts [id] = 0;
+	parents [id] = -1;
+	if (freeCount == freeIds.length) {
+		int [] newFreeIds = new int [freeIds.length * 2];
+		System.arraycopy (freeIds, 0, newFreeIds, 0, freeCount);
+		freeIds = newFreeIds;
+	}
+	freeIds [freeCount++] = id;
+}
+
+/*
+* Appends the specified number of rows to the children of the
+* parent, without telling the tree view when it has been detached
+* from the model.
+*/
+void append (long /*int*/ parentIter, int count, boolean notify) {
+	int parent = parentIter != 0 ? getId (parentIter) : 0;
+	int start = counts [parent];
+	ensureChildren (parent, start + count);
+	int [] ids = children [parent];
+	for (int i=0; i<count; i++) {
+		int id = allocateId ();
+		parents [id] = parent;
+		positions [id] = start + i;
+		ids [start + i] = id;
+	}
+	counts [parent] = start + count;
+	if (notify && count > 0) {
+		long /*int*/ iter = OS.g_malloc (OS.GtkTreeIter_sizeof ());
+		for (int i=0; i<count; i++) {
+			setId (iter, ids [start + i]);
+			long /*int*/ path = getPath (ids [start + i]);
+			OS.gtk_tree_model_row_inserted (handle, path, iter);
+			OS.gtk_tree_path_free (path);
+		}
+		OS.g_free (iter);
+		if (start == 0) toggled (parent, parentIter);
+	}
+}
+
+void clear (boolean notify) {
+	while (counts [0] > 0) {
+		int id = children [0] [counts [0] - 1];
+		counts [0]--;
+		freeId (id);
+		if (notify) {
+			long /*int*/ path = OS.gtk_tree_path_new ();
+			OS.gtk_tree_path_append_index (path, counts [0]);
+			OS.gtk_tree_model_row_deleted (handle, path);
+			OS.gtk_tree_path_free (path);
+		}
+	}
+}
+
+void ensureChildren (int parent, int count) {
+	int [] ids = children [parent];
+	if (ids == null) {
+		children [parent] = new int [Math.max (4, count)];
+	} else if (ids.length < count) {
+		int [] newIds = new int [Math.max (ids.length * 2, count)];
+		System.arraycopy (ids, 0, newIds, 0, counts [parent]);
+		children [parent] = newIds;
+	}
+}
+
+int getId (long /*int*/ iter) {
+	OS.memmove (buffer, iter + C.PTR_SIZEOF, C.PTR_SIZEOF);
+	return (int)/*64*/buffer [0];
+}
+
+boolean getIter (long /*int*/ iter, long /*int*/ path) {
+	int depth = OS.gtk_tree_path_get_depth (path);
+	if (depth <= 0) return false;
+	if (indices.length < depth) indices = new int [depth];
+	OS.memmove (indices, OS.gtk_tree_path_get_indices (path), depth * 4);
+	int id = 0;
+	for (int i=0; i<depth; i++) {
+		int index = indices [i];
+		if (!(0 <= index && index < counts [id])) return false;
+		id = children [id] [index];
+	}
+	setId (iter, id);
+	return true;
+}
+
+long /*int*/ getPath (int id) {
+	int depth = 0;
+	for (int i=id; i>0; i=parents [i]) depth++;
+	if (indices.length < depth) indices = new int [depth];
+	for (int i=id, j=depth-1; i>0; i=parents [i], j--) indices [j] = positions [i];
+	long /*int*/ path = OS.gtk_tree_path_new ();
+	for (int i=0; i<depth; i++) OS.gtk_tree_path_append_index (path, indices [i]);
+	return path;
+}
+
+void getValue (long /*int*/ iter, int column, long /*int*/ value) {
+	if (!(0 <= column && column < types.length)) return;
+	OS.g_value_init (value, types [column]);
+	Object [] row = values [getId (iter)];
+	Object object = row != null ? row [column] : null;
+	if (kinds [column] == INT) {
+		OS.g_value_set_int (value, object != null ? ((Integer) object).intValue () : -1);
+		return;
+	}
+	if (object == null) return;
+	switch (kinds [column]) {
+		case BOOLEAN: OS.g_value_set_boolean (value, true); break;
+		case STRING: OS.g_value_set_string (value, (byte []) object); break;
+		case COLOR:
+			OS.memmove (color, (GdkColor) object, GdkColor.sizeof);
+			OS.g_value_set_boxed (value, color);
+			break;
+		case FONT: OS.g_value_set_boxed (value, ((LONG) object).value); break;
+		case OBJECT: OS.g_value_set_object (value, ((LONG) object).value); break;
+	}
+}
+
+void insert (long /*int*/ parentIter, long /*int*/ iter, int index) {
+	int parent = parentIter != 0 ? getId (parentIter) : 0;
+	int count = counts [parent];
+	if (index == -1) index = count;
+	ensureChildren (parent, count + 1);
+	int [] ids = children [parent];
+	System.arraycopy (ids, index, ids, index + 1, count - index);
+	for (int i=index+1; i<=count; i++) positions [ids [i]] = i;
+	int id = allocateId ();
+	parents [id] = parent;
+	positions [id] = index;
+	ids [index] = id;
+	counts [parent] = count + 1;
+	setId (iter, id);
+	long /*int*/ path = getPath (id);
+	OS.gtk_tree_model_row_inserted (handle, path, iter);
+	OS.gtk_tree_path_free (path);
+	if (count == 0) toggled (parent, parentIter);
+}
+
+void release () {
+	for (int id=1; id<nextId; id++) {
+		Object [] row = values [id];
+		if (row != null) {
+			for (int i=0; i<row.length; i++) {
+				if (row [i] != null) releaseValue (i, row [i]);
+			}
+		}
+	}
+	values = null;
+	children = null;
+	counts = parents = positions = freeIds = null;
+	if (color != 0) OS.g_free (color);
+	color = 0;
+}
+
+void releaseValue (int column, Object object) {
+	switch (kinds [column]) {
+		case FONT: OS.pango_font_description_free (((LONG) object).value); break;
+		case OBJECT: OS.g_object_unref (((LONG) object).value); break;
+	}
+}
+
+void remove (long /*int*/ iter) {
+	int id = getId (iter);
+	int parent = parents [id], index = positions [id];
+	long /*int*/ path = getPath (id);
+	int count = --counts [parent];
+	int [] ids = children [parent];
+	System.arraycopy (ids, index + 1, ids, index, count - index);
+	for (int i=index; i<count; i++) positions [ids [i]] = i;
+	freeId (id);
+	OS.gtk_tree_model_row_deleted (handle, path);
+	OS.gtk_tree_path_free (path);
+	if (count == 0 && parent != 0) {
+		long /*int*/ parentIter = OS.g_malloc (OS.GtkTreeIter_sizeof ());
+		setId (parentIter, parent);
+		toggled (parent, parentIter);
+		OS.g_free (parentIter);
+	}
+}
+
+void set (long /*int*/ iter, int column, boolean value) {
+	setValue (iter, column, value ? Boolean.TRUE : null);
+}
+
+void set (long /*int*/ iter, int column, byte [] value) {
+	setValue (iter, column, value);
+}
+
+void set (long /*int*/ iter, int column, GdkColor value) {
+	GdkColor gdkColor = null;
+	if (value != null) {
+		gdkColor = new GdkColor ();
+		gdkColor.pixel = value.pixel;
+		gdkColor.red = value.red;
+		gdkColor.green = value.green;
+		gdkColor.blue = value.blue;
+	}
+	setValue (iter, column, gdkColor);
+}
+
+void set (long /*int*/ iter, int column, int value) {
+	set (iter, column, (long) value);
+}
+
+void set (long /*int*/ iter, int column, long value) {
+	Object object = null;
+	switch (kinds [column]) {
+		case INT: object = new Integer ((int) value); break;
+		case BOOLEAN: if (value != 0) object = Boolean.TRUE; break;
+		case STRING:
+			if (value != 0) {
+				int length = C.strlen ((long /*int*/) value);
+				byte [] buffer = new byte [length + 1];
+				C.memmove (buffer, (long /*int*/) value, length);
+				object = buffer;
+			}
+			break;
+		case COLOR:
+			if (value != 0) {
+				GdkColor gdkColor = new GdkColor ();
+				OS.memmove (gdkColor, (long /*int*/) value, GdkColor.sizeof);
+				object = gdkColor;
+			}
+			break;
+		case FONT:
+			if (value != 0) object = new LONG (OS.pango_font_description_copy ((long /*int*/) value));
+			break;
+		case OBJECT:
+			if (value != 0) object = new LONG (OS.g_object_ref ((long /*int*/) value));
+			break;
+	}
+	setValue (iter, column, object);
+}
+
+boolean setChild (long /*int*/ iter, int parent, int index) {
+	if (!(0 <= index && index < counts [parent])) return false;
+	setId (iter, children [parent] [index]);
+	return true;
+}
+
+/*
+* Changes the columns of the model, where the value of each new
+* column is taken from the old column at the same index of the
+* map or is unset when that index is -1.
+*/
+void setColumnTypes (long /*int*/ [] types, int [] map) {
+	int [] kinds = new int [types.length];
+	for (int i=0; i<types.length; i++) {
+		long /*int*/ type = types [i];
+		if (type == OS.G_TYPE_INT ()) {
+			kinds [i] = INT;
+		} else if (type == OS.G_TYPE_BOOLEAN ()) {
+			kinds [i] = BOOLEAN;
+		} else if (type == OS.G_TYPE_STRING ()) {
+			kinds [i] = STRING;
+		} else if (type == OS.GDK_TYPE_COLOR ()) {
+			kinds [i] = COLOR;
+		} else if (type == OS.PANGO_TYPE_FONT_DESCRIPTION ()) {
+			kinds [i] = FONT;
+		} else {
+			kinds [i] = OBJECT;
+		}
+	}
+	if (map != null) {
+		for (int id=1; id<nextId; id++) {
+			Object [] row = values [id];
+			if (row == null) continue;
+			Object [] newRow = new Object [types.length];
+			for (int i=0; i<newRow.length; i++) {
+				int column = map [i];
+				if (column != -1) {
+					newRow [i] = row [column];
+					row [column] = null;
+				}
+			}
+			for (int i=0; i<row.length; i++) {
+				if (row [i] != null) releaseValue (i, row [i]);
+			}
+			values [id] = newRow;
+		}
+	}
+	this.types = types;
+	this.kinds = kinds;
+}
+
+void setId (long /*int*/ iter, int id) {
+	buffer [0] = id;
+	OS.memmove (iter + C.PTR_SIZEOF, buffer, C.PTR_SIZEOF);
+}
+
+void setValue (long /*int*/ iter, int column, Object value) {
+	int id = getId (iter);
+	Object [] row = values [id];
+	if (row == null) {
+		if (value == null) return;
+		row = values [id] = new Object [types.length];
+	}
+	Object oldValue = row [column];
+	row [column] = value;
+	if (oldValue != null) releaseValue (column, oldValue);
+	long /*int*/ path = getPath (id);
+	OS.gtk_tree_model_row_changed (handle, path, iter);
+	OS.gtk_tree_path_free (path);
+}
+
+void toggled (int parent, long /*int*/ parentIter) {
+	if (parent == 0) return;
+	long /*int*/ path = getPath (parent);
+	OS.gtk_tree_model_row_has_child_toggled (handle, path, parentIter);
+	OS.gtk_tree_path_free (path);
+}
+
+}
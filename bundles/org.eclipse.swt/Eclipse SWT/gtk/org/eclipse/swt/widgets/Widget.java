@@ -1152,6 +1152,28 @@ boolean mnemonicMatch (long /*int*/ mnemonicHandle, char key) {
 	return keyval1 == keyval2;
 }
 
+/*
+ * Compares the text in a column of a tree model row with the
+ * given NUL terminated UTF-8 bytes, without converting it to
+ * a string. A row without text is equal to the empty string.
+ */
+boolean modelTextEquals (long /*int*/ model, long /*int*/ iter, int column, byte [] buffer) {
+	long /*int*/ [] ptr = new long /*int*/ [1];
+	OS.gtk_tree_model_get (model, iter, column, ptr, -1);
+	if (ptr [0] == 0) return buffer.length == 0 || buffer [0] == 0;
+	int length = OS.strlen (ptr [0]);
+	boolean equal = length < buffer.length && buffer [length] == 0;
+	if (equal) {
+		byte [] text = Converter.getByteBuffer (length);
+		OS.memmove (text, ptr [0], length);
+		for (int i = 0; i < length && equal; i++) {
+			equal = text [i] == buffer [i];
+		}
+	}
+	OS.g_free (ptr [0]);
+	return equal;
+}
+
 void modifyStyle (long /*int*/ handle, long /*int*/ style) {
 	OS.gtk_widget_modify_style (handle, style);
 }
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.swt.widgets;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -114,6 +116,19 @@ public class Display extends Device {
 	EventTable filterTable;
 	EventTable eventTable;
 
+	/*
+	 * Runnables queued with a key are kept in insertion order and run
+	 * together by a single runnable that is queued when the first of
+	 * them arrives.
+	 */
+	Object coalesceLock = new Object();
+	LinkedHashMap<Object, Runnable> coalesced;
+	final Runnable coalesceRunnable = new Runnable() {
+		public void run() {
+			runCoalesced();
+		}
+	};
+
 	/*
 	 * TEMPORARY CODE. Install the runnable that gets the current display. This
 	 * code will be removed in the future.
@@ -306,6 +321,44 @@ public class Display extends Device {
 		wake();
 	}
 
+	/**
+	 * Causes the <code>run()</code> method of the runnable to be invoked by the
+	 * user-interface thread at the next reasonable opportunity, replacing the
+	 * runnable that was queued with the same key if it has not been run yet.
+	 * 
+	 * @param key
+	 *            the key identifying the runnables that replace each other
+	 * @param runnable
+	 *            code to run on the user-interface thread
+	 * 
+	 * @exception IllegalArgumentException
+	 *                <ul>
+	 *                <li>ERROR_NULL_ARGUMENT - if the key or the runnable is
+	 *                null</li>
+	 *                </ul>
+	 * @exception SWTException
+	 *                <ul>
+	 *                <li>ERROR_DEVICE_DISPOSED - if the receiver has been
+	 *                disposed</li>
+	 *                </ul>
+	 * 
+	 * @see #asyncExec(Runnable)
+	 * 
+	 * @since 3.103
+	 */
+	public void asyncExec(Object key, Runnable runnable) {
+		if (key == null || runnable == null) SWT.error(SWT.ERROR_NULL_ARGUMENT);
+		boolean schedule = false;
+		synchronized (coalesceLock) {
+			if (coalesced == null) {
+				coalesced = new LinkedHashMap<>();
+				schedule = true;
+			}
+			coalesced.put(key, runnable);
+		}
+		if (schedule) asyncExec(coalesceRunnable);
+	}
+
 	/**
 	 * Causes the system hardware to emit a short sound (if it supports this
 	 * capability).
@@ -1431,6 +1484,40 @@ public class Display extends Device {
 		return false;
 	}
 
+	void runCoalesced() {
+		LinkedHashMap<Object, Runnable> runnables;
+		synchronized (coalesceLock) {
+			runnables = coalesced;
+			coalesced = null;
+		}
+		if (runnables == null) return;
+		Iterator<Runnable> iterator = runnables.values().iterator();
+		try {
+			while (iterator.hasNext()) {
+				Runnable runnable = iterator.next();
+				iterator.remove();
+				runnable.run();
+			}
+		} finally {
+			/*
+			 * If a runnable failed, queue the ones that did not run again,
+			 * ahead of any that arrived in the meantime.
+			 */
+			if (!runnables.isEmpty()) {
+				boolean schedule = false;
+				synchronized (coalesceLock) {
+					if (coalesced == null) {
+						schedule = true;
+					} else {
+						runnables.putAll(coalesced);
+					}
+					coalesced = runnables;
+				}
+				if (schedule) asyncExec(coalesceRunnable);
+			}
+		}
+	}
+
 	/**
 	 * Removes the listener from the collection of listeners who will be
 	 * notified when an event of the given type occurs anywhere in a widget. The
@@ -144,6 +144,57 @@ public class Tree extends Composite {
 		columns.add(column);
 	}
 
+	/**
+	 * Adds an item for each of the given rows to the end of the items of the
+	 * given parent item, or of the root items of the receiver when the parent
+	 * item is null. The strings of a row are the text of the columns of its
+	 * item. Strings beyond the number of columns and null strings are ignored.
+	 * <p>
+	 * This is equivalent to creating an item for each row and setting its
+	 * text, but it is much faster for large numbers of rows.
+	 * </p>
+	 * 
+	 * @param parentItem
+	 *            the parent of the new items, or null for root items
+	 * @param rows
+	 *            the strings of the new items, one array per item
+	 * 
+	 * @exception IllegalArgumentException
+	 *                <ul>
+	 *                <li>ERROR_NULL_ARGUMENT - if the rows array is null</li>
+	 *                <li>ERROR_INVALID_ARGUMENT - if a row in the rows array
+	 *                is null or the parent item has been disposed</li>
+	 *                <li>ERROR_INVALID_PARENT - if the parent item is not an
+	 *                item of the receiver</li>
+	 *                </ul>
+	 * @exception SWTException
+	 *                <ul>
+	 *                <li>ERROR_WIDGET_DISPOSED - if the receiver has been
+	 *                disposed</li>
+	 *                <li>ERROR_THREAD_INVALID_ACCESS - if not called from the
+	 *                thread that created the receiver</li>
+	 *                </ul>
+	 * 
+	 * @see TreeItem#setText(String[])
+	 * 
+	 * @since 3.103
+	 */
+	public void addItems(TreeItem parentItem, String[][] rows) {
+		checkWidget();
+		if (rows == null) error(SWT.ERROR_NULL_ARGUMENT);
+		for (int i = 0; i < rows.length; i++) {
+			if (rows[i] == null) error(SWT.ERROR_INVALID_ARGUMENT);
+		}
+		if (parentItem != null) {
+			if (parentItem.isDisposed()) error(SWT.ERROR_INVALID_ARGUMENT);
+			if (parentItem.getParent() != this) error(SWT.ERROR_INVALID_PARENT);
+		}
+		for (int i = 0; i < rows.length; i++) {
+			TreeItem item = parentItem != null ? new TreeItem(parentItem, SWT.NONE) : new TreeItem(this, SWT.NONE);
+			item.setText(rows[i]);
+		}
+	}
+
 	/**
 	 * Adds the listener to the collection of listeners who will be notified
 	 * when the user changes the receiver's selection, by sending it one of the
@@ -95,6 +95,9 @@ public static Test suite() {
 	suite.addTest(Test_org_eclipse_swt_custom_CTabItem.suite());
 	suite.addTest(Test_org_eclipse_swt_custom_BusyIndicator.suite());
 	suite.addTest(Test_org_eclipse_swt_custom_StyledText.suite());
+	suite.addTest(Test_org_eclipse_swt_custom_PieceTableContent.suite());
+	suite.addTest(Test_org_eclipse_swt_custom_MappedFileContent.suite());
+	suite.addTest(Test_org_eclipse_swt_custom_StyledTextSearch.suite());
 	suite.addTest(Test_org_eclipse_swt_custom_ControlEditor.suite());
 	suite.addTest(Test_org_eclipse_swt_custom_ST.suite());
 	suite.addTest(Test_org_eclipse_swt_custom_CTabFolder.suite());
@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.tests.junit;
+
+
+import java.io.*;
+
+import junit.framework.*;
+import junit.textui.*;
+
+import org.eclipse.swt.*;
+import org.eclipse.swt.custom.*;
+import org.eclipse.swt.widgets.*;
+
+/**
+ * Automated Test Suite for class org.eclipse.swt.custom.MappedFileContent
+ *
+ * @see org.eclipse.swt.custom.MappedFileContent
+ */
+public class Test_org_eclipse_swt_custom_MappedFileContent extends SwtTestCase {
+	Display display;
+	Shell shell;
+	StyledText styledText;
+	File file;
+	MappedFileContent content;
+
+public Test_org_eclipse_swt_custom_MappedFileContent(String name) {
+	super(name);
+}
+
+public static void main(String[] args) {
+	TestRunner.run(suite());
+}
+
+@Override
+protected void setUp() {
+	super.setUp();
+	display = Display.getDefault();
+	shell = new Shell(display);
+	styledText = new StyledText(shell, SWT.READ_ONLY);
+	try {
+		file = File.createTempFile("swt", ".txt");
+	} catch (IOException e) {
+		fail(e.getMessage());
+	}
+}
+
+@Override
+protected void tearDown() {
+	super.tearDown();
+	if (content != null) content.dispose();
+	shell.dispose();
+	file.delete();
+}
+
+void append(String text, String charset) {
+	try {
+		append(text.getBytes(charset));
+	} catch (IOException e) {
+		fail(e.getMessage());
+	}
+}
+
+void append(byte[] bytes) {
+	try {
+		OutputStream stream = new FileOutputStream(file, true);
+		stream.write(bytes);
+		stream.close();
+	} catch (IOException e) {
+		fail(e.getMessage());
+	}
+}
+
+/**
+ * Runs the event loop until the content holds the given number of characters.
+ */
+void waitForCharCount(int charCount) {
+	long end = System.currentTimeMillis() + 10000;
+	while (content.getCharCount() < charCount && System.currentTimeMillis() < end) {
+		if (!display.readAndDispatch()) display.sleep();
+	}
+	while (display.readAndDispatch()) {/*empty*/}
+}
+
+void assertSameContent(String message, String text) {
+	StyledTextContent expected = new StyledText(shell, SWT.NONE).getContent();
+	expected.setText(text);
+	assertEquals(message + " char count", expected.getCharCount(), content.getCharCount());
+	assertEquals(message + " text", text, content.getTextRange(0, content.getCharCount()));
+	assertEquals(message + " line count", expected.getLineCount(), content.getLineCount());
+	for (int i = 0; i < expected.getLineCount(); i++) {
+		assertEquals(message + " offset at line " + i, expected.getOffsetAtLine(i), content.getOffsetAtLine(i));
+		assertEquals(message + " line " + i, expected.getLine(i), content.getLine(i));
+	}
+	for (int i = 0; i <= expected.getCharCount(); i++) {
+		assertEquals(message + " line at offset " + i, expected.getLineAtOffset(i), content.getLineAtOffset(i));
+	}
+}
+
+public void test_ConstructorLorg_eclipse_swt_widgets_DisplayLjava_lang_StringLjava_lang_String() {
+	try {
+		new MappedFileContent(display, null, "UTF-8");
+		fail("No exception thrown for file name == null");
+	} catch (IllegalArgumentException e) {
+	}
+	try {
+		new MappedFileContent(display, file.getPath(), "UTF-16");
+		fail("No exception thrown for unsupported charset");
+	} catch (IllegalArgumentException e) {
+	}
+	try {
+		new MappedFileContent(display, file.getPath() + ".missing", "UTF-8");
+		fail("No exception thrown for missing file");
+	} catch (SWTException e) {
+		assertEquals(SWT.ERROR_IO, e.code);
+	}
+	content = new MappedFileContent(display, file.getPath(), "UTF-8");
+	assertEquals(":a:", 0, content.getCharCount());
+	assertEquals(":b:", 1, content.getLineCount());
+	assertEquals(":c:", "", content.getLine(0));
+}
+
+public void test_getTextRangeII_iso8859() {
+	StringBuffer buffer = new StringBuffer();
+	for (int i = 0; i < 500; i++) {
+		buffer.append("line ").append(i).append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\n" : "\r");
+	}
+	buffer.append("last \u00e9");
+	String text = buffer.toString();
+	append(text, "ISO-8859-1");
+	content = new MappedFileContent(display, file.getPath(), "ISO-8859-1");
+	waitForCharCount(text.length());
+	assertSameContent(":a:", text);
+}
+
+public void test_getTextRangeII_utf8() {
+	StringBuffer buffer = new StringBuffer();
+	for (int i = 0; i < 500; i++) {
+		buffer.append("l\u00efne \u20ac").append(i).append(i % 7 == 0 ? "\ud83d\ude00" : "").append(i % 2 == 0 ? "\r\n" : "\n");
+	}
+	String text = buffer.toString();
+	append(text, "UTF-8");
+	content = new MappedFileContent(display, file.getPath(), "UTF-8");
+	waitForCharCount(text.length());
+	assertSameContent(":a:", text);
+}
+
+public void test_getTextRangeII_utf8Malformed() {
+	/* overlong forms, encoded surrogates, values above U+10FFFF and a truncated sequence */
+	append(new byte[] {
+		'a', (byte)0xC0, (byte)0xAF,
+		'b', (byte)0xE0, (byte)0x80, (byte)0xAF,
+		'c', (byte)0xED, (byte)0xA0, (byte)0x80,
+		'd', (byte)0xF4, (byte)0x90, (byte)0x80, (byte)0x80,
+		'e', (byte)0xE0, (byte)0xA0, '\n',
+		(byte)0xF0, (byte)0x9F, (byte)0x98, (byte)0x80,
+		'f', (byte)0xE2, (byte)0x82, (byte)0xAC
+	});
+	String text = "a\ufffd\ufffdb\ufffd\ufffd\ufffdc\ufffd\ufffd\ufffdd\ufffd\ufffd\ufffd\ufffde\ufffd\n\ud83d\ude00f\u20ac";
+	content = new MappedFileContent(display, file.getPath(), "UTF-8");
+	waitForCharCount(text.length());
+	assertSameContent(":a:", text);
+}
+
+public void test_refresh() {
+	append("first\r", "UTF-8");
+	content = new MappedFileContent(display, file.getPath(), "UTF-8");
+	styledText.setContent(content);
+	waitForCharCount(5);
+	// the trailing \r is held back until it is known not to start a \r\n
+	assertEquals(":a:", "first", styledText.getText());
+	assertEquals(":b:", 1, styledText.getLineCount());
+	append("\nsecond \u00e9", "UTF-8");
+	content.refresh();
+	waitForCharCount(15);
+	assertEquals(":c:", "first\r\nsecond \u00e9", styledText.getText());
+	assertEquals(":d:", 2, styledText.getLineCount());
+	assertEquals(":e:", "second \u00e9", styledText.getLine(1));
+}
+
+public void test_refresh_truncated() {
+	StringBuffer buffer = new StringBuffer();
+	for (int i = 0; i < 300; i++) {
+		buffer.append("line ").append(i).append('\n');
+	}
+	String text = buffer.toString();
+	append(text, "UTF-8");
+	content = new MappedFileContent(display, file.getPath(), "UTF-8");
+	styledText.setContent(content);
+	waitForCharCount(text.length());
+	assertSameContent(":a:", text);
+	/* cut the file in the middle of a line */
+	int length = text.indexOf("line 200") + 3;
+	try {
+		RandomAccessFile stream = new RandomAccessFile(file, "rw");
+		stream.setLength(length);
+		stream.close();
+	} catch (IOException e) {
+		fail(e.getMessage());
+	}
+	content.refresh();
+	waitForCharCount(length);
+	assertSameContent(":b:", text.substring(0, length));
+	assertEquals(":c:", text.substring(0, length), styledText.getText());
+	append("e 200\nnew line", "UTF-8");
+	content.refresh();
+	text = text.substring(0, length) + "e 200\nnew line";
+	waitForCharCount(text.length());
+	assertSameContent(":d:", text);
+	try {
+		RandomAccessFile stream = new RandomAccessFile(file, "rw");
+		stream.setLength(0);
+		stream.close();
+	} catch (IOException e) {
+		fail(e.getMessage());
+	}
+	content.refresh();
+	waitForCharCount(0);
+	assertSameContent(":e:", "");
+	assertEquals(":f:", "", styledText.getText());
+}
+
+public void test_setTextLjava_lang_String() {
+	append("read only", "UTF-8");
+	content = new MappedFileContent(display, file.getPath(), "UTF-8");
+	try {
+		content.setText("text");
+		fail("No exception thrown for setText on a read-only content");
+	} catch (IllegalArgumentException e) {
+	}
+	try {
+		content.replaceTextRange(0, 0, "text");
+		fail("No exception thrown for replaceTextRange on a read-only content");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+public static Test suite() {
+	TestSuite suite = new TestSuite();
+	java.util.Vector<String> methodNames = methodNames();
+	java.util.Enumeration<String> e = methodNames.elements();
+	while (e.hasMoreElements()) {
+		suite.addTest(new Test_org_eclipse_swt_custom_MappedFileContent(e.nextElement()));
+	}
+	return suite;
+}
+
+public static java.util.Vector<String> methodNames() {
+	java.util.Vector<String> methodNames = new java.util.Vector<String>();
+	methodNames.addElement("test_ConstructorLorg_eclipse_swt_widgets_DisplayLjava_lang_StringLjava_lang_String");
+	methodNames.addElement("test_getTextRangeII_iso8859");
+	methodNames.addElement("test_getTextRangeII_utf8");
+	methodNames.addElement("test_getTextRangeII_utf8Malformed");
+	methodNames.addElement("test_refresh");
+	methodNames.addElement("test_refresh_truncated");
+	methodNames.addElement("test_setTextLjava_lang_String");
+	return methodNames;
+}
+
+@Override
+protected void runTest() throws Throwable {
+	if (getName().equals("test_ConstructorLorg_eclipse_swt_widgets_DisplayLjava_lang_StringLjava_lang_String")) test_ConstructorLorg_eclipse_swt_widgets_DisplayLjava_lang_StringLjava_lang_String();
+	else if (getName().equals("test_getTextRangeII_iso8859")) test_getTextRangeII_iso8859();
+	else if (getName().equals("test_getTextRangeII_utf8")) test_getTextRangeII_utf8();
+	else if (getName().equals("test_getTextRangeII_utf8Malformed")) test_getTextRangeII_utf8Malformed();
+	else if (getName().equals("test_refresh")) test_refresh();
+	else if (getName().equals("test_refresh_truncated")) test_refresh_truncated();
+	else if (getName().equals("test_setTextLjava_lang_String")) test_setTextLjava_lang_String();
+}
+}
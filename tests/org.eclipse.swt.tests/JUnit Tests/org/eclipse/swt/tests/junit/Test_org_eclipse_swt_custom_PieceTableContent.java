@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.tests.junit;
+
+
+import java.util.Random;
+
+import junit.framework.*;
+import junit.textui.*;
+
+import org.eclipse.swt.*;
+import org.eclipse.swt.custom.*;
+import org.eclipse.swt.widgets.*;
+
+/**
+ * Automated Test Suite for class org.eclipse.swt.custom.PieceTableContent
+ *
+ * @see org.eclipse.swt.custom.PieceTableContent
+ */
+public class Test_org_eclipse_swt_custom_PieceTableContent extends SwtTestCase {
+	Shell shell;
+	StyledText styledText;
+	PieceTableContent content;
+
+public Test_org_eclipse_swt_custom_PieceTableContent(String name) {
+	super(name);
+}
+
+public static void main(String[] args) {
+	TestRunner.run(suite());
+}
+
+@Override
+protected void setUp() {
+	super.setUp();
+	shell = new Shell();
+	styledText = new StyledText(shell, SWT.NULL);
+	content = new PieceTableContent();
+}
+
+@Override
+protected void tearDown() {
+	super.tearDown();
+	shell.dispose();
+}
+
+/**
+ * Checks that the given content answers the same as a default content
+ * holding the same text.
+ */
+void assertSameContent(String message, StyledTextContent expected, StyledTextContent actual) {
+	assertEquals(message + " char count", expected.getCharCount(), actual.getCharCount());
+	assertEquals(message + " text", expected.getTextRange(0, expected.getCharCount()), actual.getTextRange(0, actual.getCharCount()));
+	assertEquals(message + " line count", expected.getLineCount(), actual.getLineCount());
+	for (int i = 0; i < expected.getLineCount(); i++) {
+		assertEquals(message + " offset at line " + i, expected.getOffsetAtLine(i), actual.getOffsetAtLine(i));
+		assertEquals(message + " line " + i, expected.getLine(i), actual.getLine(i));
+	}
+	for (int i = 0; i <= expected.getCharCount(); i++) {
+		assertEquals(message + " line at offset " + i, expected.getLineAtOffset(i), actual.getLineAtOffset(i));
+	}
+}
+
+public void test_Constructor() {
+	assertEquals(":a:", 0, content.getCharCount());
+	assertEquals(":b:", 1, content.getLineCount());
+	assertEquals(":c:", "", content.getLine(0));
+	assertEquals(":d:", 0, content.getOffsetAtLine(0));
+	assertEquals(":e:", 0, content.getLineAtOffset(0));
+}
+
+public void test_getLineAtOffsetI() {
+	content.setText("Line1\r\nLine2\nLine3\r");
+	assertEquals(":a:", 0, content.getLineAtOffset(0));
+	assertEquals(":b:", 0, content.getLineAtOffset(6));
+	assertEquals(":c:", 1, content.getLineAtOffset(7));
+	assertEquals(":d:", 1, content.getLineAtOffset(12));
+	assertEquals(":e:", 2, content.getLineAtOffset(13));
+	assertEquals(":f:", 3, content.getLineAtOffset(19));
+	try {
+		content.getLineAtOffset(-1);
+		fail("No exception thrown for offset = -1");
+	} catch (IllegalArgumentException e) {
+	}
+	try {
+		content.getLineAtOffset(20);
+		fail("No exception thrown for offset = 20");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+public void test_getLineI() {
+	content.setText("Line1\r\nLine2\nLine3\r");
+	assertEquals(":a:", "Line1", content.getLine(0));
+	assertEquals(":b:", "Line2", content.getLine(1));
+	assertEquals(":c:", "Line3", content.getLine(2));
+	assertEquals(":d:", "", content.getLine(3));
+	try {
+		content.getLine(4);
+		fail("No exception thrown for index = 4");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+public void test_getOffsetAtLineI() {
+	content.setText("Line1\r\nLine2\nLine3\r");
+	assertEquals(":a:", 0, content.getOffsetAtLine(0));
+	assertEquals(":b:", 7, content.getOffsetAtLine(1));
+	assertEquals(":c:", 13, content.getOffsetAtLine(2));
+	assertEquals(":d:", 19, content.getOffsetAtLine(3));
+	try {
+		content.getOffsetAtLine(4);
+		fail("No exception thrown for index = 4");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+public void test_replaceTextRangeIILjava_lang_String() {
+	String text = StyledTextContentSpec.getTestText();
+	content.setText(text);
+	StyledTextContent expected = styledText.getContent();
+	expected.setText(text);
+	assertSameContent(":a:", expected, content);
+
+	content.replaceTextRange(0, 0, "inserted\r\n");
+	expected.replaceTextRange(0, 0, "inserted\r\n");
+	assertSameContent(":b:", expected, content);
+
+	content.replaceTextRange(30, 40, "");
+	expected.replaceTextRange(30, 40, "");
+	assertSameContent(":c:", expected, content);
+
+	int end = content.getCharCount();
+	content.replaceTextRange(end, 0, "\r\nappended");
+	expected.replaceTextRange(end, 0, "\r\nappended");
+	assertSameContent(":d:", expected, content);
+
+	// \r\n formed by deleting the text between a \r and a \n
+	content.setText("a\rb\nc");
+	content.replaceTextRange(2, 1, "");
+	assertEquals(":e:", 2, content.getLineCount());
+	assertEquals(":f:", "a", content.getLine(0));
+	assertEquals(":g:", "c", content.getLine(1));
+
+	// \r\n formed by inserting a \n after a \r
+	content.setText("a\r");
+	content.replaceTextRange(2, 0, "\nb");
+	assertEquals(":h:", 2, content.getLineCount());
+	assertEquals(":i:", 3, content.getOffsetAtLine(1));
+	assertEquals(":j:", 0, content.getLineAtOffset(2));
+
+	// \r\n formed by inserting a \r before a \n
+	content.setText("a\nb");
+	content.replaceTextRange(1, 0, "\r");
+	assertEquals(":k:", 2, content.getLineCount());
+	assertEquals(":l:", "b", content.getLine(1));
+
+	try {
+		content.replaceTextRange(2, 0, "x");
+		fail("No exception thrown for splitting a \\r\\n delimiter");
+	} catch (IllegalArgumentException e) {
+	}
+	try {
+		content.replaceTextRange(1, 1, "");
+		fail("No exception thrown for deleting part of a \\r\\n delimiter");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+public void test_replaceTextRangeIILjava_lang_String_lineCounts() {
+	final int[] counts = new int[4];
+	TextChangeListener listener = new TextChangeListener() {
+		public void textChanging(TextChangingEvent event) {
+			counts[0] = content.getLineCount();
+			counts[1] = event.replaceLineCount;
+			counts[2] = event.newLineCount;
+			counts[3]++;
+		}
+		public void textChanged(TextChangedEvent event) {
+			assertEquals(counts[0] - counts[1] + counts[2], content.getLineCount());
+		}
+		public void textSet(TextChangedEvent event) {
+		}
+	};
+	content.addTextChangeListener(listener);
+
+	// \r\n formed by inserting a \r before a \n
+	content.setText("?bx?a\n");
+	content.replaceTextRange(2, 3, "\r");
+	assertEquals(":a:", 0, counts[1]);
+	assertEquals(":b:", 0, counts[2]);
+	assertEquals(":c:", 2, content.getLineCount());
+
+	// \r\n formed by inserting a \n after a \r
+	content.setText("a\rb");
+	content.replaceTextRange(2, 0, "\nc\n");
+	assertEquals(":d:", 0, counts[1]);
+	assertEquals(":e:", 1, counts[2]);
+	assertEquals(":f:", 3, content.getLineCount());
+
+	// \r\n formed by deleting the text between a \r and a \n
+	content.setText("a\rb\nc");
+	content.replaceTextRange(2, 1, "");
+	assertEquals(":g:", 1, counts[1]);
+	assertEquals(":h:", 0, counts[2]);
+	assertEquals(":i:", 2, content.getLineCount());
+
+	// no event is sent for a range outside of the text
+	content.setText("abc");
+	int events = counts[3];
+	int[][] ranges = {{-1, 3}, {0, 4}, {2, 2}, {4, 0}, {1, -1}};
+	for (int i = 0; i < ranges.length; i++) {
+		try {
+			content.replaceTextRange(ranges[i][0], ranges[i][1], "x");
+			fail("No exception thrown for start = " + ranges[i][0] + ", length = " + ranges[i][1]);
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	assertEquals(":j:", events, counts[3]);
+	assertEquals(":k:", "abc", content.getTextRange(0, content.getCharCount()));
+	content.removeTextChangeListener(listener);
+}
+
+public void test_replaceTextRangeIILjava_lang_String_random() {
+	String[] fragments = {"a", "bc", "\r", "\n", "\r\n", "xyz\r\nq", "\n\n", "\r\r", "", " line\r\n"};
+	Random random = new Random(1);
+	StyledTextContent expected = styledText.getContent();
+	String text = "";
+	content.setText(text);
+	for (int i = 0; i < 500; i++) {
+		int charCount = text.length();
+		int start = random.nextInt(charCount + 1);
+		int length = random.nextInt(Math.min(5, charCount - start) + 1);
+		String newText = fragments[random.nextInt(fragments.length)] + fragments[random.nextInt(fragments.length)];
+		expected.setText(text);
+		boolean valid = true;
+		try {
+			expected.replaceTextRange(start, length, newText);
+		} catch (IllegalArgumentException e) {
+			valid = false;
+		}
+		try {
+			content.replaceTextRange(start, length, newText);
+			assertTrue(":a: " + i, valid);
+		} catch (IllegalArgumentException e) {
+			assertFalse(":b: " + i, valid);
+		}
+		if (valid) text = text.substring(0, start) + newText + text.substring(start + length);
+		expected.setText(text);
+		assertSameContent(":c: " + i, expected, content);
+	}
+}
+
+public void test_setTextLjava_lang_String() {
+	final int[] events = new int[3];
+	TextChangeListener listener = new TextChangeListener() {
+		public void textChanging(TextChangingEvent event) {
+			events[0]++;
+			assertEquals(1, event.replaceLineCount);
+			assertEquals(2, event.newLineCount);
+		}
+		public void textChanged(TextChangedEvent event) {
+			events[1]++;
+		}
+		public void textSet(TextChangedEvent event) {
+			events[2]++;
+		}
+	};
+	content.addTextChangeListener(listener);
+	content.setText("Line1\r\nLine2");
+	assertEquals(":a:", 1, events[2]);
+	content.replaceTextRange(3, 6, "\n\r\n");
+	assertEquals(":b:", 1, events[0]);
+	assertEquals(":c:", 1, events[1]);
+	content.removeTextChangeListener(listener);
+	content.setText("");
+	assertEquals(":d:", 1, events[2]);
+}
+
+public void test_StyledText_setContent() {
+	styledText.setContent(content);
+	styledText.setText(StyledTextContentSpec.getTestText());
+	assertEquals(":a:", StyledTextContentSpec.getTestText(), styledText.getText());
+	styledText.replaceTextRange(0, 4, "That");
+	assertEquals(":b:", "That is the first line.", styledText.getLine(0));
+	styledText.setSelection(styledText.getOffsetAtLine(5));
+	styledText.insert("new line");
+	assertEquals(":c:", "new line", styledText.getLine(5));
+	assertEquals(":d:", 17, styledText.getLineCount());
+}
+
+public static Test suite() {
+	TestSuite suite = new TestSuite();
+	java.util.Vector<String> methodNames = methodNames();
+	java.util.Enumeration<String> e = methodNames.elements();
+	while (e.hasMoreElements()) {
+		suite.addTest(new Test_org_eclipse_swt_custom_PieceTableContent(e.nextElement()));
+	}
+	return suite;
+}
+
+public static java.util.Vector<String> methodNames() {
+	java.util.Vector<String> methodNames = new java.util.Vector<String>();
+	methodNames.addElement("test_Constructor");
+	methodNames.addElement("test_getLineAtOffsetI");
+	methodNames.addElement("test_getLineI");
+	methodNames.addElement("test_getOffsetAtLineI");
+	methodNames.addElement("test_replaceTextRangeIILjava_lang_String");
+	methodNames.addElement("test_replaceTextRangeIILjava_lang_String_lineCounts");
+	methodNames.addElement("test_replaceTextRangeIILjava_lang_String_random");
+	methodNames.addElement("test_setTextLjava_lang_String");
+	methodNames.addElement("test_StyledText_setContent");
+	return methodNames;
+}
+
+@Override
+protected void runTest() throws Throwable {
+	if (getName().equals("test_Constructor")) test_Constructor();
+	else if (getName().equals("test_getLineAtOffsetI")) test_getLineAtOffsetI();
+	else if (getName().equals("test_getLineI")) test_getLineI();
+	else if (getName().equals("test_getOffsetAtLineI")) test_getOffsetAtLineI();
+	else if (getName().equals("test_replaceTextRangeIILjava_lang_String")) test_replaceTextRangeIILjava_lang_String();
+	else if (getName().equals("test_replaceTextRangeIILjava_lang_String_lineCounts")) test_replaceTextRangeIILjava_lang_String_lineCounts();
+	else if (getName().equals("test_replaceTextRangeIILjava_lang_String_random")) test_replaceTextRangeIILjava_lang_String_random();
+	else if (getName().equals("test_setTextLjava_lang_String")) test_setTextLjava_lang_String();
+	else if (getName().equals("test_StyledText_setContent")) test_StyledText_setContent();
+}
+}
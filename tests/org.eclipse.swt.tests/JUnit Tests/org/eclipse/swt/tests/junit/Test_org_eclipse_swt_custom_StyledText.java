@@ -13,6 +13,8 @@ package org.eclipse.swt.tests.junit;
 
 import static org.junit.Assert.assertArrayEquals;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.util.Enumeration;
 import java.util.Hashtable;
 
@@ -1107,6 +1109,41 @@ void test_getLinePixel(StyledText text) {
 	assertEquals(lineHeight, text.getLinePixel(10));
 }
 
+public void test_getLinePixelVariableHeight() {
+	StyledText text = new StyledText(shell, SWT.WRAP);
+	text.setSize(100, 10 * text.getLineHeight());
+	StringBuffer buffer = new StringBuffer();
+	for (int i = 0; i < 200; i++) {
+		if (i > 0) buffer.append('\n');
+		buffer.append("line" + i);
+		if (i % 5 == 0) buffer.append(" word word word word word word word word word word");
+	}
+	text.setText(buffer.toString());
+	int y = text.getLinePixel(0);
+	for (int i = 0; i < text.getLineCount(); i++) {
+		int offset = text.getOffsetAtLine(i);
+		int height = text.getTextBounds(offset, offset + text.getLine(i).length() - 1).height;
+		assertEquals(":a:" + i, y, text.getLinePixel(i));
+		assertEquals(":b:" + i, i, text.getLineIndex(y));
+		assertEquals(":c:" + i, i, text.getLineIndex(y + height - 1));
+		y += height;
+	}
+	assertEquals(":d:", y, text.getLinePixel(text.getLineCount()));
+	
+	text.setTopIndex(150);
+	assertEquals(":e:", 150, text.getTopIndex());
+	int topPixel = text.getTopPixel();
+	text.setTopIndex(0);
+	assertEquals(":f:", topPixel, text.getLinePixel(150));
+	text.setTopPixel(topPixel);
+	assertEquals(":g:", 150, text.getTopIndex());
+	assertEquals(":h:", 0, text.getLinePixel(150));
+	
+	text.replaceTextRange(text.getOffsetAtLine(10), 0, "new line\n");
+	assertEquals(":i:", text.getLinePixel(10) + text.getLineHeight(), text.getLinePixel(11));
+	text.dispose();
+}
+
 public void test_getLocationAtOffsetI(){
 	// copy from StyledText, has to match value used by StyledText
 	final int XINSET = isBidiCaret() ? 2 : 0;
@@ -1672,6 +1709,39 @@ public void test_getStyleRanges() {
 	assertTrue(":1:", styles[2].equals(getStyle(47,5,BLUE,null)));
 }
 
+public void test_getStyleRangesAfterEdits() {
+	StringBuffer buffer = new StringBuffer();
+	for (int i = 0; i < 100; i++) {
+		buffer.append("line " + (i % 10) + "\n");
+	}
+	text.setText(buffer.toString());
+	for (int i = 0; i < 100; i++) {
+		text.setStyleRange(getStyle(text.getOffsetAtLine(i), 4, BLUE, null));
+	}
+	int[] lines = {10, 11, 90, 5, 50, 50};
+	for (int i = 0; i < lines.length; i++) {
+		int offset = text.getOffsetAtLine(lines[i]) + 5;
+		if (i % 2 == 0) {
+			text.replaceTextRange(offset, 0, "xy");
+		} else {
+			text.replaceTextRange(offset, 1, "");
+		}
+		StyleRange[] styles = text.getStyleRanges(text.getOffsetAtLine(lines[i] + 1), 4);
+		assertEquals(":a:" + i, 1, styles.length);
+		assertEquals(":a:" + i, getStyle(text.getOffsetAtLine(lines[i] + 1), 4, BLUE, null), styles[0]);
+	}
+	text.replaceStyleRanges(text.getOffsetAtLine(60), 4, new StyleRange[] {getStyle(text.getOffsetAtLine(60) + 1, 2, RED, null)});
+	StyleRange[] styles = text.getStyleRanges();
+	assertEquals(":b:", 100, styles.length);
+	for (int i = 0; i < 100; i++) {
+		if (i == 60) {
+			assertEquals(":c:", getStyle(text.getOffsetAtLine(i) + 1, 2, RED, null), styles[i]);
+		} else {
+			assertEquals(":d:" + i, getStyle(text.getOffsetAtLine(i), 4, BLUE, null), styles[i]);
+		}
+	}
+}
+
 public void test_getStyleRangesII() {
 	text.setText("0123456789");
 //	0
@@ -4442,6 +4512,62 @@ public void test_setWordWrapZ(){
 	assertEquals(":f:", 2, text.getLineCount());	
 }
 
+public void test_setWordWrapZ_idleMeasurement() throws Exception {
+	// the line measurement state is internal, so read it through reflection
+	Field rendererField = StyledText.class.getDeclaredField("renderer");
+	rendererField.setAccessible(true);
+	text.dispose();
+	text = new StyledText(shell, SWT.V_SCROLL);
+	setWidget(text);
+	text.setBounds(0, 0, 150, 150);
+	shell.open();
+	Object renderer = rendererField.get(text);
+	Field idleRunning = renderer.getClass().getDeclaredField("idleRunning");
+	Field idleLine = renderer.getClass().getDeclaredField("idleLine");
+	idleRunning.setAccessible(true);
+	idleLine.setAccessible(true);
+	StringBuilder buffer = new StringBuilder();
+	for (int i = 0; i < 5000; i++) {
+		buffer.append("Line ").append(i).append('\n');
+	}
+	text.setText(buffer.toString());
+	text.setTopIndex(2000);
+	int topIndex = text.getTopIndex();
+	assertTrue(":a:", topIndex > 0);
+	assertFalse(":b:", idleRunning.getBoolean(renderer));
+
+	// variable line heights start the measurement from the top index
+	text.setWordWrap(true);
+	assertTrue(":c:", idleRunning.getBoolean(renderer));
+	assertEquals(":d:", topIndex, idleLine.getInt(renderer));
+
+	Display display = shell.getDisplay();
+	long end = System.currentTimeMillis() + 10000;
+	while (idleRunning.getBoolean(renderer) && System.currentTimeMillis() < end) {
+		display.readAndDispatch();
+	}
+	assertFalse(":e:", idleRunning.getBoolean(renderer));
+	assertEquals(":f:", -1, idleLine.getInt(renderer));
+	Method getUnmeasuredLine = renderer.getClass().getDeclaredMethod("getUnmeasuredLine", new Class[] {int.class, int.class, boolean.class});
+	getUnmeasuredLine.setAccessible(true);
+	Object unmeasured = getUnmeasuredLine.invoke(renderer, new Object[] {Integer.valueOf(0), Integer.valueOf(text.getLineCount()), Boolean.TRUE});
+	assertEquals(":g:", -1, ((Integer)unmeasured).intValue());
+	assertEquals(":h:", text.getTopPixel(), text.getVerticalBar().getSelection());
+
+	// a text change restarts the measurement from the changed line
+	text.replaceTextRange(text.getOffsetAtLine(10), 0, "Inserted\n");
+	assertTrue(":i:", idleRunning.getBoolean(renderer));
+	assertEquals(":j:", 10, idleLine.getInt(renderer));
+	text.setText("Line0\nLine1");
+	end = System.currentTimeMillis() + 10000;
+	while (idleRunning.getBoolean(renderer) && System.currentTimeMillis() < end) {
+		display.readAndDispatch();
+	}
+	assertFalse(":k:", idleRunning.getBoolean(renderer));
+	assertEquals(":l:", -1, idleLine.getInt(renderer));
+	assertEquals(":m:", text.getTopPixel(), text.getVerticalBar().getSelection());
+}
+
 public void test_showSelection() {
 	text.showSelection();
 	text.setSelectionRange(0, 0);
@@ -4522,6 +4648,7 @@ public static java.util.Vector<String> methodNames() {
 	methodNames.addElement("test_getLineHeight");
 	methodNames.addElement("test_getLineIndex");
 	methodNames.addElement("test_getLinePixel");
+	methodNames.addElement("test_getLinePixelVariableHeight");
 	methodNames.addElement("test_getLocationAtOffsetI");
 	methodNames.addElement("test_getOffsetAtLineI");
 	methodNames.addElement("test_getOffsetAtLocationLorg_eclipse_swt_graphics_Point");
@@ -4536,6 +4663,7 @@ public static java.util.Vector<String> methodNames() {
 	methodNames.addElement("test_getStyle");
 	methodNames.addElement("test_getStyleRangeAtOffsetI");
 	methodNames.addElement("test_getStyleRanges");
+	methodNames.addElement("test_getStyleRangesAfterEdits");
 	methodNames.addElement("test_getStyleRangesII");
 	methodNames.addElement("test_getTabs");
 	methodNames.addElement("test_getText");
@@ -4595,6 +4723,7 @@ public static java.util.Vector<String> methodNames() {
 	methodNames.addElement("test_setTopIndexI");
 	methodNames.addElement("test_setTopPixelI");
 	methodNames.addElement("test_setWordWrapZ");
+	methodNames.addElement("test_setWordWrapZ_idleMeasurement");
 	methodNames.addElement("test_showSelection");
 	methodNames.addElement("test_consistency_Modify");
 	methodNames.addElement("test_consistency_MenuDetect");
@@ -4636,6 +4765,7 @@ protected void runTest() throws Throwable {
 	else if (getName().equals("test_getLineHeight")) test_getLineHeight();
 	else if (getName().equals("test_getLineIndex")) test_getLineIndex();
 	else if (getName().equals("test_getLinePixel")) test_getLinePixel();
+	else if (getName().equals("test_getLinePixelVariableHeight")) test_getLinePixelVariableHeight();
 	else if (getName().equals("test_getLocationAtOffsetI")) test_getLocationAtOffsetI();
 	else if (getName().equals("test_getOffsetAtLineI")) test_getOffsetAtLineI();
 	else if (getName().equals("test_getOffsetAtLocationLorg_eclipse_swt_graphics_Point")) test_getOffsetAtLocationLorg_eclipse_swt_graphics_Point();
@@ -4650,6 +4780,7 @@ protected void runTest() throws Throwable {
 	else if (getName().equals("test_getStyle")) test_getStyle();
 	else if (getName().equals("test_getStyleRangeAtOffsetI")) test_getStyleRangeAtOffsetI();
 	else if (getName().equals("test_getStyleRanges")) test_getStyleRanges();
+	else if (getName().equals("test_getStyleRangesAfterEdits")) test_getStyleRangesAfterEdits();
 	else if (getName().equals("test_getStyleRangesII")) test_getStyleRangesII();
 	else if (getName().equals("test_getTabs")) test_getTabs();
 	else if (getName().equals("test_getText")) test_getText();
@@ -4709,6 +4840,7 @@ protected void runTest() throws Throwable {
 	else if (getName().equals("test_setTopIndexI")) test_setTopIndexI();
 	else if (getName().equals("test_setTopPixelI")) test_setTopPixelI();
 	else if (getName().equals("test_setWordWrapZ")) test_setWordWrapZ();
+	else if (getName().equals("test_setWordWrapZ_idleMeasurement")) test_setWordWrapZ_idleMeasurement();
 	else if (getName().equals("test_showSelection")) test_showSelection();
 	else if (getName().equals("test_consistency_Modify")) test_consistency_Modify();
 	else if (getName().equals("test_consistency_MenuDetect")) test_consistency_MenuDetect();
@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.swt.tests.junit;
+
+
+import junit.framework.*;
+import junit.textui.*;
+
+import org.eclipse.swt.*;
+import org.eclipse.swt.custom.*;
+import org.eclipse.swt.graphics.*;
+import org.eclipse.swt.widgets.*;
+
+/**
+ * Automated Test Suite for class org.eclipse.swt.custom.StyledTextSearch
+ *
+ * @see org.eclipse.swt.custom.StyledTextSearch
+ */
+public class Test_org_eclipse_swt_custom_StyledTextSearch extends SwtTestCase {
+	Display display;
+	Shell shell;
+	StyledText styledText;
+	StyledTextSearch search;
+
+public Test_org_eclipse_swt_custom_StyledTextSearch(String name) {
+	super(name);
+}
+
+public static void main(String[] args) {
+	TestRunner.run(suite());
+}
+
+@Override
+protected void setUp() {
+	super.setUp();
+	display = Display.getDefault();
+	shell = new Shell(display);
+	styledText = new StyledText(shell, SWT.NULL);
+	search = new StyledTextSearch(styledText);
+}
+
+@Override
+protected void tearDown() {
+	super.tearDown();
+	shell.dispose();
+}
+
+/**
+ * Runs the event loop until the search ends.
+ */
+void waitForSearch() {
+	long end = System.currentTimeMillis() + 10000;
+	while (search.isSearching() && System.currentTimeMillis() < end) {
+		if (!display.readAndDispatch()) display.sleep();
+	}
+	assertFalse("search did not end", search.isSearching());
+}
+
+/**
+ * Returns the start offset and length of every occurrence of the
+ * given string.
+ */
+int[] find(String text, String string) {
+	int count = 0;
+	for (int i = text.indexOf(string); i != -1; i = text.indexOf(string, i + string.length())) count++;
+	int[] ranges = new int[count * 2];
+	count = 0;
+	for (int i = text.indexOf(string); i != -1; i = text.indexOf(string, i + string.length())) {
+		ranges[count++] = i;
+		ranges[count++] = string.length();
+	}
+	return ranges;
+}
+
+public void test_ConstructorLorg_eclipse_swt_custom_StyledText() {
+	try {
+		new StyledTextSearch(null);
+		fail("No exception thrown for text == null");
+	} catch (IllegalArgumentException e) {
+	}
+	assertEquals(":a:", 0, search.getMatchCount());
+	assertFalse(":b:", search.isSearching());
+	assertNull(":c:", search.getHighlightBackground());
+}
+
+public void test_addSearchListenerLorg_eclipse_swt_custom_SearchListener() {
+	final int[] counts = new int[2];
+	SearchListener listener = new SearchListener() {
+		public void matchesFound(SearchEvent event) {
+			counts[0] += event.ranges.length / 2;
+			if (event.done) counts[1]++;
+		}
+	};
+	try {
+		search.addSearchListener(null);
+		fail("No exception thrown for listener == null");
+	} catch (IllegalArgumentException e) {
+	}
+	search.addSearchListener(listener);
+	styledText.setText("one two one\r\nthree one");
+	search.search("one", 0);
+	waitForSearch();
+	assertEquals(":a:", 3, counts[0]);
+	assertEquals(":b:", 1, counts[1]);
+	search.removeSearchListener(listener);
+	search.search("one", 0);
+	waitForSearch();
+	assertEquals(":c:", 3, counts[0]);
+	assertEquals(":d:", 1, counts[1]);
+}
+
+public void test_searchLjava_lang_StringI() {
+	StringBuffer buffer = new StringBuffer();
+	for (int i = 0; i < 20000; i++) {
+		buffer.append("line ");
+		buffer.append(i);
+		buffer.append(i % 7 == 0 ? " error\n" : " ok\n");
+	}
+	String text = buffer.toString();
+	styledText.setText(text);
+	search.search("error", 0);
+	waitForSearch();
+	int[] expected = find(text, "error");
+	assertEquals(":a:", expected.length / 2, search.getMatchCount());
+	assertTrue(":b:", java.util.Arrays.equals(expected, search.getMatches()));
+
+	search.search("ERROR", 0);
+	waitForSearch();
+	assertEquals(":c:", 0, search.getMatchCount());
+	search.search("ERROR", StyledTextSearch.IGNORE_CASE);
+	waitForSearch();
+	assertEquals(":d:", expected.length / 2, search.getMatchCount());
+
+	search.search("line 1\\d* ok", StyledTextSearch.REGEX);
+	waitForSearch();
+	int[] matches = search.getMatches();
+	assertTrue(":e:", matches.length > 0);
+	for (int i = 0; i < matches.length; i += 2) {
+		assertTrue(":f:", text.substring(matches[i], matches[i] + matches[i + 1]).matches("line 1\\d* ok"));
+	}
+	search.search("line 1\\d* ok", 0);
+	waitForSearch();
+	assertEquals(":g:", 0, search.getMatchCount());
+
+	try {
+		search.search(null, 0);
+		fail("No exception thrown for pattern == null");
+	} catch (IllegalArgumentException e) {
+	}
+	try {
+		search.search("(", StyledTextSearch.REGEX);
+		fail("No exception thrown for invalid regular expression");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+public void test_searchPieceTableContent() {
+	PieceTableContent content = new PieceTableContent();
+	styledText.setContent(content);
+	styledText.setText("abc abc\nabc");
+	styledText.replaceTextRange(4, 0, "xabcx ");
+	styledText.replaceTextRange(0, 1, "");
+	String text = styledText.getText();
+	search.search("abc", 0);
+	waitForSearch();
+	assertTrue(":a:", java.util.Arrays.equals(find(text, "abc"), search.getMatches()));
+}
+
+public void test_textChanged() {
+	styledText.setText("abc abc abc");
+	search.search("abc", 0);
+	waitForSearch();
+	assertEquals(":a:", 3, search.getMatchCount());
+	styledText.replaceTextRange(0, 1, "x");
+	assertEquals(":b:", 0, search.getMatchCount());
+	search.search("abc", 0);
+	styledText.setText("abc");
+	assertFalse(":c:", search.isSearching());
+	assertEquals(":d:", 0, search.getMatchCount());
+}
+
+public void test_setHighlightBackgroundLorg_eclipse_swt_graphics_Color() {
+	Color color = new Color(display, 255, 255, 0);
+	styledText.setText("find me, find me");
+	search.setHighlightBackground(color);
+	assertEquals(":a:", color, search.getHighlightBackground());
+	search.search("find", 0);
+	waitForSearch();
+	assertEquals(":b:", 2, search.getMatchCount());
+	/* highlighting does not change the styles of the widget */
+	assertEquals(":c:", 0, styledText.getStyleRanges().length);
+	search.setHighlightBackground(null);
+	assertNull(":d:", search.getHighlightBackground());
+	color.dispose();
+	try {
+		search.setHighlightBackground(color);
+		fail("No exception thrown for disposed color");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+public void test_dispose() {
+	search.dispose();
+	assertTrue(":a:", search.isDisposed());
+	try {
+		search.search("a", 0);
+		fail("No exception thrown for disposed search");
+	} catch (SWTException e) {
+	}
+	StyledTextSearch other = new StyledTextSearch(styledText);
+	styledText.dispose();
+	assertTrue(":b:", other.isDisposed());
+}
+
+public static Test suite() {
+	TestSuite suite = new TestSuite();
+	java.util.Vector<String> methodNames = methodNames();
+	java.util.Enumeration<String> e = methodNames.elements();
+	while (e.hasMoreElements()) {
+		suite.addTest(new Test_org_eclipse_swt_custom_StyledTextSearch(e.nextElement()));
+	}
+	return suite;
+}
+
+public static java.util.Vector<String> methodNames() {
+	java.util.Vector<String> methodNames = new java.util.Vector<String>();
+	methodNames.addElement("test_ConstructorLorg_eclipse_swt_custom_StyledText");
+	methodNames.addElement("test_addSearchListenerLorg_eclipse_swt_custom_SearchListener");
+	methodNames.addElement("test_searchLjava_lang_StringI");
+	methodNames.addElement("test_searchPieceTableContent");
+	methodNames.addElement("test_textChanged");
+	methodNames.addElement("test_setHighlightBackgroundLorg_eclipse_swt_graphics_Color");
+	methodNames.addElement("test_dispose");
+	return methodNames;
+}
+
+@Override
+protected void runTest() throws Throwable {
+	if (getName().equals("test_ConstructorLorg_eclipse_swt_custom_StyledText")) test_ConstructorLorg_eclipse_swt_custom_StyledText();
+	else if (getName().equals("test_addSearchListenerLorg_eclipse_swt_custom_SearchListener")) test_addSearchListenerLorg_eclipse_swt_custom_SearchListener();
+	else if (getName().equals("test_searchLjava_lang_StringI")) test_searchLjava_lang_StringI();
+	else if (getName().equals("test_searchPieceTableContent")) test_searchPieceTableContent();
+	else if (getName().equals("test_textChanged")) test_textChanged();
+	else if (getName().equals("test_setHighlightBackgroundLorg_eclipse_swt_graphics_Color")) test_setHighlightBackgroundLorg_eclipse_swt_graphics_Color();
+	else if (getName().equals("test_dispose")) test_dispose();
+}
+}
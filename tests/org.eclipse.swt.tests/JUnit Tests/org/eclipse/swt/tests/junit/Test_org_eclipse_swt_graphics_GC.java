@@ -595,6 +595,26 @@ public void test_textExtentLjava_lang_StringI() {
 	assertTrue(pt.y > 0);
 }
 
+public void test_textExtentLjava_lang_StringI_fontAndFlags() {
+	Point extent = gc.textExtent("abc", 0);
+	assertEquals(extent, gc.textExtent("&abc", SWT.DRAW_MNEMONIC));
+	Point oneLine = gc.textExtent("abc\ndef", 0);
+	Point twoLines = gc.textExtent("abc\ndef", SWT.DRAW_DELIMITER);
+	assertTrue(twoLines.y > oneLine.y);
+	FontData data = gc.getFont().getFontData()[0];
+	Font font = new Font(display, data.getName(), data.getHeight() * 3, data.getStyle());
+	gc.setFont(font);
+	Point bigExtent = gc.textExtent("abc", 0);
+	assertTrue(bigExtent.x > extent.x);
+	assertTrue(bigExtent.y > extent.y);
+	gc.setFont(null);
+	assertEquals(extent, gc.textExtent("abc", 0));
+	gc.setFont(font);
+	assertEquals(bigExtent, gc.textExtent("abc", 0));
+	gc.setFont(null);
+	font.dispose();
+}
+
 public void test_toString() {
 	String s = gc.toString();
 	assertNotNull(s);
@@ -677,6 +697,7 @@ public static java.util.Vector<String> methodNames() {
 	methodNames.addElement("test_stringExtentLjava_lang_String");
 	methodNames.addElement("test_textExtentLjava_lang_String");
 	methodNames.addElement("test_textExtentLjava_lang_StringI");
+	methodNames.addElement("test_textExtentLjava_lang_StringI_fontAndFlags");
 	methodNames.addElement("test_toString");
 	methodNames.addElement("test_win32_newILorg_eclipse_swt_graphics_GCData");
 	methodNames.addElement("test_win32_newLorg_eclipse_swt_graphics_DrawableLorg_eclipse_swt_graphics_GCData");
@@ -741,6 +762,7 @@ protected void runTest() throws Throwable {
 	else if (getName().equals("test_stringExtentLjava_lang_String")) test_stringExtentLjava_lang_String();
 	else if (getName().equals("test_textExtentLjava_lang_String")) test_textExtentLjava_lang_String();
 	else if (getName().equals("test_textExtentLjava_lang_StringI")) test_textExtentLjava_lang_StringI();
+	else if (getName().equals("test_textExtentLjava_lang_StringI_fontAndFlags")) test_textExtentLjava_lang_StringI_fontAndFlags();
 	else if (getName().equals("test_toString")) test_toString();
 	else if (getName().equals("test_win32_newILorg_eclipse_swt_graphics_GCData")) test_win32_newILorg_eclipse_swt_graphics_GCData();
 	else if (getName().equals("test_win32_newLorg_eclipse_swt_graphics_DrawableLorg_eclipse_swt_graphics_GCData")) test_win32_newLorg_eclipse_swt_graphics_DrawableLorg_eclipse_swt_graphics_GCData();
@@ -789,6 +789,106 @@ public void test_scaledToII() {
 	assertEquals(":d:", expectedPixelData, scaledPixelData);
 }
 
+public void test_scaledToII_direct() {
+	int[] depths = {24, 32};
+	int[][] masks = {{0xFF0000, 0xFF00, 0xFF}, {0xFF00, 0xFF0000, 0xFF000000}};
+	for (int i = 0; i < depths.length; i++) {
+		for (int j = 0; j < masks.length; j++) {
+			if (depths[i] == 24 && masks[j][2] == 0xFF000000) continue;
+			PaletteData palette = new PaletteData(masks[j][0], masks[j][1], masks[j][2]);
+			ImageData source = new ImageData(5, 3, depths[i], palette);
+			for (int y = 0; y < source.height; y++) {
+				for (int x = 0; x < source.width; x++) {
+					source.setPixel(x, y, palette.getPixel(new RGB(x * 50, y * 100, 7)));
+				}
+			}
+			ImageData scaled = source.scaledTo(5, -3);
+			ImageData flipped = source.scaledTo(-5, 3);
+			ImageData doubled = source.scaledTo(10, 6);
+			for (int y = 0; y < source.height; y++) {
+				for (int x = 0; x < source.width; x++) {
+					RGB rgb = new RGB(x * 50, y * 100, 7);
+					assertEquals(":a:", rgb, palette.getRGB(scaled.getPixel(x, 2 - y)));
+					assertEquals(":b:", rgb, palette.getRGB(flipped.getPixel(4 - x, y)));
+					assertEquals(":c:", rgb, palette.getRGB(doubled.getPixel(x * 2, y * 2)));
+				}
+			}
+		}
+	}
+}
+
+public void test_scaledToIII() {
+	PaletteData palette = new PaletteData(0xFF0000, 0xFF00, 0xFF);
+	ImageData source = new ImageData(40, 30, 24, palette);
+	for (int y = 0; y < source.height; y++) {
+		for (int x = 0; x < source.width; x++) {
+			source.setPixel(x, y, 0x336699);
+		}
+	}
+	int[] filters = new int[] {SWT.LOW, SWT.DEFAULT, SWT.HIGH};
+	int[][] sizes = new int[][] {{7, 5}, {100, 70}, {40, 1}};
+	for (int i = 0; i < filters.length; i++) {
+		for (int j = 0; j < sizes.length; j++) {
+			ImageData scaled = source.scaledTo(sizes[j][0], sizes[j][1], filters[i]);
+			assertEquals(":a:", sizes[j][0], scaled.width);
+			assertEquals(":b:", sizes[j][1], scaled.height);
+			assertNull(":c:", scaled.alphaData);
+			for (int y = 0; y < scaled.height; y++) {
+				for (int x = 0; x < scaled.width; x++) {
+					assertEquals(":d:", 0x336699, scaled.getPixel(x, y));
+				}
+			}
+		}
+	}
+
+	// an indexed image with a transparent pixel gets alpha data, and flips
+	RGB[] rgbs = new RGB[] {new RGB(0, 0, 0), new RGB(255, 255, 255)};
+	source = new ImageData(64, 4, 1, new PaletteData(rgbs));
+	for (int y = 0; y < source.height; y++) {
+		for (int x = 32; x < source.width; x++) {
+			source.setPixel(x, y, 1);
+		}
+	}
+	source.transparentPixel = 0;
+	ImageData scaled = source.scaledTo(-8, 2, SWT.LOW);
+	assertEquals(":e:", 24, scaled.depth);
+	assertEquals(":f:", -1, scaled.transparentPixel);
+	assertEquals(":g:", 0xFFFFFF, scaled.getPixel(0, 0));
+	assertEquals(":h:", 255, scaled.getAlpha(0, 1));
+	assertEquals(":i:", 0, scaled.getAlpha(7, 1));
+
+	scaled = source.scaledTo(8, 2, SWT.NONE);
+	assertEquals(":j:", 1, scaled.depth);
+	assertEquals(":k:", 0, scaled.transparentPixel);
+
+	try {
+		source.scaledTo(8, 2, 42);
+		fail("No exception thrown for invalid filter");
+	} catch (IllegalArgumentException e) {
+		assertEquals("Incorrect exception thrown for invalid filter", SWT.ERROR_INVALID_ARGUMENT, e);
+	}
+
+	// large images give the same result whether they are scaled in parallel or not
+	source = new ImageData(400, 300, 24, palette);
+	for (int y = 0; y < source.height; y++) {
+		for (int x = 0; x < source.width; x++) {
+			source.setPixel(x, y, (x * 7 + y * 3) & 0xFFFFFF);
+		}
+	}
+	String property = "org.eclipse.swt.internal.image.disableParallelScaling";
+	for (int i = 0; i < filters.length; i++) {
+		ImageData parallel = source.scaledTo(350, 250, filters[i]);
+		ImageData serial;
+		System.setProperty(property, "true");
+		try {
+			serial = source.scaledTo(350, 250, filters[i]);
+		} finally {
+			System.clearProperty(property);
+		}
+		assertTrue(":l:", java.util.Arrays.equals(serial.data, parallel.data));
+	}
+}
+
 public void test_setAlphaIII() {
 	int value;
 	
@@ -1193,6 +1293,8 @@ public static java.util.Vector<String> methodNames() {
 	methodNames.addElement("test_getTransparencyType");
 	methodNames.addElement("test_internal_newIIILorg_eclipse_swt_graphics_PaletteDataI$BI$B$BIIIIIII");
 	methodNames.addElement("test_scaledToII");
+	methodNames.addElement("test_scaledToII_direct");
+	methodNames.addElement("test_scaledToIII");
 	methodNames.addElement("test_setAlphaIII");
 	methodNames.addElement("test_setAlphasIII$BI");
 	methodNames.addElement("test_setPixelIII");
@@ -1217,6 +1319,8 @@ protected void runTest() throws Throwable {
 	else if (getName().equals("test_getTransparencyType")) test_getTransparencyType();
 	else if (getName().equals("test_internal_newIIILorg_eclipse_swt_graphics_PaletteDataI$BI$B$BIIIIIII")) test_internal_newIIILorg_eclipse_swt_graphics_PaletteDataI$BI$B$BIIIIIII();
 	else if (getName().equals("test_scaledToII")) test_scaledToII();
+	else if (getName().equals("test_scaledToII_direct")) test_scaledToII_direct();
+	else if (getName().equals("test_scaledToIII")) test_scaledToIII();
 	else if (getName().equals("test_setAlphaIII")) test_setAlphaIII();
 	else if (getName().equals("test_setAlphasIII$BI")) test_setAlphasIII$BI();
 	else if (getName().equals("test_setPixelIII")) test_setPixelIII();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -64,13 +64,24 @@ public void test_addImageLoaderListenerLorg_eclipse_swt_graphics_ImageLoaderList
 	} catch (IOException e) {}
 	assertTrue(":c:", loaderListenerCalled);
 
+	// the rows of non-interlaced images are reported as they are decoded
 	loaderListenerCalled = false;
+	final ImageLoaderEvent[] lastEvent = new ImageLoaderEvent[1];
+	ImageLoaderListener rowListener = new ImageLoaderListener() {
+		public void imageDataLoaded(ImageLoaderEvent e) {
+			lastEvent[0] = e;
+		}
+	};
+	loader.addImageLoaderListener(rowListener);
 	stream = SwtTestCase.class.getResourceAsStream("target.png");	
 	loader.load(stream);
 	try {
 		stream.close();
 	} catch (IOException e) {}
-	assertFalse(":d:", loaderListenerCalled);
+	loader.removeImageLoaderListener(rowListener);
+	assertTrue(":d:", loaderListenerCalled);
+	assertTrue(":d1:", lastEvent[0].endOfImage);
+	assertSame(":d2:", loader.data[0], lastEvent[0].imageData);
 
 	loaderListenerCalled = false;
 	loader.notifyListeners(new ImageLoaderEvent(loader, loader.data[0], 0, true));
@@ -84,6 +95,94 @@ public void test_hasListeners() {
 	// tested in addImageLoaderListener method
 }
 
+public void test_loadFrameI() {
+	ImageLoader loader = new ImageLoader();
+	try {
+		loader.loadFrame(0);
+		fail("No exception thrown for loadFrame before openFrames");
+	} catch (SWTException e) {
+		assertEquals(":a:", SWT.ERROR_FAILED_EXEC, e.code);
+	}
+
+	// an 8x8 red frame, a 4x4 blue frame that is replaced by the background,
+	// a 2x2 green frame with a transparent pixel that is replaced by the previous
+	// frames, and a white pixel in the corner
+	ImageData[] frames = new ImageData[4];
+	RGB[] colors = {new RGB(255, 0, 0), new RGB(0, 0, 255), new RGB(0, 255, 0), new RGB(255, 255, 255)};
+	int[][] bounds = {{0, 0, 8, 8}, {2, 2, 4, 4}, {0, 0, 2, 2}, {7, 7, 1, 1}};
+	int[] disposalMethods = {SWT.DM_FILL_NONE, SWT.DM_FILL_BACKGROUND, SWT.DM_FILL_PREVIOUS, SWT.DM_FILL_NONE};
+	for (int i = 0; i < frames.length; i++) {
+		ImageData frame = new ImageData(bounds[i][2], bounds[i][3], 8, new PaletteData(new RGB[] {new RGB(0, 0, 0), colors[i]}));
+		for (int y = 0; y < frame.height; y++) {
+			for (int x = 0; x < frame.width; x++) {
+				frame.setPixel(x, y, 1);
+			}
+		}
+		frame.x = bounds[i][0];
+		frame.y = bounds[i][1];
+		frame.disposalMethod = disposalMethods[i];
+		frame.delayTime = (i + 1) * 10;
+		frames[i] = frame;
+	}
+	frames[2].setPixel(1, 1, 0);
+	frames[2].transparentPixel = 0;
+	loader.data = frames;
+	loader.logicalScreenWidth = 8;
+	loader.logicalScreenHeight = 8;
+	loader.repeatCount = 0;
+	ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+	loader.save(outStream, SWT.IMAGE_GIF);
+	byte[] bytes = outStream.toByteArray();
+
+	loader = new ImageLoader();
+	loader.openFrames(new ByteArrayInputStream(bytes));
+	assertNull(":b:", loader.data);
+	assertEquals(":c:", 8, loader.logicalScreenWidth);
+	assertEquals(":d:", 8, loader.logicalScreenHeight);
+	try {
+		loader.loadFrame(-1);
+		fail("No exception thrown for loadFrame index < 0");
+	} catch (IllegalArgumentException e) {
+	}
+	// the second pass restarts the animation
+	for (int pass = 0; pass < 2; pass++) {
+		ImageData screen = loader.loadFrame(0);
+		assertEquals(":e:", 8, screen.width);
+		assertEquals(":f:", 8, screen.height);
+		assertEquals(":g:", 10, screen.delayTime);
+		assertEquals(":h:", colors[0], screen.palette.getRGB(screen.getPixel(3, 3)));
+		assertEquals(":i:", 255, screen.getAlpha(3, 3));
+
+		screen = loader.loadFrame(1);
+		assertEquals(":j:", 20, screen.delayTime);
+		assertEquals(":k:", colors[1], screen.palette.getRGB(screen.getPixel(3, 3)));
+		assertEquals(":l:", colors[0], screen.palette.getRGB(screen.getPixel(0, 0)));
+
+		screen = loader.loadFrame(2);
+		assertEquals(":m:", 0, screen.getAlpha(3, 3));
+		assertEquals(":n:", colors[2], screen.palette.getRGB(screen.getPixel(0, 0)));
+		assertEquals(":o:", colors[0], screen.palette.getRGB(screen.getPixel(1, 1)));
+
+		screen = loader.loadFrame(3);
+		assertEquals(":p:", colors[0], screen.palette.getRGB(screen.getPixel(0, 0)));
+		assertEquals(":q:", colors[3], screen.palette.getRGB(screen.getPixel(7, 7)));
+		assertEquals(":r:", 0, screen.getAlpha(2, 2));
+		assertSame(":s:", screen, loader.loadFrame(3));
+		assertNull(":t:", loader.loadFrame(4));
+		assertEquals(":u:", 0, loader.repeatCount);
+	}
+	ImageData screen = loader.loadFrame(2);
+	assertEquals(":v:", colors[2], screen.palette.getRGB(screen.getPixel(0, 0)));
+
+	// images in other formats are returned as they are loaded
+	loader.data = new ImageData[] {frames[0]};
+	outStream = new ByteArrayOutputStream();
+	loader.save(outStream, SWT.IMAGE_PNG);
+	loader.openFrames(new ByteArrayInputStream(outStream.toByteArray()));
+	assertEquals(":w:", 8, loader.loadFrame(0).width);
+	assertNull(":x:", loader.loadFrame(1));
+}
+
 public void test_loadLjava_io_InputStream() {
 	ImageLoader loader = new ImageLoader();
 	InputStream stream = null;
@@ -122,6 +221,89 @@ public void test_loadLjava_io_InputStream() {
 	}
 }
 
+public void test_loadLjava_io_InputStreamII() {
+	ImageLoader loader = new ImageLoader();
+	try {
+		loader.load((InputStream)null, 10, 10);
+		fail("No exception thrown for load inputStream == null");
+	} catch (IllegalArgumentException e) {
+	}
+	try {
+		loader.load(new ByteArrayInputStream(new byte[0]), 0, 10);
+		fail("No exception thrown for load width == 0");
+	} catch (IllegalArgumentException e) {
+	}
+
+	int width = 100, height = 60;
+	ImageData data = new ImageData(width, height, 24, new PaletteData(0xFF, 0xFF00, 0xFF0000));
+	RGB color = new RGB(200, 100, 50);
+	for (int y = 0; y < height; y++) {
+		for (int x = 0; x < width; x++) {
+			data.setPixel(x, y, data.palette.getPixel(color));
+		}
+	}
+	byte[][] files = new byte[2][];
+	int[] formats = {SWT.IMAGE_JPEG, SWT.IMAGE_PNG};
+	for (int i = 0; i < formats.length; i++) {
+		loader.data = new ImageData[] {data};
+		ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+		loader.save(outStream, formats[i]);
+		files[i] = outStream.toByteArray();
+	}
+
+	// JPEG images are decoded at 1/1, 1/2, 1/4 or 1/8 of their size
+	int[][] sizes = {{200, 200, 100, 60}, {100, 60, 100, 60}, {51, 10, 100, 60}, {50, 30, 50, 30}, {26, 1, 50, 30}, {25, 15, 25, 15}, {1, 1, 13, 8}};
+	for (int i = 0; i < sizes.length; i++) {
+		ImageData result = loader.load(new ByteArrayInputStream(files[0]), sizes[i][0], sizes[i][1])[0];
+		assertEquals(":a:" + i, sizes[i][2], result.width);
+		assertEquals(":b:" + i, sizes[i][3], result.height);
+		RGB rgb = result.palette.getRGB(result.getPixel(result.width / 2, result.height / 2));
+		assertTrue(":c:" + i, Math.abs(rgb.red - color.red) < 8 && Math.abs(rgb.green - color.green) < 8 && Math.abs(rgb.blue - color.blue) < 8);
+	}
+
+	// other formats are loaded at full size
+	ImageData result = loader.load(new ByteArrayInputStream(files[1]), 10, 10)[0];
+	assertEquals(":d:", width, result.width);
+	assertEquals(":e:", height, result.height);
+}
+
+public void test_loadLjava_io_InputStream_restartMarkers() {
+	// a 1024x1024 baseline JPEG with a restart marker every 48 MCUs, which is
+	// decoded in parallel unless the internal switch is set
+	String property = "org.eclipse.swt.internal.image.disableParallelJPEGDecoding";
+	ImageLoader loader = new ImageLoader();
+	int[][] sizes = {{0, 0}, {300, 200}};
+	for (int i = 0; i < sizes.length; i++) {
+		ImageData[] parallel = load(loader, "restart.jpg", sizes[i][0], sizes[i][1]);
+		ImageData[] serial;
+		System.setProperty(property, "true");
+		try {
+			serial = load(loader, "restart.jpg", sizes[i][0], sizes[i][1]);
+		} finally {
+			System.clearProperty(property);
+		}
+		assertEquals(":a:" + i, 1, parallel.length);
+		assertEquals(":b:" + i, 1, serial.length);
+		assertEquals(":c:" + i, serial[0].width, parallel[0].width);
+		assertEquals(":d:" + i, serial[0].height, parallel[0].height);
+		assertEquals(":e:" + i, serial[0].depth, parallel[0].depth);
+		assertEquals(":f:" + i, serial[0].bytesPerLine, parallel[0].bytesPerLine);
+		assertTrue(":g:" + i, java.util.Arrays.equals(serial[0].data, parallel[0].data));
+	}
+	assertEquals(":h:", 1024, load(loader, "restart.jpg", 0, 0)[0].width);
+}
+
+ImageData[] load(ImageLoader loader, String fileName, int width, int height) {
+	InputStream stream = SwtTestCase.class.getResourceAsStream(fileName);
+	try {
+		return width == 0 ? loader.load(stream) : loader.load(stream, width, height);
+	} finally {
+		try {
+			stream.close();
+		} catch (IOException e) {}
+	}
+}
+
 public void test_loadLjava_lang_String() {
 	ImageLoader loader = new ImageLoader();
 	String filename = null;
@@ -137,6 +319,16 @@ public void test_notifyListenersLorg_eclipse_swt_graphics_ImageLoaderEvent() {
 	// tested in addImageLoaderListener method
 }
 
+public void test_openFramesLjava_io_InputStream() {
+	ImageLoader loader = new ImageLoader();
+	try {
+		loader.openFrames(null);
+		fail("No exception thrown for openFrames inputStream == null");
+	} catch (IllegalArgumentException e) {
+	}
+	// frames are tested in loadFrame method
+}
+
 public void test_removeImageLoaderListenerLorg_eclipse_swt_graphics_ImageLoaderListener() {
 	// tested in addImageLoaderListener method
 }
@@ -190,6 +382,81 @@ public void test_saveLjava_io_OutputStreamI() {
 	}
 }
 
+public void test_saveLjava_io_OutputStreamI_gif() {
+	// noisy enough for the string table to fill up and be cleared
+	int width = 300, height = 200;
+	java.util.Random random = new java.util.Random(0);
+	int[] depths = {8, 4};
+	for (int i = 0; i < depths.length; i++) {
+		RGB[] rgbs = new RGB[1 << depths[i]];
+		for (int j = 0; j < rgbs.length; j++) {
+			rgbs[j] = new RGB(j, 255 - j, j / 2);
+		}
+		ImageData data = new ImageData(width, height, depths[i], new PaletteData(rgbs));
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int pixel = y < height / 2 ? x / 5 + y / 7 : random.nextInt(rgbs.length);
+				data.setPixel(x, y, pixel % rgbs.length);
+			}
+		}
+		ImageLoader loader = new ImageLoader();
+		loader.data = new ImageData[] {data};
+		ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+		loader.save(outStream, SWT.IMAGE_GIF);
+		ImageData result = new ImageLoader().load(new ByteArrayInputStream(outStream.toByteArray()))[0];
+		assertEquals(":a:", width, result.width);
+		assertEquals(":b:", height, result.height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				assertEquals(":c:", data.getPixel(x, y), result.getPixel(x, y));
+			}
+		}
+	}
+}
+
+public void test_saveLjava_io_OutputStreamI_png() {
+	// large enough for the rows to be compressed in bands when there are several
+	// processors, unless the internal switch is set
+	String property = "org.eclipse.swt.internal.image.disableParallelPNGEncoding";
+	int width = 640, height = 480;
+	ImageData[] images = {
+		new ImageData(width, height, 24, new PaletteData(0xFF, 0xFF00, 0xFF0000)),
+		new ImageData(width, height, 32, new PaletteData(0xFF00, 0xFF0000, 0xFF000000)),
+		new ImageData(width, height, 8, new PaletteData(new RGB[] {new RGB(0, 0, 0), new RGB(255, 0, 0), new RGB(0, 255, 0), new RGB(0, 0, 255)})),
+	};
+	images[1].alphaData = new byte[width * height];
+	for (int i = 0; i < images.length; i++) {
+		ImageData data = images[i];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				data.setPixel(x, y, data.palette.isDirect ? (x * 7) ^ (y * 13) ^ (x * y) : (x / 8 + y / 8) % 4);
+				if (data.alphaData != null) data.alphaData[y * width + x] = (byte) (x + y);
+			}
+		}
+		for (int compression = 0; compression <= 7; compression++) {
+			ImageLoader loader = new ImageLoader();
+			loader.data = new ImageData[] {data};
+			loader.compression = compression % 4;
+			ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+			if (compression > 3) System.setProperty(property, "true");
+			try {
+				loader.save(outStream, SWT.IMAGE_PNG);
+			} finally {
+				System.clearProperty(property);
+			}
+			ImageData result = new ImageLoader().load(new ByteArrayInputStream(outStream.toByteArray()))[0];
+			assertEquals(":a:", width, result.width);
+			assertEquals(":b:", height, result.height);
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					assertEquals(":c:", data.palette.getRGB(data.getPixel(x, y)), result.palette.getRGB(result.getPixel(x, y)));
+					if (data.alphaData != null) assertEquals(":d:", data.getAlpha(x, y), result.getAlpha(x, y));
+				}
+			}
+		}
+	}
+}
+
 public void test_saveLjava_lang_StringI() {
 	ImageLoader loader = new ImageLoader();
 	String filename = null;
@@ -215,11 +482,17 @@ public static java.util.Vector<String> methodNames() {
 	methodNames.addElement("test_Constructor");
 	methodNames.addElement("test_addImageLoaderListenerLorg_eclipse_swt_graphics_ImageLoaderListener");
 	methodNames.addElement("test_hasListeners");
+	methodNames.addElement("test_loadFrameI");
 	methodNames.addElement("test_loadLjava_io_InputStream");
+	methodNames.addElement("test_loadLjava_io_InputStreamII");
+	methodNames.addElement("test_loadLjava_io_InputStream_restartMarkers");
 	methodNames.addElement("test_loadLjava_lang_String");
 	methodNames.addElement("test_notifyListenersLorg_eclipse_swt_graphics_ImageLoaderEvent");
+	methodNames.addElement("test_openFramesLjava_io_InputStream");
 	methodNames.addElement("test_removeImageLoaderListenerLorg_eclipse_swt_graphics_ImageLoaderListener");
 	methodNames.addElement("test_saveLjava_io_OutputStreamI");
+	methodNames.addElement("test_saveLjava_io_OutputStreamI_gif");
+	methodNames.addElement("test_saveLjava_io_OutputStreamI_png");
 	methodNames.addElement("test_saveLjava_lang_StringI");
 	return methodNames;
 }
@@ -228,11 +501,17 @@ protected void runTest() throws Throwable {
 	if (getName().equals("test_Constructor")) test_Constructor();
 	else if (getName().equals("test_addImageLoaderListenerLorg_eclipse_swt_graphics_ImageLoaderListener")) test_addImageLoaderListenerLorg_eclipse_swt_graphics_ImageLoaderListener();
 	else if (getName().equals("test_hasListeners")) test_hasListeners();
+	else if (getName().equals("test_loadFrameI")) test_loadFrameI();
 	else if (getName().equals("test_loadLjava_io_InputStream")) test_loadLjava_io_InputStream();
+	else if (getName().equals("test_loadLjava_io_InputStreamII")) test_loadLjava_io_InputStreamII();
+	else if (getName().equals("test_loadLjava_io_InputStream_restartMarkers")) test_loadLjava_io_InputStream_restartMarkers();
 	else if (getName().equals("test_loadLjava_lang_String")) test_loadLjava_lang_String();
 	else if (getName().equals("test_notifyListenersLorg_eclipse_swt_graphics_ImageLoaderEvent")) test_notifyListenersLorg_eclipse_swt_graphics_ImageLoaderEvent();
+	else if (getName().equals("test_openFramesLjava_io_InputStream")) test_openFramesLjava_io_InputStream();
 	else if (getName().equals("test_removeImageLoaderListenerLorg_eclipse_swt_graphics_ImageLoaderListener")) test_removeImageLoaderListenerLorg_eclipse_swt_graphics_ImageLoaderListener();
 	else if (getName().equals("test_saveLjava_io_OutputStreamI")) test_saveLjava_io_OutputStreamI();
+	else if (getName().equals("test_saveLjava_io_OutputStreamI_gif")) test_saveLjava_io_OutputStreamI_gif();
+	else if (getName().equals("test_saveLjava_io_OutputStreamI_png")) test_saveLjava_io_OutputStreamI_png();
 	else if (getName().equals("test_saveLjava_lang_StringI")) test_saveLjava_lang_StringI();
 }
 /* custom */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2003 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,15 @@ package org.eclipse.swt.tests.junit;
 import junit.framework.*;
 import junit.textui.*;
 
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.LayoutProfiler;
+
 /**
  * Automated Test Suite for class org.eclipse.swt.layout.GridLayout
  *
@@ -38,6 +47,82 @@ public void test_ConstructorIZ() {
 	warnUnimpl("Test test_ConstructorIZ not written");
 }
 
+public void test_layoutAfterChanges() {
+	GridLayout layout = new GridLayout(3, false);
+	composite.setLayout(layout);
+	for (int i = 0; i < 12; i++) {
+		Label label = new Label(composite, SWT.WRAP);
+		label.setText(i % 4 == 0 ? "A longer label that wraps when it is narrow" : "Label " + i);
+		label.setLayoutData(new GridData(SWT.FILL, SWT.FILL, i % 3 == 0, i % 5 == 0));
+	}
+	composite.setSize(300, 400);
+	composite.layout(true);
+	Control[] children = composite.getChildren();
+	for (int i = 0; i < 6; i++) {
+		GridData data = (GridData) children[(i * 5) % children.length].getLayoutData();
+		switch (i) {
+			case 0: data.horizontalSpan = 2; break;
+			case 1: data.widthHint = 40; break;
+			case 2: data.exclude = true; break;
+			case 3: data.verticalSpan = 2; break;
+			case 4: data.minimumHeight = 30; break;
+			case 5: composite.setSize(150, 500); break;
+		}
+		composite.layout(true);
+		Rectangle[] bounds = new Rectangle[children.length];
+		for (int j = 0; j < children.length; j++) {
+			bounds[j] = children[j].getBounds();
+		}
+		Point size = composite.computeSize(SWT.DEFAULT, SWT.DEFAULT, true);
+
+		/* A new layout lays out the controls from scratch */
+		composite.setLayout(layout = new GridLayout(3, false));
+		composite.layout(true);
+		for (int j = 0; j < children.length; j++) {
+			assertEquals(":a:" + i + "," + j, bounds[j], children[j].getBounds());
+		}
+		assertEquals(":b:" + i, size, composite.computeSize(SWT.DEFAULT, SWT.DEFAULT, true));
+	}
+}
+
+public void test_layoutProfiler() {
+	// layout passes are only recorded on GTK
+	if (!SwtJunit.isGTK) return;
+	composite.setLayout(new GridLayout(2, false));
+	Label[] labels = new Label[4];
+	for (int i = 0; i < labels.length; i++) {
+		labels[i] = new Label(composite, SWT.NONE);
+		labels[i].setText("Label " + i);
+		labels[i].setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+	}
+	composite.setSize(300, 200);
+	LayoutProfiler profiler = new LayoutProfiler(composite.getDisplay());
+	profiler.start();
+	try {
+		composite.layout(true);
+		assertEquals(":a:", 1, profiler.getLayoutCount(composite));
+		assertEquals(":b:", 1, profiler.getRedundantLayoutCount(composite));
+		assertTrue(":c:", profiler.getCacheMissCount(labels[0]) > 0);
+		assertTrue(":d:", profiler.getComputeSizeCount(labels[0]) > 0);
+		labels[0].setText("A longer label in the first column");
+		composite.layout(true);
+		assertEquals(":e:", 2, profiler.getLayoutCount(composite));
+		assertEquals(":f:", 1, profiler.getRedundantLayoutCount(composite));
+		composite.computeSize(SWT.DEFAULT, SWT.DEFAULT, true);
+		assertEquals(":g:", 1, profiler.getComputeSizeCount(composite));
+		java.io.ByteArrayOutputStream stream = new java.io.ByteArrayOutputStream();
+		profiler.dump(new java.io.PrintStream(stream));
+		assertTrue(":h:", stream.toString().indexOf("[GridLayout] layout: 2 (1 redundant)") != -1);
+	} finally {
+		profiler.stop();
+	}
+	composite.layout(true);
+	assertEquals(":i:", 2, profiler.getLayoutCount(composite));
+	profiler.reset();
+	assertEquals(":j:", 0, profiler.getLayoutCount(composite));
+	assertEquals(":k:", 0, profiler.getControls().length);
+}
+
 public static Test suite() {
 	TestSuite suite = new TestSuite();
 	java.util.Vector<String> methodNames = methodNames();
@@ -51,6 +136,8 @@ public static java.util.Vector<String> methodNames() {
 	java.util.Vector<String> methodNames = new java.util.Vector<String>();
 	methodNames.addElement("test_Constructor");
 	methodNames.addElement("test_ConstructorIZ");
+	methodNames.addElement("test_layoutAfterChanges");
+	methodNames.addElement("test_layoutProfiler");
 	methodNames.addAll(Test_org_eclipse_swt_widgets_Layout.methodNames()); // add superclass method names
 	return methodNames;
 }
@@ -58,6 +145,8 @@ public static java.util.Vector<String> methodNames() {
 protected void runTest() throws Throwable {
 	if (getName().equals("test_Constructor")) test_Constructor();
 	else if (getName().equals("test_ConstructorIZ")) test_ConstructorIZ();
+	else if (getName().equals("test_layoutAfterChanges")) test_layoutAfterChanges();
+	else if (getName().equals("test_layoutProfiler")) test_layoutProfiler();
 	else super.runTest();
 }
 }
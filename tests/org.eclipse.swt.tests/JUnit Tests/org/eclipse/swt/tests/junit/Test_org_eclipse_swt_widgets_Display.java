@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.swt.tests.junit;
 
+import java.lang.reflect.Method;
+
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import junit.textui.TestRunner;
@@ -155,6 +157,100 @@ public void test_asyncExecLjava_lang_Runnable() {
 	}
 }
 
+public void test_asyncExecLjava_lang_ObjectLjava_lang_Runnable() {
+	final Display display = new Display();
+	try {
+		final StringBuffer buffer = new StringBuffer();
+		for (int i = 0; i < 1000; i++) {
+			final int value = i;
+			display.asyncExec(i % 2 == 0 ? "a" : "b", new Runnable() {
+				public void run() {
+					buffer.append(value).append(' ');
+				}
+			});
+		}
+		display.asyncExec("a", new Runnable() {
+			public void run() {
+				buffer.append("a ");
+			}
+		});
+		while (display.readAndDispatch()) {/*empty*/}
+		assertEquals(":a:", "a 999 ", buffer.toString());
+		assertEquals(":b:", 999, display.getSynchronizer().getCoalescedCount());
+
+		// a runnable queued while the batch runs is run by the next batch
+		buffer.setLength(0);
+		display.asyncExec("a", new Runnable() {
+			public void run() {
+				buffer.append("first ");
+				display.asyncExec("a", new Runnable() {
+					public void run() {
+						buffer.append("second ");
+					}
+				});
+			}
+		});
+		assertTrue(":c:", display.readAndDispatch());
+		assertEquals(":d:", "first ", buffer.toString());
+		while (display.readAndDispatch()) {/*empty*/}
+		assertEquals(":e:", "first second ", buffer.toString());
+
+		try {
+			display.asyncExec(null, new Runnable() {
+				public void run() {
+				}
+			});
+			fail("No exception thrown for key == null");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			display.asyncExec("a", null);
+			fail("No exception thrown for runnable == null");
+		} catch (IllegalArgumentException e) {
+		}
+	} finally {
+		display.dispose();
+	}
+}
+
+public void test_asyncExecLjava_lang_ObjectLjava_lang_Runnable_synchronizer() {
+	final Display display = new Display();
+	try {
+		class MySynchronizer extends Synchronizer {
+			int asyncExecCount = 0;
+			MySynchronizer(Display d) {
+				super(d);
+			}
+			@Override
+			protected void asyncExec (Runnable runnable) {
+				asyncExecCount++;
+				super.asyncExec(runnable);
+			}
+		}
+		MySynchronizer mySynchronizer = new MySynchronizer(display);
+		display.setSynchronizer(mySynchronizer);
+		final boolean[] ran = new boolean[2];
+		display.asyncExec("key", new Runnable() {
+			public void run() {
+				ran[0] = true;
+			}
+		});
+		display.asyncExec("key", new Runnable() {
+			public void run() {
+				ran[1] = true;
+			}
+		});
+		while (display.readAndDispatch()) {/*empty*/}
+		// the keyed runnables are queued through the synchronizer once
+		assertEquals(":a:", 1, mySynchronizer.asyncExecCount);
+		assertFalse(":b:", ran[0]);
+		assertTrue(":c:", ran[1]);
+		assertEquals(":d:", 1, mySynchronizer.getCoalescedCount());
+	} finally {
+		display.dispose();
+	}
+}
+
 public void test_beep() {
 	Display display = new Display();
 	try {
@@ -170,6 +266,51 @@ public void test_close() {
 	assertTrue(display.isDisposed());
 }
 
+public void test_deferredEvents() throws Exception {
+	final Display display = new Display();
+	try {
+		// deferred events are only posted internally, so post them through reflection
+		final Method postEvent = Display.class.getDeclaredMethod("postEvent", new Class[] {Event.class});
+		postEvent.setAccessible(true);
+		final int count = 100000;
+		final int[] next = new int[1];
+		final boolean[] ordered = {true};
+		final Shell shell = new Shell(display);
+		Shell disposed = new Shell(display);
+		shell.addListener(SWT.Modify, new Listener() {
+			public void handleEvent(Event event) {
+				if (event.detail != next[0]) ordered[0] = false;
+				next[0]++;
+				// run the rest of the queue from within a deferred event
+				if (event.detail == count / 2) {
+					while (display.readAndDispatch()) {/*empty*/}
+				}
+			}
+		});
+		for (int i = 0; i < count; i++) {
+			Event event = new Event();
+			event.type = SWT.Modify;
+			event.widget = shell;
+			event.display = display;
+			event.detail = i;
+			postEvent.invoke(display, new Object[] {event});
+			if (i % 1000 == 0) {
+				event = new Event();
+				event.type = SWT.Modify;
+				event.widget = disposed;
+				event.display = display;
+				postEvent.invoke(display, new Object[] {event});
+			}
+		}
+		disposed.dispose();
+		while (display.readAndDispatch()) {/*empty*/}
+		assertTrue(":a:", ordered[0]);
+		assertEquals(":b:", count, next[0]);
+	} finally {
+		display.dispose();
+	}
+}
+
 public void test_disposeExecLjava_lang_Runnable() {
 	// Also tests dispose and isDisposed
 	Display testDisplay = new Display();
@@ -1126,6 +1267,51 @@ public void test_timerExecILjava_lang_Runnable() {
 	}
 }
 
+public void test_timerExecILjava_lang_Runnable_reschedule() {
+	final Display display = new Display();
+	try {
+		final int[] runs = new int[200];
+		final StringBuffer order = new StringBuffer();
+		Runnable[] runnables = new Runnable[runs.length];
+		for (int i = 0; i < runnables.length; i++) {
+			final int index = i;
+			runnables[i] = new Runnable() {
+				public void run() {
+					runs[index]++;
+					if (index < 3) order.append(index);
+				}
+			};
+			display.timerExec(5000, runnables[i]);
+		}
+		// rescheduling replaces the pending timer, a negative delay cancels it
+		for (int i = 0; i < runnables.length; i++) {
+			display.timerExec(i % 2 == 0 ? -1 : 10 + i % 7, runnables[i]);
+		}
+		display.timerExec(40, runnables[0]);
+		display.timerExec(30, runnables[2]);
+		display.timerExec(20, runnables[1]);
+		display.timerExec(50, runnables[1]);
+		final int[] ticks = new int[1];
+		display.timerExec(0, new Runnable() {
+			public void run() {
+				// a timer that schedules itself again does not starve the others
+				if (++ticks[0] < 1000) display.timerExec(0, this);
+			}
+		});
+		long end = System.currentTimeMillis() + 10000;
+		while ((runs[1] == 0 || ticks[0] < 1000) && System.currentTimeMillis() < end) {
+			if (!display.readAndDispatch()) display.sleep();
+		}
+		assertEquals(":a:", "201", order.toString());
+		assertEquals(":b:", 1000, ticks[0]);
+		for (int i = 3; i < runs.length; i++) {
+			assertEquals(":c: " + i, i % 2 == 0 ? 0 : 1, runs[i]);
+		}
+	} finally {
+		display.dispose();
+	}
+}
+
 public void test_update() {
 	Display display = new Display();
 	try {
@@ -1155,8 +1341,11 @@ public static java.util.Vector<String> methodNames() {
 	methodNames.addElement("test_addFilterILorg_eclipse_swt_widgets_Listener");
 	methodNames.addElement("test_addListenerILorg_eclipse_swt_widgets_Listener");
 	methodNames.addElement("test_asyncExecLjava_lang_Runnable");
+	methodNames.addElement("test_asyncExecLjava_lang_ObjectLjava_lang_Runnable");
+	methodNames.addElement("test_asyncExecLjava_lang_ObjectLjava_lang_Runnable_synchronizer");
 	methodNames.addElement("test_beep");
 	methodNames.addElement("test_close");
+	methodNames.addElement("test_deferredEvents");
 	methodNames.addElement("test_disposeExecLjava_lang_Runnable");
 	methodNames.addElement("test_findDisplayLjava_lang_Thread");
 	methodNames.addElement("test_findWidgetI");
@@ -1200,6 +1389,7 @@ public static java.util.Vector<String> methodNames() {
 	methodNames.addElement("test_sleep");
 	methodNames.addElement("test_syncExecLjava_lang_Runnable");
 	methodNames.addElement("test_timerExecILjava_lang_Runnable");
+	methodNames.addElement("test_timerExecILjava_lang_Runnable_reschedule");
 	methodNames.addElement("test_update");
 	methodNames.addElement("test_wake");
 	methodNames.addElement("test_LongEventWatchdog");
@@ -1213,8 +1403,11 @@ protected void runTest() throws Throwable {
 	else if (getName().equals("test_addFilterILorg_eclipse_swt_widgets_Listener")) test_addFilterILorg_eclipse_swt_widgets_Listener();
 	else if (getName().equals("test_addListenerILorg_eclipse_swt_widgets_Listener")) test_addListenerILorg_eclipse_swt_widgets_Listener();
 	else if (getName().equals("test_asyncExecLjava_lang_Runnable")) test_asyncExecLjava_lang_Runnable();
+	else if (getName().equals("test_asyncExecLjava_lang_ObjectLjava_lang_Runnable")) test_asyncExecLjava_lang_ObjectLjava_lang_Runnable();
+	else if (getName().equals("test_asyncExecLjava_lang_ObjectLjava_lang_Runnable_synchronizer")) test_asyncExecLjava_lang_ObjectLjava_lang_Runnable_synchronizer();
 	else if (getName().equals("test_beep")) test_beep();
 	else if (getName().equals("test_close")) test_close();
+	else if (getName().equals("test_deferredEvents")) test_deferredEvents();
 	else if (getName().equals("test_disposeExecLjava_lang_Runnable")) test_disposeExecLjava_lang_Runnable();
 	else if (getName().equals("test_findDisplayLjava_lang_Thread")) test_findDisplayLjava_lang_Thread();
 	else if (getName().equals("test_findWidgetI")) test_findWidgetI();
@@ -1259,6 +1452,7 @@ protected void runTest() throws Throwable {
 	else if (getName().equals("test_sleep")) test_sleep();
 	else if (getName().equals("test_syncExecLjava_lang_Runnable")) test_syncExecLjava_lang_Runnable();
 	else if (getName().equals("test_timerExecILjava_lang_Runnable")) test_timerExecILjava_lang_Runnable();
+	else if (getName().equals("test_timerExecILjava_lang_Runnable_reschedule")) test_timerExecILjava_lang_Runnable_reschedule();
 	else if (getName().equals("test_update")) test_update();
 	else if (getName().equals("test_wake")) test_wake();
 	else super.runTest();
@@ -14,6 +14,8 @@ package org.eclipse.swt.tests.junit;
 import junit.framework.*;
 import junit.textui.*;
 
+import org.eclipse.swt.widgets.*;
+
 /**
  * Automated Test Suite for class org.eclipse.swt.widgets.Synchronizer
  *
@@ -33,6 +35,89 @@ public void test_ConstructorLorg_eclipse_swt_widgets_Display() {
 	// tested in Test_org_eclipse_swt_widgets_Display.test_setSynchronizerLorg_eclipse_swt_widgets_Synchronizer
 }
 
+public void test_asyncExecLjava_lang_Runnable() {
+	final Display display = Display.getDefault();
+	Synchronizer oldSynchronizer = display.getSynchronizer();
+	Synchronizer synchronizer = new Synchronizer(display);
+	display.setSynchronizer(synchronizer);
+	try {
+		final int threadCount = 4, messageCount = 5000;
+		final int[] next = new int[threadCount];
+		final boolean[] ordered = {true};
+		Thread[] threads = new Thread[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < messageCount; j++) {
+						final int value = j;
+						display.asyncExec(new Runnable() {
+							public void run() {
+								if (next[index] != value) ordered[0] = false;
+								next[index] = value + 1;
+							}
+						});
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threadCount; i++) {
+			try {
+				threads[i].join();
+			} catch (InterruptedException e) {
+				fail(e.getMessage());
+			}
+		}
+		while (display.readAndDispatch()) {/*empty*/}
+		assertTrue(":a:", ordered[0]);
+		for (int i = 0; i < threadCount; i++) {
+			assertEquals(":b:", messageCount, next[i]);
+		}
+		assertEquals(":c:", threadCount * messageCount, synchronizer.getEnqueuedCount());
+		assertEquals(":d:", threadCount * messageCount, synchronizer.getDrainedCount());
+		assertTrue(":e:", synchronizer.getMaxBacklog() > 0);
+		assertTrue(":f:", synchronizer.getMaxBacklog() <= threadCount * messageCount);
+		assertTrue(":g:", synchronizer.getMaxWaitTime() > 0);
+		assertTrue(":h:", synchronizer.getWaitTime() >= synchronizer.getMaxWaitTime());
+	} finally {
+		display.setSynchronizer(oldSynchronizer);
+	}
+}
+
+public void test_syncExecLjava_lang_Runnable() {
+	final Display display = Display.getDefault();
+	Synchronizer oldSynchronizer = display.getSynchronizer();
+	Synchronizer synchronizer = new Synchronizer(display);
+	display.setSynchronizer(synchronizer);
+	try {
+		final int[] count = new int[1];
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 100; i++) {
+					display.syncExec(new Runnable() {
+						public void run() {
+							count[0]++;
+						}
+					});
+				}
+			}
+		};
+		thread.start();
+		while (thread.isAlive()) {
+			if (!display.readAndDispatch()) display.sleep();
+		}
+		assertEquals(":a:", 100, count[0]);
+		assertEquals(":b:", 100, synchronizer.getEnqueuedCount());
+		assertEquals(":c:", 100, synchronizer.getDrainedCount());
+		assertEquals(":d:", 1, synchronizer.getMaxBacklog());
+	} finally {
+		display.setSynchronizer(oldSynchronizer);
+	}
+}
+
 
 public static Test suite() {
 	TestSuite suite = new TestSuite();
@@ -47,11 +132,15 @@ public static Test suite() {
 public static java.util.Vector<String> methodNames() {
 	java.util.Vector<String> methodNames = new java.util.Vector<String>();
 	methodNames.addElement("test_ConstructorLorg_eclipse_swt_widgets_Display");
+	methodNames.addElement("test_asyncExecLjava_lang_Runnable");
+	methodNames.addElement("test_syncExecLjava_lang_Runnable");
 	return methodNames;
 }
 
 @Override
 protected void runTest() throws Throwable {
 	if (getName().equals("test_ConstructorLorg_eclipse_swt_widgets_Display")) test_ConstructorLorg_eclipse_swt_widgets_Display();
+	else if (getName().equals("test_asyncExecLjava_lang_Runnable")) test_asyncExecLjava_lang_Runnable();
+	else if (getName().equals("test_syncExecLjava_lang_Runnable")) test_syncExecLjava_lang_Runnable();
 }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -1347,6 +1347,35 @@ public void test_setHeaderVisibleZ() {
 	assertFalse(table.getHeaderVisible());
 }
 
+public void test_setItems$$Ljava_lang_String() {
+	try {
+		table.setItems(null);
+		fail("No exception thrown for rows == null");
+	} catch (IllegalArgumentException e) {
+	}
+	try {
+		table.setItems(new String[][] {{"a"}, null});
+		fail("No exception thrown for row == null");
+	} catch (IllegalArgumentException e) {
+	}
+	new TableItem(table, SWT.NONE).setText("old");
+	new TableColumn(table, SWT.NONE);
+	new TableColumn(table, SWT.NONE);
+	String[][] rows = new String[1000][];
+	for (int i = 0; i < rows.length; i++) {
+		rows[i] = i % 10 == 0 ? new String[] {"Row " + i, null, "ignored"} : new String[] {"Row " + i, "\u00C9l\u00E9ment " + i};
+	}
+	table.setItems(rows);
+	assertEquals(":a:", rows.length, table.getItemCount());
+	for (int i = 0; i < rows.length; i++) {
+		TableItem item = table.getItem(i);
+		assertEquals(":b:" + i, rows[i][0], item.getText(0));
+		assertEquals(":c:" + i, i % 10 == 0 ? "" : rows[i][1], item.getText(1));
+	}
+	table.setItems(new String[0][]);
+	assertEquals(":d:", 0, table.getItemCount());
+}
+
 public void test_setLinesVisibleZ() {
 	if (SwtJunit.isCarbon) {
 		/* only carbon versions >= 10.4 support Table lines */
@@ -1670,6 +1699,46 @@ public void test_showSelection() {
 	table.showSelection();
 }
 
+public void test_virtualItems() {
+	if (table != null) table.dispose();
+	table = new Table(shell, SWT.VIRTUAL | SWT.MULTI);
+	setWidget(table);
+	for (int col = 0; col < 6; col++) {
+		new TableColumn(table, SWT.NONE);
+	}
+	final int[] count = new int[1];
+	table.addListener(SWT.SetData, new Listener() {
+		public void handleEvent(Event event) {
+			TableItem item = (TableItem) event.item;
+			int index = table.indexOf(item);
+			for (int col = 0; col < table.getColumnCount(); col++) {
+				item.setText(col, "C" + col + "R" + index);
+			}
+			count[0]++;
+		}
+	});
+	table.setItemCount(100000);
+	assertEquals(":a:", 100000, table.getItemCount());
+	assertEquals(":b:", "C5R500", table.getItem(500).getText(5));
+	assertTrue(":c:", count[0] < 100000);
+
+	table.getColumn(0).dispose();
+	assertEquals(":d:", "C5R500", table.getItem(500).getText(4));
+	table.remove(0, 99);
+	assertEquals(":e:", 99900, table.getItemCount());
+	assertEquals(":f:", "C5R500", table.getItem(400).getText(4));
+	new TableItem(table, SWT.NONE, 400).setText(4, "new");
+	assertEquals(":g:", "new", table.getItem(400).getText(4));
+	assertEquals(":h:", "C5R500", table.getItem(401).getText(4));
+
+	table.setItemCount(10);
+	assertEquals(":i:", 10, table.getItemCount());
+	table.removeAll();
+	assertEquals(":j:", 0, table.getItemCount());
+	table.setItemCount(5);
+	assertEquals(":k:", "C0R4", table.getItem(4).getText(0));
+}
+
 public static Test suite() {
 	TestSuite suite = new TestSuite();
 	java.util.Vector<String> methodNames = methodNames();
@@ -1721,6 +1790,7 @@ public static java.util.Vector<String> methodNames() {
 	methodNames.addElement("test_setColumnOrder$I");
 	methodNames.addElement("test_setFontLorg_eclipse_swt_graphics_Font");
 	methodNames.addElement("test_setHeaderVisibleZ");
+	methodNames.addElement("test_setItems$$Ljava_lang_String");
 	methodNames.addElement("test_setLinesVisibleZ");
 	methodNames.addElement("test_setRedrawZ");
 	methodNames.addElement("test_setSelection$I");
@@ -1731,6 +1801,7 @@ public static java.util.Vector<String> methodNames() {
 	methodNames.addElement("test_showColumnLorg_eclipse_swt_widgets_TableColumn");
 	methodNames.addElement("test_showItemLorg_eclipse_swt_widgets_TableItem");
 	methodNames.addElement("test_showSelection");
+	methodNames.addElement("test_virtualItems");
 	methodNames.addElement("test_consistency_KeySelection");
 	methodNames.addElement("test_consistency_MouseSelection");
 	methodNames.addElement("test_consistency_EnterSelection");
@@ -1782,6 +1853,7 @@ protected void runTest() throws Throwable {
 	else if (getName().equals("test_setColumnOrder$I")) test_setColumnOrder$I();
 	else if (getName().equals("test_setFontLorg_eclipse_swt_graphics_Font")) test_setFontLorg_eclipse_swt_graphics_Font();
 	else if (getName().equals("test_setHeaderVisibleZ")) test_setHeaderVisibleZ();
+	else if (getName().equals("test_setItems$$Ljava_lang_String")) test_setItems$$Ljava_lang_String();
 	else if (getName().equals("test_setLinesVisibleZ")) test_setLinesVisibleZ();
 	else if (getName().equals("test_setRedrawZ")) test_setRedrawZ();
 	else if (getName().equals("test_setSelection$I")) test_setSelection$I();
@@ -1792,6 +1864,7 @@ protected void runTest() throws Throwable {
 	else if (getName().equals("test_showColumnLorg_eclipse_swt_widgets_TableColumn")) test_showColumnLorg_eclipse_swt_widgets_TableColumn();
 	else if (getName().equals("test_showItemLorg_eclipse_swt_widgets_TableItem")) test_showItemLorg_eclipse_swt_widgets_TableItem();
 	else if (getName().equals("test_showSelection")) test_showSelection();
+	else if (getName().equals("test_virtualItems")) test_virtualItems();
 	else if (getName().equals("test_consistency_KeySelection")) test_consistency_KeySelection();
 	else if (getName().equals("test_consistency_MouseSelection")) test_consistency_MouseSelection();
 	else if (getName().equals("test_consistency_EnterSelection")) test_consistency_EnterSelection();
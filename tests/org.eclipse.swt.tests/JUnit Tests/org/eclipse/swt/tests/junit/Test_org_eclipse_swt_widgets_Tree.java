@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -65,6 +65,45 @@ public void test_ConstructorLorg_eclipse_swt_widgets_CompositeI() {
 	}
 }
 
+public void test_addItemsLorg_eclipse_swt_widgets_TreeItem$$Ljava_lang_String() {
+	try {
+		tree.addItems(null, null);
+		fail("No exception thrown for rows == null");
+	} catch (IllegalArgumentException e) {
+	}
+	Tree other = new Tree(shell, SWT.NONE);
+	try {
+		tree.addItems(new TreeItem(other, SWT.NONE), new String[][] {{"a"}});
+		fail("No exception thrown for parent item of another tree");
+	} catch (IllegalArgumentException e) {
+	} finally {
+		other.dispose();
+	}
+	new TreeColumn(tree, SWT.NONE);
+	new TreeColumn(tree, SWT.NONE);
+	String[][] rows = new String[500][];
+	for (int i = 0; i < rows.length; i++) {
+		rows[i] = new String[] {"Root " + i, "Column " + i};
+	}
+	tree.addItems(null, rows);
+	assertEquals(":a:", rows.length, tree.getItemCount());
+	TreeItem parent = tree.getItem(7);
+	tree.addItems(parent, new String[][] {{"Child 0"}, {"Child 1", "Second"}});
+	tree.addItems(parent, new String[][] {{"Child 2"}});
+	assertEquals(":b:", rows.length, tree.getItemCount());
+	assertEquals(":c:", 3, parent.getItemCount());
+	for (int i = 0; i < rows.length; i++) {
+		TreeItem item = tree.getItem(i);
+		assertEquals(":d:" + i, rows[i][0], item.getText(0));
+		assertEquals(":e:" + i, rows[i][1], item.getText(1));
+	}
+	assertEquals(":f:", "Child 2", parent.getItem(2).getText());
+	assertEquals(":g:", "Second", parent.getItem(1).getText(1));
+	assertEquals(":h:", parent, parent.getItem(0).getParentItem());
+	tree.addItems(null, new String[][] {{"Last"}});
+	assertEquals(":i:", "Last", tree.getItem(rows.length).getText());
+}
+
 public void test_addSelectionListenerLorg_eclipse_swt_events_SelectionListener() {
 	warnUnimpl("Test test_addSelectionListenerLorg_eclipse_swt_events_SelectionListener not written");
 }
@@ -695,6 +734,7 @@ public static Test suite() {
 public static java.util.Vector<String> methodNames() {
 	java.util.Vector<String> methodNames = new java.util.Vector<String>();
 	methodNames.addElement("test_ConstructorLorg_eclipse_swt_widgets_CompositeI");
+	methodNames.addElement("test_addItemsLorg_eclipse_swt_widgets_TreeItem$$Ljava_lang_String");
 	methodNames.addElement("test_addSelectionListenerLorg_eclipse_swt_events_SelectionListener");
 	methodNames.addElement("test_addTreeListenerLorg_eclipse_swt_events_TreeListener");
 	methodNames.addElement("test_computeSizeIIZ");
@@ -744,6 +784,7 @@ public static java.util.Vector<String> methodNames() {
 @Override
 protected void runTest() throws Throwable {
 	if (getName().equals("test_ConstructorLorg_eclipse_swt_widgets_CompositeI")) test_ConstructorLorg_eclipse_swt_widgets_CompositeI();
+	else if (getName().equals("test_addItemsLorg_eclipse_swt_widgets_TreeItem$$Ljava_lang_String")) test_addItemsLorg_eclipse_swt_widgets_TreeItem$$Ljava_lang_String();
 	else if (getName().equals("test_addSelectionListenerLorg_eclipse_swt_events_SelectionListener")) test_addSelectionListenerLorg_eclipse_swt_events_SelectionListener();
 	else if (getName().equals("test_addTreeListenerLorg_eclipse_swt_events_TreeListener")) test_addTreeListenerLorg_eclipse_swt_events_TreeListener();
 	else if (getName().equals("test_computeSizeIIZ")) test_computeSizeIIZ();
@@ -117,6 +117,47 @@ public void test_notifyListenersILorg_eclipse_swt_widgets_Event() {
 	}
 	widget.notifyListeners(SWT.Paint, event);
 	if (gc != null) gc.dispose();
+
+	/*
+	 * changing the type of the event sends it to the listeners of the new type
+	 * that were added after the listener, setting it to SWT.None stops it
+	 */
+	final int[] calls = new int[3];
+	Listener first = new Listener() {
+		public void handleEvent(Event e) {
+			calls[0]++;
+			if (e.detail == 1) e.type = SWT.Help;
+			if (e.detail == 2) e.type = SWT.None;
+		}
+	};
+	Listener second = new Listener() {
+		public void handleEvent(Event e) {
+			calls[1]++;
+		}
+	};
+	Listener help = new Listener() {
+		public void handleEvent(Event e) {
+			calls[2]++;
+		}
+	};
+	widget.addListener(SWT.Arm, first);
+	widget.addListener(SWT.Arm, second);
+	widget.addListener(SWT.Help, help);
+	event = new Event();
+	event.detail = 1;
+	widget.notifyListeners(SWT.Arm, event);
+	assertEquals(1, calls[0]);
+	assertEquals(0, calls[1]);
+	assertEquals(1, calls[2]);
+	event = new Event();
+	event.detail = 2;
+	widget.notifyListeners(SWT.Arm, event);
+	assertEquals(2, calls[0]);
+	assertEquals(0, calls[1]);
+	assertEquals(1, calls[2]);
+	widget.removeListener(SWT.Arm, first);
+	widget.removeListener(SWT.Arm, second);
+	widget.removeListener(SWT.Help, help);
 }
 
 public void test_removeDisposeListenerLorg_eclipse_swt_events_DisposeListener() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -382,6 +382,311 @@ public void test_fastStringDrawing() {
 	disposeMeter(meter);
 }
 
+public void test_sendEvent() {
+	PerformanceMeter meter = createMeterWithoutSummary("Send events to a widget with many listeners");
+	int samples;
+
+	Shell shell = new Shell(display);
+	Composite c = new Composite(shell, SWT.NONE);
+	final int[] count = new int[1];
+	Listener listener = new Listener() {
+		public void handleEvent(Event event) {
+			count[0]++;
+		}
+	};
+	int[] types = {SWT.KeyDown, SWT.KeyUp, SWT.MouseDown, SWT.MouseUp, SWT.MouseEnter, SWT.MouseExit, SWT.FocusIn, SWT.FocusOut, SWT.Dispose, SWT.Resize};
+	for (int i = 0; i < 5; i++) {
+		for (int j = 0; j < types.length; j++) {
+			c.addListener(types[j], listener);
+		}
+	}
+	c.addListener(SWT.Paint, listener);
+	for(samples = 0; samples < 10; samples++) {
+		Event event = new Event();
+		meter.start();
+		for (int i = 0; i < 200000; i++) {
+			c.notifyListeners(SWT.MouseMove, event);
+			c.notifyListeners(SWT.Paint, event);
+			c.isListening(SWT.MouseWheel);
+			c.getListeners(SWT.MouseHover);
+		}
+		meter.stop();
+	}
+	shell.dispose();
+	while(display.readAndDispatch()){/*empty*/}
+	assertEquals(10 * 200000, count[0]);
+	disposeMeter(meter);
+}
+
+public void test_imageDataConversion() {
+	/*
+	* The 24 and 32 bit formats take the fast paths of ImageData.blit(),
+	* the 16 bit format is converted by the generic path for comparison.
+	*/
+	String[] names = {"32 bit xRGB", "32 bit BGRx", "32 bit xRGB with alpha", "24 bit RGB", "24 bit BGR", "16 bit RGB"};
+	PaletteData[] palettes = {
+		new PaletteData(0xFF0000, 0xFF00, 0xFF),
+		new PaletteData(0xFF00, 0xFF0000, 0xFF000000),
+		new PaletteData(0xFF0000, 0xFF00, 0xFF),
+		new PaletteData(0xFF0000, 0xFF00, 0xFF),
+		new PaletteData(0xFF, 0xFF00, 0xFF0000),
+		new PaletteData(0xF800, 0x7E0, 0x1F),
+	};
+	int[] depths = {32, 32, 32, 24, 24, 16};
+	int width = 1024, height = 768;
+	for (int i = 0; i < names.length; i++) {
+		PerformanceMeter meter = createMeterWithoutSummary("Convert image data (" + names[i] + ")");
+		ImageData data = new ImageData(width, height, depths[i], palettes[i]);
+		for (int j = 0; j < data.data.length; j++) {
+			data.data[j] = (byte)(j * 31);
+		}
+		if (i == 2) {
+			data.alphaData = new byte[width * height];
+			for (int j = 0; j < data.alphaData.length; j++) {
+				data.alphaData[j] = (byte)j;
+			}
+		}
+		for (int samples = 0; samples < 10; samples++) {
+			meter.start();
+			for (int j = 0; j < 5; j++) {
+				Image image = new Image(display, data);
+				image.getImageData();
+				image.dispose();
+				data.scaledTo(-width, -height);
+			}
+			meter.stop();
+		}
+		disposeMeter(meter);
+	}
+}
+
+public void test_savePng() {
+	int width = 1024, height = 768;
+	ImageData data = new ImageData(width, height, 24, new PaletteData(0xFF, 0xFF00, 0xFF0000));
+	data.alphaData = new byte[width * height];
+	for (int y = 0; y < height; y++) {
+		for (int x = 0; x < width; x++) {
+			data.setPixel(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8 | ((x ^ y) & 0x3F));
+			data.alphaData[y * width + x] = (byte)(x + y);
+		}
+	}
+	String[] names = {"no compression", "best speed", "default", "best compression"};
+	for (int compression = 0; compression < names.length; compression++) {
+		PerformanceMeter meter = createMeterWithoutSummary("Save PNG (" + names[compression] + ")");
+		ImageLoader loader = new ImageLoader();
+		loader.data = new ImageData[] {data};
+		loader.compression = compression;
+		for (int samples = 0; samples < 10; samples++) {
+			meter.start();
+			loader.save(new java.io.ByteArrayOutputStream(), SWT.IMAGE_PNG);
+			meter.stop();
+		}
+		disposeMeter(meter);
+	}
+}
+
+public void test_gifCodec() {
+	// a corpus of flat, dithered and noisy images with 256 and 16 colors
+	int width = 800, height = 600;
+	RGB[] rgbs = new RGB[256];
+	for (int i = 0; i < rgbs.length; i++) {
+		rgbs[i] = new RGB(i, 255 - i, i / 2);
+	}
+	java.util.Random random = new java.util.Random(0);
+	ImageData[] corpus = new ImageData[6];
+	for (int i = 0; i < corpus.length; i++) {
+		int depth = i < 3 ? 8 : 4;
+		RGB[] colors = new RGB[1 << depth];
+		System.arraycopy(rgbs, 0, colors, 0, colors.length);
+		ImageData data = new ImageData(width, height, depth, new PaletteData(colors));
+		int mask = colors.length - 1;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int pixel;
+				switch (i % 3) {
+					case 0: pixel = x / 4 + y / 3; break;
+					case 1: pixel = x * y / 97 + (random.nextInt(8) == 0 ? random.nextInt(4) : 0); break;
+					default: pixel = random.nextInt(256); break;
+				}
+				data.setPixel(x, y, pixel & mask);
+			}
+		}
+		corpus[i] = data;
+	}
+	byte[][] files = new byte[corpus.length][];
+	PerformanceMeter meter = createMeterWithoutSummary("Encode GIF");
+	for (int samples = 0; samples < 10; samples++) {
+		meter.start();
+		for (int i = 0; i < corpus.length; i++) {
+			ImageLoader loader = new ImageLoader();
+			loader.data = new ImageData[] {corpus[i]};
+			java.io.ByteArrayOutputStream stream = new java.io.ByteArrayOutputStream();
+			loader.save(stream, SWT.IMAGE_GIF);
+			files[i] = stream.toByteArray();
+		}
+		meter.stop();
+	}
+	disposeMeter(meter);
+	meter = createMeterWithoutSummary("Decode GIF");
+	for (int samples = 0; samples < 10; samples++) {
+		meter.start();
+		for (int i = 0; i < files.length; i++) {
+			new ImageLoader().load(new java.io.ByteArrayInputStream(files[i]));
+		}
+		meter.stop();
+	}
+	disposeMeter(meter);
+}
+
+public void test_textConversion() {
+	// item and drawn text is converted to and from the platform encoding
+	String[] strings = {
+		"The quick brown fox jumps over the lazy dog",
+		"Gr\u00FC\u00DFe aus K\u00F6ln, \u00E7a va tr\u00E8s bien",
+		"\u65E5\u672C\u8A9E\u306E\u30C6\u30AD\u30B9\u30C8 \u0440\u0443\u0441\u0441\u043A\u0438\u0439",
+		"&File &Edit &Search &Project &Run &Window &Help",
+	};
+	Shell shell = new Shell(display);
+	Table table = new Table(shell, SWT.NONE);
+	for (int i = 0; i < 4; i++) {
+		new TableColumn(table, SWT.NONE);
+	}
+	TableItem[] items = new TableItem[1000];
+	for (int i = 0; i < items.length; i++) {
+		items[i] = new TableItem(table, SWT.NONE);
+	}
+	PerformanceMeter meter = createMeterWithoutSummary("Set and get item text");
+	for (int samples = 0; samples < 10; samples++) {
+		meter.start();
+		for (int i = 0; i < items.length; i++) {
+			for (int j = 0; j < 4; j++) {
+				String string = strings[(i + j + samples) % strings.length];
+				items[i].setText(j, string);
+				items[i].setText(j, string);
+				items[i].getText(j);
+			}
+		}
+		meter.stop();
+	}
+	disposeMeter(meter);
+	meter = createMeterWithoutSummary("Measure text");
+	GC gc = new GC(shell);
+	for (int samples = 0; samples < 10; samples++) {
+		meter.start();
+		for (int i = 0; i < 20000; i++) {
+			String string = strings[i % strings.length];
+			gc.textExtent(i % 2 == 0 ? string : string + i, SWT.DRAW_MNEMONIC | SWT.DRAW_DELIMITER);
+		}
+		meter.stop();
+	}
+	gc.dispose();
+	shell.dispose();
+	disposeMeter(meter);
+}
+
+public void test_textCache() {
+	// custom drawn tables and trees measure and draw the same labels on every paint
+	String[] strings = new String[2000];
+	for (int i = 0; i < strings.length; i++) {
+		strings[i] = "Item " + i + (i % 3 == 0 ? "\tdetails" : "");
+	}
+	Shell shell = new Shell(display);
+	Image image = new Image(display, 400, 400);
+	GC gc = new GC(image);
+	PerformanceMeter meter = createMeterWithoutSummary("Measure and draw repeated text");
+	for (int samples = 0; samples < 10; samples++) {
+		meter.start();
+		for (int pass = 0; pass < 5; pass++) {
+			for (int i = 0; i < strings.length; i++) {
+				Point extent = gc.textExtent(strings[i]);
+				gc.drawText(strings[i], 0, (i * extent.y) % 400, SWT.DRAW_TAB | SWT.DRAW_TRANSPARENT);
+			}
+		}
+		meter.stop();
+	}
+	gc.dispose();
+	image.dispose();
+	shell.dispose();
+	disposeMeter(meter);
+}
+
+public void test_populateItems() {
+	int count = 20000;
+	String[][] rows = new String[count][];
+	String[] strings = new String[count];
+	for (int i = 0; i < count; i++) {
+		rows[i] = new String[] {"Item " + i, "Size " + (i * 37 % 1000), "Type " + (i % 7)};
+		strings[i] = rows[i][0];
+	}
+	Shell shell = new Shell(display);
+	shell.setLayout(new FillLayout());
+	Table table = new Table(shell, SWT.NONE);
+	Tree tree = new Tree(shell, SWT.NONE);
+	List list = new List(shell, SWT.NONE);
+	for (int i = 0; i < 3; i++) {
+		new TableColumn(table, SWT.NONE).setWidth(100);
+		new TreeColumn(tree, SWT.NONE).setWidth(100);
+	}
+	shell.setSize(600, 400);
+	shell.open();
+	while (display.readAndDispatch()) {/*empty*/}
+	PerformanceMeter meter = createMeterWithoutSummary("Create table items one at a time");
+	for (int samples = 0; samples < 5; samples++) {
+		table.removeAll();
+		meter.start();
+		for (int i = 0; i < count; i++) {
+			new TableItem(table, SWT.NONE).setText(rows[i]);
+		}
+		meter.stop();
+	}
+	disposeMeter(meter);
+	meter = createMeterWithoutSummary("Create table items with Table.setItems");
+	for (int samples = 0; samples < 5; samples++) {
+		table.removeAll();
+		meter.start();
+		table.setItems(rows);
+		meter.stop();
+	}
+	disposeMeter(meter);
+	meter = createMeterWithoutSummary("Create tree items one at a time");
+	for (int samples = 0; samples < 5; samples++) {
+		tree.removeAll();
+		meter.start();
+		for (int i = 0; i < count; i++) {
+			new TreeItem(tree, SWT.NONE).setText(rows[i]);
+		}
+		meter.stop();
+	}
+	disposeMeter(meter);
+	meter = createMeterWithoutSummary("Create tree items with Tree.addItems");
+	for (int samples = 0; samples < 5; samples++) {
+		tree.removeAll();
+		meter.start();
+		tree.addItems(null, rows);
+		meter.stop();
+	}
+	disposeMeter(meter);
+	meter = createMeterWithoutSummary("Add list items one at a time");
+	for (int samples = 0; samples < 5; samples++) {
+		list.removeAll();
+		meter.start();
+		for (int i = 0; i < count; i++) {
+			list.add(strings[i]);
+		}
+		meter.stop();
+	}
+	disposeMeter(meter);
+	meter = createMeterWithoutSummary("Set list items with List.setItems");
+	for (int samples = 0; samples < 5; samples++) {
+		list.removeAll();
+		meter.start();
+		list.setItems(strings);
+		meter.stop();
+	}
+	disposeMeter(meter);
+	shell.dispose();
+}
+
 public static Test suite() {
 	TestSuite suite = new TestSuite();
 	java.util.Vector<String> methodNames = methodNames();
@@ -400,6 +705,13 @@ public static java.util.Vector<String> methodNames() {
 	methodNames.addElement("test_stringDrawing");
 	methodNames.addElement("test_fastStringDrawing");
 	methodNames.addElement("test_layout");
+	methodNames.addElement("test_sendEvent");
+	methodNames.addElement("test_imageDataConversion");
+	methodNames.addElement("test_savePng");
+	methodNames.addElement("test_gifCodec");
+	methodNames.addElement("test_textConversion");
+	methodNames.addElement("test_textCache");
+	methodNames.addElement("test_populateItems");
 	return methodNames;
 }
 @Override
@@ -411,6 +723,13 @@ protected void runTest() throws Throwable {
 	else if (getName().equals("test_windowDrawing")) test_windowDrawing();
 	else if (getName().equals("test_stringDrawing")) test_stringDrawing();
 	else if (getName().equals("test_fastStringDrawing")) test_fastStringDrawing();
+	else if (getName().equals("test_sendEvent")) test_sendEvent();
+	else if (getName().equals("test_imageDataConversion")) test_imageDataConversion();
+	else if (getName().equals("test_savePng")) test_savePng();
+	else if (getName().equals("test_gifCodec")) test_gifCodec();
+	else if (getName().equals("test_textConversion")) test_textConversion();
+	else if (getName().equals("test_textCache")) test_textCache();
+	else if (getName().equals("test_populateItems")) test_populateItems();
 }
 
 /* custom */